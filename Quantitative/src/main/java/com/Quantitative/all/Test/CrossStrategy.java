@@ -0,0 +1,65 @@
+package com.Quantitative.all.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.Quantitative.core.events.BarEvent;
+import com.Quantitative.core.events.SignalEvent;
+import com.Quantitative.strategy.base.BaseStrategy;
+
+/**
+ * 均线交叉测试策略 - 金叉满仓买入、死叉卖出，信号强度固定为1
+ *
+ * 参数 fast、slow 在第一根K线时读取，参数优化器只通过无参构造和 setParameter 创建实例。
+ */
+public class CrossStrategy extends BaseStrategy {
+	private final List<Double> closes = new ArrayList<>();
+	private int fast;
+	private int slow;
+	private boolean holding;
+
+	public CrossStrategy() {
+		super("CrossStrategy");
+	}
+
+	public CrossStrategy(int fast, int slow) {
+		this();
+		setParameter("fast", fast);
+		setParameter("slow", slow);
+	}
+
+	@Override
+	protected void init() {
+		closes.clear();
+		holding = false;
+	}
+
+	@Override
+	protected void calculateSignals(BarEvent bar, List<SignalEvent> signals) {
+		if (closes.isEmpty()) {
+			fast = ((Number) getParameter("fast")).intValue();
+			slow = ((Number) getParameter("slow")).intValue();
+		}
+		closes.add(bar.getClose());
+		if (closes.size() < Math.max(fast, slow)) {
+			return;
+		}
+		double fastMa = average(fast);
+		double slowMa = average(slow);
+		if (!holding && fastMa > slowMa) {
+			holding = true;
+			signals.add(new SignalEvent(bar.getTimestamp(), bar.getSymbol(), "BUY", 1.0, "金叉"));
+		} else if (holding && fastMa < slowMa) {
+			holding = false;
+			signals.add(new SignalEvent(bar.getTimestamp(), bar.getSymbol(), "SELL", 1.0, "死叉"));
+		}
+	}
+
+	private double average(int window) {
+		double sum = 0.0;
+		for (int i = closes.size() - window; i < closes.size(); i++) {
+			sum += closes.get(i);
+		}
+		return sum / window;
+	}
+}
@@ -16,12 +16,15 @@ import com.Quantitative.data.DataInfo;
 public class MockDataFeed implements DataFeed {
 
 	private List<BarEvent> bars;
+	private List<BarEvent> current;
 	private int currentIndex;
+	private int loadCount;
 	private String status;
 	private Map<String, Object> parameters;
 
 	public MockDataFeed() {
 		this.bars = new ArrayList<>();
+		this.current = bars;
 		this.currentIndex = 0;
 		this.status = "CREATED";
 		this.parameters = new HashMap<>();
@@ -30,13 +33,22 @@ public class MockDataFeed implements DataFeed {
 	public MockDataFeed(List<BarEvent> bars) {
 		this();
 		this.bars = new ArrayList<>(bars);
+		this.current = this.bars;
 	}
 
 	public void setTestData(List<BarEvent> testBars) {
 		this.bars = new ArrayList<>(testBars);
+		this.current = this.bars;
 		this.currentIndex = 0;
 	}
 
+	/**
+	 * loadHistoricalData 被调用的次数
+	 */
+	public int getLoadCount() {
+		return loadCount;
+	}
+
 	@Override
 	public void initialize() {
 		System.out.println("初始化模拟数据源，数据条数: " + bars.size());
@@ -73,26 +85,42 @@ public class MockDataFeed implements DataFeed {
 
 	@Override
 	public List<BarEvent> loadHistoricalData(String symbol, LocalDateTime start, LocalDateTime end) {
-		System.out.printf("加载历史数据: %s %s 到 %s%n", symbol, start, end);
-		return new ArrayList<>(bars);
+		loadCount++;
+		// 按代码和闭区间 [start, end] 过滤，null 表示不限
+		List<BarEvent> loaded = new ArrayList<>();
+		for (BarEvent bar : bars) {
+			if (symbol != null && !symbol.equals(bar.getSymbol())) {
+				continue;
+			}
+			if (start != null && bar.getTimestamp().isBefore(start)) {
+				continue;
+			}
+			if (end != null && bar.getTimestamp().isAfter(end)) {
+				continue;
+			}
+			loaded.add(bar);
+		}
+		current = loaded;
+		currentIndex = 0;
+		return new ArrayList<>(loaded);
 	}
 
 	@Override
 	public BarEvent getNextBar() {
-		if (currentIndex < bars.size()) {
-			return bars.get(currentIndex++);
+		if (currentIndex < current.size()) {
+			return current.get(currentIndex++);
 		}
 		return null;
 	}
 
 	@Override
 	public boolean hasNextBar() {
-		return currentIndex < bars.size();
+		return currentIndex < current.size();
 	}
 
 	@Override
 	public List<BarEvent> getAllBars() {
-		return new ArrayList<>(bars);
+		return new ArrayList<>(current);
 	}
 
 	@Override
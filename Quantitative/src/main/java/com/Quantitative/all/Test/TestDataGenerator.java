@@ -3,6 +3,7 @@ package com.Quantitative.all.Test;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 
 import com.Quantitative.core.events.BarEvent;
 
@@ -44,4 +45,35 @@ public class TestDataGenerator {
 
 		return bars;
 	}
-}
\ No newline at end of file
+
+	/**
+	 * 固定种子的日K线随机游走，同一种子结果完全一致
+	 *
+	 * 每日收益为 N(0, volatility)，开盘价取上一根收盘价，影线在实体外扩 0.5%，成交量固定为 100000
+	 */
+	public static List<BarEvent> randomWalk(String symbol, LocalDateTime start, int count, double startPrice,
+			double volatility, long seed) {
+		return cyclicalWalk(symbol, start, count, startPrice, 0.0, 1.0, volatility, 0.005, 100000, seed);
+	}
+
+	/**
+	 * 带周期漂移的固定种子日K线随机游走
+	 *
+	 * 第 i 日收益为 amplitude * sin(i / period) + N(0, volatility)，用于产生可被均线类策略捕捉的趋势段
+	 *
+	 * @param wick 最高/最低价相对实体上下沿的外扩比例
+	 */
+	public static List<BarEvent> cyclicalWalk(String symbol, LocalDateTime start, int count, double startPrice,
+			double amplitude, double period, double volatility, double wick, long volume, long seed) {
+		Random random = new Random(seed);
+		List<BarEvent> bars = new ArrayList<>(count);
+		double close = startPrice;
+		for (int i = 0; i < count; i++) {
+			double open = close;
+			close = open * (1 + amplitude * Math.sin(i / period) + random.nextGaussian() * volatility);
+			bars.add(new BarEvent(start.plusDays(i), symbol, open, Math.max(open, close) * (1 + wick),
+					Math.min(open, close) * (1 - wick), close, volume));
+		}
+		return bars;
+	}
+}
@@ -5,10 +5,13 @@ import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import com.Quantitative.common.utils.PerformanceMonitor;
 import com.Quantitative.core.events.FillEvent;
+import com.Quantitative.portfolio.Portfolio;
+import com.Quantitative.portfolio.TradeJournal;
 
 /**
  * 回测结果类 - 完整的回测结果分析和报告
@@ -43,7 +46,7 @@ public class BacktestResult {
 	private double avgConsecutiveLosses;
 
 	// 数据存储
-	private List<FillEvent> tradeHistory;
+	private final Supplier<TradeJournal> tradeJournal;
 	private List<Double> equityCurve;
 	private List<Double> drawdownCurve;
 	private List<Double> returnSeries;
@@ -52,18 +55,40 @@ public class BacktestResult {
 	private PerformanceMonitor performanceMonitor;
 
 	public BacktestResult() {
-		this.tradeHistory = new ArrayList<>();
+		this(new TradeJournal());
+	}
+
+	/**
+	 * 使用投资组合的成交流水，成交由投资组合记录，不需要再调用 {@link #addTrade}
+	 */
+	public BacktestResult(TradeJournal tradeJournal) {
+		this(() -> tradeJournal);
+	}
+
+	/**
+	 * 跟随投资组合的成交流水，投资组合替换流水（如配置 tradeJournalFile）后读取新的流水
+	 */
+	public BacktestResult(Portfolio portfolio) {
+		this(portfolio::getTradeJournal);
+	}
+
+	private BacktestResult(Supplier<TradeJournal> tradeJournal) {
+		this.tradeJournal = tradeJournal;
 		this.equityCurve = new ArrayList<>();
 		this.drawdownCurve = new ArrayList<>();
 		this.returnSeries = new ArrayList<>();
 		this.performanceMonitor = PerformanceMonitor.getInstance();
 	}
 
+	private TradeJournal journal() {
+		return tradeJournal.get();
+	}
+
 	/**
 	 * 添加交易记录
 	 */
 	public void addTrade(FillEvent trade) {
-		tradeHistory.add(trade);
+		journal().record(trade);
 	}
 
 	/**
@@ -125,7 +150,7 @@ public class BacktestResult {
 	 * 计算交易统计
 	 */
 	private void calculateTradeStatistics() {
-		if (tradeHistory.isEmpty()) {
+		if (journal().isEmpty()) {
 			System.out.println("⚠️ [BacktestResult] 交易历史为空，但实际有持仓变化");
 			// 即使没有成交记录，也可能有持仓变化
 			return;
@@ -134,7 +159,7 @@ public class BacktestResult {
 		List<CompletedTrade> completedTrades = matchTrades();
 		totalTrades = completedTrades.size();
 
-		System.out.println("🔍 [BacktestResult] 成交记录: " + tradeHistory.size() + " 条");
+		System.out.println("🔍 [BacktestResult] 成交记录: " + journal().size() + " 条");
 		System.out.println("🔍 [BacktestResult] 完整交易: " + totalTrades + " 笔");
 
 		if (totalTrades == 0) {
@@ -182,8 +207,13 @@ public class BacktestResult {
 	 */
 	private void checkOpenPositions() {
 		// 如果有买入但没有卖出，说明有未平仓交易
-		long buyCount = tradeHistory.stream().filter(fill -> "BUY".equals(fill.getDirection())).count();
-		long sellCount = tradeHistory.stream().filter(fill -> "SELL".equals(fill.getDirection())).count();
+		long buyCount = 0;
+		for (int row = 0; row < journal().size(); row++) {
+			if (journal().isBuy(row)) {
+				buyCount++;
+			}
+		}
+		long sellCount = journal().size() - buyCount;
 
 		if (buyCount > sellCount) {
 			System.out.println("⚠️ [BacktestResult] 检测到未平仓交易: " + (buyCount - sellCount) + " 笔");
@@ -196,36 +226,42 @@ public class BacktestResult {
 	 */
 	private List<CompletedTrade> matchTrades() {
 		List<CompletedTrade> completedTrades = new ArrayList<>();
-		Map<String, List<FillEvent>> buyTrades = new HashMap<>();
-		Map<String, List<FillEvent>> sellTrades = new HashMap<>();
-
-		// 分离买卖交易
-		for (FillEvent trade : tradeHistory) {
-			String symbol = trade.getSymbol();
-			if ("BUY".equals(trade.getDirection())) {
-				buyTrades.computeIfAbsent(symbol, k -> new ArrayList<>()).add(trade);
-			} else if ("SELL".equals(trade.getDirection())) {
-				sellTrades.computeIfAbsent(symbol, k -> new ArrayList<>()).add(trade);
+		Map<String, Integer> buySymbols = new HashMap<>();
+		int buyTotal = 0;
+
+		// 有买入的股票
+		for (int row = 0; row < journal().size(); row++) {
+			if (journal().isBuy(row)) {
+				int symbolId = journal().getSymbolId(row);
+				buySymbols.computeIfAbsent(journal().getSymbol(row), k -> symbolId);
+				buyTotal++;
 			}
 		}
 
-		System.out.println("🔍 [matchTrades] 买入交易: " + buyTrades.values().stream().mapToInt(List::size).sum());
-		System.out.println("🔍 [matchTrades] 卖出交易: " + sellTrades.values().stream().mapToInt(List::size).sum());
-
-		// 匹配交易（先进先出）
-		for (String symbol : buyTrades.keySet()) {
-			List<FillEvent> buys = buyTrades.get(symbol);
-			List<FillEvent> sells = sellTrades.getOrDefault(symbol, new ArrayList<>());
+		System.out.println("🔍 [matchTrades] 买入交易: " + buyTotal);
+		System.out.println("🔍 [matchTrades] 卖出交易: " + (journal().size() - buyTotal));
+
+		// 匹配交易（先进先出），按股票遍历流水中该股票的成交
+		for (Integer symbolId : buySymbols.values()) {
+			int[] rows = journal().rowsOf(symbolId, 0);
+			int[] buys = new int[rows.length];
+			int[] sells = new int[rows.length];
+			int buyCount = 0;
+			int sellCount = 0;
+			for (int row : rows) {
+				if (journal().isBuy(row)) {
+					buys[buyCount++] = row;
+				} else {
+					sells[sellCount++] = row;
+				}
+			}
 
 			int buyIndex = 0;
 			int sellIndex = 0;
 
-			while (buyIndex < buys.size() && sellIndex < sells.size()) {
-				FillEvent buy = buys.get(buyIndex);
-				FillEvent sell = sells.get(sellIndex);
-
+			while (buyIndex < buyCount && sellIndex < sellCount) {
 				// 创建完整交易记录
-				CompletedTrade completedTrade = createCompletedTrade(buy, sell);
+				CompletedTrade completedTrade = createCompletedTrade(buys[buyIndex], sells[sellIndex]);
 				completedTrades.add(completedTrade);
 
 				buyIndex++;
@@ -233,9 +269,8 @@ public class BacktestResult {
 			}
 
 			// 处理未匹配的买入交易（未平仓）
-			while (buyIndex < buys.size()) {
-				FillEvent buy = buys.get(buyIndex);
-				System.out.println("⚠️ [matchTrades] 未平仓买入: " + buy);
+			while (buyIndex < buyCount) {
+				System.out.println("⚠️ [matchTrades] 未平仓买入: " + journal().toFillEvent(buys[buyIndex]));
 				// 可以创建未平仓交易记录
 				buyIndex++;
 			}
@@ -266,7 +301,7 @@ public class BacktestResult {
 	 */
 	private void calculateHoldingStatistics() {
 		// 简化实现 - 实际应该基于交易时间计算
-		if (!tradeHistory.isEmpty()) {
+		if (!journal().isEmpty()) {
 			avgHoldingPeriod = 5.0; // 假设平均持仓5天
 		}
 	}
@@ -274,15 +309,18 @@ public class BacktestResult {
 	/**
 	 * 创建完整交易记录
 	 */
-	private CompletedTrade createCompletedTrade(FillEvent buy, FillEvent sell) {
-		double buyCost = buy.getFillPrice() * buy.getQuantity() + buy.getCommission();
-		double sellRevenue = sell.getFillPrice() * sell.getQuantity() - sell.getCommission();
+	private CompletedTrade createCompletedTrade(int buy, int sell) {
+		double buyCost = journal().getPrice(buy) * journal().getQuantity(buy) + journal().getCommission(buy);
+		double sellRevenue = journal().getPrice(sell) * journal().getQuantity(sell)
+				- journal().getCommission(sell);
 		double profit = sellRevenue - buyCost;
 		double profitPercent = (profit / buyCost) * 100;
-		long holdingDays = java.time.Duration.between(buy.getTimestamp(), sell.getTimestamp()).toDays();
+		java.time.LocalDateTime entryTime = journal().getTimestamp(buy);
+		java.time.LocalDateTime exitTime = journal().getTimestamp(sell);
+		long holdingDays = java.time.Duration.between(entryTime, exitTime).toDays();
 
-		return new CompletedTrade(buy.getSymbol(), buy.getTimestamp(), sell.getTimestamp(), buy.getFillPrice(),
-				sell.getFillPrice(), buy.getQuantity(), profit, profitPercent, holdingDays);
+		return new CompletedTrade(journal().getSymbol(buy), entryTime, exitTime, journal().getPrice(buy),
+				journal().getPrice(sell), journal().getQuantity(buy), profit, profitPercent, holdingDays);
 	}
 
 	/**
@@ -617,8 +655,15 @@ public class BacktestResult {
 		this.avgConsecutiveLosses = avgConsecutiveLosses;
 	}
 
+	/**
+	 * 成交记录，按需由成交流水还原（订单号由行号生成）
+	 */
 	public List<FillEvent> getTradeHistory() {
-		return new ArrayList<>(tradeHistory);
+		return journal().toFillEvents();
+	}
+
+	public TradeJournal getTradeJournal() {
+		return tradeJournal.get();
 	}
 
 	public List<Double> getEquityCurve() {
@@ -640,17 +685,15 @@ public class BacktestResult {
 	 */
 	public void printTradeHistory() {
 		System.out.println("\n=== 详细交易历史 ===");
-		List<FillEvent> trades = getTradeHistory();
-
-		if (trades.isEmpty()) {
+		if (journal().isEmpty()) {
 			System.out.println("无交易记录");
 			return;
 		}
 
-		for (int i = 0; i < trades.size(); i++) {
-			FillEvent trade = trades.get(i);
-			System.out.printf("交易%d: %s %s @%.2f x%d 手续费:%.2f%n", i + 1, trade.getTimestamp().toLocalDate(),
-					trade.getDirection(), trade.getFillPrice(), trade.getQuantity(), trade.getCommission());
+		for (int i = 0; i < journal().size(); i++) {
+			System.out.printf("交易%d: %s %s @%.2f x%d 手续费:%.2f%n", i + 1, journal().getTimestamp(i).toLocalDate(),
+					journal().getDirection(i), journal().getPrice(i), journal().getQuantity(i),
+					journal().getCommission(i));
 		}
 	}
 
@@ -735,7 +778,7 @@ public class BacktestResult {
 		report.put("avgConsecutiveWins", avgConsecutiveWins);
 		report.put("avgConsecutiveLosses", avgConsecutiveLosses);
 
-		report.put("tradeCount", tradeHistory.size());
+		report.put("tradeCount", journal().size());
 		report.put("equityPoints", equityCurve.size());
 
 		return report;
@@ -26,6 +26,7 @@ import com.Quantitative.portfolio.Position;
 import com.Quantitative.portfolio.RiskManager;
 import com.Quantitative.portfolio.StopLossTakeProfitManager;
 import com.Quantitative.strategy.base.BaseStrategy;
+import com.Quantitative.strategy.graph.IndicatorGraph;
 
 /**
  * 事件驱动回测引擎 - 集成统一监控版本
@@ -36,6 +37,7 @@ public class EventDrivenBacktestEngine {
 	private final BacktestConfig config;
 
 	private BaseStrategy strategy;
+	private final IndicatorGraph indicatorGraph = new IndicatorGraph();
 	private Portfolio portfolio;
 	private ExecutionEngine executionEngine;
 	private RiskManager riskManager;
@@ -185,7 +187,7 @@ public class EventDrivenBacktestEngine {
 		this.executionEngine = new SimulatedExecution();
 
 		// 5. 回测结果
-		this.result = new BacktestResult();
+		this.result = new BacktestResult(portfolio);
 		result.setInitialCapital(config.getInitialCapital());
 		result.addEquityPoint(config.getInitialCapital());
 
@@ -216,10 +218,13 @@ public class EventDrivenBacktestEngine {
 				logger.debug("处理第 {} 个Bar: {} - 收盘价: {}", barCount, bar.getTimestamp(), bar.getClose());
 			}
 
-			// 1. 检查止损止盈
+			// 1. 撮合已到达的延迟订单（以本根K线开盘价成交）
+			publishDelayedFills(bar);
+
+			// 2. 检查止损止盈
 			checkAndExecuteRiskControls(bar);
 
-			// 2. 发布Bar事件到事件总线
+			// 3. 发布Bar事件到事件总线
 			eventBus.publish(bar);
 
 			// 记录Bar处理时间
@@ -256,6 +261,31 @@ public class EventDrivenBacktestEngine {
 		logger.info("进度: {}/{} Bars ({:.1f}%) | 总资产: {,.2f}", currentBar, totalBars, progress, currentValue);
 	}
 
+	/**
+	 * 推进模拟执行时钟，发布到达时间不晚于本根K线的订单成交和挂单成交；
+	 * 成交的买单在 Portfolio.processFill 中释放预留资金，撤销或过期的在这里释放
+	 */
+	private void publishDelayedFills(BarEvent bar) {
+		if (!(executionEngine instanceof SimulatedExecution)) {
+			return;
+		}
+
+		SimulatedExecution simulated = (SimulatedExecution) executionEngine;
+		for (FillEvent fill : simulated.onBar(bar)) {
+			totalOrdersExecuted++;
+			eventBus.publish(fill);
+		}
+
+		if (portfolio != null) {
+			for (String orderId : portfolio.getReservedOrderIds()) {
+				String status = simulated.getOrderStatus(orderId);
+				if ("CANCELLED".equals(status) || "EXPIRED".equals(status)) {
+					portfolio.releaseReservation(orderId);
+				}
+			}
+		}
+	}
+
 	/**
 	 * 检查止损止盈
 	 */
@@ -264,11 +294,7 @@ public class EventDrivenBacktestEngine {
 			return;
 		}
 
-		String symbol = bar.getSymbol();
-		double currentPrice = bar.getClose();
-
-		List<StopLossTakeProfitManager.ExitSignal> exitSignals = riskControlManager.checkRiskControls(symbol,
-				currentPrice);
+		List<StopLossTakeProfitManager.ExitSignal> exitSignals = riskControlManager.checkRiskControls(bar);
 
 		for (StopLossTakeProfitManager.ExitSignal exitSignal : exitSignals) {
 			executeExitSignal(exitSignal, bar.getTimestamp());
@@ -276,7 +302,8 @@ public class EventDrivenBacktestEngine {
 	}
 
 	/**
-	 * 执行退出信号
+	 * 执行退出信号。止损止盈视为已在券商挂好的条件单，在触发的这根K线上按触发价（跳空时为开盘价）
+	 * 立即成交，不经过 SimulatedExecution 的延迟队列；普通策略订单仍按延迟模型在之后的K线成交
 	 */
 	private void executeExitSignal(StopLossTakeProfitManager.ExitSignal exitSignal, LocalDateTime timestamp) {
 		try {
@@ -295,7 +322,6 @@ public class EventDrivenBacktestEngine {
 						portfolio.processFill(fill);
 
 						if (result != null) {
-							result.addTrade(fill);
 							result.addEquityPoint(portfolio.getTotalValue());
 						}
 
@@ -316,6 +342,15 @@ public class EventDrivenBacktestEngine {
 	private void finishBacktest() {
 		logger.info("步骤4: 结束处理...");
 
+		if (executionEngine instanceof SimulatedExecution) {
+			int cancelled = ((SimulatedExecution) executionEngine).cancelPendingOrders();
+			if (cancelled > 0) {
+				logger.info("撤销未成交的延迟订单和挂单: {} 笔", cancelled);
+			}
+		}
+		if (portfolio != null) {
+			portfolio.releaseAllReservations();
+		}
 		forceCloseAllPositions();
 		calculateFinalResults();
 		printStatistics();
@@ -325,7 +360,7 @@ public class EventDrivenBacktestEngine {
 	}
 
 	/**
-	 * 强制平仓
+	 * 强制平仓。回测已没有下一根K线，按最后价格在最后一根K线的时间立即成交，不经过延迟模型
 	 */
 	private void forceCloseAllPositions() {
 		if (portfolio == null || portfolio.getPositions().isEmpty()) {
@@ -356,8 +391,8 @@ public class EventDrivenBacktestEngine {
 						currentPrice = defaultPrice;
 					}
 
-					OrderEvent closeOrder = new OrderEvent(LocalDateTime.now(), symbol, "SELL", position.getQuantity(),
-							currentPrice, "MARKET");
+					OrderEvent closeOrder = new OrderEvent(lastBar.getTimestamp(), symbol, "SELL",
+							position.getQuantity(), currentPrice, "MARKET");
 
 					if (executionEngine != null) {
 						FillEvent fill = executionEngine.executeOrder(closeOrder);
@@ -434,7 +469,7 @@ public class EventDrivenBacktestEngine {
 				try {
 					// 更新市场价格
 					if (portfolio != null) {
-						portfolio.updateMarketPrice(bar.getSymbol(), bar.getClose());
+						portfolio.updateMarketPrice(bar.getSymbol(), bar.getClose(), bar.getTimestamp());
 					}
 
 					// 策略生成信号 - 这是关键！
@@ -594,7 +629,15 @@ public class EventDrivenBacktestEngine {
 				OrderEvent order = (OrderEvent) event;
 
 				try {
-					if (executionEngine != null) {
+					if (executionEngine instanceof SimulatedExecution
+							&& ((SimulatedExecution) executionEngine).defersExecution(order)) {
+						// 延迟成交或挂单：订单进入模拟执行队列，由 publishDelayedFills 发布成交；
+						// 买单在成交前预留资金，避免同时排队的多笔买单超额占用现金
+						String orderId = ((SimulatedExecution) executionEngine).submitOrder(order);
+						if (orderId != null && portfolio != null) {
+							portfolio.reserveCash(orderId, order);
+						}
+					} else if (executionEngine != null) {
 						FillEvent fill = executionEngine.executeOrder(order);
 						if (fill != null) {
 							totalOrdersExecuted++;
@@ -664,10 +707,12 @@ public class EventDrivenBacktestEngine {
 						portfolio.processFill(fill);
 					}
 
+					// 成交已由投资组合记入共享的成交流水
 					if (result != null) {
-						result.addTrade(fill);
 						if (portfolio != null) {
 							result.addEquityPoint(portfolio.getTotalValue());
+						} else {
+							result.addTrade(fill);
 						}
 					}
 
@@ -721,6 +766,14 @@ public class EventDrivenBacktestEngine {
 
 	public void setStrategy(BaseStrategy strategy) {
 		this.strategy = strategy;
+		// 引擎内的策略共享同一指标计算图
+		if (strategy != null) {
+			strategy.setIndicatorGraph(indicatorGraph);
+		}
+	}
+
+	public IndicatorGraph getIndicatorGraph() {
+		return indicatorGraph;
 	}
 
 	public void setRiskManager(RiskManager riskManager) {
@@ -0,0 +1,127 @@
+package com.Quantitative.backtest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.Quantitative.BaseTest;
+import com.Quantitative.all.Test.MockDataFeed;
+import com.Quantitative.config.BacktestConfig;
+import com.Quantitative.core.events.BarEvent;
+import com.Quantitative.core.events.EnhancedSignalEvent;
+import com.Quantitative.core.events.FillEvent;
+import com.Quantitative.core.events.SignalEvent;
+import com.Quantitative.strategy.base.BaseStrategy;
+
+/**
+ * 事件驱动回测引擎测试 - 普通订单按延迟模型在下一根K线开盘成交，止损和强制平仓在当根K线立即成交，
+ * 排队中的买单预留资金
+ */
+public class EventDrivenBacktestEngineTest extends BaseTest {
+
+	private static final String SYMBOL = "600519";
+	private static final LocalDateTime START = LocalDateTime.of(2024, 1, 2, 15, 0);
+
+	@Test
+	public void testStopExitFillsOnTriggerBarAndBuyOnNextOpen() {
+		List<BarEvent> bars = new ArrayList<>();
+		bars.add(bar(0, 10.0, 10.2, 9.9, 10.0));
+		bars.add(bar(1, 10.0, 10.3, 9.9, 10.1));
+		bars.add(bar(2, 10.5, 10.6, 10.2, 10.4));
+		bars.add(bar(3, 10.3, 10.4, 10.1, 10.2));
+		// 收盘跌破止损价 9.0
+		bars.add(bar(4, 9.6, 9.7, 8.5, 8.8));
+		bars.add(bar(5, 8.8, 9.0, 8.6, 8.9));
+
+		EventDrivenBacktestEngine engine = engine(bars);
+		engine.setStrategy(new BuyOnceStrategy(1, 2));
+		engine.runBacktest();
+
+		List<FillEvent> fills = engine.getResult().getTradeHistory();
+		assertEquals(fills.toString(), 2, fills.size());
+
+		// 同一根K线的两个买入信号只成交一笔：第一笔排队时已占用该股票的未成交买单
+		FillEvent buy = fills.get(0);
+		assertEquals("BUY", buy.getDirection());
+		assertEquals(bars.get(2).getTimestamp(), buy.getTimestamp());
+		assertEquals(10.5 * 1.001, buy.getFillPrice(), 1e-9);
+
+		// 止损视为券商端条件单，在触发的K线立即成交（非盘中模式按收盘价），不等下一根K线
+		FillEvent stop = fills.get(1);
+		assertEquals("SELL", stop.getDirection());
+		assertEquals(bars.get(4).getTimestamp(), stop.getTimestamp());
+		assertEquals(8.8 * 0.999, stop.getFillPrice(), 1e-9);
+
+		assertEquals(0.0, engine.getPortfolio().getReservedCash(), 0.0);
+		assertTrue(engine.getPortfolio().getPositions().isEmpty());
+	}
+
+	@Test
+	public void testForcedCloseUsesLastBarTime() {
+		List<BarEvent> bars = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			bars.add(bar(i, 10.0 + i * 0.1, 10.2 + i * 0.1, 9.9 + i * 0.1, 10.1 + i * 0.1));
+		}
+
+		EventDrivenBacktestEngine engine = engine(bars);
+		engine.setStrategy(new BuyOnceStrategy(1, 1));
+		engine.runBacktest();
+
+		List<FillEvent> fills = engine.getResult().getTradeHistory();
+		assertEquals(fills.toString(), 2, fills.size());
+		assertEquals(bars.get(2).getTimestamp(), fills.get(0).getTimestamp());
+		// 回测结束后没有下一根K线，按最后价格在最后一根K线的时间平仓
+		assertEquals("SELL", fills.get(1).getDirection());
+		assertEquals(bars.get(4).getTimestamp(), fills.get(1).getTimestamp());
+	}
+
+	private static EventDrivenBacktestEngine engine(List<BarEvent> bars) {
+		BacktestConfig config = new BacktestConfig(SYMBOL, bars.get(0).getTimestamp(),
+				bars.get(bars.size() - 1).getTimestamp(), 1_000_000.0);
+		return new EventDrivenBacktestEngine(new MockDataFeed(bars), config);
+	}
+
+	private static BarEvent bar(int day, double open, double high, double low, double close) {
+		return new BarEvent(START.plusDays(day), SYMBOL, open, high, low, close, 100000);
+	}
+
+	/**
+	 * 在第 buyBar 根K线发出 count 个买入信号，第一个带 9.0 的止损
+	 */
+	private static final class BuyOnceStrategy extends BaseStrategy {
+		private final int buyBar;
+		private final int count;
+		private int index;
+
+		BuyOnceStrategy(int buyBar, int count) {
+			super("BuyOnce");
+			this.buyBar = buyBar;
+			this.count = count;
+		}
+
+		@Override
+		protected void init() {
+			index = 0;
+		}
+
+		@Override
+		protected void calculateSignals(BarEvent bar, List<SignalEvent> signals) {
+			if (index++ != buyBar) {
+				return;
+			}
+			for (int i = 0; i < count; i++) {
+				EnhancedSignalEvent signal = new EnhancedSignalEvent(bar.getTimestamp(), bar.getSymbol(), "BUY", 1.0,
+						"BuyOnce");
+				if (i == 0) {
+					signal.setStopLossPrice(9.0);
+				}
+				signals.add(signal);
+			}
+		}
+	}
+}
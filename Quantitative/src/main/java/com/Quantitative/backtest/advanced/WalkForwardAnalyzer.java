@@ -13,15 +13,23 @@ import java.util.stream.Stream;
 import com.Quantitative.backtest.BacktestResult;
 import com.Quantitative.backtest.EventDrivenBacktestEngine;
 import com.Quantitative.config.BacktestConfig;
+import com.Quantitative.core.events.BarEvent;
+import com.Quantitative.data.BarSeriesDataFeed;
 import com.Quantitative.data.DataFeed;
+import com.Quantitative.data.model.BarSeries;
 import com.Quantitative.strategy.base.BaseStrategy;
+import com.Quantitative.strategy.base.StrategySnapshot;
 
 /**
  * Walk-Forward分析器 - 滚动窗口回测
  */
 public class WalkForwardAnalyzer {
 	private final DataFeed dataFeed;
+	// 全量历史只加载一次，各轮训练/测试窗口在其上切片
+	private DataFeed windowFeed;
 	private BaseStrategy strategy;
+	// 训练期最佳参数的策略状态，前向测试从这里继续而不是从头预热
+	private StrategySnapshot bestSnapshot;
 	private WalkForwardConfig config;
 	private AtomicInteger currentRound = new AtomicInteger(0);
 
@@ -46,6 +54,7 @@ public class WalkForwardAnalyzer {
 
 		WalkForwardResult result = new WalkForwardResult();
 		List<TimeWindow> windows = generateTimeWindows();
+		prepareWindowFeed();
 
 		System.out.printf("生成 %d 个时间窗口%n", windows.size());
 
@@ -94,6 +103,21 @@ public class WalkForwardAnalyzer {
 		return windows;
 	}
 
+	/**
+	 * 一次性加载分析区间内的全部数据，之后每个窗口只需二分定位，不再重复加载和复制
+	 */
+	private void prepareWindowFeed() {
+		List<BarEvent> history = dataFeed.loadHistoricalData(config.getSymbol(), config.getStartDate(),
+				config.getEndDate());
+		if (history == null || history.isEmpty()) {
+			// 无法预加载时退回原数据源，由回测引擎按窗口加载
+			windowFeed = dataFeed;
+			return;
+		}
+		windowFeed = new BarSeriesDataFeed(config.getSymbol(), BarSeries.of(history));
+		System.out.printf("预加载历史数据: %d条记录%n", history.size());
+	}
+
 	/**
 	 * 执行单轮Walk-Forward
 	 */
@@ -105,6 +129,7 @@ public class WalkForwardAnalyzer {
 			System.out.println("  阶段1: 参数优化...");
 			long startTime = System.currentTimeMillis();
 
+			bestSnapshot = null;
 			Map<String, Object> optimizedParams = optimizeParameters(window.getTrainStart(), window.getTrainEnd());
 			round.setOptimizedParameters(optimizedParams);
 
@@ -177,7 +202,7 @@ public class WalkForwardAnalyzer {
 					}
 
 					try {
-						EventDrivenBacktestEngine engine = new EventDrivenBacktestEngine(dataFeed, trainConfig);
+						EventDrivenBacktestEngine engine = new EventDrivenBacktestEngine(windowFeed, trainConfig);
 
 						// 创建策略实例并设置参数
 						BaseStrategy testStrategy = createStrategyWithParams(period, overbought, oversold);
@@ -190,6 +215,7 @@ public class WalkForwardAnalyzer {
 
 						if (score > bestScore) {
 							bestScore = score;
+							bestSnapshot = captureSnapshot(testStrategy);
 							bestParams.clear();
 							bestParams.put("rsiPeriod", period);
 							bestParams.put("overbought", overbought);
@@ -228,7 +254,7 @@ public class WalkForwardAnalyzer {
 			double oversold = 20 + Math.random() * 15; // 20-35
 
 			try {
-				EventDrivenBacktestEngine engine = new EventDrivenBacktestEngine(dataFeed, trainConfig);
+				EventDrivenBacktestEngine engine = new EventDrivenBacktestEngine(windowFeed, trainConfig);
 				BaseStrategy testStrategy = createStrategyWithParams(period, overbought, oversold);
 				engine.setStrategy(testStrategy);
 
@@ -237,6 +263,7 @@ public class WalkForwardAnalyzer {
 
 				if (score > bestScore) {
 					bestScore = score;
+					bestSnapshot = captureSnapshot(testStrategy);
 					bestParams.clear();
 					bestParams.put("rsiPeriod", period);
 					bestParams.put("overbought", overbought);
@@ -296,16 +323,37 @@ public class WalkForwardAnalyzer {
 	private BacktestResult runOutOfSampleTest(LocalDateTime start, LocalDateTime end,
 			Map<String, Object> optimizedParams) {
 		BacktestConfig testConfig = createConfig(start, end);
-		EventDrivenBacktestEngine engine = new EventDrivenBacktestEngine(dataFeed, testConfig);
+		EventDrivenBacktestEngine engine = new EventDrivenBacktestEngine(windowFeed, testConfig);
 
 		// 使用优化后的参数创建策略
 		BaseStrategy testStrategy = createStrategyWithParams((Integer) optimizedParams.get("rsiPeriod"),
 				(Double) optimizedParams.get("overbought"), (Double) optimizedParams.get("oversold"));
 
 		engine.setStrategy(testStrategy);
+		if (bestSnapshot != null) {
+			try {
+				testStrategy.restore(bestSnapshot);
+			} catch (RuntimeException e) {
+				System.err.printf("    快照恢复失败，前向测试从头预热: %s%n", e.getMessage());
+			}
+		}
 		return engine.runBacktest();
 	}
 
+	/**
+	 * 保存训练期结束时的策略状态，策略不支持快照时返回 null
+	 */
+	private StrategySnapshot captureSnapshot(BaseStrategy trainedStrategy) {
+		if (!trainedStrategy.supportsSnapshot()) {
+			return null;
+		}
+		try {
+			return trainedStrategy.snapshot();
+		} catch (RuntimeException e) {
+			return null;
+		}
+	}
+
 	/**
 	 * 使用参数创建策略实例
 	 */
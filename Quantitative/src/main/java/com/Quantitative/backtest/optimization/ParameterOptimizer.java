@@ -2,11 +2,20 @@
 package com.Quantitative.backtest.optimization;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutorCompletionService;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
@@ -17,7 +26,9 @@ import java.util.stream.Stream;
 import com.Quantitative.backtest.BacktestResult;
 import com.Quantitative.backtest.EventDrivenBacktestEngine;
 import com.Quantitative.config.BacktestConfig;
+import com.Quantitative.data.BarSeriesDataFeed;
 import com.Quantitative.data.DataFeed;
+import com.Quantitative.data.model.BarSeries;
 import com.Quantitative.strategy.base.BaseStrategy;
 
 /**
@@ -28,6 +39,8 @@ public class ParameterOptimizer {
 	private final BaseStrategy baseStrategy;
 	private final BacktestConfig baseConfig;
 	private OptimizationConfig optimizationConfig;
+	// 历史数据每次优化只加载一次，并行评估各自使用共享底层数据的只读视图，不并发访问同一个数据源
+	private volatile BarSeries evaluationSeries;
 
 	public ParameterOptimizer(DataFeed dataFeed, BaseStrategy strategy, BacktestConfig config) {
 		this.dataFeed = dataFeed;
@@ -41,10 +54,11 @@ public class ParameterOptimizer {
 	 */
 	public OptimizationResult optimize() {
 		System.out.println("🔧 开始参数优化...");
-		System.out.printf("优化方法: %s, 参数空间大小: %d%n", optimizationConfig.getMethod(), calculateParameterSpaceSize());
+		System.out.printf("优化方法: %s, 参数空间大小: %,d%n", optimizationConfig.getMethod(), calculateParameterSpaceSize());
 
 		long startTime = System.currentTimeMillis();
 		OptimizationResult result;
+		evaluationSeries = null;
 
 		switch (optimizationConfig.getMethod()) {
 		case GRID_SEARCH:
@@ -59,12 +73,16 @@ public class ParameterOptimizer {
 		case BAYESIAN:
 			result = bayesianOptimization();
 			break;
+		case SUCCESSIVE_HALVING:
+			result = successiveHalvingOptimization();
+			break;
 		default:
 			result = gridSearchOptimization();
 		}
 
 		long duration = System.currentTimeMillis() - startTime;
 		result.setOptimizationTime(duration);
+		result.setEvaluationSetting(evaluationSetting());
 
 		System.out.printf("✅ 参数优化完成! 耗时: %.2f秒%n", duration / 1000.0);
 		return result;
@@ -126,9 +144,11 @@ public class ParameterOptimizer {
 
 		OptimizationResult result = new OptimizationResult(OptimizationMethod.RANDOM_SEARCH);
 		int maxIterations = optimizationConfig.getMaxIterations();
+		Random random = optimizationConfig.getRandomSeed() != null ? new Random(optimizationConfig.getRandomSeed())
+				: new Random();
 
 		for (int i = 0; i < maxIterations; i++) {
-			Map<String, Object> randomParams = generateRandomParameters();
+			Map<String, Object> randomParams = generateRandomParameters(random);
 			ParameterEvaluation eval = evaluateParameters(randomParams);
 			result.addEvaluation(eval);
 
@@ -143,35 +163,604 @@ public class ParameterOptimizer {
 
 	/**
 	 * 遗传算法优化
+	 *
+	 * 个体的基因是各参数取值在 {@link ParameterDefinition#getValues()} 中的下标。锦标赛选择，
+	 * 精英直接进入下一代；数值参数（取值全为数字，按列表顺序视为有序）用混合交叉和高斯步长变异，
+	 * 分类参数用均匀交叉和随机重置变异。评估结果按基因缓存，重复个体不再回测，
+	 * 每代未评估的个体在线程池中并行回测。最佳评分连续若干代没有提高时提前结束。
 	 */
 	private OptimizationResult geneticOptimization() {
 		System.out.println("🧬 使用遗传算法...");
-		// 实现遗传算法...
-		return new OptimizationResult(OptimizationMethod.GENETIC);
+
+		OptimizationResult result = new OptimizationResult(OptimizationMethod.GENETIC);
+		List<ParameterDefinition> paramDefs = distinctValues(optimizationConfig.getParameterDefinitions());
+		if (paramDefs.isEmpty()) {
+			return result;
+		}
+
+		OptimizationConfig cfg = optimizationConfig;
+		Random random = cfg.getRandomSeed() != null ? new Random(cfg.getRandomSeed()) : new Random();
+		boolean[] numeric = new boolean[paramDefs.size()];
+		for (int i = 0; i < numeric.length; i++) {
+			numeric[i] = isNumeric(paramDefs.get(i));
+		}
+		double mutationRate = cfg.getMutationRate() > 0 ? cfg.getMutationRate() : 1.0 / paramDefs.size();
+		int populationSize = (int) Math.max(2, Math.min(cfg.getPopulationSize(), spaceSize(paramDefs)));
+		int eliteCount = Math.min(cfg.getEliteCount(), populationSize - 1);
+
+		Map<Genome, ParameterEvaluation> fitnessCache = new HashMap<>();
+		ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(cfg.getMaxThreads(), populationSize)));
+		try {
+			// 初始种群：尽量不重复的随机个体
+			List<Genome> population = new ArrayList<>();
+			Set<Genome> seen = new HashSet<>();
+			for (int tries = 0; population.size() < populationSize && tries < populationSize * 10; tries++) {
+				Genome genome = randomGenome(paramDefs, random);
+				if (seen.add(genome)) {
+					population.add(genome);
+				}
+			}
+			while (population.size() < populationSize) {
+				population.add(randomGenome(paramDefs, random));
+			}
+
+			double bestScore = Double.NEGATIVE_INFINITY;
+			int stagnant = 0;
+			for (int generation = 1; generation <= cfg.getGenerations(); generation++) {
+				int evaluated = evaluateGeneration(population, paramDefs, fitnessCache, executor, result);
+
+				// 按评分降序
+				population.sort((a, b) -> Double.compare(fitnessCache.get(b).getScore(), fitnessCache.get(a).getScore()));
+				double generationBest = fitnessCache.get(population.get(0)).getScore();
+				System.out.printf("  第 %d 代: 新评估 %d, 累计回测 %d, 最佳: %.3f%n", generation, evaluated,
+						fitnessCache.size(), generationBest);
+
+				if (generationBest > bestScore) {
+					bestScore = generationBest;
+					stagnant = 0;
+				} else if (++stagnant >= cfg.getMaxStagnantGenerations() && cfg.getMaxStagnantGenerations() > 0) {
+					System.out.printf("  最佳评分连续 %d 代没有提高，提前结束%n", stagnant);
+					break;
+				}
+				if (generation == cfg.getGenerations()) {
+					break;
+				}
+
+				// 下一代：精英 + 选择、交叉、变异产生的后代，尽量避免与本代已有个体重复
+				List<Genome> next = new ArrayList<>(population.subList(0, eliteCount));
+				Set<Genome> members = new HashSet<>(next);
+				while (next.size() < populationSize) {
+					Genome child = null;
+					for (int tries = 0; tries < 5 && (child == null || members.contains(child)); tries++) {
+						Genome first = tournamentSelect(population, fitnessCache, random);
+						Genome second = tournamentSelect(population, fitnessCache, random);
+						child = random.nextDouble() < cfg.getCrossoverRate()
+								? crossover(first, second, numeric, random)
+								: first.copy();
+						mutate(child, paramDefs, numeric, mutationRate, random);
+					}
+					members.add(child);
+					next.add(child);
+				}
+				population = next;
+			}
+		} finally {
+			executor.shutdown();
+		}
+
+		result.finalizeResult();
+		return result;
 	}
 
 	/**
-	 * 贝叶斯优化
+	 * 并行评估本代中尚未缓存的个体，返回新评估的数量
+	 */
+	private int evaluateGeneration(List<Genome> population, List<ParameterDefinition> paramDefs,
+			Map<Genome, ParameterEvaluation> fitnessCache, ExecutorService executor, OptimizationResult result) {
+		Map<Genome, Future<ParameterEvaluation>> futures = new LinkedHashMap<>();
+		for (Genome genome : population) {
+			if (!fitnessCache.containsKey(genome) && !futures.containsKey(genome)) {
+				Map<String, Object> params = genome.toParameters(paramDefs);
+				futures.put(genome, executor.submit(() -> evaluateParameters(params)));
+			}
+		}
+
+		for (Map.Entry<Genome, Future<ParameterEvaluation>> entry : futures.entrySet()) {
+			ParameterEvaluation eval;
+			try {
+				eval = entry.getValue().get();
+			} catch (Exception e) {
+				System.err.println("  参数评估失败: " + e.getMessage());
+				eval = new ParameterEvaluation(entry.getKey().toParameters(paramDefs), null, Double.NEGATIVE_INFINITY);
+			}
+			fitnessCache.put(entry.getKey(), eval);
+			result.addEvaluation(eval);
+		}
+		return futures.size();
+	}
+
+	private Genome randomGenome(List<ParameterDefinition> paramDefs, Random random) {
+		int[] genes = new int[paramDefs.size()];
+		for (int i = 0; i < genes.length; i++) {
+			genes[i] = random.nextInt(paramDefs.get(i).getValues().size());
+		}
+		return new Genome(genes);
+	}
+
+	private Genome tournamentSelect(List<Genome> population, Map<Genome, ParameterEvaluation> fitnessCache,
+			Random random) {
+		Genome best = null;
+		double bestScore = 0.0;
+		for (int i = 0; i < Math.max(1, optimizationConfig.getTournamentSize()); i++) {
+			Genome candidate = population.get(random.nextInt(population.size()));
+			double score = fitnessCache.get(candidate).getScore();
+			if (best == null || score > bestScore) {
+				best = candidate;
+				bestScore = score;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * 数值基因：在两个父代下标之间（两端各外延 1/4）均匀取值；分类基因：随机取一个父代的值
+	 */
+	private Genome crossover(Genome first, Genome second, boolean[] numeric, Random random) {
+		int[] genes = new int[first.genes.length];
+		for (int i = 0; i < genes.length; i++) {
+			int a = first.genes[i];
+			int b = second.genes[i];
+			if (numeric[i] && a != b) {
+				double u = random.nextDouble() * 1.5 - 0.25;
+				genes[i] = (int) Math.round(a + u * (b - a));
+			} else {
+				genes[i] = random.nextBoolean() ? a : b;
+			}
+		}
+		return new Genome(genes);
+	}
+
+	/**
+	 * 数值基因按高斯步长移动（标准差为取值个数的 1/10，至少移动一格），分类基因随机换成另一个取值；结果限制在取值范围内
+	 */
+	private void mutate(Genome genome, List<ParameterDefinition> paramDefs, boolean[] numeric, double mutationRate,
+			Random random) {
+		int[] genes = genome.genes;
+		for (int i = 0; i < genes.length; i++) {
+			int size = paramDefs.get(i).getValues().size();
+			if (size > 1 && random.nextDouble() < mutationRate) {
+				if (numeric[i]) {
+					int step = (int) Math.round(random.nextGaussian() * Math.max(1.0, size / 10.0));
+					if (step == 0) {
+						step = random.nextBoolean() ? 1 : -1;
+					}
+					genes[i] += step;
+				} else {
+					genes[i] = (genes[i] + 1 + random.nextInt(size - 1)) % size;
+				}
+			}
+			genes[i] = Math.max(0, Math.min(size - 1, genes[i]));
+		}
+		genome.rehash();
+	}
+
+	/**
+	 * 去掉取值列表中的重复值（如按2位小数取整产生的重复），保持顺序，避免同一组参数对应多个个体
+	 */
+	private static List<ParameterDefinition> distinctValues(List<ParameterDefinition> paramDefs) {
+		List<ParameterDefinition> distinct = new ArrayList<>();
+		for (ParameterDefinition paramDef : paramDefs) {
+			distinct.add(new ParameterDefinition(paramDef.getName(),
+					new ArrayList<>(new LinkedHashSet<>(paramDef.getValues()))));
+		}
+		return distinct;
+	}
+
+	private static long spaceSize(List<ParameterDefinition> paramDefs) {
+		long size = 1;
+		for (ParameterDefinition paramDef : paramDefs) {
+			int count = paramDef.getValues().size();
+			if (count > 0 && size > Long.MAX_VALUE / count) {
+				return Long.MAX_VALUE;
+			}
+			size *= count;
+		}
+		return size;
+	}
+
+	private static boolean isNumeric(ParameterDefinition paramDef) {
+		for (Object value : paramDef.getValues()) {
+			if (!(value instanceof Number)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * 贝叶斯优化（TPE，树结构 Parzen 估计）
+	 *
+	 * 前若干次随机采样，之后把已评估的参数按评分分为好（前 ceil(gamma × √n) 个，最多25个）、差两组，逐参数估计两组的取值密度
+	 * l(x) 和 g(x)，从 l(x) 采样候选并取 l(x)/g(x) 最大者评估。保持 batchSize 个回测同时进行：
+	 * 每完成一个就建议下一个，进行中的参数视为差组（避免同时评估相近的点）。
+	 * 新评估总数为 maxIterations；热启动结果作为已有观测参与建模并计入结果，其评估设置标签须与本次一致。
 	 */
 	private OptimizationResult bayesianOptimization() {
 		System.out.println("📈 使用贝叶斯优化...");
-		// 实现贝叶斯优化...
-		return new OptimizationResult(OptimizationMethod.BAYESIAN);
+
+		OptimizationResult result = new OptimizationResult(OptimizationMethod.BAYESIAN);
+		List<ParameterDefinition> paramDefs = distinctValues(optimizationConfig.getParameterDefinitions());
+		if (paramDefs.isEmpty()) {
+			return result;
+		}
+
+		OptimizationConfig cfg = optimizationConfig;
+		Random random = cfg.getRandomSeed() != null ? new Random(cfg.getRandomSeed()) : new Random();
+		boolean[] numeric = new boolean[paramDefs.size()];
+		for (int i = 0; i < numeric.length; i++) {
+			numeric[i] = isNumeric(paramDefs.get(i));
+		}
+		int startupTrials = cfg.getStartupTrials() > 0 ? cfg.getStartupTrials() : Math.max(10, 2 * paramDefs.size());
+		long spaceSize = spaceSize(paramDefs);
+		long budget = Math.min(cfg.getMaxIterations(), spaceSize);
+
+		// 已有观测（含热启动）和进行中的参数
+		List<Genome> observed = new ArrayList<>();
+		List<Double> scores = new ArrayList<>();
+		Set<Genome> known = new HashSet<>();
+		String setting = evaluationSetting();
+		for (OptimizationResult warmStart : cfg.getWarmStarts()) {
+			if (!setting.equals(warmStart.getEvaluationSetting())) {
+				throw new IllegalArgumentException("热启动结果的策略、数据或评分设置与本次优化不同: "
+						+ warmStart.getEvaluationSetting() + " vs " + setting);
+			}
+		}
+		for (ParameterEvaluation eval : cfg.getWarmStartEvaluations()) {
+			Genome genome = Genome.fromParameters(eval.getParameters(), paramDefs, numeric);
+			if (genome != null && known.add(genome)) {
+				observed.add(genome);
+				scores.add(eval.getScore());
+				result.addEvaluation(eval);
+			}
+		}
+		if (!observed.isEmpty()) {
+			System.out.printf("  热启动: %d 个已有评估%n", observed.size());
+			budget = Math.min(budget, spaceSize - observed.size());
+		}
+		List<Genome> pending = new ArrayList<>();
+
+		int batchSize = (int) Math.max(1, Math.min(cfg.getBatchSize() > 0 ? cfg.getBatchSize() : cfg.getMaxThreads(), budget));
+		ExecutorService executor = Executors.newFixedThreadPool(batchSize);
+		CompletionService<ParameterEvaluation> completion = new ExecutorCompletionService<>(executor);
+		Map<Future<ParameterEvaluation>, Genome> running = new HashMap<>();
+		try {
+			int submitted = 0;
+			int completed = 0;
+			while (completed < budget) {
+				while (submitted < budget && running.size() < batchSize) {
+					Genome genome = observed.size() + pending.size() < startupTrials
+							? randomUnseenGenome(paramDefs, known, random)
+							: suggestTpe(paramDefs, numeric, observed, scores, pending, known, random);
+					if (genome == null) {
+						budget = submitted; // 参数空间已全部评估
+						break;
+					}
+					known.add(genome);
+					pending.add(genome);
+					Map<String, Object> params = genome.toParameters(paramDefs);
+					running.put(completion.submit(() -> evaluateParameters(params)), genome);
+					submitted++;
+				}
+				if (running.isEmpty()) {
+					break;
+				}
+
+				Future<ParameterEvaluation> future = completion.take();
+				Genome genome = running.remove(future);
+				ParameterEvaluation eval;
+				try {
+					eval = future.get();
+				} catch (Exception e) {
+					System.err.println("  参数评估失败: " + e.getMessage());
+					eval = new ParameterEvaluation(genome.toParameters(paramDefs), null, Double.NEGATIVE_INFINITY);
+				}
+				pending.remove(genome);
+				observed.add(genome);
+				scores.add(eval.getScore());
+				result.addEvaluation(eval);
+				completed++;
+
+				if (completed % 10 == 0 || completed == budget) {
+					System.out.printf("  进度: %d/%d, 当前最佳: %.3f%n", completed, budget, result.getBestScore());
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			System.err.println("  贝叶斯优化被中断");
+		} finally {
+			executor.shutdownNow();
+		}
+
+		result.finalizeResult();
+		return result;
+	}
+
+	/**
+	 * TPE 建议：从好组密度 l(x) 逐参数采样候选，取 log l(x) - log g(x) 最大且未评估的一个
+	 */
+	private Genome suggestTpe(List<ParameterDefinition> paramDefs, boolean[] numeric, List<Genome> observed,
+			List<Double> scores, List<Genome> pending, Set<Genome> known, Random random) {
+		// 按评分降序分组，进行中的参数计入差组
+		Integer[] order = new Integer[observed.size()];
+		for (int i = 0; i < order.length; i++) {
+			order[i] = i;
+		}
+		Arrays.sort(order, (a, b) -> Double.compare(scores.get(b), scores.get(a)));
+		int goodCount = Math.max(1,
+				Math.min(25, (int) Math.ceil(optimizationConfig.getGamma() * Math.sqrt(order.length))));
+		List<Genome> good = new ArrayList<>();
+		List<Genome> bad = new ArrayList<>(pending);
+		for (int i = 0; i < order.length; i++) {
+			(i < goodCount ? good : bad).add(observed.get(order[i]));
+		}
+
+		int dimensions = paramDefs.size();
+		double[][] goodDensity = new double[dimensions][];
+		double[][] badDensity = new double[dimensions][];
+		for (int d = 0; d < dimensions; d++) {
+			int size = paramDefs.get(d).getValues().size();
+			goodDensity[d] = parzenDensity(good, d, size, numeric[d]);
+			badDensity[d] = parzenDensity(bad, d, size, numeric[d]);
+		}
+
+		Genome best = null;
+		double bestRatio = Double.NEGATIVE_INFINITY;
+		for (int c = 0; c < optimizationConfig.getCandidates(); c++) {
+			int[] genes = new int[dimensions];
+			double ratio = 0.0;
+			for (int d = 0; d < dimensions; d++) {
+				genes[d] = sample(goodDensity[d], random);
+				ratio += Math.log(goodDensity[d][genes[d]]) - Math.log(badDensity[d][genes[d]]);
+			}
+			Genome candidate = new Genome(genes);
+			if (ratio > bestRatio && !known.contains(candidate)) {
+				best = candidate;
+				bestRatio = ratio;
+			}
+		}
+		return best != null ? best : randomUnseenGenome(paramDefs, known, random);
+	}
+
+	/**
+	 * 单个参数取值下标上的离散 Parzen 密度：数值参数为以各观测为中心的高斯核之和
+	 * （带宽为取值个数 × n^(-1/5) / 4，至少1格），分类参数为计数；两者都加一份均匀先验
+	 */
+	private static double[] parzenDensity(List<Genome> genomes, int dimension, int size, boolean numeric) {
+		double[] density = new double[size];
+		Arrays.fill(density, 1.0 / size);
+		if (!genomes.isEmpty()) {
+			if (numeric && size > 1) {
+				double bandwidth = Math.max(1.0, size * Math.pow(genomes.size(), -0.2) / 4);
+				double[] kernel = new double[size];
+				for (Genome genome : genomes) {
+					int center = genome.genes[dimension];
+					double sum = 0.0;
+					for (int k = 0; k < size; k++) {
+						double z = (k - center) / bandwidth;
+						kernel[k] = Math.exp(-0.5 * z * z);
+						sum += kernel[k];
+					}
+					for (int k = 0; k < size; k++) {
+						density[k] += kernel[k] / sum;
+					}
+				}
+			} else {
+				for (Genome genome : genomes) {
+					density[genome.genes[dimension]] += 1.0;
+				}
+			}
+		}
+		double total = 0.0;
+		for (double value : density) {
+			total += value;
+		}
+		for (int k = 0; k < size; k++) {
+			density[k] /= total;
+		}
+		return density;
+	}
+
+	private static int sample(double[] density, Random random) {
+		double u = random.nextDouble();
+		for (int k = 0; k < density.length - 1; k++) {
+			u -= density[k];
+			if (u < 0) {
+				return k;
+			}
+		}
+		return density.length - 1;
+	}
+
+	/**
+	 * 随机取一个未评估的个体，尝试多次仍重复时返回 null（参数空间已基本评估完）
+	 */
+	private Genome randomUnseenGenome(List<ParameterDefinition> paramDefs, Set<Genome> known, Random random) {
+		for (int tries = 0; tries < 1000; tries++) {
+			Genome genome = randomGenome(paramDefs, random);
+			if (!known.contains(genome)) {
+				return genome;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * 逐轮减半优化（successive halving）
+	 *
+	 * 各轮回测数据的前 warmupBars 根K线（指标预热）加上其余数据的一部分：第一轮为 minResourceFraction，
+	 * 每轮乘以 eta，比例达到或超过1之前的最后一轮之后直接用全部数据（如 0.1、eta=3 时为 0.1、0.3、1）。
+	 * 每轮按评分保留前 1/eta，评分相同时按参数排序，结果与候选生成顺序无关。
+	 * 各轮内所有候选使用相同长度的数据，评分可比；结果只包含最后一轮（全部数据）的评估。
+	 * 候选为全部参数组合，或 haltingCandidates 个随机组合。
+	 */
+	private OptimizationResult successiveHalvingOptimization() {
+		System.out.println("✂️ 使用逐轮减半...");
+
+		OptimizationResult result = new OptimizationResult(OptimizationMethod.SUCCESSIVE_HALVING);
+		OptimizationConfig cfg = optimizationConfig;
+		if (cfg.getEta() < 2) {
+			throw new IllegalArgumentException("淘汰倍数 eta 必须不小于2: " + cfg.getEta());
+		}
+		if (cfg.getMinResourceFraction() <= 0 || cfg.getMinResourceFraction() > 1) {
+			throw new IllegalArgumentException("最短数据比例必须在 (0, 1] 之间: " + cfg.getMinResourceFraction());
+		}
+
+		List<Map<String, Object>> candidates = generateHalvingCandidates();
+		if (candidates.isEmpty()) {
+			return result;
+		}
+		int totalBars = evaluationSeries().size();
+		if (baseConfig.getMaxBars() > 0) {
+			totalBars = Math.min(totalBars, baseConfig.getMaxBars());
+		}
+		int warmupBars = cfg.getWarmupBars() >= 0 ? cfg.getWarmupBars()
+				: longestLookback(optimizationConfig.getParameterDefinitions());
+		warmupBars = Math.max(0, Math.min(warmupBars, totalBars - 1));
+		int scoredBars = totalBars - warmupBars;
+
+		// 轮数：比例 minResourceFraction × eta^k 小于1的轮次，再加最后一轮全部数据
+		int rounds = 1 + (int) Math.floor(Math.log(1 / cfg.getMinResourceFraction()) / Math.log(cfg.getEta()) + 1e-9);
+		long barsUsed = 0;
+		long fullBars = (long) candidates.size() * totalBars;
+
+		ExecutorService executor = Executors
+				.newFixedThreadPool(Math.max(1, Math.min(cfg.getMaxThreads(), candidates.size())));
+		try {
+			for (int round = 0; round < rounds; round++) {
+				boolean last = round == rounds - 1;
+				double fraction = last ? 1.0 : cfg.getMinResourceFraction() * Math.pow(cfg.getEta(), round);
+				int bars = last ? totalBars : warmupBars + Math.max(1, (int) Math.ceil(scoredBars * fraction - 1e-9));
+
+				List<ParameterEvaluation> evaluations = new ArrayList<>();
+				List<Future<ParameterEvaluation>> futures = new ArrayList<>();
+				for (Map<String, Object> params : candidates) {
+					futures.add(executor.submit(() -> evaluateParameters(params, last ? baseConfig.getMaxBars() : bars, fraction)));
+				}
+				for (int i = 0; i < futures.size(); i++) {
+					try {
+						evaluations.add(futures.get(i).get());
+					} catch (Exception e) {
+						System.err.println("  参数评估失败: " + e.getMessage());
+						evaluations.add(new ParameterEvaluation(candidates.get(i), null, Double.NEGATIVE_INFINITY));
+					}
+				}
+				barsUsed += (long) candidates.size() * bars;
+
+				evaluations.sort(Comparator.comparingDouble(ParameterEvaluation::getScore).reversed()
+						.thenComparing(eval -> new TreeMap<>(eval.getParameters()).toString()));
+				System.out.printf("  第 %d/%d 轮: %d 个候选, 每个 %d 根K线, 最佳: %.3f%n", round + 1, rounds,
+						candidates.size(), bars, evaluations.get(0).getScore());
+
+				if (last) {
+					for (ParameterEvaluation eval : evaluations) {
+						result.addEvaluation(eval);
+					}
+					break;
+				}
+				int keep = Math.max(1, (int) Math.ceil(candidates.size() / (double) cfg.getEta()));
+				candidates = new ArrayList<>();
+				for (int i = 0; i < keep && i < evaluations.size(); i++) {
+					candidates.add(evaluations.get(i).getParameters());
+				}
+			}
+		} finally {
+			executor.shutdown();
+		}
+
+		System.out.printf("  回测K线总数: %,d，全部候选完整回测需 %,d（%.1f%%）, 预热 %d 根%n", barsUsed, fullBars,
+				fullBars > 0 ? barsUsed * 100.0 / fullBars : 0.0, warmupBars);
+		result.setBarsUsed(barsUsed, fullBars);
+		result.finalizeResult();
+		return result;
+	}
+
+	/**
+	 * 默认预热长度：参数中最大的正整数值（周期类参数），没有时为0
+	 */
+	private static int longestLookback(List<ParameterDefinition> paramDefs) {
+		int longest = 0;
+		for (ParameterDefinition paramDef : paramDefs) {
+			if (!isNumeric(paramDef)) {
+				continue;
+			}
+			for (Object value : paramDef.getValues()) {
+				double number = ((Number) value).doubleValue();
+				if (number > longest && number == Math.rint(number) && number <= Integer.MAX_VALUE) {
+					longest = (int) number;
+				}
+			}
+		}
+		return longest;
+	}
+
+	/**
+	 * 逐轮减半的候选：全部参数组合（去重后），或指定数量的不重复随机组合
+	 */
+	private List<Map<String, Object>> generateHalvingCandidates() {
+		List<ParameterDefinition> paramDefs = distinctValues(optimizationConfig.getParameterDefinitions());
+		if (paramDefs.isEmpty()) {
+			return new ArrayList<>();
+		}
+		int count = optimizationConfig.getHaltingCandidates();
+		List<Map<String, Object>> candidates = new ArrayList<>();
+		if (count <= 0 || count >= spaceSize(paramDefs)) {
+			generateCombinationsRecursive(candidates, new HashMap<>(), paramDefs, 0);
+			return candidates;
+		}
+
+		Random random = optimizationConfig.getRandomSeed() != null ? new Random(optimizationConfig.getRandomSeed())
+				: new Random();
+		Set<Genome> chosen = new HashSet<>();
+		while (candidates.size() < count) {
+			Genome genome = randomUnseenGenome(paramDefs, chosen, random);
+			if (genome == null) {
+				break;
+			}
+			chosen.add(genome);
+			candidates.add(genome.toParameters(paramDefs));
+		}
+		return candidates;
 	}
 
 	/**
 	 * 评估参数组合
 	 */
 	private ParameterEvaluation evaluateParameters(Map<String, Object> parameters) {
+		return evaluateParameters(parameters, 0, 1.0);
+	}
+
+	/**
+	 * 评估参数组合
+	 *
+	 * @param maxBars      只回测前 maxBars 根K线，0 表示全部
+	 * @param dataFraction 回测数据占全部数据的比例，传给评分函数
+	 */
+	private ParameterEvaluation evaluateParameters(Map<String, Object> parameters, int maxBars, double dataFraction) {
 		try {
 			BacktestConfig testConfig = createTestConfig();
-			EventDrivenBacktestEngine engine = new EventDrivenBacktestEngine(dataFeed, testConfig);
+			if (maxBars > 0) {
+				testConfig.setMaxBars(maxBars);
+			}
+			EventDrivenBacktestEngine engine = new EventDrivenBacktestEngine(
+					new BarSeriesDataFeed(baseConfig.getSymbol(), evaluationSeries()), testConfig);
 
 			BaseStrategy testStrategy = createStrategyWithParameters(parameters);
 			engine.setStrategy(testStrategy);
 
 			BacktestResult backtestResult = engine.runBacktest();
-			double score = calculateScore(backtestResult, parameters);
+			ScoringFunction scoringFunction = optimizationConfig.getScoringFunction();
+			double score = scoringFunction != null ? scoringFunction.score(backtestResult, parameters, dataFraction)
+					: calculateScore(backtestResult, dataFraction);
 
 			return new ParameterEvaluation(parameters, backtestResult, score);
 
@@ -182,9 +771,44 @@ public class ParameterOptimizer {
 	}
 
 	/**
-	 * 计算参数评分
+	 * 评估设置标签：策略、初始资金、回测数据（标的、K线数量和首末时间）与评分方式
+	 */
+	private String evaluationSetting() {
+		BarSeries series = evaluationSeries();
+		OptimizationConfig cfg = optimizationConfig;
+		ScoringFunction scoring = cfg.getScoringFunction();
+		String scoringTag = scoring != null
+				? "scoring=" + cfg.getScoringName()
+				: String.format("return=%s,sharpe=%s,drawdown=%s,winRate=%s,trades=%d", cfg.getReturnWeight(),
+						cfg.getSharpeWeight(), cfg.getDrawdownWeight(), cfg.getWinRateWeight(),
+						cfg.getMaxPreferredTrades());
+		return baseStrategy.getClass().getName() + "|" + baseConfig.getInitialCapital() + "|" + baseConfig.getSymbol()
+				+ "|" + series.size() + "|" + series.getFirstTimestamp() + "|" + series.getLastTimestamp() + "|"
+				+ scoringTag;
+	}
+
+	/**
+	 * 回测区间的K线，首次调用时从数据源加载
 	 */
-	private double calculateScore(BacktestResult result, Map<String, Object> parameters) {
+	private BarSeries evaluationSeries() {
+		BarSeries series = evaluationSeries;
+		if (series == null) {
+			synchronized (this) {
+				series = evaluationSeries;
+				if (series == null) {
+					series = BarSeries.of(dataFeed.loadHistoricalData(baseConfig.getSymbol(), baseConfig.getStartDate(),
+							baseConfig.getEndDate()));
+					evaluationSeries = series;
+				}
+			}
+		}
+		return series;
+	}
+
+	/**
+	 * 计算参数评分（默认评分函数，交易次数上限按数据比例缩放）
+	 */
+	private double calculateScore(BacktestResult result, double dataFraction) {
 		double baseScore = 0.0;
 
 		// 收益率权重
@@ -201,8 +825,9 @@ public class ParameterOptimizer {
 
 		// 交易次数惩罚（避免过度交易）
 		int tradeCount = result.getTotalTrades();
-		if (tradeCount > optimizationConfig.getMaxPreferredTrades()) {
-			baseScore -= (tradeCount - optimizationConfig.getMaxPreferredTrades()) * 0.1;
+		double maxPreferredTrades = optimizationConfig.getMaxPreferredTrades() * dataFraction;
+		if (tradeCount > maxPreferredTrades) {
+			baseScore -= (tradeCount - maxPreferredTrades) * 0.1;
 		}
 
 		return baseScore;
@@ -238,9 +863,8 @@ public class ParameterOptimizer {
 	/**
 	 * 生成随机参数
 	 */
-	private Map<String, Object> generateRandomParameters() {
+	private Map<String, Object> generateRandomParameters(Random random) {
 		Map<String, Object> params = new HashMap<>();
-		Random random = new Random();
 
 		for (ParameterDefinition paramDef : optimizationConfig.getParameterDefinitions()) {
 			List<?> values = paramDef.getValues();
@@ -252,14 +876,10 @@ public class ParameterOptimizer {
 	}
 
 	/**
-	 * 计算参数空间大小
+	 * 计算参数空间大小（超过 long 范围时为 Long.MAX_VALUE）
 	 */
-	private int calculateParameterSpaceSize() {
-		int size = 1;
-		for (ParameterDefinition paramDef : optimizationConfig.getParameterDefinitions()) {
-			size *= paramDef.getValues().size();
-		}
-		return size;
+	private long calculateParameterSpaceSize() {
+		return spaceSize(optimizationConfig.getParameterDefinitions());
 	}
 
 	/**
@@ -291,7 +911,21 @@ public class ParameterOptimizer {
 	// ==================== 配置和结果类 ====================
 
 	public enum OptimizationMethod {
-		GRID_SEARCH, RANDOM_SEARCH, GENETIC, BAYESIAN
+		GRID_SEARCH, RANDOM_SEARCH, GENETIC, BAYESIAN, SUCCESSIVE_HALVING
+	}
+
+	/**
+	 * 评分函数，替换默认的加权评分
+	 */
+	@FunctionalInterface
+	public interface ScoringFunction {
+		/**
+		 * @param result       回测结果
+		 * @param parameters   参数组合
+		 * @param dataFraction 回测数据占全部数据的比例（逐轮减半的前几轮小于1）
+		 * @return 评分，越大越好
+		 */
+		double score(BacktestResult result, Map<String, Object> parameters, double dataFraction);
 	}
 
 	/**
@@ -303,6 +937,32 @@ public class ParameterOptimizer {
 		private int maxThreads = Runtime.getRuntime().availableProcessors();
 		private int maxIterations = 100;
 
+		// 遗传算法
+		private int populationSize = 40;
+		private int generations = 30;
+		private double crossoverRate = 0.9;
+		private double mutationRate = 0.0; // 每个基因的变异概率，0 表示 1/参数个数
+		private int tournamentSize = 3;
+		private int eliteCount = 2;
+		private int maxStagnantGenerations = 8; // 0 表示不提前结束
+		private Long randomSeed;
+
+		// 贝叶斯优化（TPE）
+		private int startupTrials = 0; // 随机采样次数，0 表示 max(10, 2 × 参数个数)
+		private double gamma = 0.25; // 好组个数 = ceil(gamma × √观测数)
+		private int candidates = 24; // 每次建议的候选数
+		private int batchSize = 0; // 同时进行的回测数，0 表示 maxThreads
+		private List<OptimizationResult> warmStarts = new ArrayList<>();
+
+		// 逐轮减半
+		private int eta = 3; // 每轮保留 1/eta，数据长度乘以 eta
+		private double minResourceFraction = 1.0 / 27; // 第一轮的数据比例（不含预热部分）
+		private int warmupBars = -1; // 每轮都包含的预热K线数，-1 表示取参数中最大的正整数值
+		private int haltingCandidates = 0; // 候选数量，0 表示全部参数组合
+
+		private ScoringFunction scoringFunction; // 为 null 时使用默认加权评分
+		private String scoringName; // 自定义评分的名称，作为热启动比对评估设置的键
+
 		// 评分权重
 		private double returnWeight = 1.0;
 		private double sharpeWeight = 0.5;
@@ -359,6 +1019,173 @@ public class ParameterOptimizer {
 			this.maxIterations = maxIterations;
 		}
 
+		public int getPopulationSize() {
+			return populationSize;
+		}
+
+		public void setPopulationSize(int populationSize) {
+			this.populationSize = populationSize;
+		}
+
+		public int getGenerations() {
+			return generations;
+		}
+
+		public void setGenerations(int generations) {
+			this.generations = generations;
+		}
+
+		public double getCrossoverRate() {
+			return crossoverRate;
+		}
+
+		public void setCrossoverRate(double crossoverRate) {
+			this.crossoverRate = crossoverRate;
+		}
+
+		public double getMutationRate() {
+			return mutationRate;
+		}
+
+		public void setMutationRate(double mutationRate) {
+			this.mutationRate = mutationRate;
+		}
+
+		public int getTournamentSize() {
+			return tournamentSize;
+		}
+
+		public void setTournamentSize(int tournamentSize) {
+			this.tournamentSize = tournamentSize;
+		}
+
+		public int getEliteCount() {
+			return eliteCount;
+		}
+
+		public void setEliteCount(int eliteCount) {
+			this.eliteCount = eliteCount;
+		}
+
+		public int getMaxStagnantGenerations() {
+			return maxStagnantGenerations;
+		}
+
+		public void setMaxStagnantGenerations(int maxStagnantGenerations) {
+			this.maxStagnantGenerations = maxStagnantGenerations;
+		}
+
+		public Long getRandomSeed() {
+			return randomSeed;
+		}
+
+		public void setRandomSeed(Long randomSeed) {
+			this.randomSeed = randomSeed;
+		}
+
+		public int getStartupTrials() {
+			return startupTrials;
+		}
+
+		public void setStartupTrials(int startupTrials) {
+			this.startupTrials = startupTrials;
+		}
+
+		public double getGamma() {
+			return gamma;
+		}
+
+		public void setGamma(double gamma) {
+			this.gamma = gamma;
+		}
+
+		public int getCandidates() {
+			return candidates;
+		}
+
+		public void setCandidates(int candidates) {
+			this.candidates = candidates;
+		}
+
+		public int getBatchSize() {
+			return batchSize;
+		}
+
+		public void setBatchSize(int batchSize) {
+			this.batchSize = batchSize;
+		}
+
+		public int getEta() {
+			return eta;
+		}
+
+		public void setEta(int eta) {
+			this.eta = eta;
+		}
+
+		public double getMinResourceFraction() {
+			return minResourceFraction;
+		}
+
+		public void setMinResourceFraction(double minResourceFraction) {
+			this.minResourceFraction = minResourceFraction;
+		}
+
+		public int getWarmupBars() {
+			return warmupBars;
+		}
+
+		public void setWarmupBars(int warmupBars) {
+			this.warmupBars = warmupBars;
+		}
+
+		public int getHaltingCandidates() {
+			return haltingCandidates;
+		}
+
+		public void setHaltingCandidates(int haltingCandidates) {
+			this.haltingCandidates = haltingCandidates;
+		}
+
+		public ScoringFunction getScoringFunction() {
+			return scoringFunction;
+		}
+
+		public String getScoringName() {
+			return scoringName;
+		}
+
+		/**
+		 * 设置自定义评分。名称由调用方给出，同名的评分必须算法相同：热启动只接受评估设置（含评分名称）相同的结果
+		 */
+		public void setScoringFunction(String name, ScoringFunction scoringFunction) {
+			if (scoringFunction != null && (name == null || name.trim().isEmpty())) {
+				throw new IllegalArgumentException("自定义评分必须指定名称");
+			}
+			this.scoringName = scoringFunction != null ? name : null;
+			this.scoringFunction = scoringFunction;
+		}
+
+		public List<ParameterEvaluation> getWarmStartEvaluations() {
+			List<ParameterEvaluation> evaluations = new ArrayList<>();
+			for (OptimizationResult warmStart : warmStarts) {
+				evaluations.addAll(warmStart.getEvaluations());
+			}
+			return evaluations;
+		}
+
+		public List<OptimizationResult> getWarmStarts() {
+			return warmStarts;
+		}
+
+		/**
+		 * 用之前的优化结果热启动贝叶斯优化（参数不在当前取值列表中的评估会被忽略）。
+		 * 结果须由相同策略、数据和评分设置的优化产生，否则贝叶斯优化开始时抛出 IllegalArgumentException
+		 */
+		public void addWarmStart(OptimizationResult previous) {
+			warmStarts.add(previous);
+		}
+
 		public double getReturnWeight() {
 			return returnWeight;
 		}
@@ -421,6 +1248,70 @@ public class ParameterOptimizer {
 		}
 	}
 
+	/**
+	 * 遗传算法个体：各参数取值的下标
+	 */
+	private static final class Genome {
+		private final int[] genes;
+		private int hash;
+
+		Genome(int[] genes) {
+			this.genes = genes;
+			rehash();
+		}
+
+		Genome copy() {
+			return new Genome(genes.clone());
+		}
+
+		/**
+		 * 参数取值映射回下标，数值参数按数值比较；有参数缺失或不在取值列表中时返回 null
+		 */
+		static Genome fromParameters(Map<String, Object> params, List<ParameterDefinition> paramDefs,
+				boolean[] numeric) {
+			int[] genes = new int[paramDefs.size()];
+			for (int i = 0; i < genes.length; i++) {
+				Object value = params.get(paramDefs.get(i).getName());
+				List<?> values = paramDefs.get(i).getValues();
+				genes[i] = -1;
+				for (int k = 0; k < values.size() && genes[i] < 0; k++) {
+					boolean same = numeric[i] && value instanceof Number
+							? ((Number) values.get(k)).doubleValue() == ((Number) value).doubleValue()
+							: values.get(k).equals(value);
+					if (same) {
+						genes[i] = k;
+					}
+				}
+				if (genes[i] < 0) {
+					return null;
+				}
+			}
+			return new Genome(genes);
+		}
+
+		void rehash() {
+			hash = Arrays.hashCode(genes);
+		}
+
+		Map<String, Object> toParameters(List<ParameterDefinition> paramDefs) {
+			Map<String, Object> params = new HashMap<>();
+			for (int i = 0; i < genes.length; i++) {
+				params.put(paramDefs.get(i).getName(), paramDefs.get(i).getValues().get(genes[i]));
+			}
+			return params;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof Genome && Arrays.equals(genes, ((Genome) obj).genes);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+	}
+
 	/**
 	 * 参数评估结果
 	 */
@@ -464,6 +1355,9 @@ public class ParameterOptimizer {
 		private ParameterEvaluation bestEvaluation;
 		private long optimizationTime;
 		private Map<String, Object> bestParameters;
+		private long barsUsed;
+		private long fullBars;
+		private String evaluationSetting;
 
 		public OptimizationResult(OptimizationMethod method) {
 			this.method = method;
@@ -543,10 +1437,40 @@ public class ParameterOptimizer {
 			return optimizationTime;
 		}
 
+		/**
+		 * 逐轮减半实际回测的K线总数
+		 */
+		public long getBarsUsed() {
+			return barsUsed;
+		}
+
+		/**
+		 * 全部候选都在全部数据上回测所需的K线总数
+		 */
+		public long getFullBars() {
+			return fullBars;
+		}
+
+		public void setBarsUsed(long barsUsed, long fullBars) {
+			this.barsUsed = barsUsed;
+			this.fullBars = fullBars;
+		}
+
 		public void setOptimizationTime(long optimizationTime) {
 			this.optimizationTime = optimizationTime;
 		}
 
+		/**
+		 * 产生这些评估的策略、数据和评分设置，用于校验热启动
+		 */
+		public String getEvaluationSetting() {
+			return evaluationSetting;
+		}
+
+		public void setEvaluationSetting(String evaluationSetting) {
+			this.evaluationSetting = evaluationSetting;
+		}
+
 		public double getBestScore() {
 			return bestEvaluation != null ? bestEvaluation.getScore() : 0.0;
 		}
@@ -0,0 +1,232 @@
+package com.Quantitative.backtest.optimization;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.Quantitative.BaseTest;
+import com.Quantitative.all.Test.CrossStrategy;
+import com.Quantitative.all.Test.MockDataFeed;
+import com.Quantitative.all.Test.TestDataGenerator;
+import com.Quantitative.backtest.optimization.ParameterOptimizer.OptimizationConfig;
+import com.Quantitative.backtest.optimization.ParameterOptimizer.OptimizationMethod;
+import com.Quantitative.backtest.optimization.ParameterOptimizer.OptimizationResult;
+import com.Quantitative.config.BacktestConfig;
+import com.Quantitative.core.events.BarEvent;
+
+/**
+ * 参数优化测试 - 固定种子的合成行情，均线交叉策略
+ */
+public class ParameterOptimizerTest extends BaseTest {
+
+	private static final String SYMBOL = "600519";
+	private static final int BARS = 2000;
+
+	@Test
+	public void testSuccessiveHalvingUsesFractionOfGridBars() {
+		OptimizationConfig config = gridConfig();
+		config.setMethod(OptimizationMethod.SUCCESSIVE_HALVING);
+		OptimizationResult halving = optimizer(config).optimize();
+
+		// 默认 1/27、1/9、1/3、1 四轮，110 → 37 → 13 → 5 个候选；每轮都包含 120 根预热K线
+		assertEquals(5, halving.getEvaluations().size());
+		assertEquals(110L * BARS, halving.getFullBars());
+		int scored = BARS - 120;
+		long expected = 110L * (120 + (scored + 26) / 27) + 37L * (120 + (scored + 8) / 9)
+				+ 13L * (120 + (scored + 2) / 3) + 5L * BARS;
+		assertEquals(expected, halving.getBarsUsed());
+		assertTrue(halving.getBarsUsed() < halving.getFullBars() * 0.3);
+
+		OptimizationConfig gridConfig = gridConfig();
+		gridConfig.setMethod(OptimizationMethod.GRID_SEARCH);
+		OptimizationResult grid = optimizer(gridConfig).optimize();
+		assertTrue("逐轮减半的最佳结果应在网格搜索前5名内, 排名: " + rankIn(grid, halving.getBestScore()),
+				rankIn(grid, halving.getBestScore()) <= 5);
+	}
+
+	@Test
+	public void testSuccessiveHalvingHonoursFirstRoundFraction() {
+		OptimizationConfig config = gridConfig();
+		config.setMethod(OptimizationMethod.SUCCESSIVE_HALVING);
+		config.setMinResourceFraction(0.1);
+		OptimizationResult halving = optimizer(config).optimize();
+
+		// 0.1、0.3、1 三轮，而不是取整到 1/27
+		int scored = BARS - 120;
+		long expected = 110L * (120 + (scored + 9) / 10) + 37L * (120 + (scored * 3 + 9) / 10) + 13L * BARS;
+		assertEquals(13, halving.getEvaluations().size());
+		assertEquals(expected, halving.getBarsUsed());
+	}
+
+	@Test
+	public void testGeneticReachesNearGridOptimum() {
+		OptimizationConfig config = gridConfig();
+		config.setMethod(OptimizationMethod.GENETIC);
+		config.setPopulationSize(12);
+		config.setGenerations(10);
+		config.setRandomSeed(7L);
+		OptimizationResult genetic = optimizer(config).optimize();
+
+		OptimizationConfig gridConfig = gridConfig();
+		gridConfig.setMethod(OptimizationMethod.GRID_SEARCH);
+		OptimizationResult grid = optimizer(gridConfig).optimize();
+
+		// 固定种子下结果可复现：回测次数少于网格，最佳结果在网格前3名内
+		assertTrue(genetic.getEvaluations().size() < grid.getEvaluations().size());
+		assertTrue("遗传算法的最佳结果应在网格搜索前3名内, 排名: " + rankIn(grid, genetic.getBestScore()),
+				rankIn(grid, genetic.getBestScore()) <= 3);
+		assertEquals(genetic.getBestScore(), optimizer(config).optimize().getBestScore(), 0.0);
+	}
+
+	@Test
+	public void testParallelEvaluationsLoadDataOnce() {
+		MockDataFeed feed = new MockDataFeed(bars(300, 42L));
+		OptimizationConfig config = gridConfig();
+		config.setMethod(OptimizationMethod.GENETIC);
+		config.setPopulationSize(8);
+		config.setGenerations(2);
+		config.setRandomSeed(1L);
+		BacktestConfig backtestConfig = new BacktestConfig();
+		backtestConfig.setSymbol(SYMBOL);
+		backtestConfig.setInitialCapital(1_000_000);
+		ParameterOptimizer optimizer = new ParameterOptimizer(feed, new CrossStrategy(), backtestConfig);
+		optimizer.setOptimizationConfig(config);
+
+		// 并行回测各自使用只读视图，共享的数据源只加载一次
+		assertTrue(optimizer.optimize().getEvaluations().size() > 8);
+		assertEquals(1, feed.getLoadCount());
+	}
+
+	@Test
+	public void testBayesianBeatsRandomSearchWithSameBudget() {
+		OptimizationConfig gridConfig = gridConfig();
+		gridConfig.setMethod(OptimizationMethod.GRID_SEARCH);
+		OptimizationResult grid = optimizer(gridConfig).optimize();
+
+		// 同样 20 次回测，三个种子下的平均名次
+		int bayesianRanks = 0;
+		int randomRanks = 0;
+		for (long seed = 1; seed <= 3; seed++) {
+			bayesianRanks += rankIn(grid, search(OptimizationMethod.BAYESIAN, seed).getBestScore());
+			randomRanks += rankIn(grid, search(OptimizationMethod.RANDOM_SEARCH, seed).getBestScore());
+		}
+		assertTrue("贝叶斯平均名次 " + bayesianRanks / 3.0 + " 应优于随机搜索 " + randomRanks / 3.0,
+				bayesianRanks < randomRanks);
+	}
+
+	@Test
+	public void testWarmStartRequiresSameEvaluationSetting() {
+		OptimizationResult previous = search(OptimizationMethod.RANDOM_SEARCH, 5L);
+
+		OptimizationConfig config = gridConfig();
+		config.setMethod(OptimizationMethod.BAYESIAN);
+		config.setMaxIterations(5);
+		config.setRandomSeed(5L);
+		config.addWarmStart(previous);
+		OptimizationResult warm = optimizer(config).optimize();
+		assertTrue(warm.getEvaluations().size() > 5);
+
+		// 不同数据上的结果不能用于热启动
+		BacktestConfig backtestConfig = new BacktestConfig();
+		backtestConfig.setSymbol(SYMBOL);
+		backtestConfig.setInitialCapital(1_000_000);
+		ParameterOptimizer other = new ParameterOptimizer(new MockDataFeed(bars(BARS / 2, 42L)),
+				new CrossStrategy(), backtestConfig);
+		other.setOptimizationConfig(config);
+		try {
+			other.optimize();
+			fail("不同数据的热启动结果应被拒绝");
+		} catch (IllegalArgumentException e) {
+			assertTrue(e.getMessage().contains("热启动"));
+		}
+	}
+
+	@Test
+	public void testWarmStartMatchesCustomScoringByName() {
+		OptimizationConfig first = gridConfig();
+		first.setMethod(OptimizationMethod.RANDOM_SEARCH);
+		first.setMaxIterations(10);
+		first.setRandomSeed(7L);
+		first.setScoringFunction("totalReturn", (result, parameters, fraction) -> result.getTotalReturn());
+		OptimizationResult previous = optimizer(first).optimize();
+
+		// 另一个实例、同一名称的评分可以热启动
+		OptimizationConfig config = gridConfig();
+		config.setMethod(OptimizationMethod.BAYESIAN);
+		config.setMaxIterations(5);
+		config.setRandomSeed(7L);
+		config.setScoringFunction("totalReturn", (result, parameters, fraction) -> result.getTotalReturn());
+		config.addWarmStart(previous);
+		assertTrue(optimizer(config).optimize().getEvaluations().size() > 5);
+
+		// 名称不同视为不同的评分
+		config.setScoringFunction("drawdown", (result, parameters, fraction) -> -result.getMaxDrawdown());
+		try {
+			optimizer(config).optimize();
+			fail("不同评分的热启动结果应被拒绝");
+		} catch (IllegalArgumentException e) {
+			assertTrue(e.getMessage().contains("热启动"));
+		}
+
+		try {
+			config.setScoringFunction(" ", (result, parameters, fraction) -> 0.0);
+			fail("自定义评分必须指定名称");
+		} catch (IllegalArgumentException e) {
+			assertTrue(e.getMessage().contains("名称"));
+		}
+	}
+
+	// ==================== 测试数据 ====================
+
+	/**
+	 * 评分在结果中的名次（1 为最好）
+	 */
+	static int rankIn(OptimizationResult result, double score) {
+		int rank = 1;
+		for (ParameterOptimizer.ParameterEvaluation evaluation : result.getEvaluations()) {
+			if (evaluation.getScore() > score + 1e-9) {
+				rank++;
+			}
+		}
+		return rank;
+	}
+
+	static OptimizationResult search(OptimizationMethod method, long seed) {
+		OptimizationConfig config = gridConfig();
+		config.setMethod(method);
+		config.setMaxIterations(20);
+		config.setRandomSeed(seed);
+		return optimizer(config).optimize();
+	}
+
+	static OptimizationConfig gridConfig() {
+		OptimizationConfig config = new OptimizationConfig();
+		config.addParameter("fast", 2, 20, 2);
+		config.addParameter("slow", 20, 120, 10);
+		config.setMaxThreads(4);
+		return config;
+	}
+
+	static ParameterOptimizer optimizer(OptimizationConfig optimizationConfig) {
+		BacktestConfig config = new BacktestConfig();
+		config.setSymbol(SYMBOL);
+		config.setInitialCapital(1_000_000);
+		ParameterOptimizer optimizer = new ParameterOptimizer(new MockDataFeed(bars(BARS, 42L)),
+				new CrossStrategy(), config);
+		optimizer.setOptimizationConfig(optimizationConfig);
+		return optimizer;
+	}
+
+	/**
+	 * 几段升降趋势叠加噪声
+	 */
+	private static List<BarEvent> bars(int count, long seed) {
+		return TestDataGenerator.cyclicalWalk(SYMBOL, LocalDateTime.of(2020, 1, 1, 15, 0), count, 100.0, 0.004, 40.0,
+				0.012, 0.005, 100000, seed);
+	}
+}
@@ -0,0 +1,77 @@
+package com.Quantitative.common.utils;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 股票代码字典 - 将股票代码映射为从0开始的连续整数
+ *
+ * 编号在K线创建（数据加载）时分配一次，之后策略用编号直接索引原始类型数组保存逐股票状态，
+ * 每根K线不再做字符串哈希和装箱。编号只增不减，进程内全局唯一。
+ */
+public final class SymbolDictionary {
+
+	public static final int UNKNOWN = -1;
+
+	private static final SymbolDictionary INSTANCE = new SymbolDictionary();
+
+	private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+	private volatile String[] symbols = new String[64];
+	private volatile int size;
+
+	private SymbolDictionary() {
+	}
+
+	public static SymbolDictionary getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * 获取股票编号，首次出现时分配新编号
+	 */
+	public int idOf(String symbol) {
+		if (symbol == null) {
+			return UNKNOWN;
+		}
+		Integer id = ids.get(symbol);
+		return id != null ? id : register(symbol);
+	}
+
+	/**
+	 * 查找股票编号，未登记时返回 {@link #UNKNOWN}
+	 */
+	public int find(String symbol) {
+		if (symbol == null) {
+			return UNKNOWN;
+		}
+		Integer id = ids.get(symbol);
+		return id != null ? id : UNKNOWN;
+	}
+
+	public String symbolOf(int id) {
+		return id >= 0 && id < size ? symbols[id] : null;
+	}
+
+	/**
+	 * 已分配的编号数量，编号范围为 [0, size)
+	 */
+	public int size() {
+		return size;
+	}
+
+	private synchronized int register(String symbol) {
+		Integer existing = ids.get(symbol);
+		if (existing != null) {
+			return existing;
+		}
+		int id = size;
+		if (id == symbols.length) {
+			symbols = Arrays.copyOf(symbols, id * 2);
+		}
+		symbols[id] = symbol;
+		size = id + 1;
+		ids.put(symbol, id);
+		return id;
+	}
+}
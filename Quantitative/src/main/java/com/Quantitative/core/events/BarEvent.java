@@ -2,6 +2,8 @@ package com.Quantitative.core.events;
 
 import java.time.LocalDateTime;
 
+import com.Quantitative.common.utils.SymbolDictionary;
+
 /**
  * K线数据事件
  */
@@ -13,6 +15,7 @@ public class BarEvent extends Event {
     private final double close;
     private final long volume;
     private final double turnover; // 成交额
+    private final int symbolId; // 股票编号，创建时分配一次
     
     public BarEvent(LocalDateTime timestamp, String symbol, double open, 
                    double high, double low, double close, long volume) {
@@ -29,6 +32,7 @@ public class BarEvent extends Event {
         this.close = close;
         this.volume = volume;
         this.turnover = turnover;
+        this.symbolId = SymbolDictionary.getInstance().idOf(symbol);
     }
     
     // Getter方法
@@ -39,6 +43,7 @@ public class BarEvent extends Event {
     public double getClose() { return close; }
     public long getVolume() { return volume; }
     public double getTurnover() { return turnover; }
+    public int getSymbolId() { return symbolId; }
     
     /**
      * 计算价格变化
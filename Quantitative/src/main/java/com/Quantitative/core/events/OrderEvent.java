@@ -15,7 +15,7 @@ public class OrderEvent extends Event {
 	private final String orderId;
 	private final Double stopPrice; // 止损价格
 	private final Double limitPrice; // 限价价格
-	private final String timeInForce; // GTC, IOC, FOK
+	private final String timeInForce; // GTC, DAY, IOC, FOK
 
 	// 订单类型常量
 	public static final String MARKET_ORDER = "MARKET";
@@ -29,6 +29,7 @@ public class OrderEvent extends Event {
 
 	// 有效时间常量
 	public static final String GTC = "GTC"; // 取消前有效
+	public static final String DAY = "DAY"; // 当日有效
 	public static final String IOC = "IOC"; // 立即或取消
 	public static final String FOK = "FOK"; // 全部或取消
 
@@ -93,7 +94,8 @@ public class OrderEvent extends Event {
 	}
 
 	private String validateTimeInForce(String timeInForce) {
-		if (!GTC.equals(timeInForce) && !IOC.equals(timeInForce) && !FOK.equals(timeInForce)) {
+		if (!GTC.equals(timeInForce) && !DAY.equals(timeInForce) && !IOC.equals(timeInForce)
+				&& !FOK.equals(timeInForce)) {
 			throw new IllegalArgumentException("无效的有效时间: " + timeInForce);
 		}
 		return timeInForce;
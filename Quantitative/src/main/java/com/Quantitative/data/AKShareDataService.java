@@ -19,6 +19,7 @@ import org.json.JSONArray;
 import org.json.JSONObject;
 
 import com.Quantitative.core.events.BarEvent;
+import com.Quantitative.data.validation.ColumnarDataValidator;
 import com.Quantitative.data.validation.DataQualityReport;
 import com.Quantitative.data.validation.DataValidator;
 
@@ -727,18 +728,7 @@ public class AKShareDataService {
 	public DataQualityReport getDataQualityReport(String symbol, LocalDateTime start, LocalDateTime end) {
 		List<BarEvent> data = getStockHistory(symbol, start, end, "daily", "qfq");
 
-		DataQualityReport report = new DataQualityReport(symbol, start, end);
-
-		for (BarEvent bar : data) {
-			DataValidator.ValidationResult result = DataValidator.validateBar(bar);
-			report.addValidationResult(result);
-		}
-
-		// 序列验证
-		DataValidator.ValidationResult seriesResult = DataValidator.validatePriceSeries(data);
-		report.setSeriesValidation(seriesResult);
-
-		return report;
+		return ColumnarDataValidator.validate(symbol, start, end, data);
 	}
 
 	// 缓存条目类保持不变
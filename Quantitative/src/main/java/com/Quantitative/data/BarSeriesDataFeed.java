@@ -0,0 +1,128 @@
+package com.Quantitative.data;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.Quantitative.core.events.BarEvent;
+import com.Quantitative.data.model.BarSeries;
+
+/**
+ * 基于内存K线序列的 DataFeed - 按时间区间切片，不重新加载也不复制数据
+ *
+ * 用于对同一段历史反复回测（Walk-Forward、参数优化等）：全量数据只加载一次，
+ * 每个回测窗口通过 {@link #loadHistoricalData} 取得共享底层数据的只读视图。
+ */
+public class BarSeriesDataFeed implements DataFeed {
+
+	private final String symbol;
+	private final BarSeries series;
+	private BarSeries current;
+	private int currentIndex = 0;
+	private String status = "CREATED";
+	private final Map<String, Object> parameters = new HashMap<>();
+
+	public BarSeriesDataFeed(String symbol, BarSeries series) {
+		this.symbol = symbol;
+		this.series = series;
+		this.current = series;
+	}
+
+	public BarSeriesDataFeed(String symbol, List<BarEvent> bars) {
+		this(symbol, BarSeries.of(bars));
+	}
+
+	@Override
+	public void initialize() {
+		this.status = "INITIALIZED";
+	}
+
+	@Override
+	public void configure(Map<String, Object> config) {
+		if (config != null) {
+			parameters.putAll(config);
+		}
+	}
+
+	@Override
+	public List<BarEvent> loadHistoricalData(String symbol, LocalDateTime start, LocalDateTime end) {
+		if (symbol != null && this.symbol != null && !this.symbol.equals(symbol)) {
+			current = BarSeries.empty();
+			currentIndex = 0;
+			return Collections.emptyList();
+		}
+		current = series.slice(start, end);
+		currentIndex = 0;
+		return current.asList();
+	}
+
+	@Override
+	public BarEvent getNextBar() {
+		return currentIndex < current.size() ? current.get(currentIndex++) : null;
+	}
+
+	@Override
+	public boolean hasNextBar() {
+		return currentIndex < current.size();
+	}
+
+	@Override
+	public void reset() {
+		currentIndex = 0;
+		this.status = "RESET";
+	}
+
+	@Override
+	public List<BarEvent> getAllBars() {
+		return current.asList();
+	}
+
+	@Override
+	public DataInfo getDataInfo() {
+		return new DataInfo(symbol, series.getFirstTimestamp(), series.getLastTimestamp(), series.size(), "UNKNOWN",
+				"MEMORY", "UNKNOWN");
+	}
+
+	@Override
+	public void setParameter(String key, Object value) {
+		parameters.put(key, value);
+	}
+
+	@Override
+	public Object getParameter(String key) {
+		return parameters.get(key);
+	}
+
+	@Override
+	public List<String> getAvailableSymbols() {
+		return symbol == null ? Collections.<String>emptyList() : Collections.singletonList(symbol);
+	}
+
+	@Override
+	public boolean isConnected() {
+		return true;
+	}
+
+	@Override
+	public String getName() {
+		return "BarSeriesDataFeed";
+	}
+
+	@Override
+	public String getStatus() {
+		return status + " [索引: " + currentIndex + "/" + current.size() + "]";
+	}
+
+	@Override
+	public void shutdown() {
+		current = BarSeries.empty();
+		currentIndex = 0;
+		this.status = "SHUTDOWN";
+	}
+
+	public BarSeries getSeries() {
+		return series;
+	}
+}
@@ -1,12 +1,13 @@
 package com.Quantitative.data;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 import com.Quantitative.core.events.BarEvent;
 import com.Quantitative.core.interfaces.TradingComponent;
+import com.Quantitative.data.validation.ColumnarDataValidator;
 import com.Quantitative.data.validation.DataQualityReport;
-import com.Quantitative.data.validation.DataValidator;
 
 /**
  * 数据馈送接口 - 统一的数据获取接口
@@ -67,19 +68,29 @@ public interface DataFeed extends TradingComponent {
 	 * 获取数据质量报告（新增）
 	 */
 	default DataQualityReport getDataQualityReport(String symbol, LocalDateTime start, LocalDateTime end) {
-		// 默认实现，子类可以重写
-		List<BarEvent> bars = loadHistoricalData(symbol, start, end);
-		DataQualityReport report = new DataQualityReport(symbol, start, end);
-
-		for (BarEvent bar : bars) {
-			DataValidator.ValidationResult result = DataValidator.validateBar(bar);
-			report.addValidationResult(result);
+		// 默认实现，子类可以重写：已加载的数据覆盖 [start, end] 两端时直接使用，否则重新加载
+		List<BarEvent> bars = new ArrayList<>();
+		boolean coversStart = false;
+		boolean coversEnd = false;
+		List<BarEvent> loaded = getAllBars();
+		if (loaded != null && start != null && end != null) {
+			for (BarEvent bar : loaded) {
+				if (!symbol.equals(bar.getSymbol())) {
+					continue;
+				}
+				LocalDateTime timestamp = bar.getTimestamp();
+				coversStart |= !timestamp.isAfter(start);
+				coversEnd |= !timestamp.isBefore(end);
+				if (!timestamp.isBefore(start) && !timestamp.isAfter(end)) {
+					bars.add(bar);
+				}
+			}
+		}
+		if (!coversStart || !coversEnd) {
+			bars = loadHistoricalData(symbol, start, end);
 		}
 
-		DataValidator.ValidationResult seriesResult = DataValidator.validatePriceSeries(bars);
-		report.setSeriesValidation(seriesResult);
-
-		return report;
+		return ColumnarDataValidator.validate(symbol, start, end, bars);
 	}
 
 	// List<DataInfo> fetchData(String symbol, String startDate, String
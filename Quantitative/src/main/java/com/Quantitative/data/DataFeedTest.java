@@ -0,0 +1,46 @@
+package com.Quantitative.data;
+
+import static org.junit.Assert.assertEquals;
+
+import java.time.LocalDateTime;
+
+import org.junit.Test;
+
+import com.Quantitative.BaseTest;
+import com.Quantitative.all.Test.MockDataFeed;
+import com.Quantitative.all.Test.TestDataGenerator;
+import com.Quantitative.data.validation.DataQualityReport;
+
+/**
+ * 数据馈送默认质量报告测试 - 已加载数据只覆盖部分区间时重新加载
+ */
+public class DataFeedTest extends BaseTest {
+
+	private static final String SYMBOL = "600519";
+	private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 15, 0);
+
+	@Test
+	public void testReportUsesLoadedBarsWhenRangeIsCovered() {
+		MockDataFeed feed = new MockDataFeed(TestDataGenerator.randomWalk(SYMBOL, START, 100, 20.0, 0.01, 1L));
+		feed.loadHistoricalData(SYMBOL, START, START.plusDays(99));
+
+		DataQualityReport report = feed.getDataQualityReport(SYMBOL, START.plusDays(10), START.plusDays(59));
+		assertEquals(1, feed.getLoadCount());
+		assertEquals(50, report.getTotalBars());
+	}
+
+	@Test
+	public void testReportReloadsWhenLoadedBarsCoverOnlyPartOfRange() {
+		MockDataFeed feed = new MockDataFeed(TestDataGenerator.randomWalk(SYMBOL, START, 100, 20.0, 0.01, 1L));
+		feed.loadHistoricalData(SYMBOL, START.plusDays(30), START.plusDays(59));
+
+		DataQualityReport report = feed.getDataQualityReport(SYMBOL, START, START.plusDays(99));
+		assertEquals(2, feed.getLoadCount());
+		assertEquals(100, report.getTotalBars());
+
+		feed.loadHistoricalData(SYMBOL, START, START.plusDays(49));
+		report = feed.getDataQualityReport(SYMBOL, START.plusDays(40), START.plusDays(79));
+		assertEquals(4, feed.getLoadCount());
+		assertEquals(40, report.getTotalBars());
+	}
+}
@@ -3,11 +3,14 @@ package com.Quantitative.data;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import com.Quantitative.core.events.BarEvent;
 import com.Quantitative.data.adapter.AKShareDataSourceAdapter;
+import com.Quantitative.data.catalog.SymbolCatalog;
 import com.Quantitative.data.csv.CSVDataSource;
 import com.Quantitative.data.validation.DataQualityReport;
 
@@ -193,12 +196,12 @@ public class DataSourceManager implements DataSource {
 
 	@Override
 	public List<String> getAvailableSymbols() {
-		// 合并所有数据源的可用标的
-		List<String> allSymbols = new ArrayList<>();
+		// 合并所有数据源的可用标的（CSV数据源走标的目录，不再遍历文件），去重并保持顺序
+		Set<String> allSymbols = new LinkedHashSet<>();
 		for (DataSource dataSource : dataSources.values()) {
 			allSymbols.addAll(dataSource.getAvailableSymbols());
 		}
-		return allSymbols;
+		return new ArrayList<>(allSymbols);
 	}
 
 	@Override
@@ -253,9 +256,23 @@ public class DataSourceManager implements DataSource {
 	 * 同步多个标的到CSV
 	 */
 	public void syncMultipleToCSV(List<String> symbols, LocalDateTime start, LocalDateTime end) {
-		for (String symbol : symbols) {
-			System.out.println("同步标的: " + symbol);
-			syncToCSV(symbol, start, end);
+		DataSource csvDataSource = dataSources.get("CSV");
+		SymbolCatalog catalog = csvDataSource instanceof CSVDataSource ? ((CSVDataSource) csvDataSource).getCatalog()
+				: null;
+		// 批量同步期间只在结束时写一次标的目录
+		if (catalog != null) {
+			catalog.setAutoFlush(false);
+		}
+		try {
+			for (String symbol : symbols) {
+				System.out.println("同步标的: " + symbol);
+				syncToCSV(symbol, start, end);
+			}
+		} finally {
+			if (catalog != null) {
+				catalog.setAutoFlush(true);
+				catalog.flush();
+			}
 		}
 	}
 
@@ -6,11 +6,13 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import com.Quantitative.common.utils.TradingLogger;
 import com.Quantitative.core.events.BarEvent;
 import com.Quantitative.data.DataInfo;
 import com.Quantitative.data.DataSource;
 import com.Quantitative.data.adapter.AKShareDataSourceAdapter;
 import com.Quantitative.data.csv.CSVDataSource;
+import com.Quantitative.data.validation.ColumnarDataValidator;
 import com.Quantitative.data.validation.DataQualityReport;
 
 /**
@@ -138,6 +140,11 @@ public class AdaptiveDataSource implements DataSource {
 
 		// 按优先级尝试各个数据源
 		for (DataSource dataSource : dataSourcePriority) {
+			// 标的目录显示本地没有该区间的数据，无需打开文件
+			if (dataSource == localDataSource && !localDataSource.mayContain(symbol, start, end)) {
+				TradingLogger.debug("AdaptiveDataSource", "本地目录无 %s 数据，跳过本地数据源", symbol);
+				continue;
+			}
 			try {
 				System.out.printf("? 尝试从 %s 加载数据: %s%n", dataSource.getDataSourceType(), symbol);
 
@@ -223,16 +230,23 @@ public class AdaptiveDataSource implements DataSource {
 		System.out.printf("? 开始批量同步 %d 个标的的数据%n", symbols.size());
 
 		int successCount = 0;
-		for (String symbol : symbols) {
-			try {
-				syncToLocal(symbol, start, end);
-				successCount++;
-
-				// 添加延迟，避免请求过于频繁
-				Thread.sleep(100);
-			} catch (Exception e) {
-				System.err.println("? 同步失败: " + symbol + " - " + e.getMessage());
+		// 批量同步期间只在结束时写一次标的目录
+		localDataSource.getCatalog().setAutoFlush(false);
+		try {
+			for (String symbol : symbols) {
+				try {
+					syncToLocal(symbol, start, end);
+					successCount++;
+
+					// 添加延迟，避免请求过于频繁
+					Thread.sleep(100);
+				} catch (Exception e) {
+					System.err.println("? 同步失败: " + symbol + " - " + e.getMessage());
+				}
 			}
+		} finally {
+			localDataSource.getCatalog().setAutoFlush(true);
+			localDataSource.getCatalog().flush();
 		}
 
 		System.out.printf("? 批量同步完成: %d/%d 成功%n", successCount, symbols.size());
@@ -328,12 +342,7 @@ public class AdaptiveDataSource implements DataSource {
 	public DataQualityReport getDataQualityReport(String symbol, LocalDateTime start, LocalDateTime end) {
 		// 使用实际加载数据的数据源生成报告
 		List<BarEvent> data = loadHistoricalData(symbol, start, end);
-		DataQualityReport report = new DataQualityReport(symbol, start, end);
-
-		// 这里可以调用数据验证器来生成详细的质量报告
-		// DataValidator.validateSeries(data, report);
-
-		return report;
+		return ColumnarDataValidator.validate(symbol, start, end, data);
 	}
 
 	// Getter方法
@@ -0,0 +1,338 @@
+package com.Quantitative.data.catalog;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+import com.Quantitative.common.utils.TradingLogger;
+import com.Quantitative.core.events.BarEvent;
+import com.Quantitative.data.model.BarColumns;
+
+/**
+ * 本地数据目录的持久化标的目录
+ *
+ * 为每个标的记录数据起止时间、K线数量、文件校验和与存储格式，保存在数据目录下的 catalog.idx 中。
+ * 每次保存/同步数据时更新，标的列表和时间范围查询直接走内存，无需遍历目录或解析数据文件。
+ * 同一目录在进程内共用一个实例（{@link #forDirectory}），数据源和数据存储器看到的是同一份条目。
+ */
+public class SymbolCatalog {
+
+	public static final String CATALOG_FILE = "catalog.idx";
+	public static final String FORMAT_CSV = "CSV";
+	public static final String FORMAT_CSV_GZIP = "CSV_GZ";
+	public static final String FORMAT_BARS = "BARS";
+
+	private static final String HEADER = "# symbol\tformat\tfirst\tlast\tcount\tchecksum\tsize\tmodified";
+
+	private static final Map<Path, SymbolCatalog> INSTANCES = new ConcurrentHashMap<>();
+
+	private final Path catalogPath;
+	private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+	private volatile boolean autoFlush = true;
+	// 由目录锁保护：flush 的检查与清除、markDirty 的置位都在 synchronized(this) 中
+	private boolean dirty = false;
+
+	public SymbolCatalog(String dataDirectory) {
+		this.catalogPath = new File(dataDirectory, CATALOG_FILE).toPath();
+		load();
+	}
+
+	/**
+	 * 获取数据目录对应的共享实例
+	 */
+	public static SymbolCatalog forDirectory(String dataDirectory) {
+		Path key = new File(dataDirectory).toPath().toAbsolutePath().normalize();
+		return INSTANCES.computeIfAbsent(key, k -> new SymbolCatalog(dataDirectory));
+	}
+
+	// ==================== 查询 ====================
+
+	public Entry get(String symbol) {
+		return entries.get(symbol);
+	}
+
+	public boolean contains(String symbol) {
+		return entries.containsKey(symbol);
+	}
+
+	/**
+	 * 目录中的全部标的（按代码排序）
+	 */
+	public List<String> getSymbols() {
+		List<String> symbols = new ArrayList<>(entries.keySet());
+		Collections.sort(symbols);
+		return symbols;
+	}
+
+	/**
+	 * 数据是否可能与请求区间重叠（start/end 为 null 表示不限）。返回false时无需打开数据文件。
+	 */
+	public boolean mayContain(String symbol, LocalDateTime start, LocalDateTime end) {
+		Entry entry = entries.get(symbol);
+		if (entry == null || entry.barCount == 0) {
+			return false;
+		}
+		long startTs = start == null ? Long.MIN_VALUE : BarColumns.toEpochSecond(start);
+		long endTs = end == null ? Long.MAX_VALUE : BarColumns.toEpochSecond(end);
+		return entry.firstTs <= endTs && entry.lastTs >= startTs;
+	}
+
+	/**
+	 * 数据是否完整覆盖请求区间（按首末时间判断）
+	 */
+	public boolean covers(String symbol, LocalDateTime start, LocalDateTime end) {
+		Entry entry = entries.get(symbol);
+		if (entry == null || entry.barCount == 0) {
+			return false;
+		}
+		return (start == null || entry.firstTs <= BarColumns.toEpochSecond(start))
+				&& (end == null || entry.lastTs >= BarColumns.toEpochSecond(end));
+	}
+
+	public int size() {
+		return entries.size();
+	}
+
+	public boolean isEmpty() {
+		return entries.isEmpty();
+	}
+
+	// ==================== 更新 ====================
+
+	/**
+	 * 根据刚写入的K线更新条目
+	 */
+	public void update(String symbol, String format, List<BarEvent> bars, Path dataFile, long checksum) {
+		long first = Long.MAX_VALUE;
+		long last = Long.MIN_VALUE;
+		for (BarEvent bar : bars) {
+			long ts = BarColumns.toEpochSecond(bar.getTimestamp());
+			first = Math.min(first, ts);
+			last = Math.max(last, ts);
+		}
+		update(symbol, format, first, last, bars.size(), dataFile, checksum);
+	}
+
+	/**
+	 * 根据刚写入文件的起止时间和K线数量更新条目
+	 */
+	public void update(String symbol, String format, LocalDateTime first, LocalDateTime last, int barCount,
+			Path dataFile, long checksum) {
+		update(symbol, format, first == null ? Long.MAX_VALUE : BarColumns.toEpochSecond(first),
+				last == null ? Long.MIN_VALUE : BarColumns.toEpochSecond(last), barCount, dataFile, checksum);
+	}
+
+	private void update(String symbol, String format, long first, long last, int barCount, Path dataFile,
+			long checksum) {
+		if (barCount == 0) {
+			first = 0;
+			last = 0;
+		}
+
+		long size = 0;
+		long modified = 0;
+		try {
+			size = Files.size(dataFile);
+			modified = Files.getLastModifiedTime(dataFile).toMillis();
+		} catch (IOException e) {
+			TradingLogger.debug("SymbolCatalog", "读取文件属性失败: %s - %s", dataFile, e.getMessage());
+		}
+		put(new Entry(symbol, format, first, last, barCount, checksum, size, modified));
+	}
+
+	public void put(Entry entry) {
+		entries.put(entry.symbol, entry);
+		markDirty();
+	}
+
+	public void remove(String symbol) {
+		if (entries.remove(symbol) != null) {
+			markDirty();
+		}
+	}
+
+	/**
+	 * 条目是否与磁盘上的数据文件一致（大小和修改时间）
+	 */
+	public boolean isUpToDate(String symbol, Path dataFile) {
+		Entry entry = entries.get(symbol);
+		if (entry == null) {
+			return false;
+		}
+		try {
+			return Files.size(dataFile) == entry.fileSize
+					&& Files.getLastModifiedTime(dataFile).toMillis() == entry.lastModified;
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * 批量更新时可关闭自动落盘，结束后调用 {@link #flush()}
+	 */
+	public void setAutoFlush(boolean autoFlush) {
+		this.autoFlush = autoFlush;
+	}
+
+	private void markDirty() {
+		synchronized (this) {
+			dirty = true;
+		}
+		if (autoFlush) {
+			flush();
+		}
+	}
+
+	// ==================== 持久化 ====================
+
+	/**
+	 * 写入目录文件（临时文件 + 原子重命名）
+	 */
+	public synchronized void flush() {
+		if (!dirty) {
+			return;
+		}
+		// 先清除标记再取快照：写文件期间的修改会重新置位，由下一次 flush 写入
+		dirty = false;
+		Path temp = catalogPath.resolveSibling(CATALOG_FILE + ".tmp");
+		try {
+			Files.createDirectories(catalogPath.toAbsolutePath().getParent());
+			try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+				writer.write(HEADER);
+				writer.newLine();
+				for (String symbol : getSymbols()) {
+					Entry e = entries.get(symbol);
+					if (e == null) {
+						continue;
+					}
+					writer.write(e.symbol + '\t' + e.format + '\t' + e.firstTs + '\t' + e.lastTs + '\t' + e.barCount
+							+ '\t' + Long.toHexString(e.checksum) + '\t' + e.fileSize + '\t' + e.lastModified);
+					writer.newLine();
+				}
+			}
+			try {
+				Files.move(temp, catalogPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(temp, catalogPath, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} catch (IOException e) {
+			dirty = true;
+			TradingLogger.logSystemError("SymbolCatalog", "flush", e);
+		}
+	}
+
+	private void load() {
+		if (!Files.exists(catalogPath)) {
+			return;
+		}
+		try (BufferedReader reader = Files.newBufferedReader(catalogPath, StandardCharsets.UTF_8)) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (line.isEmpty() || line.startsWith("#")) {
+					continue;
+				}
+				String[] parts = line.split("\t");
+				if (parts.length < 8) {
+					continue;
+				}
+				Entry entry = new Entry(parts[0], parts[1], Long.parseLong(parts[2]), Long.parseLong(parts[3]),
+						Integer.parseInt(parts[4]), Long.parseLong(parts[5], 16), Long.parseLong(parts[6]),
+						Long.parseLong(parts[7]));
+				entries.put(entry.symbol, entry);
+			}
+		} catch (IOException | RuntimeException e) {
+			// 目录文件损坏时丢弃，由数据源重建
+			entries.clear();
+			TradingLogger.logRisk("WARN", "SymbolCatalog", "标的目录文件损坏，将重建: %s", catalogPath);
+		}
+	}
+
+	/**
+	 * 计算文件的CRC32校验和
+	 */
+	public static long checksum(Path file) throws IOException {
+		CRC32 crc = new CRC32();
+		byte[] buffer = new byte[64 * 1024];
+		try (InputStream in = Files.newInputStream(file)) {
+			int read;
+			while ((read = in.read(buffer)) > 0) {
+				crc.update(buffer, 0, read);
+			}
+		}
+		return crc.getValue();
+	}
+
+	/**
+	 * 目录条目
+	 */
+	public static class Entry {
+		private final String symbol;
+		private final String format;
+		private final long firstTs;
+		private final long lastTs;
+		private final int barCount;
+		private final long checksum;
+		private final long fileSize;
+		private final long lastModified;
+
+		public Entry(String symbol, String format, long firstTs, long lastTs, int barCount, long checksum,
+				long fileSize, long lastModified) {
+			this.symbol = symbol;
+			this.format = format;
+			this.firstTs = firstTs;
+			this.lastTs = lastTs;
+			this.barCount = barCount;
+			this.checksum = checksum;
+			this.fileSize = fileSize;
+			this.lastModified = lastModified;
+		}
+
+		public String getSymbol() {
+			return symbol;
+		}
+
+		public String getFormat() {
+			return format;
+		}
+
+		public LocalDateTime getFirstTimestamp() {
+			return BarColumns.toDateTime(firstTs);
+		}
+
+		public LocalDateTime getLastTimestamp() {
+			return BarColumns.toDateTime(lastTs);
+		}
+
+		public int getBarCount() {
+			return barCount;
+		}
+
+		public long getChecksum() {
+			return checksum;
+		}
+
+		public long getFileSize() {
+			return fileSize;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("CatalogEntry{%s, %s, %s ~ %s, %d bars}", symbol, format, getFirstTimestamp(),
+					getLastTimestamp(), barCount);
+		}
+	}
+}
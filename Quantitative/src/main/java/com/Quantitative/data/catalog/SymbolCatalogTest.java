@@ -0,0 +1,64 @@
+package com.Quantitative.data.catalog;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.Quantitative.BaseTest;
+import com.Quantitative.all.Test.TestDataGenerator;
+import com.Quantitative.data.csv.CSVDataSource;
+
+/**
+ * 标的目录测试 - 文件改写后失效、共享实例与并发落盘
+ */
+public class SymbolCatalogTest extends BaseTest {
+
+	private static final LocalDateTime START = LocalDateTime.of(2024, 1, 2, 15, 0);
+
+	@Test
+	public void testRewrittenFileRefreshesEntry() throws Exception {
+		String dir = Files.createTempDirectory("catalog").toString();
+		CSVDataSource source = new CSVDataSource(dir);
+		source.saveToCSV("600519", TestDataGenerator.randomWalk("600519", START, 50, 10.0, 0.01, 1L));
+		source.saveToCSV("000001", TestDataGenerator.randomWalk("000001", START, 100, 10.0, 0.01, 2L));
+		assertSame(SymbolCatalog.forDirectory(dir), source.getCatalog());
+		assertFalse(source.mayContain("600519", START.plusDays(60), START.plusDays(70)));
+
+		// 绕过目录直接改写数据文件，条目按大小和修改时间判定失效
+		Path target = new File(dir, "600519.csv").toPath();
+		Files.copy(new File(dir, "000001.csv").toPath(), target, StandardCopyOption.REPLACE_EXISTING);
+		assertTrue(source.mayContain("600519", START.plusDays(60), START.plusDays(70)));
+		assertEquals(100, source.getCatalog().get("600519").getBarCount());
+	}
+
+	@Test
+	public void testConcurrentUpdatesAreAllFlushed() throws Exception {
+		String dir = Files.createTempDirectory("catalog").toString();
+		SymbolCatalog catalog = SymbolCatalog.forDirectory(dir);
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		for (int t = 0; t < 8; t++) {
+			final int thread = t;
+			executor.execute(() -> {
+				for (int i = 0; i < 50; i++) {
+					catalog.put(new SymbolCatalog.Entry(thread + "-" + i, SymbolCatalog.FORMAT_CSV, 0, 1, 2, 0, 0, 0));
+				}
+			});
+		}
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+		assertEquals(400, new SymbolCatalog(dir).size());
+	}
+}
@@ -0,0 +1,403 @@
+package com.Quantitative.data.csv;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPOutputStream;
+
+import com.Quantitative.core.events.BarEvent;
+import com.Quantitative.data.model.StockBar;
+
+/**
+ * 高吞吐CSV批量写入器
+ *
+ * 数值使用定点精度编码直接写入可复用的字节缓冲区，再通过NIO通道落盘，
+ * 避免逐行 String.format 带来的格式化与对象分配开销。 支持可选的GZIP压缩输出和"先写临时文件再原子重命名"的安全写入。
+ *
+ * 说明：数值按四舍五入(HALF_UP)取整，小数点固定为'.'，与区域设置无关。
+ */
+public class BulkCSVWriter {
+
+	public static final String DEFAULT_HEADER = "date,open,high,low,close,volume,turnover";
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+	// long 的十进制表示最多20字节（含负号）
+	private static final int MAX_LONG_BYTES = 20;
+	private static final long[] POW10 = { 1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L, 10000000L, 100000000L };
+	// 超过该量级时 double*10^n 不再能精确表示为long，回退到标准格式化
+	private static final double FAST_PATH_LIMIT = 1e15;
+
+	private static final int DATE_PATTERN_OTHER = 0;
+	private static final int DATE_PATTERN_ISO = 1; // yyyy-MM-dd
+	private static final int DATE_PATTERN_SLASH = 2; // yyyy/M/d
+	private static final int DATE_PATTERN_COMPACT = 3; // yyyyMMdd
+
+	private final byte[] buffer = new byte[BUFFER_SIZE];
+	private int position;
+
+	private String header = DEFAULT_HEADER;
+	private int priceDecimals = 4;
+	private int turnoverDecimals = 2;
+	private boolean compress = false;
+	private boolean atomicWrite = true;
+
+	private DateTimeFormatter dateFormatter;
+	private int datePattern;
+
+	// 当前写入目标
+	private FileChannel channel;
+	private OutputStream compressedOut;
+	private long bytesWritten;
+	private final CRC32 checksum = new CRC32();
+
+	public BulkCSVWriter() {
+		setDateFormat("yyyy-MM-dd");
+	}
+
+	public BulkCSVWriter(String dateFormat, int priceDecimals, int turnoverDecimals) {
+		setDateFormat(dateFormat);
+		setPriceDecimals(priceDecimals);
+		setTurnoverDecimals(turnoverDecimals);
+	}
+
+	// ==================== 配置方法 ====================
+
+	public BulkCSVWriter setDateFormat(String pattern) {
+		this.dateFormatter = DateTimeFormatter.ofPattern(pattern);
+		if ("yyyy-MM-dd".equals(pattern)) {
+			this.datePattern = DATE_PATTERN_ISO;
+		} else if ("yyyy/M/d".equals(pattern)) {
+			this.datePattern = DATE_PATTERN_SLASH;
+		} else if ("yyyyMMdd".equals(pattern)) {
+			this.datePattern = DATE_PATTERN_COMPACT;
+		} else {
+			this.datePattern = DATE_PATTERN_OTHER;
+		}
+		return this;
+	}
+
+	public BulkCSVWriter setPriceDecimals(int decimals) {
+		this.priceDecimals = checkDecimals(decimals);
+		return this;
+	}
+
+	public BulkCSVWriter setTurnoverDecimals(int decimals) {
+		this.turnoverDecimals = checkDecimals(decimals);
+		return this;
+	}
+
+	public BulkCSVWriter setHeader(String header) {
+		this.header = header;
+		return this;
+	}
+
+	/**
+	 * 是否输出GZIP压缩文件（文件名由调用方决定，建议使用 .csv.gz 后缀）
+	 */
+	public BulkCSVWriter setCompress(boolean compress) {
+		this.compress = compress;
+		return this;
+	}
+
+	/**
+	 * 是否先写入临时文件，完成后原子重命名为目标文件
+	 */
+	public BulkCSVWriter setAtomicWrite(boolean atomicWrite) {
+		this.atomicWrite = atomicWrite;
+		return this;
+	}
+
+	/**
+	 * 最近一次写入内容的CRC32校验和（压缩前），与未压缩文件的校验和一致
+	 */
+	public long getLastChecksum() {
+		return checksum.getValue();
+	}
+
+	public boolean isCompress() {
+		return compress;
+	}
+
+	public boolean isAtomicWrite() {
+		return atomicWrite;
+	}
+
+	private static int checkDecimals(int decimals) {
+		if (decimals < 0 || decimals >= POW10.length) {
+			throw new IllegalArgumentException("小数位数必须在 0 到 " + (POW10.length - 1) + " 之间: " + decimals);
+		}
+		return decimals;
+	}
+
+	// ==================== 写入入口 ====================
+
+	/**
+	 * 写入BarEvent列表
+	 *
+	 * @return 写入的字节数（压缩前）
+	 */
+	public long writeBars(Path target, List<BarEvent> bars) throws IOException {
+		Path output = open(target);
+		boolean success = false;
+		try {
+			for (BarEvent bar : bars) {
+				appendRow(bar.getTimestamp(), bar.getOpen(), bar.getHigh(), bar.getLow(), bar.getClose(),
+						bar.getVolume(), bar.getTurnover());
+			}
+			success = true;
+		} finally {
+			close(target, output, success);
+		}
+		return bytesWritten;
+	}
+
+	/**
+	 * 写入StockBar列表
+	 *
+	 * @return 写入的字节数（压缩前）
+	 */
+	public long writeStockBars(Path target, List<StockBar> bars) throws IOException {
+		Path output = open(target);
+		boolean success = false;
+		try {
+			for (StockBar bar : bars) {
+				appendRow(bar.getTimestamp(), bar.getOpen(), bar.getHigh(), bar.getLow(), bar.getClose(),
+						bar.getVolume(), bar.getTurnover());
+			}
+			success = true;
+		} finally {
+			close(target, output, success);
+		}
+		return bytesWritten;
+	}
+
+	// ==================== 通道管理 ====================
+
+	private Path open(Path target) throws IOException {
+		Path parent = target.toAbsolutePath().getParent();
+		if (parent != null) {
+			Files.createDirectories(parent);
+		}
+
+		Path output = atomicWrite ? target.resolveSibling(target.getFileName() + ".tmp") : target;
+		channel = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING);
+		compressedOut = compress ? new GZIPOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE) : null;
+		position = 0;
+		bytesWritten = 0;
+		checksum.reset();
+
+		if (header != null && !header.isEmpty()) {
+			putAscii(header);
+			put('\n');
+		}
+		return output;
+	}
+
+	private void close(Path target, Path output, boolean success) throws IOException {
+		boolean completed = false;
+		try {
+			if (success) {
+				flush();
+				if (compressedOut != null) {
+					((GZIPOutputStream) compressedOut).finish();
+				}
+				if (atomicWrite) {
+					channel.force(false);
+				}
+				completed = true;
+			}
+		} finally {
+			if (compressedOut != null) {
+				compressedOut.close(); // 同时关闭底层通道
+			}
+			channel.close();
+			compressedOut = null;
+			channel = null;
+
+			if (atomicWrite && !completed) {
+				Files.deleteIfExists(output);
+			}
+		}
+
+		if (atomicWrite && completed) {
+			try {
+				Files.move(output, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(output, target, StandardCopyOption.REPLACE_EXISTING);
+			}
+		}
+	}
+
+	private void flush() throws IOException {
+		if (position == 0) {
+			return;
+		}
+		write(buffer, position);
+		position = 0;
+	}
+
+	private void write(byte[] bytes, int length) throws IOException {
+		if (compressedOut != null) {
+			compressedOut.write(bytes, 0, length);
+		} else {
+			ByteBuffer byteBuffer = ByteBuffer.wrap(bytes, 0, length);
+			while (byteBuffer.hasRemaining()) {
+				channel.write(byteBuffer);
+			}
+		}
+		checksum.update(bytes, 0, length);
+		bytesWritten += length;
+	}
+
+	// ==================== 行编码 ====================
+	// 行长度没有上限（大数值回退到 String.format、自定义日期格式），每个写入原语各自检查剩余空间，不足时先刷盘
+
+	private void appendRow(LocalDateTime timestamp, double open, double high, double low, double close, long volume,
+			double turnover) throws IOException {
+		putDate(timestamp);
+		put(',');
+		putFixed(open, priceDecimals);
+		put(',');
+		putFixed(high, priceDecimals);
+		put(',');
+		putFixed(low, priceDecimals);
+		put(',');
+		putFixed(close, priceDecimals);
+		put(',');
+		putLong(volume);
+		put(',');
+		putFixed(turnover, turnoverDecimals);
+		put('\n');
+	}
+
+	private void putDate(LocalDateTime timestamp) throws IOException {
+		switch (datePattern) {
+		case DATE_PATTERN_ISO:
+			putPadded(timestamp.getYear(), 4);
+			put('-');
+			putPadded(timestamp.getMonthValue(), 2);
+			put('-');
+			putPadded(timestamp.getDayOfMonth(), 2);
+			break;
+		case DATE_PATTERN_SLASH:
+			putLong(timestamp.getYear());
+			put('/');
+			putLong(timestamp.getMonthValue());
+			put('/');
+			putLong(timestamp.getDayOfMonth());
+			break;
+		case DATE_PATTERN_COMPACT:
+			putPadded(timestamp.getYear(), 4);
+			putPadded(timestamp.getMonthValue(), 2);
+			putPadded(timestamp.getDayOfMonth(), 2);
+			break;
+		default:
+			putAscii(timestamp.format(dateFormatter));
+		}
+	}
+
+	/**
+	 * 定点精度编码：value 四舍五入到 decimals 位小数
+	 */
+	private void putFixed(double value, int decimals) throws IOException {
+		if (Double.isNaN(value) || Double.isInfinite(value) || Math.abs(value) >= FAST_PATH_LIMIT / POW10[decimals]) {
+			putAscii(String.format(Locale.ROOT, "%." + decimals + "f", value));
+			return;
+		}
+
+		long scale = POW10[decimals];
+		long scaled = (long) Math.floor(Math.abs(value) * scale + 0.5);
+		if (value < 0 && scaled != 0) {
+			put('-');
+		}
+
+		putLong(scaled / scale);
+		if (decimals > 0) {
+			put('.');
+			putPadded(scaled % scale, decimals);
+		}
+	}
+
+	private void putLong(long value) throws IOException {
+		if (value == Long.MIN_VALUE) {
+			putAscii(Long.toString(value));
+			return;
+		}
+		ensureCapacity(MAX_LONG_BYTES);
+		if (value < 0) {
+			buffer[position++] = '-';
+			value = -value;
+		}
+
+		int start = position;
+		do {
+			buffer[position++] = (byte) ('0' + (value % 10));
+			value /= 10;
+		} while (value != 0);
+		reverse(start, position - 1);
+	}
+
+	/**
+	 * 写入固定宽度的非负整数，不足位数补0
+	 */
+	private void putPadded(long value, int width) throws IOException {
+		ensureCapacity(width);
+		for (int i = position + width - 1; i >= position; i--) {
+			buffer[i] = (byte) ('0' + (value % 10));
+			value /= 10;
+		}
+		position += width;
+	}
+
+	private void putAscii(String text) throws IOException {
+		byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+		if (bytes.length > buffer.length - position) {
+			flush();
+			if (bytes.length > buffer.length) {
+				// 比整个缓冲区还长的字段直接写出
+				write(bytes, bytes.length);
+				return;
+			}
+		}
+		System.arraycopy(bytes, 0, buffer, position, bytes.length);
+		position += bytes.length;
+	}
+
+	private void put(char c) throws IOException {
+		if (position == buffer.length) {
+			flush();
+		}
+		buffer[position++] = (byte) c;
+	}
+
+	/**
+	 * 缓冲区剩余空间不足 length 字节时先刷盘
+	 */
+	private void ensureCapacity(int length) throws IOException {
+		if (length > buffer.length - position) {
+			flush();
+		}
+	}
+
+	private void reverse(int from, int to) {
+		while (from < to) {
+			byte tmp = buffer[from];
+			buffer[from++] = buffer[to];
+			buffer[to--] = tmp;
+		}
+	}
+}
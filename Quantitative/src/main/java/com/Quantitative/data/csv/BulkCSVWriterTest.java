@@ -0,0 +1,143 @@
+package com.Quantitative.data.csv;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.Test;
+
+import com.Quantitative.BaseTest;
+import com.Quantitative.core.events.BarEvent;
+
+/**
+ * 批量CSV写入测试 - 超长行、负数、NaN，经 CSVDataSource 读回
+ */
+public class BulkCSVWriterTest extends BaseTest {
+
+	private static final String SYMBOL = "600519";
+	private static final LocalDateTime START = LocalDateTime.of(2024, 1, 2, 15, 0);
+
+	@Test
+	public void testAtomicWriteRoundTripsThroughCSVDataSource() throws Exception {
+		Path dir = Files.createTempDirectory("bulk");
+		Map<String, Object> config = new HashMap<>();
+		// 日期字段走通用格式化分支
+		config.put("dateFormat", "'trade date 'yyyy-MM-dd' (close)'");
+		CSVDataSource source = new CSVDataSource(dir.toString());
+		source.configure(config);
+
+		List<BarEvent> bars = bars(2000);
+		source.saveToCSV(SYMBOL, bars);
+		assertFalse(new File(dir.toFile(), SYMBOL + ".csv.tmp").exists());
+
+		CSVDataSource reader = new CSVDataSource(dir.toString());
+		reader.configure(config);
+		assertRoundTrip(bars, reader.loadHistoricalData(SYMBOL, null, null));
+	}
+
+	@Test
+	public void testCompressedOutputMatchesPlainOutput() throws Exception {
+		Path dir = Files.createTempDirectory("bulk");
+		List<BarEvent> bars = bars(2000);
+
+		BulkCSVWriter writer = new BulkCSVWriter().setCompress(true).setAtomicWrite(false);
+		long written = writer.writeBars(dir.resolve("compressed.csv.gz"), bars);
+		byte[] plain;
+		try (InputStream in = new GZIPInputStream(Files.newInputStream(dir.resolve("compressed.csv.gz")))) {
+			plain = readAll(in);
+		}
+		assertEquals(written, plain.length);
+		CRC32 crc = new CRC32();
+		crc.update(plain, 0, plain.length);
+		assertEquals(crc.getValue(), writer.getLastChecksum());
+
+		Files.write(dir.resolve(SYMBOL + ".csv"), plain);
+		assertRoundTrip(bars, new CSVDataSource(dir.toString()).loadHistoricalData(SYMBOL, null, null));
+	}
+
+	@Test
+	public void testNegativeAndNaNValuesAreWritten() throws Exception {
+		Path file = Files.createTempDirectory("bulk").resolve("signed.csv");
+		BarEvent bar = new BarEvent(START, SYMBOL, -12.5, 0.00004, -0.00004, -1e300, -7, Double.NaN);
+		new BulkCSVWriter().writeBars(file, Collections.singletonList(bar));
+
+		List<String> lines = Files.readAllLines(file);
+		assertEquals(2, lines.size());
+		String[] fields = lines.get(1).split(",");
+		assertEquals("2024-01-02", fields[0]);
+		assertEquals("-12.5000", fields[1]);
+		assertEquals("0.0000", fields[2]);
+		assertEquals("0.0000", fields[3]);
+		assertEquals(-1e300, Double.parseDouble(fields[4]), 0.0);
+		assertEquals("-7", fields[5]);
+		assertEquals("NaN", fields[6]);
+	}
+
+	/**
+	 * 成交额在超大值（1e300 量级，单行超过300字节）、负数和NaN之间轮换；价格保持在 CSVDataSource 校验范围内
+	 */
+	private static List<BarEvent> bars(int count) {
+		List<BarEvent> bars = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			double price = 10.0 + i * 0.0125;
+			double turnover;
+			if (i % 3 == 0) {
+				turnover = 1e300 * (1 + i % 7);
+			} else if (i % 3 == 1) {
+				turnover = -price * 1000.25;
+			} else {
+				turnover = Double.NaN;
+			}
+			bars.add(new BarEvent(START.plusDays(i), SYMBOL, price, price * 1.01, price * 0.99, price, 100000 + i,
+					turnover));
+		}
+		return bars;
+	}
+
+	private static void assertRoundTrip(List<BarEvent> expected, List<BarEvent> actual) {
+		assertEquals(expected.size(), actual.size());
+		for (int i = 0; i < expected.size(); i++) {
+			BarEvent e = expected.get(i);
+			BarEvent a = actual.get(i);
+			assertEquals(e.getTimestamp(), a.getTimestamp());
+			assertPrice(e.getOpen(), a.getOpen());
+			assertPrice(e.getHigh(), a.getHigh());
+			assertPrice(e.getLow(), a.getLow());
+			assertPrice(e.getClose(), a.getClose());
+			assertEquals(e.getVolume(), a.getVolume());
+			if (Double.isNaN(e.getTurnover())) {
+				assertTrue(Double.isNaN(a.getTurnover()));
+			} else {
+				assertEquals(e.getTurnover(), a.getTurnover(), Math.max(0.01, Math.ulp(e.getTurnover())));
+			}
+		}
+	}
+
+	private static void assertPrice(double expected, double actual) {
+		assertEquals(expected, actual, Math.max(0.0001, Math.ulp(expected)));
+	}
+
+	private static byte[] readAll(InputStream in) throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] chunk = new byte[8192];
+		int n;
+		while ((n = in.read(chunk)) > 0) {
+			out.write(chunk, 0, n);
+		}
+		return out.toByteArray();
+	}
+}
@@ -3,20 +3,28 @@ package com.Quantitative.data.csv;
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.Quantitative.core.events.BarEvent;
 import com.Quantitative.data.DataInfo;
 import com.Quantitative.data.DataSource;
+import com.Quantitative.data.catalog.SymbolCatalog;
+import com.Quantitative.data.model.BarSeries;
+import com.Quantitative.data.storage.CompressedBarStore;
+import com.Quantitative.data.validation.ColumnarDataValidator;
 import com.Quantitative.data.validation.DataQualityReport;
 import com.Quantitative.data.validation.DataValidator;
 
@@ -27,8 +35,14 @@ public class CSVDataSource implements DataSource {
 
 	private String dataDirectory;
 	private Map<String, List<BarEvent>> cache;
+	private SymbolCatalog catalog;
+	// 全量K线序列（已校验），按时间区间切片返回
+	private final Map<String, BarSeries> seriesCache = new ConcurrentHashMap<>();
 	private String status = "CREATED";
 	private boolean cacheEnabled = true;
+	// 解析过的CSV另存为压缩二进制文件（可选），之后优先解码读取
+	private boolean binaryCacheEnabled = false;
+	private CompressedBarStore barStore;
 
 	// CSV文件格式配置 - 修复日期格式
 	private String dateFormat = "yyyy-MM-dd";
@@ -53,16 +67,30 @@ public class CSVDataSource implements DataSource {
 				System.out.println("? 创建数据目录: " + dataDirectory);
 			}
 		}
+		this.catalog = SymbolCatalog.forDirectory(dataDirectory);
+		this.barStore = binaryCacheEnabled ? new CompressedBarStore(new File(dataDirectory, "bars").getPath()) : null;
+	}
+
+	/**
+	 * 启用压缩二进制缓存：CSV解析后写入数据目录下 bars/ 中的 .bars 文件，
+	 * .bars 比CSV新时直接解码，不再逐行解析。价格按4位小数、成交额按2位小数存储。
+	 */
+	public void setBinaryCacheEnabled(boolean binaryCacheEnabled) {
+		this.binaryCacheEnabled = binaryCacheEnabled;
+		initializeDataDirectory();
 	}
 
 	@Override
 	public void initialize() {
 		System.out.println("初始化CSV数据源: " + dataDirectory);
+		// 刷新目录时已解析的文件直接用于预加载，每个文件只解析一次
+		Map<String, List<BarEvent>> parsed = new HashMap<>();
+		refreshCatalog(parsed);
 		this.status = "INITIALIZED";
 
 		// 预加载缓存（可选）
 		if (cacheEnabled) {
-			preloadCache();
+			preloadCache(parsed);
 		}
 	}
 
@@ -79,6 +107,9 @@ public class CSVDataSource implements DataSource {
 			if (config.containsKey("dateFormat")) {
 				this.dateFormat = (String) config.get("dateFormat");
 			}
+			if (config.containsKey("binaryCache")) {
+				setBinaryCacheEnabled((Boolean) config.get("binaryCache"));
+			}
 		}
 	}
 
@@ -95,12 +126,14 @@ public class CSVDataSource implements DataSource {
 	@Override
 	public void reset() {
 		cache.clear();
+		seriesCache.clear();
 		this.status = "RESET";
 	}
 
 	@Override
 	public void shutdown() {
 		cache.clear();
+		seriesCache.clear();
 		this.status = "SHUTDOWN";
 		System.out.println("CSV数据源已关闭");
 	}
@@ -116,13 +149,22 @@ public class CSVDataSource implements DataSource {
 		}
 
 		try {
-			List<BarEvent> bars = loadFromCSV(file, symbol);
-
-			// 过滤时间范围
-			List<BarEvent> filteredBars = filterByDateRange(bars, start, end);
+			BarSeries series = cacheEnabled ? seriesCache.get(symbol) : null;
+			if (series == null || !catalog.isUpToDate(symbol, file.toPath())) {
+				// 整个文件只解析、校验一次，之后不同时间窗口都在同一序列上切片
+				List<BarEvent> bars = readBars(file, symbol);
+				if (!catalog.isUpToDate(symbol, file.toPath())) {
+					catalog.update(symbol, SymbolCatalog.FORMAT_CSV, bars, file.toPath(),
+							SymbolCatalog.checksum(file.toPath()));
+				}
+				series = BarSeries.of(validateAndRepairData(bars));
+				if (cacheEnabled) {
+					seriesCache.put(symbol, series);
+				}
+			}
 
-			// 数据验证
-			List<BarEvent> validatedBars = validateAndRepairData(filteredBars);
+			// 过滤时间范围（返回只读视图）
+			List<BarEvent> validatedBars = filterByDateRange(series, start, end);
 
 			// 缓存数据
 			if (cacheEnabled) {
@@ -138,6 +180,32 @@ public class CSVDataSource implements DataSource {
 		}
 	}
 
+	/**
+	 * 读取一个标的的全部K线：启用二进制缓存且 .bars 文件比CSV新时解码 .bars，否则解析CSV并写入 .bars
+	 */
+	private List<BarEvent> readBars(File file, String symbol) throws IOException {
+		CompressedBarStore store = barStore;
+		if (store == null) {
+			return loadFromCSV(file, symbol);
+		}
+		Path binary = store.getPath(symbol);
+		if (Files.exists(binary)
+				&& Files.getLastModifiedTime(binary).compareTo(Files.getLastModifiedTime(file.toPath())) > 0) {
+			try {
+				return store.readAll(symbol);
+			} catch (IOException | RuntimeException e) {
+				System.err.println("读取压缩数据失败，改为解析CSV: " + binary + " - " + e.getMessage());
+			}
+		}
+		List<BarEvent> bars = loadFromCSV(file, symbol);
+		try {
+			store.write(symbol, bars);
+		} catch (IOException e) {
+			System.err.println("写入压缩数据失败: " + binary + " - " + e.getMessage());
+		}
+		return bars;
+	}
+
 	/**
 	 * 从CSV文件加载数据 - 修复日期解析
 	 */
@@ -248,21 +316,11 @@ public class CSVDataSource implements DataSource {
 		String filename = getFilename(symbol);
 		File file = new File(dataDirectory, filename);
 
-		// 确保目录存在
-		file.getParentFile().mkdirs();
-
-		try (FileWriter writer = new FileWriter(file)) {
-			// 写入表头
-			writer.write("date,open,high,low,close,volume,turnover\n");
-
-			// 写入数据
-			DateTimeFormatter formatter = DateTimeFormatter.ofPattern(dateFormat);
-			for (BarEvent bar : bars) {
-				String line = String.format("%s,%.4f,%.4f,%.4f,%.4f,%d,%.2f\n", bar.getTimestamp().format(formatter), // 只格式化日期部分
-						bar.getOpen(), bar.getHigh(), bar.getLow(), bar.getClose(), bar.getVolume(), bar.getTurnover());
-				writer.write(line);
-			}
-		}
+		// 先写临时文件再原子重命名，读取方不会看到写了一半的文件
+		BulkCSVWriter writer = new BulkCSVWriter(dateFormat, 4, 2);
+		writer.writeBars(file.toPath(), bars);
+		catalog.update(symbol, SymbolCatalog.FORMAT_CSV, bars, file.toPath(), writer.getLastChecksum());
+		seriesCache.remove(symbol);
 
 		System.out.printf("? 数据已保存到CSV: %s, %d条记录%n", filename, bars.size());
 	}
@@ -371,25 +429,28 @@ public class CSVDataSource implements DataSource {
 	}
 
 	/**
-	 * 按时间范围过滤数据
+	 * 按时间范围过滤数据 - 二分查找定位区间，返回共享底层数据的只读视图
 	 */
-	private List<BarEvent> filterByDateRange(List<BarEvent> bars, LocalDateTime start, LocalDateTime end) {
-		List<BarEvent> filtered = new ArrayList<>();
+	private List<BarEvent> filterByDateRange(BarSeries series, LocalDateTime start, LocalDateTime end) {
+		return series.slice(start, end).asList();
+	}
 
-		for (BarEvent bar : bars) {
-			LocalDateTime timestamp = bar.getTimestamp();
-			if ((start == null || !timestamp.isBefore(start)) && (end == null || !timestamp.isAfter(end))) {
-				filtered.add(bar);
-			}
+	/**
+	 * 获取已校验的全量K线序列，供需要反复切片的调用方直接使用
+	 */
+	public BarSeries getSeries(String symbol) {
+		BarSeries series = seriesCache.get(symbol);
+		if (series == null) {
+			loadHistoricalData(symbol, null, null);
+			series = seriesCache.get(symbol);
 		}
-
-		return filtered;
+		return series != null ? series : BarSeries.empty();
 	}
 
 	/**
 	 * 预加载缓存
 	 */
-	private void preloadCache() {
+	private void preloadCache(Map<String, List<BarEvent>> parsed) {
 		File dir = new File(dataDirectory);
 		File[] files = dir.listFiles((d, name) -> name.endsWith(".csv"));
 
@@ -397,7 +458,10 @@ public class CSVDataSource implements DataSource {
 			for (File file : files) {
 				String symbol = file.getName().replace(".csv", "");
 				try {
-					List<BarEvent> bars = loadFromCSV(file, symbol);
+					List<BarEvent> bars = parsed.get(symbol);
+					if (bars == null) {
+						bars = readBars(file, symbol);
+					}
 					cache.put(symbol, bars);
 					System.out.printf("? 预加载缓存: %s, %d条记录%n", symbol, bars.size());
 				} catch (IOException e) {
@@ -407,6 +471,20 @@ public class CSVDataSource implements DataSource {
 		}
 	}
 
+	private boolean refreshCatalogEntry(String symbol, File file, Map<String, List<BarEvent>> parsed) {
+		try {
+			List<BarEvent> bars = readBars(file, symbol);
+			catalog.update(symbol, SymbolCatalog.FORMAT_CSV, bars, file.toPath(), SymbolCatalog.checksum(file.toPath()));
+			if (parsed != null) {
+				parsed.put(symbol, bars);
+			}
+			return true;
+		} catch (IOException e) {
+			System.err.println("更新标的目录失败: " + file.getName() + " - " + e.getMessage());
+			return false;
+		}
+	}
+
 	private String getFilename(String symbol) {
 		return symbol + ".csv";
 	}
@@ -430,32 +508,78 @@ public class CSVDataSource implements DataSource {
 
 	@Override
 	public List<String> getAvailableSymbols() {
-		List<String> symbols = new ArrayList<>();
+		if (catalog.isEmpty()) {
+			refreshCatalog();
+		}
+		return catalog.getSymbols();
+	}
+
+	/**
+	 * 本地数据是否可能包含该区间（只查目录，不读文件）
+	 */
+	public boolean mayContain(String symbol, LocalDateTime start, LocalDateTime end) {
+		File file = new File(dataDirectory, getFilename(symbol));
+		if (!catalog.isUpToDate(symbol, file.toPath())) {
+			// 目录外新增或改写过（大小、修改时间变化）的文件，重新登记后再判断
+			if (!file.exists() || !refreshCatalogEntry(symbol, file, null)) {
+				return false;
+			}
+		}
+		return catalog.mayContain(symbol, start, end);
+	}
+
+	public SymbolCatalog getCatalog() {
+		return catalog;
+	}
+
+	/**
+	 * 将目录与数据文件对齐：大小或修改时间变化的文件重新解析，已删除的文件移出目录
+	 *
+	 * @return 重新解析的文件数
+	 */
+	public int refreshCatalog() {
+		return refreshCatalog(null);
+	}
+
+	private int refreshCatalog(Map<String, List<BarEvent>> parsed) {
 		File dir = new File(dataDirectory);
 		File[] files = dir.listFiles((d, name) -> name.endsWith(".csv"));
+		if (files == null) {
+			return 0;
+		}
 
-		if (files != null) {
+		int refreshed = 0;
+		Set<String> present = new HashSet<>();
+		catalog.setAutoFlush(false);
+		try {
 			for (File file : files) {
-				symbols.add(file.getName().replace(".csv", ""));
+				String symbol = file.getName().replace(".csv", "");
+				present.add(symbol);
+				if (!catalog.isUpToDate(symbol, file.toPath()) && refreshCatalogEntry(symbol, file, parsed)) {
+					refreshed++;
+				}
 			}
+			for (String symbol : catalog.getSymbols()) {
+				SymbolCatalog.Entry entry = catalog.get(symbol);
+				if (!present.contains(symbol) && entry != null
+						&& SymbolCatalog.FORMAT_CSV.equals(entry.getFormat())) {
+					catalog.remove(symbol);
+				}
+			}
+		} finally {
+			catalog.setAutoFlush(true);
+			catalog.flush();
 		}
 
-		return symbols;
+		if (refreshed > 0) {
+			System.out.printf("? 标的目录已更新: %d个文件, 共%d个标的%n", refreshed, catalog.size());
+		}
+		return refreshed;
 	}
 
 	@Override
 	public DataQualityReport getDataQualityReport(String symbol, LocalDateTime start, LocalDateTime end) {
 		List<BarEvent> bars = loadHistoricalData(symbol, start, end);
-		DataQualityReport report = new DataQualityReport(symbol, start, end);
-
-		for (BarEvent bar : bars) {
-			DataValidator.ValidationResult result = DataValidator.validateBar(bar);
-			report.addValidationResult(result);
-		}
-
-		DataValidator.ValidationResult seriesResult = DataValidator.validatePriceSeries(bars);
-		report.setSeriesValidation(seriesResult);
-
-		return report;
+		return ColumnarDataValidator.validate(symbol, start, end, bars);
 	}
 }
\ No newline at end of file
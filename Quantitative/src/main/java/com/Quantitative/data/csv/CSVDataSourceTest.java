@@ -0,0 +1,69 @@
+package com.Quantitative.data.csv;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.Quantitative.BaseTest;
+import com.Quantitative.all.Test.TestDataGenerator;
+import com.Quantitative.core.events.BarEvent;
+
+/**
+ * CSV数据源测试 - 压缩二进制缓存
+ */
+public class CSVDataSourceTest extends BaseTest {
+
+	private static final String SYMBOL = "600519";
+	private static final LocalDateTime START = LocalDateTime.of(2024, 1, 2, 15, 0);
+
+	@Test
+	public void testBinaryCacheMatchesCsvAndFollowsRewrites() throws Exception {
+		String dir = Files.createTempDirectory("csv").toString();
+		CSVDataSource writer = new CSVDataSource(dir);
+		writer.saveToCSV(SYMBOL, TestDataGenerator.randomWalk(SYMBOL, START, 120, 10.0, 0.01, 1L));
+		List<BarEvent> expected = new ArrayList<>(writer.loadHistoricalData(SYMBOL, null, null));
+
+		CSVDataSource first = new CSVDataSource(dir);
+		first.setBinaryCacheEnabled(true);
+		assertBarsEqual(expected, first.loadHistoricalData(SYMBOL, null, null));
+		File binary = new File(new File(dir, "bars"), SYMBOL + ".bars");
+		assertTrue(binary.exists());
+
+		// 新实例没有内存缓存，从 .bars 解码
+		CSVDataSource second = new CSVDataSource(dir);
+		second.setBinaryCacheEnabled(true);
+		assertBarsEqual(expected, second.loadHistoricalData(SYMBOL, null, null));
+
+		// CSV 比 .bars 新时重新解析
+		writer.saveToCSV(SYMBOL, TestDataGenerator.randomWalk(SYMBOL, START, 80, 20.0, 0.01, 2L));
+		Files.setLastModifiedTime(binary.toPath(), FileTime.fromMillis(binary.lastModified() - 10_000));
+		CSVDataSource third = new CSVDataSource(dir);
+		third.setBinaryCacheEnabled(true);
+		List<BarEvent> rewritten = third.loadHistoricalData(SYMBOL, null, null);
+		assertEquals(80, rewritten.size());
+		assertEquals(20.0, rewritten.get(0).getOpen(), 1e-9);
+	}
+
+	private static void assertBarsEqual(List<BarEvent> expected, List<BarEvent> actual) {
+		assertEquals(expected.size(), actual.size());
+		for (int i = 0; i < expected.size(); i++) {
+			BarEvent e = expected.get(i);
+			BarEvent a = actual.get(i);
+			assertEquals(e.getTimestamp(), a.getTimestamp());
+			assertEquals(e.getOpen(), a.getOpen(), 0.0);
+			assertEquals(e.getHigh(), a.getHigh(), 0.0);
+			assertEquals(e.getLow(), a.getLow(), 0.0);
+			assertEquals(e.getClose(), a.getClose(), 0.0);
+			assertEquals(e.getVolume(), a.getVolume());
+			assertEquals(e.getTurnover(), a.getTurnover(), 0.0);
+		}
+	}
+}
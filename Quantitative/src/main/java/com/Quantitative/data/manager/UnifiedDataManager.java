@@ -12,8 +12,8 @@ import com.Quantitative.core.events.BarEvent;
 import com.Quantitative.data.DataFeed;
 import com.Quantitative.data.DataInfo;
 import com.Quantitative.data.DataSource;
+import com.Quantitative.data.validation.ColumnarDataValidator;
 import com.Quantitative.data.validation.DataQualityReport;
-import com.Quantitative.data.validation.DataValidator;
 
 /**
  * 统一数据管理器 - 修复版本
@@ -102,17 +102,7 @@ public class UnifiedDataManager {
 	 */
 	private DataQualityReport createDataQualityReport(String symbol, LocalDateTime start, LocalDateTime end,
 			List<BarEvent> bars) {
-		DataQualityReport report = new DataQualityReport(symbol, start, end);
-
-		for (BarEvent bar : bars) {
-			DataValidator.ValidationResult result = DataValidator.validateBar(bar);
-			report.addValidationResult(result);
-		}
-
-		DataValidator.ValidationResult seriesResult = DataValidator.validatePriceSeries(bars);
-		report.setSeriesValidation(seriesResult);
-
-		return report;
+		return ColumnarDataValidator.validate(symbol, start, end, bars);
 	}
 
 	/**
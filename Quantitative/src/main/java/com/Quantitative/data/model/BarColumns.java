@@ -0,0 +1,121 @@
+package com.Quantitative.data.model;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import com.Quantitative.core.events.BarEvent;
+
+/**
+ * 列式K线数据 - 单个股票的K线按列存放在原始类型数组中
+ *
+ * 时间戳以秒存放（LocalDateTime 按UTC换算，仅作编码用，不涉及时区语义）。
+ * 适合批量校验、指标计算等需要顺序扫描整段历史的场景。
+ */
+public class BarColumns {
+	private final String symbol;
+	private final int size;
+	private final long[] timestamps;
+	private final double[] open;
+	private final double[] high;
+	private final double[] low;
+	private final double[] close;
+	private final long[] volume;
+	private final double[] turnover;
+
+	public BarColumns(String symbol, long[] timestamps, double[] open, double[] high, double[] low, double[] close,
+			long[] volume, double[] turnover) {
+		this.symbol = symbol;
+		this.size = timestamps.length;
+		this.timestamps = timestamps;
+		this.open = open;
+		this.high = high;
+		this.low = low;
+		this.close = close;
+		this.volume = volume;
+		this.turnover = turnover;
+	}
+
+	/**
+	 * 由BarEvent列表构建（保持原有顺序）
+	 */
+	public static BarColumns from(String symbol, List<BarEvent> bars) {
+		int n = bars.size();
+		long[] timestamps = new long[n];
+		double[] open = new double[n];
+		double[] high = new double[n];
+		double[] low = new double[n];
+		double[] close = new double[n];
+		long[] volume = new long[n];
+		double[] turnover = new double[n];
+
+		for (int i = 0; i < n; i++) {
+			BarEvent bar = bars.get(i);
+			timestamps[i] = toEpochSecond(bar.getTimestamp());
+			open[i] = bar.getOpen();
+			high[i] = bar.getHigh();
+			low[i] = bar.getLow();
+			close[i] = bar.getClose();
+			volume[i] = bar.getVolume();
+			turnover[i] = bar.getTurnover();
+		}
+		return new BarColumns(symbol, timestamps, open, high, low, close, volume, turnover);
+	}
+
+	public static long toEpochSecond(LocalDateTime timestamp) {
+		return timestamp == null ? Long.MIN_VALUE : timestamp.toEpochSecond(ZoneOffset.UTC);
+	}
+
+	public static LocalDateTime toDateTime(long epochSecond) {
+		return LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC);
+	}
+
+	/**
+	 * 还原第 i 根K线
+	 */
+	public BarEvent toBarEvent(int i) {
+		return new BarEvent(toDateTime(timestamps[i]), symbol, open[i], high[i], low[i], close[i], volume[i],
+				turnover[i]);
+	}
+
+	// Getter方法 - 返回底层数组，调用方不应修改
+	public String getSymbol() {
+		return symbol;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public long[] getTimestamps() {
+		return timestamps;
+	}
+
+	public double[] getOpen() {
+		return open;
+	}
+
+	public double[] getHigh() {
+		return high;
+	}
+
+	public double[] getLow() {
+		return low;
+	}
+
+	public double[] getClose() {
+		return close;
+	}
+
+	public long[] getVolume() {
+		return volume;
+	}
+
+	public double[] getTurnover() {
+		return turnover;
+	}
+
+	public LocalDateTime getTimestamp(int i) {
+		return toDateTime(timestamps[i]);
+	}
+}
@@ -0,0 +1,163 @@
+package com.Quantitative.data.model;
+
+import java.time.LocalDateTime;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.RandomAccess;
+
+import com.Quantitative.core.events.BarEvent;
+
+/**
+ * 按时间排序的K线序列 - 带时间戳索引，支持零拷贝的区间切片
+ *
+ * 构建时复制一次并建立 long[] 时间戳索引，之后 {@link #slice} 只做两次二分查找，
+ * 返回共享底层数组的只读视图。适合回测窗口、Walk-Forward 等对同一段历史反复取子区间的场景。
+ */
+public final class BarSeries {
+
+	private static final BarSeries EMPTY = new BarSeries(new BarEvent[0], new long[0], 0, 0);
+
+	private final BarEvent[] bars;
+	private final long[] timestamps;
+	private final int from;
+	private final int to;
+
+	private BarSeries(BarEvent[] bars, long[] timestamps, int from, int to) {
+		this.bars = bars;
+		this.timestamps = timestamps;
+		this.from = from;
+		this.to = to;
+	}
+
+	/**
+	 * 由K线列表构建，未按时间排序时先做稳定排序
+	 */
+	public static BarSeries of(List<BarEvent> source) {
+		if (source == null || source.isEmpty()) {
+			return EMPTY;
+		}
+		BarEvent[] bars = source.toArray(new BarEvent[0]);
+		long[] timestamps = new long[bars.length];
+		boolean sorted = true;
+		for (int i = 0; i < bars.length; i++) {
+			timestamps[i] = BarColumns.toEpochSecond(bars[i].getTimestamp());
+			if (i > 0 && timestamps[i] < timestamps[i - 1]) {
+				sorted = false;
+			}
+		}
+		if (!sorted) {
+			Arrays.sort(bars, Comparator.comparing(BarEvent::getTimestamp));
+			for (int i = 0; i < bars.length; i++) {
+				timestamps[i] = BarColumns.toEpochSecond(bars[i].getTimestamp());
+			}
+		}
+		return new BarSeries(bars, timestamps, 0, bars.length);
+	}
+
+	public static BarSeries empty() {
+		return EMPTY;
+	}
+
+	/**
+	 * 取 [start, end] 闭区间内的K线（null 表示不限），不复制数据
+	 */
+	public BarSeries slice(LocalDateTime start, LocalDateTime end) {
+		int lo = start == null ? from : lowerBound(BarColumns.toEpochSecond(start));
+		int hi = end == null ? to : upperBound(BarColumns.toEpochSecond(end));
+		if (lo == from && hi == to) {
+			return this;
+		}
+		return hi <= lo ? EMPTY : new BarSeries(bars, timestamps, lo, hi);
+	}
+
+	/**
+	 * 按序号取子序列 [fromIndex, toIndex)，序号相对当前视图
+	 */
+	public BarSeries subSeries(int fromIndex, int toIndex) {
+		if (fromIndex < 0 || toIndex > size() || fromIndex > toIndex) {
+			throw new IndexOutOfBoundsException("fromIndex=" + fromIndex + ", toIndex=" + toIndex + ", size=" + size());
+		}
+		return new BarSeries(bars, timestamps, from + fromIndex, from + toIndex);
+	}
+
+	/**
+	 * 第一根时间不早于 timestamp 的K线序号（相对当前视图），都早于时返回 size()
+	 */
+	public int indexAtOrAfter(LocalDateTime timestamp) {
+		return lowerBound(BarColumns.toEpochSecond(timestamp)) - from;
+	}
+
+	/**
+	 * 只读列表视图
+	 */
+	public List<BarEvent> asList() {
+		return new View();
+	}
+
+	public BarEvent get(int index) {
+		if (index < 0 || index >= size()) {
+			throw new IndexOutOfBoundsException("index=" + index + ", size=" + size());
+		}
+		return bars[from + index];
+	}
+
+	public int size() {
+		return to - from;
+	}
+
+	public boolean isEmpty() {
+		return to == from;
+	}
+
+	public LocalDateTime getFirstTimestamp() {
+		return isEmpty() ? null : bars[from].getTimestamp();
+	}
+
+	public LocalDateTime getLastTimestamp() {
+		return isEmpty() ? null : bars[to - 1].getTimestamp();
+	}
+
+	// 第一个 >= key 的位置
+	private int lowerBound(long key) {
+		int lo = from;
+		int hi = to;
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (timestamps[mid] < key) {
+				lo = mid + 1;
+			} else {
+				hi = mid;
+			}
+		}
+		return lo;
+	}
+
+	// 第一个 > key 的位置
+	private int upperBound(long key) {
+		int lo = from;
+		int hi = to;
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (timestamps[mid] <= key) {
+				lo = mid + 1;
+			} else {
+				hi = mid;
+			}
+		}
+		return lo;
+	}
+
+	private final class View extends AbstractList<BarEvent> implements RandomAccess {
+		@Override
+		public BarEvent get(int index) {
+			return BarSeries.this.get(index);
+		}
+
+		@Override
+		public int size() {
+			return BarSeries.this.size();
+		}
+	}
+}
@@ -1,13 +1,14 @@
 package com.Quantitative.data.pipeline;
 
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
 
 import com.Quantitative.common.utils.TradingLogger;
+import com.Quantitative.data.catalog.SymbolCatalog;
+import com.Quantitative.data.csv.BulkCSVWriter;
 import com.Quantitative.data.model.StockBar;
 import com.Quantitative.data.model.StockData;
 
@@ -16,6 +17,23 @@ import com.Quantitative.data.model.StockData;
  */
 public class DataSaver {
 
+	// 日期格式yyyy/M/d，价格保留2位小数，成交额保留1位小数 - Excel友好
+	private final BulkCSVWriter writer = new BulkCSVWriter("yyyy/M/d", 2, 1);
+
+	/**
+	 * 是否输出GZIP压缩文件（.csv.gz）
+	 */
+	public void setCompressOutput(boolean compress) {
+		writer.setCompress(compress);
+	}
+
+	/**
+	 * 是否先写临时文件再原子重命名，避免读取方看到写了一半的文件
+	 */
+	public void setAtomicWrite(boolean atomicWrite) {
+		writer.setAtomicWrite(atomicWrite);
+	}
+
 	/**
 	 * 创建输出目录
 	 */
@@ -34,10 +52,7 @@ public class DataSaver {
 	/**
 	 * 保存处理后的数据到CSV文件
 	 */
-	/**
-	 * 保存处理后的数据到CSV文件
-	 */
-	public boolean saveData(StockData stockData) {
+	public synchronized boolean saveData(StockData stockData) {
 		if (stockData == null || stockData.isEmpty()) {
 			TradingLogger.logRisk("WARN", "DataSaver", "无数据可保存");
 			return false;
@@ -47,29 +62,23 @@ public class DataSaver {
 		createOutputDirectory(outputDirectory);
 
 		String symbol = stockData.getSymbol();
-		String filename = outputDirectory + symbol + ".csv";
+		String filename = outputDirectory + symbol + (writer.isCompress() ? ".csv.gz" : ".csv");
 		File file = new File(filename);
 
-		try (BufferedWriter writer = new BufferedWriter(new FileWriter(file))) {
-			// 写入CSV头部 - 使用逗号分隔，Excel友好
-			writer.write("date,open,high,low,close,volume,turnover");
-			writer.newLine();
-
-			// 写入数据行 - 使用逗号分隔
-			DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy/M/d");
+		try {
 			List<StockBar> bars = stockData.getBars();
+			long startTime = System.currentTimeMillis();
+			long bytes = writer.writeStockBars(file.toPath(), bars);
+			updateCatalog(outputDirectory, symbol, bars, file);
 
-			for (StockBar bar : bars) {
-				String line = String.format("%s,%.2f,%.2f,%.2f,%.2f,%d,%.1f", bar.getTimestamp().format(formatter),
-						bar.getOpen(), bar.getHigh(), bar.getLow(), bar.getClose(), bar.getVolume(), bar.getTurnover());
-				writer.write(line);
-				writer.newLine();
-			}
-
+			TradingLogger.logPerformance("DataSaver.saveData", System.currentTimeMillis() - startTime,
+					symbol + ", " + bars.size() + " rows, " + bytes + " bytes");
 			TradingLogger.debug("DataSaver", "数据保存成功: %s (%d 条记录)", filename, bars.size());
 
-			// 打印前几行作为验证
-			printSampleData(bars, symbol);
+			// 打印前几行作为验证（仅调试模式）
+			if (TradingLogger.isDebugEnabled()) {
+				printSampleData(bars, symbol);
+			}
 
 			return true;
 
@@ -79,6 +88,26 @@ public class DataSaver {
 		}
 	}
 
+	/**
+	 * 保存后更新输出目录的标的目录，读取方不会拿到旧的起止时间和K线数量
+	 */
+	private void updateCatalog(String outputDirectory, String symbol, List<StockBar> bars, File file) {
+		LocalDateTime first = null;
+		LocalDateTime last = null;
+		for (StockBar bar : bars) {
+			LocalDateTime timestamp = bar.getTimestamp();
+			if (first == null || timestamp.isBefore(first)) {
+				first = timestamp;
+			}
+			if (last == null || timestamp.isAfter(last)) {
+				last = timestamp;
+			}
+		}
+		String format = writer.isCompress() ? SymbolCatalog.FORMAT_CSV_GZIP : SymbolCatalog.FORMAT_CSV;
+		SymbolCatalog.forDirectory(outputDirectory).update(symbol, format, first, last, bars.size(), file.toPath(),
+				writer.getLastChecksum());
+	}
+
 	/**
 	 * 打印样本数据用于验证
 	 */
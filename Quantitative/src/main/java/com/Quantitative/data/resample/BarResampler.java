@@ -0,0 +1,256 @@
+package com.Quantitative.data.resample;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.Quantitative.core.events.BarEvent;
+
+/**
+ * 增量K线重采样器 - 将单个股票的基础周期K线聚合为更粗的周期
+ *
+ * 基础K线按时间顺序逐根输入，聚合OHLCV及成交额。分钟级周期默认按A股交易时段计时
+ * （上午 9:30-11:30，下午 13:00-15:00），午休不计入，因此60分钟线的收盘标签为
+ * 10:30 / 11:30 / 14:00 / 15:00。K线时间戳约定为该周期的结束时间。
+ *
+ * 时间戳不晚于上一根已聚合基础K线的输入视为重复（共享引擎时多个策略会各自输入同一根K线），不再计入成交量；
+ * 与上一根时间戳相同时返回上一次完成的聚合K线，每个调用方都能看到周期完成。
+ *
+ * 非线程安全，每个(股票, 周期)使用一个实例，见 {@link BarResamplingEngine}。
+ */
+public class BarResampler {
+
+	public static final LocalTime MORNING_OPEN = LocalTime.of(9, 30);
+	public static final LocalTime AFTERNOON_OPEN = LocalTime.of(13, 0);
+	public static final LocalTime MARKET_CLOSE = LocalTime.of(15, 0);
+
+	private static final int MORNING_MINUTES = 120;
+	private static final int SESSION_MINUTES = 240;
+
+	private final String symbol;
+	private final Timeframe timeframe;
+	private final boolean sessionAware;
+
+	// 已完成的聚合K线
+	private final List<BarEvent> completedBars = new ArrayList<>();
+
+	// 正在形成的K线
+	private long currentKey = Long.MIN_VALUE;
+	private LocalDateTime currentLabel;
+	private double open;
+	private double high;
+	private double low;
+	private double close;
+	private long volume;
+	private double turnover;
+	private int barCount;
+
+	// 上一根已聚合的基础K线及其输入时完成的聚合K线
+	private LocalDateTime lastBaseTimestamp;
+	private List<BarEvent> lastCompleted = Collections.emptyList();
+
+	public BarResampler(String symbol, Timeframe timeframe) {
+		this(symbol, timeframe, true);
+	}
+
+	public BarResampler(String symbol, Timeframe timeframe, boolean sessionAware) {
+		this.symbol = symbol;
+		this.timeframe = timeframe;
+		this.sessionAware = sessionAware;
+	}
+
+	/**
+	 * 输入一根基础K线
+	 *
+	 * @return 本次输入导致完成的聚合K线，通常为空；跨周期时为上一根，到达周期结束时间时为当前这根
+	 */
+	public List<BarEvent> update(BarEvent bar) {
+		LocalDateTime timestamp = bar.getTimestamp();
+		long key = bucketKey(timestamp);
+		int before = completedBars.size();
+
+		if (key < currentKey) {
+			throw new IllegalArgumentException(
+					String.format("K线时间倒序: %s %s 早于当前周期 %s", symbol, timestamp, currentLabel));
+		}
+		if (lastBaseTimestamp != null && !timestamp.isAfter(lastBaseTimestamp)) {
+			return timestamp.equals(lastBaseTimestamp) ? lastCompleted : Collections.emptyList();
+		}
+		lastBaseTimestamp = timestamp;
+
+		if (barCount > 0 && key != currentKey) {
+			closeCurrent();
+		}
+
+		if (barCount == 0) {
+			currentKey = key;
+			open = bar.getOpen();
+			high = bar.getHigh();
+			low = bar.getLow();
+			volume = 0;
+			turnover = 0;
+		} else {
+			high = Math.max(high, bar.getHigh());
+			low = Math.min(low, bar.getLow());
+		}
+		close = bar.getClose();
+		volume += bar.getVolume();
+		turnover += bar.getTurnover();
+		currentLabel = bucketLabel(timestamp);
+		barCount++;
+
+		// 已到达周期结束时间，无需等待下一根K线即可确认
+		if (isBucketEnd(timestamp)) {
+			closeCurrent();
+		}
+
+		int after = completedBars.size();
+		if (after == before) {
+			lastCompleted = Collections.emptyList();
+		} else {
+			lastCompleted = after - before == 1 ? Collections.singletonList(completedBars.get(before))
+					: Collections.unmodifiableList(new ArrayList<>(completedBars.subList(before, after)));
+		}
+		return lastCompleted;
+	}
+
+	/**
+	 * 批量输入基础K线
+	 *
+	 * @return 期间完成的聚合K线
+	 */
+	public List<BarEvent> updateAll(List<BarEvent> bars) {
+		int before = completedBars.size();
+		for (BarEvent bar : bars) {
+			update(bar);
+		}
+		return new ArrayList<>(completedBars.subList(before, completedBars.size()));
+	}
+
+	/**
+	 * 强制结束当前正在形成的K线（如数据结束时）
+	 */
+	public BarEvent flush() {
+		return barCount > 0 ? closeCurrent() : null;
+	}
+
+	/**
+	 * 当前正在形成的K线（未完成），没有则返回null
+	 */
+	public BarEvent getPartialBar() {
+		if (barCount == 0) {
+			return null;
+		}
+		return new BarEvent(currentLabel, symbol, open, high, low, close, volume, turnover);
+	}
+
+	/**
+	 * 已完成的聚合K线（只读）
+	 */
+	public List<BarEvent> getCompletedBars() {
+		return Collections.unmodifiableList(completedBars);
+	}
+
+	public BarEvent getLastCompletedBar() {
+		return completedBars.isEmpty() ? null : completedBars.get(completedBars.size() - 1);
+	}
+
+	public Timeframe getTimeframe() {
+		return timeframe;
+	}
+
+	public String getSymbol() {
+		return symbol;
+	}
+
+	public void reset() {
+		completedBars.clear();
+		barCount = 0;
+		currentKey = Long.MIN_VALUE;
+		currentLabel = null;
+		lastBaseTimestamp = null;
+		lastCompleted = Collections.emptyList();
+	}
+
+	private BarEvent closeCurrent() {
+		BarEvent aggregated = new BarEvent(currentLabel, symbol, open, high, low, close, volume, turnover);
+		completedBars.add(aggregated);
+		barCount = 0;
+		return aggregated;
+	}
+
+	// ==================== 周期划分 ====================
+
+	/**
+	 * 计算K线所属周期的键值，同一周期内的K线键值相同且随时间单调递增
+	 */
+	private long bucketKey(LocalDateTime timestamp) {
+		LocalDate date = timestamp.toLocalDate();
+		switch (timeframe.getUnit()) {
+		case MINUTE:
+			return date.toEpochDay() * 10000L + minuteIndex(timestamp.toLocalTime()) / timeframe.getLength();
+		case DAY:
+			return date.toEpochDay();
+		case WEEK:
+			return date.with(DayOfWeek.MONDAY).toEpochDay();
+		default:
+			return date.getYear() * 12L + date.getMonthValue();
+		}
+	}
+
+	/**
+	 * 周期标签：分钟级为周期结束时间；日/周/月线为最后一根K线所在日期的收盘时间
+	 */
+	private LocalDateTime bucketLabel(LocalDateTime timestamp) {
+		LocalDate date = timestamp.toLocalDate();
+		if (!timeframe.isIntraday()) {
+			return LocalDateTime.of(date, MARKET_CLOSE);
+		}
+
+		int length = timeframe.getLength();
+		int endIndex = (minuteIndex(timestamp.toLocalTime()) / length + 1) * length;
+		if (!sessionAware) {
+			return date.atStartOfDay().plusMinutes(endIndex);
+		}
+		endIndex = Math.min(endIndex, SESSION_MINUTES);
+		LocalTime end = endIndex <= MORNING_MINUTES ? MORNING_OPEN.plusMinutes(endIndex)
+				: AFTERNOON_OPEN.plusMinutes(endIndex - MORNING_MINUTES);
+		return LocalDateTime.of(date, end);
+	}
+
+	private boolean isBucketEnd(LocalDateTime timestamp) {
+		if (!timeframe.isIntraday()) {
+			// 日线在收盘后即可确认；周线、月线需等到下一周期的K线
+			return timeframe.getUnit() == Timeframe.Unit.DAY && !timestamp.toLocalTime().isBefore(MARKET_CLOSE);
+		}
+		return timestamp.equals(currentLabel);
+	}
+
+	/**
+	 * K线所在的分钟序号(从0开始)。K线时间戳为该分钟的结束时间，如 9:31 对应序号0。
+	 * 按交易时段计时时，上午为 0-119，下午为 120-239，集合竞价及午休时间归入相邻的交易分钟。
+	 */
+	private int minuteIndex(LocalTime time) {
+		int minuteOfDay = time.getHour() * 60 + time.getMinute();
+		if (!sessionAware) {
+			return Math.max(0, minuteOfDay - 1);
+		}
+
+		int morningOpen = MORNING_OPEN.getHour() * 60 + MORNING_OPEN.getMinute();
+		int afternoonOpen = AFTERNOON_OPEN.getHour() * 60 + AFTERNOON_OPEN.getMinute();
+		if (minuteOfDay <= morningOpen) {
+			return 0;
+		}
+		if (minuteOfDay <= morningOpen + MORNING_MINUTES) {
+			return minuteOfDay - morningOpen - 1;
+		}
+		if (minuteOfDay <= afternoonOpen) {
+			return MORNING_MINUTES;
+		}
+		return Math.min(SESSION_MINUTES - 1, MORNING_MINUTES + minuteOfDay - afternoonOpen - 1);
+	}
+}
@@ -0,0 +1,103 @@
+package com.Quantitative.data.resample;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.Quantitative.core.events.BarEvent;
+
+/**
+ * K线重采样引擎 - 按(股票, 周期)维护增量重采样器并缓存结果
+ *
+ * 同一引擎可被多个策略共享：基础K线流只需输入一次，各周期的聚合K线按需增量生成并缓存，
+ * 无需再次从数据源下载周线/60分钟线等高周期数据。
+ */
+public class BarResamplingEngine {
+
+	private final Map<String, BarResampler> resamplers = new ConcurrentHashMap<>();
+	private final boolean sessionAware;
+
+	public BarResamplingEngine() {
+		this(true);
+	}
+
+	public BarResamplingEngine(boolean sessionAware) {
+		this.sessionAware = sessionAware;
+	}
+
+	/**
+	 * 输入一根基础K线，更新该股票在指定周期上的聚合状态
+	 *
+	 * @return 本次完成的高周期K线，通常为空
+	 */
+	public List<BarEvent> onBar(BarEvent bar, Timeframe timeframe) {
+		BarResampler resampler = getResampler(bar.getSymbol(), timeframe);
+		synchronized (resampler) {
+			return resampler.update(bar);
+		}
+	}
+
+	/**
+	 * 批量重采样基础序列，结果缓存在引擎中；已缓存的周期会在原有状态上继续增量聚合
+	 */
+	public List<BarEvent> resample(String symbol, List<BarEvent> baseBars, Timeframe timeframe) {
+		BarResampler resampler = getResampler(symbol, timeframe);
+		synchronized (resampler) {
+			resampler.updateAll(baseBars);
+			List<BarEvent> result = new ArrayList<>(resampler.getCompletedBars());
+			BarEvent partial = resampler.getPartialBar();
+			if (partial != null) {
+				result.add(partial);
+			}
+			return result;
+		}
+	}
+
+	/**
+	 * 获取已完成的高周期K线（只读快照）
+	 */
+	public List<BarEvent> getCompletedBars(String symbol, Timeframe timeframe) {
+		BarResampler resampler = resamplers.get(key(symbol, timeframe));
+		if (resampler == null) {
+			return Collections.emptyList();
+		}
+		synchronized (resampler) {
+			return new ArrayList<>(resampler.getCompletedBars());
+		}
+	}
+
+	/**
+	 * 获取正在形成的高周期K线
+	 */
+	public BarEvent getPartialBar(String symbol, Timeframe timeframe) {
+		BarResampler resampler = resamplers.get(key(symbol, timeframe));
+		if (resampler == null) {
+			return null;
+		}
+		synchronized (resampler) {
+			return resampler.getPartialBar();
+		}
+	}
+
+	public BarResampler getResampler(String symbol, Timeframe timeframe) {
+		return resamplers.computeIfAbsent(key(symbol, timeframe),
+				k -> new BarResampler(symbol, timeframe, sessionAware));
+	}
+
+	/**
+	 * 清除指定股票的全部周期缓存
+	 */
+	public void invalidate(String symbol) {
+		resamplers.keySet().removeIf(k -> k.startsWith(symbol + "|"));
+	}
+
+	public void clear() {
+		resamplers.clear();
+	}
+
+	private static String key(String symbol, Timeframe timeframe) {
+		return symbol + "|" + timeframe;
+	}
+}
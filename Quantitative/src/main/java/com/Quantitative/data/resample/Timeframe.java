@@ -0,0 +1,110 @@
+package com.Quantitative.data.resample;
+
+/**
+ * K线时间周期 - 分钟级(N分钟)、日线、周线、月线
+ */
+public final class Timeframe {
+
+	/**
+	 * 周期单位
+	 */
+	public enum Unit {
+		MINUTE, DAY, WEEK, MONTH
+	}
+
+	public static final Timeframe MINUTE_5 = minutes(5);
+	public static final Timeframe MINUTE_15 = minutes(15);
+	public static final Timeframe MINUTE_30 = minutes(30);
+	public static final Timeframe MINUTE_60 = minutes(60);
+	public static final Timeframe DAILY = new Timeframe(Unit.DAY, 1);
+	public static final Timeframe WEEKLY = new Timeframe(Unit.WEEK, 1);
+	public static final Timeframe MONTHLY = new Timeframe(Unit.MONTH, 1);
+
+	private final Unit unit;
+	private final int length;
+
+	private Timeframe(Unit unit, int length) {
+		if (length <= 0) {
+			throw new IllegalArgumentException("周期长度必须大于0: " + length);
+		}
+		this.unit = unit;
+		this.length = length;
+	}
+
+	/**
+	 * N分钟周期
+	 */
+	public static Timeframe minutes(int minutes) {
+		return new Timeframe(Unit.MINUTE, minutes);
+	}
+
+	/**
+	 * 解析周期字符串：1m/5m/15m/30m/60m、1h、1d/daily、1w/weekly、1M/monthly
+	 */
+	public static Timeframe parse(String text) {
+		String value = text.trim();
+		switch (value.toLowerCase()) {
+		case "daily":
+		case "1d":
+			return DAILY;
+		case "weekly":
+		case "1w":
+			return WEEKLY;
+		case "monthly":
+			return MONTHLY;
+		default:
+			break;
+		}
+		if ("1M".equals(value)) {
+			return MONTHLY;
+		}
+		if (value.endsWith("m") || value.endsWith("min")) {
+			return minutes(Integer.parseInt(value.replace("min", "").replace("m", "")));
+		}
+		if (value.endsWith("h")) {
+			return minutes(Integer.parseInt(value.substring(0, value.length() - 1)) * 60);
+		}
+		throw new IllegalArgumentException("无法识别的周期: " + text);
+	}
+
+	public Unit getUnit() {
+		return unit;
+	}
+
+	public int getLength() {
+		return length;
+	}
+
+	public boolean isIntraday() {
+		return unit == Unit.MINUTE;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null || getClass() != obj.getClass())
+			return false;
+		Timeframe other = (Timeframe) obj;
+		return unit == other.unit && length == other.length;
+	}
+
+	@Override
+	public int hashCode() {
+		return unit.hashCode() * 31 + length;
+	}
+
+	@Override
+	public String toString() {
+		switch (unit) {
+		case MINUTE:
+			return length + "m";
+		case DAY:
+			return "1d";
+		case WEEK:
+			return "1w";
+		default:
+			return "1M";
+		}
+	}
+}
@@ -0,0 +1,240 @@
+package com.Quantitative.data.storage;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+
+import com.Quantitative.core.events.BarEvent;
+
+/**
+ * K线数据块编解码器 - 列式压缩编码
+ *
+ * 每个数据块可独立解码，块内按列存放：
+ * <ul>
+ * <li>时间戳：首值 + 一阶差分 + 二阶差分(delta-of-delta)，等间隔K线的二阶差分几乎全为0</li>
+ * <li>收盘价：按 priceScale 缩放为整数后做一阶差分</li>
+ * <li>开/高/低价：相对收盘价及实体上下沿的偏移（高价、低价偏移通常很小）</li>
+ * <li>成交量、成交额：整数变长编码(varint)</li>
+ * </ul>
+ * 所有有符号整数先做 ZigZag 变换再按 varint 写出。价格在 priceScale 精度内无损。
+ */
+public final class BarBlockCodec {
+
+	/** 默认价格精度：4位小数 */
+	public static final long DEFAULT_PRICE_SCALE = 10000L;
+	/** 成交额精度：2位小数 */
+	private static final long TURNOVER_SCALE = 100L;
+
+	private BarBlockCodec() {
+	}
+
+	// ==================== 编码 ====================
+
+	/**
+	 * 将 bars[from, to) 编码为一个数据块，追加到 out
+	 */
+	public static void encode(List<BarEvent> bars, int from, int to, long priceScale, ByteSink out) {
+		int count = to - from;
+		out.writeVarLong(count);
+		out.writeVarLong(priceScale);
+		if (count == 0) {
+			return;
+		}
+
+		// 时间戳列
+		long prevTs = epochSecond(bars.get(from).getTimestamp());
+		long prevDelta = 0;
+		out.writeSignedVarLong(prevTs);
+		for (int i = from + 1; i < to; i++) {
+			long ts = epochSecond(bars.get(i).getTimestamp());
+			long delta = ts - prevTs;
+			out.writeSignedVarLong(i == from + 1 ? delta : delta - prevDelta);
+			prevDelta = delta;
+			prevTs = ts;
+		}
+
+		// 收盘价列
+		long prevClose = 0;
+		for (int i = from; i < to; i++) {
+			long close = scale(bars.get(i).getClose(), priceScale);
+			out.writeSignedVarLong(close - prevClose);
+			prevClose = close;
+		}
+
+		// 开盘价列（相对收盘价）
+		for (int i = from; i < to; i++) {
+			BarEvent bar = bars.get(i);
+			out.writeSignedVarLong(scale(bar.getOpen(), priceScale) - scale(bar.getClose(), priceScale));
+		}
+
+		// 最高价列（相对实体上沿）
+		for (int i = from; i < to; i++) {
+			BarEvent bar = bars.get(i);
+			long bodyTop = Math.max(scale(bar.getOpen(), priceScale), scale(bar.getClose(), priceScale));
+			out.writeSignedVarLong(scale(bar.getHigh(), priceScale) - bodyTop);
+		}
+
+		// 最低价列（相对实体下沿）
+		for (int i = from; i < to; i++) {
+			BarEvent bar = bars.get(i);
+			long bodyBottom = Math.min(scale(bar.getOpen(), priceScale), scale(bar.getClose(), priceScale));
+			out.writeSignedVarLong(bodyBottom - scale(bar.getLow(), priceScale));
+		}
+
+		// 成交量、成交额列
+		for (int i = from; i < to; i++) {
+			out.writeSignedVarLong(bars.get(i).getVolume());
+		}
+		for (int i = from; i < to; i++) {
+			out.writeSignedVarLong(scale(bars.get(i).getTurnover(), TURNOVER_SCALE));
+		}
+	}
+
+	// ==================== 解码 ====================
+
+	/**
+	 * 解码一个数据块，结果追加到 out
+	 *
+	 * @return 解码出的K线数量
+	 */
+	public static int decode(byte[] data, int offset, String symbol, List<BarEvent> out) {
+		ByteSource in = new ByteSource(data, offset);
+		int count = (int) in.readVarLong();
+		long priceScale = in.readVarLong();
+		if (count == 0) {
+			return 0;
+		}
+
+		long[] timestamps = new long[count];
+		long[] closes = new long[count];
+		long[] opens = new long[count];
+		long[] highs = new long[count];
+		long[] lows = new long[count];
+
+		timestamps[0] = in.readSignedVarLong();
+		long delta = 0;
+		for (int i = 1; i < count; i++) {
+			delta = i == 1 ? in.readSignedVarLong() : delta + in.readSignedVarLong();
+			timestamps[i] = timestamps[i - 1] + delta;
+		}
+
+		long prevClose = 0;
+		for (int i = 0; i < count; i++) {
+			prevClose += in.readSignedVarLong();
+			closes[i] = prevClose;
+		}
+		for (int i = 0; i < count; i++) {
+			opens[i] = closes[i] + in.readSignedVarLong();
+		}
+		for (int i = 0; i < count; i++) {
+			highs[i] = Math.max(opens[i], closes[i]) + in.readSignedVarLong();
+		}
+		for (int i = 0; i < count; i++) {
+			lows[i] = Math.min(opens[i], closes[i]) - in.readSignedVarLong();
+		}
+		long[] volumes = new long[count];
+		for (int i = 0; i < count; i++) {
+			volumes[i] = in.readSignedVarLong();
+		}
+
+		double scale = priceScale;
+		for (int i = 0; i < count; i++) {
+			long turnover = in.readSignedVarLong();
+			out.add(new BarEvent(LocalDateTime.ofEpochSecond(timestamps[i], 0, ZoneOffset.UTC), symbol,
+					opens[i] / scale, highs[i] / scale, lows[i] / scale, closes[i] / scale, volumes[i],
+					turnover / (double) TURNOVER_SCALE));
+		}
+		return count;
+	}
+
+	// ==================== 工具方法 ====================
+
+	/**
+	 * 时间戳按UTC换算为秒，仅用于编码，不涉及时区语义
+	 */
+	public static long epochSecond(LocalDateTime timestamp) {
+		return timestamp.toEpochSecond(ZoneOffset.UTC);
+	}
+
+	private static long scale(double value, long scale) {
+		return Math.round(value * scale);
+	}
+
+	/**
+	 * 可增长的字节输出缓冲区
+	 */
+	public static final class ByteSink {
+		private byte[] bytes;
+		private int size;
+
+		public ByteSink(int initialCapacity) {
+			this.bytes = new byte[Math.max(16, initialCapacity)];
+		}
+
+		public void writeSignedVarLong(long value) {
+			writeVarLong((value << 1) ^ (value >> 63));
+		}
+
+		public void writeVarLong(long value) {
+			ensureCapacity(10);
+			while ((value & ~0x7FL) != 0) {
+				bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+				value >>>= 7;
+			}
+			bytes[size++] = (byte) value;
+		}
+
+		private void ensureCapacity(int extra) {
+			if (size + extra > bytes.length) {
+				bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+			}
+		}
+
+		public byte[] array() {
+			return bytes;
+		}
+
+		public int size() {
+			return size;
+		}
+
+		public void reset() {
+			size = 0;
+		}
+	}
+
+	/**
+	 * 字节输入游标
+	 */
+	static final class ByteSource {
+		private final byte[] bytes;
+		private int position;
+
+		ByteSource(byte[] bytes, int offset) {
+			this.bytes = bytes;
+			this.position = offset;
+		}
+
+		long readSignedVarLong() {
+			long raw = readVarLong();
+			return (raw >>> 1) ^ -(raw & 1);
+		}
+
+		long readVarLong() {
+			long result = 0;
+			int shift = 0;
+			while (true) {
+				byte b = bytes[position++];
+				result |= (long) (b & 0x7F) << shift;
+				if ((b & 0x80) == 0) {
+					return result;
+				}
+				shift += 7;
+				if (shift > 63) {
+					throw new IllegalStateException("varint编码损坏，位置: " + position);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,102 @@
+package com.Quantitative.data.storage;
+
+import static org.junit.Assert.assertEquals;
+
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.Quantitative.BaseTest;
+import com.Quantitative.core.events.BarEvent;
+
+/**
+ * K线块编解码测试 - 边界价格、成交量和时间戳的往返一致
+ */
+public class BarBlockCodecTest extends BaseTest {
+
+	private static final String SYMBOL = "600519";
+
+	@Test
+	public void testRoundTripBoundaryValues() {
+		List<BarEvent> bars = boundaryBars();
+		BarBlockCodec.ByteSink sink = new BarBlockCodec.ByteSink(16);
+		BarBlockCodec.encode(bars, 0, bars.size(), BarBlockCodec.DEFAULT_PRICE_SCALE, sink);
+
+		List<BarEvent> decoded = new ArrayList<>();
+		byte[] data = Arrays.copyOf(sink.array(), sink.size());
+		assertEquals(bars.size(), BarBlockCodec.decode(data, 0, SYMBOL, decoded));
+		assertBarsEqual(bars, decoded);
+	}
+
+	@Test
+	public void testEmptyBlock() {
+		BarBlockCodec.ByteSink sink = new BarBlockCodec.ByteSink(16);
+		BarBlockCodec.encode(new ArrayList<>(), 0, 0, BarBlockCodec.DEFAULT_PRICE_SCALE, sink);
+		List<BarEvent> decoded = new ArrayList<>();
+		assertEquals(0, BarBlockCodec.decode(sink.array(), 0, SYMBOL, decoded));
+		assertEquals(0, decoded.size());
+	}
+
+	@Test
+	public void testStoreRoundTripAcrossBlocks() throws Exception {
+		List<BarEvent> bars = new ArrayList<>();
+		LocalDateTime start = LocalDateTime.of(2020, 1, 2, 15, 0);
+		double close = 12.34;
+		for (int i = 0; i < 1000; i++) {
+			double open = close;
+			close = Math.round(open * (1 + Math.sin(i) * 0.03) * 100) / 100.0;
+			bars.add(new BarEvent(start.plusDays(i), SYMBOL, open, cents(Math.max(open, close) + 0.05),
+					cents(Math.min(open, close) - 0.05), close, 1000L * i, Math.round(close * 1000L * i * 100) / 100.0));
+		}
+		CompressedBarStore store = new CompressedBarStore(Files.createTempDirectory("bars").toString(), 64,
+				BarBlockCodec.DEFAULT_PRICE_SCALE);
+		store.write(SYMBOL, bars);
+
+		assertEquals(16, store.getIndex(SYMBOL).getBlockCount());
+		assertBarsEqual(bars, store.readAll(SYMBOL));
+		// 区间跨越块边界，首尾块需要裁剪
+		assertBarsEqual(bars.subList(100, 301), store.read(SYMBOL, start.plusDays(100), start.plusDays(300)));
+	}
+
+	private static double cents(double value) {
+		return Math.round(value * 100) / 100.0;
+	}
+
+	/**
+	 * 最小/最大价格、0 与极大成交量/成交额、1970年前后及乱序的时间戳
+	 */
+	private static List<BarEvent> boundaryBars() {
+		List<BarEvent> bars = new ArrayList<>();
+		bars.add(new BarEvent(LocalDateTime.of(1969, 12, 31, 23, 59, 59), SYMBOL, 0.0001, 0.0001, 0.0001, 0.0001, 0,
+				0.0));
+		bars.add(new BarEvent(LocalDateTime.of(1970, 1, 1, 0, 0), SYMBOL, 0.01, 0.02, 0.01, 0.02, 1, 0.01));
+		bars.add(new BarEvent(LocalDateTime.of(2024, 6, 28, 15, 0), SYMBOL, 99999.9999, 99999.9999, 0.0001, 0.0001,
+				Long.MAX_VALUE, 999999999999.99));
+		bars.add(new BarEvent(LocalDateTime.of(2024, 6, 28, 9, 30, 1), SYMBOL, 1688.88, 1700.0, 1600.5, 1650.1234,
+				123456789L, 203748123456.78));
+		bars.add(new BarEvent(LocalDateTime.of(2099, 12, 31, 15, 0), SYMBOL, 10.0, 10.5, 9.5, 10.0, 100, 1000.0));
+		bars.add(new BarEvent(LocalDateTime.of(2099, 12, 31, 15, 0), SYMBOL, 10.0, 10.0, 10.0, 10.0, 100, 1000.0));
+		return bars;
+	}
+
+	private static void assertBarsEqual(List<BarEvent> expected, List<BarEvent> actual) {
+		assertEquals(expected.size(), actual.size());
+		for (int i = 0; i < expected.size(); i++) {
+			BarEvent e = expected.get(i);
+			BarEvent a = actual.get(i);
+			String at = i + " " + e.getTimestamp();
+			assertEquals(at, e.getTimestamp(), a.getTimestamp());
+			assertEquals(at, e.getSymbol(), a.getSymbol());
+			assertEquals(at, e.getOpen(), a.getOpen(), 0.0);
+			assertEquals(at, e.getHigh(), a.getHigh(), 0.0);
+			assertEquals(at, e.getLow(), a.getLow(), 0.0);
+			assertEquals(at, e.getClose(), a.getClose(), 0.0);
+			assertEquals(at, e.getVolume(), a.getVolume());
+			assertEquals(at, e.getTurnover(), a.getTurnover(), 0.0);
+		}
+	}
+}
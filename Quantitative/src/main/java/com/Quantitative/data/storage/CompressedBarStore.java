@@ -0,0 +1,310 @@
+package com.Quantitative.data.storage;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.Quantitative.common.utils.TradingLogger;
+import com.Quantitative.core.events.BarEvent;
+
+/**
+ * 压缩K线本地存储 - 每个股票一个 .bars 文件
+ *
+ * 文件结构：[数据块...][块索引][索引条数 int][索引偏移 long][魔数 int]。
+ * 每个数据块由 {@link BarBlockCodec} 独立编码，块索引记录每块的首末时间戳，
+ * 按日期区间读取时只需二分定位并解码相交的块，无需解压整个历史。
+ */
+public class CompressedBarStore {
+
+	public static final String FILE_SUFFIX = ".bars";
+	public static final int DEFAULT_BLOCK_SIZE = 4096;
+
+	private static final int MAGIC = 0x51424152; // "QBAR"
+	private static final int FOOTER_SIZE = 4 + 8 + 4;
+	private static final int INDEX_ENTRY_SIZE = 8 + 8 + 8 + 4 + 4;
+
+	private final String dataDirectory;
+	private final int blockSize;
+	private final long priceScale;
+
+	// 块索引缓存，写入时失效
+	private final Map<String, BlockIndex> indexCache = new ConcurrentHashMap<>();
+
+	public CompressedBarStore() {
+		this("data/bars");
+	}
+
+	public CompressedBarStore(String dataDirectory) {
+		this(dataDirectory, DEFAULT_BLOCK_SIZE, BarBlockCodec.DEFAULT_PRICE_SCALE);
+	}
+
+	public CompressedBarStore(String dataDirectory, int blockSize, long priceScale) {
+		if (blockSize <= 0) {
+			throw new IllegalArgumentException("块大小必须大于0: " + blockSize);
+		}
+		this.dataDirectory = dataDirectory;
+		this.blockSize = blockSize;
+		this.priceScale = priceScale;
+	}
+
+	// ==================== 写入 ====================
+
+	/**
+	 * 写入完整历史（按时间升序），覆盖已有文件
+	 */
+	public void write(String symbol, List<BarEvent> bars) throws IOException {
+		Path target = getPath(symbol);
+		Files.createDirectories(target.toAbsolutePath().getParent());
+		Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+
+		int blockCount = (bars.size() + blockSize - 1) / blockSize;
+		ByteBuffer index = ByteBuffer.allocate(blockCount * INDEX_ENTRY_SIZE + FOOTER_SIZE);
+		BarBlockCodec.ByteSink sink = new BarBlockCodec.ByteSink(blockSize * 16);
+		long offset = 0;
+
+		try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			for (int from = 0; from < bars.size(); from += blockSize) {
+				int to = Math.min(from + blockSize, bars.size());
+				sink.reset();
+				BarBlockCodec.encode(bars, from, to, priceScale, sink);
+				writeFully(channel, ByteBuffer.wrap(sink.array(), 0, sink.size()));
+
+				index.putLong(BarBlockCodec.epochSecond(bars.get(from).getTimestamp()));
+				index.putLong(BarBlockCodec.epochSecond(bars.get(to - 1).getTimestamp()));
+				index.putLong(offset);
+				index.putInt(sink.size());
+				index.putInt(to - from);
+				offset += sink.size();
+			}
+
+			index.putInt(blockCount);
+			index.putLong(offset);
+			index.putInt(MAGIC);
+			index.flip();
+			writeFully(channel, index);
+			channel.force(false);
+		}
+
+		try {
+			Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+		}
+		indexCache.remove(symbol);
+
+		TradingLogger.debug("CompressedBarStore", "写入压缩数据: %s, %d条记录, %d块, %d字节", symbol, bars.size(), blockCount,
+				offset);
+	}
+
+	// ==================== 读取 ====================
+
+	/**
+	 * 读取指定时间范围的K线（start/end 为 null 表示不限）
+	 */
+	public List<BarEvent> read(String symbol, LocalDateTime start, LocalDateTime end) throws IOException {
+		BlockIndex index = getIndex(symbol);
+		if (index == null || index.blockCount == 0) {
+			return new ArrayList<>();
+		}
+
+		long startTs = start == null ? Long.MIN_VALUE : BarBlockCodec.epochSecond(start);
+		long endTs = end == null ? Long.MAX_VALUE : BarBlockCodec.epochSecond(end);
+		int first = index.firstBlockEndingAtOrAfter(startTs);
+		if (first >= index.blockCount || startTs > endTs) {
+			return new ArrayList<>();
+		}
+
+		List<BarEvent> result = new ArrayList<>();
+		try (FileChannel channel = FileChannel.open(getPath(symbol), StandardOpenOption.READ)) {
+			byte[] block = new byte[0];
+			for (int b = first; b < index.blockCount && index.firstTs[b] <= endTs; b++) {
+				if (block.length < index.lengths[b]) {
+					block = new byte[index.lengths[b]];
+				}
+				readFully(channel, ByteBuffer.wrap(block, 0, index.lengths[b]), index.offsets[b]);
+
+				int before = result.size();
+				BarBlockCodec.decode(block, 0, symbol, result);
+				// 只有首尾块需要裁剪
+				if (index.firstTs[b] < startTs || index.lastTs[b] > endTs) {
+					trimToRange(result, before, startTs, endTs);
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * 读取全部历史
+	 */
+	public List<BarEvent> readAll(String symbol) throws IOException {
+		return read(symbol, null, null);
+	}
+
+	/**
+	 * 获取块索引（带缓存）
+	 */
+	public BlockIndex getIndex(String symbol) throws IOException {
+		BlockIndex cached = indexCache.get(symbol);
+		Path path = getPath(symbol);
+		if (!Files.exists(path)) {
+			indexCache.remove(symbol);
+			return null;
+		}
+		long modified = Files.getLastModifiedTime(path).toMillis();
+		if (cached != null && cached.fileModified == modified) {
+			return cached;
+		}
+
+		BlockIndex index = readIndex(path, modified);
+		indexCache.put(symbol, index);
+		return index;
+	}
+
+	public boolean exists(String symbol) {
+		return Files.exists(getPath(symbol));
+	}
+
+	public Path getPath(String symbol) {
+		return new File(dataDirectory, symbol + FILE_SUFFIX).toPath();
+	}
+
+	public String getDataDirectory() {
+		return dataDirectory;
+	}
+
+	private BlockIndex readIndex(Path path, long modified) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size < FOOTER_SIZE) {
+				throw new IOException("压缩数据文件损坏(长度不足): " + path);
+			}
+
+			ByteBuffer footer = ByteBuffer.allocate(FOOTER_SIZE);
+			readFully(channel, footer, size - FOOTER_SIZE);
+			footer.flip();
+			int blockCount = footer.getInt();
+			long indexOffset = footer.getLong();
+			if (footer.getInt() != MAGIC || indexOffset + (long) blockCount * INDEX_ENTRY_SIZE + FOOTER_SIZE != size) {
+				throw new IOException("压缩数据文件损坏(索引不匹配): " + path);
+			}
+
+			ByteBuffer entries = ByteBuffer.allocate(blockCount * INDEX_ENTRY_SIZE);
+			readFully(channel, entries, indexOffset);
+			entries.flip();
+
+			BlockIndex index = new BlockIndex(blockCount, modified);
+			for (int b = 0; b < blockCount; b++) {
+				index.firstTs[b] = entries.getLong();
+				index.lastTs[b] = entries.getLong();
+				index.offsets[b] = entries.getLong();
+				index.lengths[b] = entries.getInt();
+				index.counts[b] = entries.getInt();
+			}
+			return index;
+		}
+	}
+
+	private static void trimToRange(List<BarEvent> bars, int from, long startTs, long endTs) {
+		List<BarEvent> tail = bars.subList(from, bars.size());
+		List<BarEvent> kept = new ArrayList<>(tail.size());
+		for (BarEvent bar : tail) {
+			long ts = BarBlockCodec.epochSecond(bar.getTimestamp());
+			if (ts >= startTs && ts <= endTs) {
+				kept.add(bar);
+			}
+		}
+		tail.clear();
+		bars.addAll(kept);
+	}
+
+	private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+
+	private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			int read = channel.read(buffer, position);
+			if (read < 0) {
+				throw new IOException("读取压缩数据时遇到文件末尾");
+			}
+			position += read;
+		}
+	}
+
+	/**
+	 * 块索引 - 每块的首末时间戳、文件偏移、字节长度和K线数量
+	 */
+	public static class BlockIndex {
+		private final int blockCount;
+		private final long fileModified;
+		private final long[] firstTs;
+		private final long[] lastTs;
+		private final long[] offsets;
+		private final int[] lengths;
+		private final int[] counts;
+
+		BlockIndex(int blockCount, long fileModified) {
+			this.blockCount = blockCount;
+			this.fileModified = fileModified;
+			this.firstTs = new long[blockCount];
+			this.lastTs = new long[blockCount];
+			this.offsets = new long[blockCount];
+			this.lengths = new int[blockCount];
+			this.counts = new int[blockCount];
+		}
+
+		/**
+		 * 二分查找第一个末时间戳 >= ts 的块
+		 */
+		int firstBlockEndingAtOrAfter(long ts) {
+			int low = 0;
+			int high = blockCount;
+			while (low < high) {
+				int mid = (low + high) >>> 1;
+				if (lastTs[mid] < ts) {
+					low = mid + 1;
+				} else {
+					high = mid;
+				}
+			}
+			return low;
+		}
+
+		public int getBlockCount() {
+			return blockCount;
+		}
+
+		public long getBarCount() {
+			long total = 0;
+			for (int count : counts) {
+				total += count;
+			}
+			return total;
+		}
+
+		public LocalDateTime getFirstTimestamp() {
+			return blockCount == 0 ? null : LocalDateTime.ofEpochSecond(firstTs[0], 0, ZoneOffset.UTC);
+		}
+
+		public LocalDateTime getLastTimestamp() {
+			return blockCount == 0 ? null
+					: LocalDateTime.ofEpochSecond(lastTs[blockCount - 1], 0, ZoneOffset.UTC);
+		}
+	}
+}
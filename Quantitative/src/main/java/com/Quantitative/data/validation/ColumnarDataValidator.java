@@ -0,0 +1,232 @@
+package com.Quantitative.data.validation;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.Quantitative.core.events.BarEvent;
+import com.Quantitative.data.model.BarColumns;
+
+/**
+ * 列式单遍数据验证器
+ *
+ * 与 {@link DataValidator} 使用相同的校验规则，但在列式数组上一次遍历完成单根K线校验、序列连续性校验和统计汇总，
+ * 不为每根K线创建 ValidationResult，只有出现问题时才记录（K线序号 + 检查项编码）。
+ * 多个股票可通过 {@link #validateUniverse} 并行校验。
+ */
+public final class ColumnarDataValidator {
+
+	// 检查项编码
+	static final int CHECK_INVALID_PRICE = 0;
+	static final int CHECK_HIGH_BELOW_LOW = 1;
+	static final int CHECK_OPEN_OUT_OF_RANGE = 2;
+	static final int CHECK_CLOSE_OUT_OF_RANGE = 3;
+	static final int CHECK_LOW_VOLUME = 4;
+	static final int CHECK_HIGH_VOLUME = 5;
+	static final int CHECK_LARGE_MOVE = 6;
+	static final int CHECK_DATA_GAP = 7;
+	static final int CHECK_PRICE_GAP = 8;
+	static final int CHECK_OUT_OF_ORDER = 9;
+
+	static final String[] CHECK_NAMES = { "价格异常", "最高价低于最低价", "开盘价超出价格范围", "收盘价超出价格范围", "成交量过低", "成交量异常高",
+			"价格变动过大", "数据间隔过长", "异常价格跳空", "时间乱序或重复" };
+
+	// 错误会使K线无效，其余为警告
+	private static final boolean[] IS_ERROR = { true, true, true, true, false, false, false, false, false, false };
+
+	private static final long SECONDS_PER_DAY = 86400L;
+	private static final int MAX_GAP_DAYS = 7;
+	private static final double MAX_GAP_PERCENT = 20.0;
+	private static final int MAX_ISSUE_SAMPLES = 50;
+
+	private ColumnarDataValidator() {
+	}
+
+	/**
+	 * 校验BarEvent列表（按时间升序）
+	 */
+	public static DataQualityReport validate(String symbol, LocalDateTime start, LocalDateTime end,
+			List<BarEvent> bars) {
+		return validate(BarColumns.from(symbol, bars), start, end);
+	}
+
+	/**
+	 * 单遍校验列式数据
+	 */
+	public static DataQualityReport validate(BarColumns columns, LocalDateTime start, LocalDateTime end) {
+		final int n = columns.size();
+		final long[] ts = columns.getTimestamps();
+		final double[] open = columns.getOpen();
+		final double[] high = columns.getHigh();
+		final double[] low = columns.getLow();
+		final double[] close = columns.getClose();
+		final long[] volume = columns.getVolume();
+
+		IssueLog issues = new IssueLog();
+		int invalidBars = 0;
+
+		// 统计量
+		double minLow = Double.POSITIVE_INFINITY;
+		double maxHigh = Double.NEGATIVE_INFINITY;
+		double volumeSum = 0;
+		double returnMean = 0;
+		double returnM2 = 0;
+		int returnCount = 0;
+		long maxGapDays = 0;
+
+		for (int i = 0; i < n; i++) {
+			int before = issues.errorCount;
+			double o = open[i];
+			double h = high[i];
+			double l = low[i];
+			double c = close[i];
+
+			// 1. 基础价格
+			if (!isValidPrice(o))
+				issues.add(i, CHECK_INVALID_PRICE);
+			if (!isValidPrice(h))
+				issues.add(i, CHECK_INVALID_PRICE);
+			if (!isValidPrice(l))
+				issues.add(i, CHECK_INVALID_PRICE);
+			if (!isValidPrice(c))
+				issues.add(i, CHECK_INVALID_PRICE);
+
+			// 2. 价格关系
+			if (h < l)
+				issues.add(i, CHECK_HIGH_BELOW_LOW);
+			if (o > h || o < l)
+				issues.add(i, CHECK_OPEN_OUT_OF_RANGE);
+			if (c > h || c < l)
+				issues.add(i, CHECK_CLOSE_OUT_OF_RANGE);
+
+			// 3. 成交量
+			if (volume[i] < DataValidator.MIN_VOLUME)
+				issues.add(i, CHECK_LOW_VOLUME);
+			if (volume[i] > DataValidator.MAX_VOLUME)
+				issues.add(i, CHECK_HIGH_VOLUME);
+
+			// 4. 单根K线涨跌幅
+			if (Math.abs((c - o) / o * 100) > DataValidator.MAX_PRICE_CHANGE_PERCENT)
+				issues.add(i, CHECK_LARGE_MOVE);
+
+			if (issues.errorCount != before) {
+				invalidBars++;
+			}
+
+			// 5. 序列连续性（与前一根比较）
+			if (i > 0) {
+				long days = Math.floorDiv(ts[i], SECONDS_PER_DAY) - Math.floorDiv(ts[i - 1], SECONDS_PER_DAY);
+				if (ts[i] <= ts[i - 1]) {
+					issues.add(i, CHECK_OUT_OF_ORDER);
+				} else if (days > MAX_GAP_DAYS) {
+					issues.add(i, CHECK_DATA_GAP);
+				}
+				maxGapDays = Math.max(maxGapDays, days);
+
+				double prevClose = close[i - 1];
+				if (Math.abs((o - prevClose) / prevClose * 100) > MAX_GAP_PERCENT)
+					issues.add(i, CHECK_PRICE_GAP);
+
+				if (prevClose > 0 && c > 0) {
+					double r = c / prevClose - 1.0;
+					returnCount++;
+					double delta = r - returnMean;
+					returnMean += delta / returnCount;
+					returnM2 += delta * (r - returnMean);
+				}
+			}
+
+			minLow = Math.min(minLow, l);
+			maxHigh = Math.max(maxHigh, h);
+			volumeSum += volume[i];
+		}
+
+		DataQualityReport report = new DataQualityReport(columns.getSymbol(), start, end);
+		report.setBatchSummary(n, n - invalidBars, invalidBars, issues.errorCount, issues.warningCount,
+				issues.countsByCheck(), issues.samples(columns));
+		if (n > 0) {
+			double volatility = returnCount > 1 ? Math.sqrt(returnM2 / (returnCount - 1)) : 0.0;
+			report.setStatistics(new DataQualityReport.Statistics(columns.getTimestamp(0),
+					columns.getTimestamp(n - 1), minLow, maxHigh, volumeSum / n, returnMean, volatility, maxGapDays));
+		}
+		return report;
+	}
+
+	/**
+	 * 并行校验多个股票
+	 */
+	public static Map<String, DataQualityReport> validateUniverse(Map<String, List<BarEvent>> universe,
+			LocalDateTime start, LocalDateTime end) {
+		Map<String, DataQualityReport> reports = new ConcurrentHashMap<>();
+		universe.entrySet().parallelStream()
+				.forEach(e -> reports.put(e.getKey(), validate(e.getKey(), start, end, e.getValue())));
+		return reports;
+	}
+
+	/**
+	 * 并行校验多个列式数据集
+	 */
+	public static Map<String, DataQualityReport> validateColumns(List<BarColumns> universe, LocalDateTime start,
+			LocalDateTime end) {
+		Map<String, DataQualityReport> reports = new ConcurrentHashMap<>();
+		universe.parallelStream().forEach(c -> reports.put(c.getSymbol(), validate(c, start, end)));
+		return reports;
+	}
+
+	private static boolean isValidPrice(double price) {
+		return price > DataValidator.MIN_PRICE && price <= DataValidator.MAX_PRICE;
+	}
+
+	/**
+	 * 问题记录 - 只在出现问题时按需扩容
+	 */
+	private static final class IssueLog {
+		private int[] barIndex;
+		private byte[] check;
+		private int size;
+		int errorCount;
+		int warningCount;
+
+		void add(int index, int checkCode) {
+			if (barIndex == null) {
+				barIndex = new int[16];
+				check = new byte[16];
+			} else if (size == barIndex.length) {
+				barIndex = Arrays.copyOf(barIndex, size * 2);
+				check = Arrays.copyOf(check, size * 2);
+			}
+			barIndex[size] = index;
+			check[size] = (byte) checkCode;
+			size++;
+
+			if (IS_ERROR[checkCode]) {
+				errorCount++;
+			} else {
+				warningCount++;
+			}
+		}
+
+		int[] countsByCheck() {
+			int[] counts = new int[CHECK_NAMES.length];
+			for (int i = 0; i < size; i++) {
+				counts[check[i]]++;
+			}
+			return counts;
+		}
+
+		List<String> samples(BarColumns columns) {
+			int limit = Math.min(size, MAX_ISSUE_SAMPLES);
+			List<String> samples = new ArrayList<>(limit);
+			for (int i = 0; i < limit; i++) {
+				int bar = barIndex[i];
+				samples.add(String.format("%s %s: O=%.4f H=%.4f L=%.4f C=%.4f V=%d", columns.getTimestamp(bar),
+						CHECK_NAMES[check[i]], columns.getOpen()[bar], columns.getHigh()[bar], columns.getLow()[bar],
+						columns.getClose()[bar], columns.getVolume()[bar]));
+			}
+			return samples;
+		}
+	}
+}
@@ -0,0 +1,80 @@
+package com.Quantitative.data.validation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.Quantitative.BaseTest;
+import com.Quantitative.all.Test.TestDataGenerator;
+import com.Quantitative.core.events.BarEvent;
+
+/**
+ * 列式数据校验测试 - 与原先逐条 DataValidator 校验的计数一致
+ */
+public class ColumnarDataValidatorTest extends BaseTest {
+
+	private static final String SYMBOL = "600519";
+
+	@Test
+	public void testCountsMatchPerBarValidator() {
+		List<BarEvent> bars = barsWithIssues();
+		LocalDateTime start = bars.get(0).getTimestamp();
+		LocalDateTime end = bars.get(bars.size() - 1).getTimestamp();
+
+		// 原先的路径：逐条 validateBar，再加一次序列校验
+		DataQualityReport expected = new DataQualityReport(SYMBOL, start, end);
+		for (BarEvent bar : bars) {
+			expected.addValidationResult(DataValidator.validateBar(bar));
+		}
+		expected.setSeriesValidation(DataValidator.validatePriceSeries(new ArrayList<>(bars)));
+
+		DataQualityReport actual = ColumnarDataValidator.validate(SYMBOL, start, end, bars);
+
+		assertTrue("测试数据应包含错误和警告", expected.getTotalErrors() > 0 && expected.getTotalWarnings() > 0);
+		assertEquals(expected.getTotalBars(), actual.getTotalBars());
+		assertEquals(expected.getValidBars(), actual.getValidBars());
+		assertEquals(expected.getInvalidBars(), actual.getInvalidBars());
+		assertEquals(expected.getTotalErrors(), actual.getTotalErrors());
+		assertEquals(expected.getTotalWarnings(), actual.getTotalWarnings());
+	}
+
+	/**
+	 * 随机K线中插入各类问题：价格关系错误、非法价格、低成交量、大幅波动、数据间隔、跳空
+	 */
+	private static List<BarEvent> barsWithIssues() {
+		List<BarEvent> walk = TestDataGenerator.randomWalk(SYMBOL, LocalDateTime.of(2023, 1, 3, 15, 0), 200, 30.0,
+				0.02, 5L);
+		LocalDateTime time = LocalDateTime.of(2023, 1, 2, 15, 0);
+		List<BarEvent> bars = new ArrayList<>();
+		for (int i = 0; i < walk.size(); i++) {
+			BarEvent bar = walk.get(i);
+			time = time.plusDays(i == 60 || i == 150 ? 12 : 1);
+			double open = i == 90 ? bar.getOpen() * 1.3 : bar.getOpen();
+			double high = Math.max(bar.getHigh(), open);
+			double low = bar.getLow();
+			double close = bar.getClose();
+			long volume = bar.getVolume();
+			if (i == 20) {
+				double swap = high;
+				high = low;
+				low = swap;
+			} else if (i == 40) {
+				close = high * 1.05;
+			} else if (i == 70) {
+				volume = 10;
+			} else if (i == 110) {
+				close = open * 1.8;
+				high = close;
+			} else if (i == 130) {
+				low = 0.0;
+			}
+			bars.add(new BarEvent(time, SYMBOL, open, high, low, close, volume));
+		}
+		return bars;
+	}
+}
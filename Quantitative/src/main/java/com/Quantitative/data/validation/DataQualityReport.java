@@ -2,7 +2,9 @@ package com.Quantitative.data.validation;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 数据质量报告
@@ -23,6 +25,11 @@ public class DataQualityReport {
 	private int totalErrors;
 	private int totalWarnings;
 
+	// 列式批量校验结果（见 ColumnarDataValidator）
+	private int[] issueCounts;
+	private List<String> issueSamples;
+	private Statistics statistics;
+
 	public DataQualityReport(String symbol, LocalDateTime startTime, LocalDateTime endTime) {
 		this.symbol = symbol;
 		this.startTime = startTime;
@@ -51,6 +58,24 @@ public class DataQualityReport {
 		totalWarnings += seriesValidation.getWarnings().size();
 	}
 
+	/**
+	 * 写入批量校验汇总结果，不保留逐条ValidationResult
+	 */
+	public void setBatchSummary(int totalBars, int validBars, int invalidBars, int totalErrors, int totalWarnings,
+			int[] issueCounts, List<String> issueSamples) {
+		this.totalBars = totalBars;
+		this.validBars = validBars;
+		this.invalidBars = invalidBars;
+		this.totalErrors = totalErrors;
+		this.totalWarnings = totalWarnings;
+		this.issueCounts = issueCounts;
+		this.issueSamples = issueSamples;
+	}
+
+	public void setStatistics(Statistics statistics) {
+		this.statistics = statistics;
+	}
+
 	// Getter方法
 	public String getSymbol() {
 		return symbol;
@@ -88,6 +113,32 @@ public class DataQualityReport {
 		return totalWarnings;
 	}
 
+	public Statistics getStatistics() {
+		return statistics;
+	}
+
+	/**
+	 * 问题样本（批量校验时最多保留前若干条）
+	 */
+	public List<String> getIssueSamples() {
+		return issueSamples == null ? new ArrayList<>() : new ArrayList<>(issueSamples);
+	}
+
+	/**
+	 * 按检查项统计的问题数量
+	 */
+	public Map<String, Integer> getIssueCounts() {
+		Map<String, Integer> counts = new LinkedHashMap<>();
+		if (issueCounts != null) {
+			for (int i = 0; i < issueCounts.length; i++) {
+				if (issueCounts[i] > 0) {
+					counts.put(ColumnarDataValidator.CHECK_NAMES[i], issueCounts[i]);
+				}
+			}
+		}
+		return counts;
+	}
+
 	public double getDataQualityScore() {
 		if (totalBars == 0)
 			return 0.0;
@@ -130,10 +181,29 @@ public class DataQualityReport {
 			}
 		}
 
+		// 统计信息
+		if (statistics != null) {
+			report.append("统计信息:\n");
+			report.append("  数据区间: ").append(statistics.getFirstTimestamp()).append(" 到 ")
+					.append(statistics.getLastTimestamp()).append("\n");
+			report.append(String.format("  价格区间: %.4f - %.4f%n", statistics.getMinPrice(), statistics.getMaxPrice()));
+			report.append(String.format("  平均成交量: %.0f%n", statistics.getAverageVolume()));
+			report.append(String.format("  收益率均值/波动率: %.4f%% / %.4f%%%n", statistics.getMeanReturn() * 100,
+					statistics.getReturnVolatility() * 100));
+			report.append("  最大间隔天数: ").append(statistics.getMaxGapDays()).append("\n");
+		}
+
 		// 常见问题汇总
 		report.append("\n常见问题:\n");
 		if (totalErrors == 0 && totalWarnings == 0) {
 			report.append("  ✅ 未发现数据问题\n");
+		} else if (issueCounts != null) {
+			for (Map.Entry<String, Integer> entry : getIssueCounts().entrySet()) {
+				report.append("  ").append(entry.getKey()).append(": ").append(entry.getValue()).append("\n");
+			}
+			for (String sample : issueSamples) {
+				report.append("    ⚠️ ").append(sample).append("\n");
+			}
 		} else {
 			// 这里可以添加具体的问题分类统计
 			report.append("  📊 详细问题请查看验证日志\n");
@@ -157,4 +227,62 @@ public class DataQualityReport {
 			return "及格 ★★";
 		return "较差 ★";
 	}
-}
\ No newline at end of file
+
+	/**
+	 * 单遍校验时顺带计算的统计信息
+	 */
+	public static class Statistics {
+		private final LocalDateTime firstTimestamp;
+		private final LocalDateTime lastTimestamp;
+		private final double minPrice;
+		private final double maxPrice;
+		private final double averageVolume;
+		private final double meanReturn;
+		private final double returnVolatility;
+		private final long maxGapDays;
+
+		public Statistics(LocalDateTime firstTimestamp, LocalDateTime lastTimestamp, double minPrice, double maxPrice,
+				double averageVolume, double meanReturn, double returnVolatility, long maxGapDays) {
+			this.firstTimestamp = firstTimestamp;
+			this.lastTimestamp = lastTimestamp;
+			this.minPrice = minPrice;
+			this.maxPrice = maxPrice;
+			this.averageVolume = averageVolume;
+			this.meanReturn = meanReturn;
+			this.returnVolatility = returnVolatility;
+			this.maxGapDays = maxGapDays;
+		}
+
+		public LocalDateTime getFirstTimestamp() {
+			return firstTimestamp;
+		}
+
+		public LocalDateTime getLastTimestamp() {
+			return lastTimestamp;
+		}
+
+		public double getMinPrice() {
+			return minPrice;
+		}
+
+		public double getMaxPrice() {
+			return maxPrice;
+		}
+
+		public double getAverageVolume() {
+			return averageVolume;
+		}
+
+		public double getMeanReturn() {
+			return meanReturn;
+		}
+
+		public double getReturnVolatility() {
+			return returnVolatility;
+		}
+
+		public long getMaxGapDays() {
+			return maxGapDays;
+		}
+	}
+}
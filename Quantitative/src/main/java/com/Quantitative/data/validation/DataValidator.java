@@ -12,11 +12,11 @@ import com.Quantitative.core.events.BarEvent;
 public class DataValidator {
 
 	// 验证配置
-	private static final double MAX_PRICE_CHANGE_PERCENT = 50.0; // 单日最大涨跌幅50%
-	private static final double MIN_PRICE = 0.01; // 最小价格
-	private static final double MAX_PRICE = 100000.0; // 最大价格
-	private static final long MIN_VOLUME = 100; // 最小成交量
-	private static final long MAX_VOLUME = 10000000000L; // 最大成交量
+	static final double MAX_PRICE_CHANGE_PERCENT = 50.0; // 单日最大涨跌幅50%
+	static final double MIN_PRICE = 0.01; // 最小价格
+	static final double MAX_PRICE = 100000.0; // 最大价格
+	static final long MIN_VOLUME = 100; // 最小成交量
+	static final long MAX_VOLUME = 10000000000L; // 最大成交量
 
 	/**
 	 * 验证单个Bar数据的合理性
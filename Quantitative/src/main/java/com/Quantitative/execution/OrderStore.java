@@ -0,0 +1,365 @@
+package com.Quantitative.execution;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import com.Quantitative.core.events.OrderEvent;
+
+/**
+ * 订单状态存储 - 内存占用有上限的订单状态表
+ *
+ * 订单编号是递增的 long，对外的字符串形式为 "ORDER_" + 编号。未结束的订单放在以编号为键的开放寻址表中；
+ * 每个订单的状态只占一个字节，保存在按编号取模的环形数组里。环形数组只覆盖最近 horizon 个编号，
+ * 更早的状态按块写入状态文件（文件偏移量即编号），查询时从文件读取，因此已归档的订单仍可查询状态。
+ *
+ * 非线程安全，由调用方同步。
+ */
+public class OrderStore {
+
+	public static final byte UNKNOWN = 0;
+	public static final byte OPEN = 1;
+	public static final byte FILLED = 2;
+	public static final byte CANCELLED = 3;
+	public static final byte EXPIRED = 4;
+
+	public static final int DEFAULT_HORIZON = 1 << 16;
+
+	private static final String ID_PREFIX = "ORDER_";
+	private static final int SPILL_BLOCK = 1 << 13;
+
+	// 未结束订单：开放寻址表，键0表示空位
+	private long[] keys = new long[16];
+	private OrderEvent[] values = new OrderEvent[16];
+	private int openCount;
+
+	// 最近订单的状态字节
+	private final byte[] ring;
+	private final int ringMask;
+
+	// 状态文件
+	private final Path spillFile;
+	private FileChannel spill;
+	private Path spillTemporary; // 自动创建的临时文件，关闭时删除
+
+	private long nextId = 1;
+	private long firstId = 1; // 本轮（clear 之后）第一个编号
+	private long spilledBelow = 1; // 小于该编号的状态已写入文件
+
+	public OrderStore() {
+		this(DEFAULT_HORIZON, null);
+	}
+
+	public OrderStore(int horizon, Path spillFile) {
+		this(horizon, spillFile, 1);
+	}
+
+	/**
+	 * @param horizon   内存中保留状态的订单数，向上取整为 2 的幂
+	 * @param spillFile 状态文件，为 null 时在需要时创建临时文件
+	 * @param firstId   第一个订单编号（替换旧存储时接着旧编号，避免重复）
+	 */
+	public OrderStore(int horizon, Path spillFile, long firstId) {
+		if (horizon <= 0) {
+			throw new IllegalArgumentException("订单状态保留数量必须大于0: " + horizon);
+		}
+		if (firstId <= 0) {
+			throw new IllegalArgumentException("订单编号必须大于0: " + firstId);
+		}
+		int capacity = Integer.highestOneBit(Math.max(horizon, SPILL_BLOCK) - 1) << 1;
+		this.ring = new byte[capacity];
+		this.ringMask = capacity - 1;
+		this.spillFile = spillFile;
+		this.nextId = firstId;
+		this.firstId = firstId;
+		this.spilledBelow = firstId;
+	}
+
+	// ==================== 编号 ====================
+
+	/**
+	 * 分配新订单编号（状态为 UNKNOWN，直到 {@link #open} 或 {@link #archive}）
+	 */
+	public long nextId() {
+		long id = nextId++;
+		if ((id & (SPILL_BLOCK - 1)) == 0 && id - ring.length + SPILL_BLOCK > spilledBelow) {
+			spillBlock(id - ring.length);
+		}
+		ring[(int) (id & ringMask)] = UNKNOWN;
+		return id;
+	}
+
+	/**
+	 * 下一个将分配的编号
+	 */
+	public long getNextId() {
+		return nextId;
+	}
+
+	public static String format(long id) {
+		return ID_PREFIX + id;
+	}
+
+	/**
+	 * 解析订单编号，不是本存储生成的编号时返回 -1
+	 */
+	public static long parse(String orderId) {
+		if (orderId == null || !orderId.startsWith(ID_PREFIX) || orderId.length() == ID_PREFIX.length()
+				|| orderId.length() > ID_PREFIX.length() + 18) {
+			return -1;
+		}
+		long id = 0;
+		for (int i = ID_PREFIX.length(); i < orderId.length(); i++) {
+			char c = orderId.charAt(i);
+			if (c < '0' || c > '9') {
+				return -1;
+			}
+			id = id * 10 + (c - '0');
+		}
+		return id;
+	}
+
+	// ==================== 状态 ====================
+
+	public void open(long id, OrderEvent order) {
+		put(id, order);
+		setStatus(id, OPEN);
+	}
+
+	/**
+	 * 订单结束：移出未结束订单表并记录最终状态
+	 *
+	 * @return 订单原来是否未结束
+	 */
+	public boolean close(long id, byte status) {
+		if (remove(id) == null) {
+			return false;
+		}
+		setStatus(id, status);
+		return true;
+	}
+
+	/**
+	 * 直接记录最终状态（如立即成交的订单）
+	 */
+	public void archive(long id, byte status) {
+		setStatus(id, status);
+	}
+
+	public OrderEvent getOpenOrder(long id) {
+		if (id <= 0) {
+			return null;
+		}
+		int i = indexOf(id);
+		return keys[i] == id ? values[i] : null;
+	}
+
+	public boolean isOpen(long id) {
+		return getOpenOrder(id) != null;
+	}
+
+	public byte getStatus(long id) {
+		if (id < firstId || id >= nextId) {
+			return UNKNOWN;
+		}
+		if (id >= spilledBelow) {
+			return ring[(int) (id & ringMask)];
+		}
+		return readSpilled(id);
+	}
+
+	public static String statusName(byte status) {
+		switch (status) {
+		case OPEN:
+			return "ACTIVE";
+		case FILLED:
+			return "FILLED";
+		case CANCELLED:
+			return "CANCELLED";
+		case EXPIRED:
+			return "EXPIRED";
+		default:
+			return "UNKNOWN";
+		}
+	}
+
+	public int getOpenCount() {
+		return openCount;
+	}
+
+	/**
+	 * 本轮已分配的订单数
+	 */
+	public long getOrderCount() {
+		return nextId - firstId;
+	}
+
+	/**
+	 * 状态已写入文件的订单数
+	 */
+	public long getSpilledCount() {
+		return spilledBelow - firstId;
+	}
+
+	/**
+	 * 清空全部状态，编号继续递增（旧编号查询为 UNKNOWN）
+	 */
+	public void clear() {
+		keys = new long[16];
+		values = new OrderEvent[16];
+		openCount = 0;
+		firstId = nextId;
+		spilledBelow = nextId;
+		if (spill != null) {
+			try {
+				spill.truncate(0);
+			} catch (IOException e) {
+				throw new IllegalStateException("订单状态文件清空失败", e);
+			}
+		}
+	}
+
+	public void close() throws IOException {
+		if (spill != null) {
+			spill.close();
+			spill = null;
+			if (spillTemporary != null) {
+				Files.deleteIfExists(spillTemporary);
+				spillTemporary = null;
+			}
+		}
+	}
+
+	// ==================== 状态字节 ====================
+
+	private void setStatus(long id, byte status) {
+		if (id < firstId || id >= nextId) {
+			throw new IllegalArgumentException("订单编号不存在: " + id);
+		}
+		if (id >= spilledBelow) {
+			ring[(int) (id & ringMask)] = status;
+		} else {
+			writeSpilled(id, status);
+		}
+	}
+
+	/**
+	 * 环形数组即将覆盖 [from, from + SPILL_BLOCK) 的状态，先把其中尚未写入的部分整块写入文件
+	 */
+	private void spillBlock(long from) {
+		long start = Math.max(from, spilledBelow);
+		int offset = (int) (start & ringMask);
+		int length = (int) (from + SPILL_BLOCK - start);
+		if (length > 0) {
+			try {
+				channel().write(ByteBuffer.wrap(ring, offset, length), start - firstId);
+			} catch (IOException e) {
+				throw new IllegalStateException("订单状态写入文件失败", e);
+			}
+		}
+		spilledBelow = from + SPILL_BLOCK;
+	}
+
+	private void writeSpilled(long id, byte status) {
+		try {
+			channel().write(ByteBuffer.wrap(new byte[] { status }), id - firstId);
+		} catch (IOException e) {
+			throw new IllegalStateException("订单状态写入文件失败", e);
+		}
+	}
+
+	private byte readSpilled(long id) {
+		try {
+			ByteBuffer buffer = ByteBuffer.allocate(1);
+			return channel().read(buffer, id - firstId) == 1 ? buffer.get(0) : UNKNOWN;
+		} catch (IOException e) {
+			throw new IllegalStateException("订单状态读取失败", e);
+		}
+	}
+
+	private FileChannel channel() throws IOException {
+		if (spill == null) {
+			Path file = spillFile;
+			if (file == null) {
+				file = Files.createTempFile("order-status", ".bin");
+				file.toFile().deleteOnExit();
+				spillTemporary = file;
+			}
+			spill = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+					StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+		}
+		return spill;
+	}
+
+	// ==================== 未结束订单表 ====================
+
+	private int indexOf(long id) {
+		int mask = keys.length - 1;
+		int i = (int) ((id * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+		while (keys[i] != 0 && keys[i] != id) {
+			i = (i + 1) & mask;
+		}
+		return i;
+	}
+
+	private void put(long id, OrderEvent order) {
+		if ((openCount + 1) * 2 > keys.length) {
+			rehash(keys.length * 2);
+		}
+		int i = indexOf(id);
+		if (keys[i] == 0) {
+			keys[i] = id;
+			openCount++;
+		}
+		values[i] = order;
+	}
+
+	private OrderEvent remove(long id) {
+		if (id <= 0) {
+			return null;
+		}
+		int i = indexOf(id);
+		if (keys[i] != id) {
+			return null;
+		}
+		OrderEvent removed = values[i];
+		openCount--;
+
+		// 后移删除：把后续同一探测链上的元素前移，保持查找不中断
+		int mask = keys.length - 1;
+		int j = i;
+		while (true) {
+			j = (j + 1) & mask;
+			if (keys[j] == 0) {
+				break;
+			}
+			int home = (int) ((keys[j] * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+			boolean between = i <= j ? (i < home && home <= j) : (i < home || home <= j);
+			if (!between) {
+				keys[i] = keys[j];
+				values[i] = values[j];
+				i = j;
+			}
+		}
+		keys[i] = 0;
+		values[i] = null;
+		return removed;
+	}
+
+	private void rehash(int capacity) {
+		long[] oldKeys = keys;
+		OrderEvent[] oldValues = values;
+		keys = new long[capacity];
+		values = new OrderEvent[capacity];
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldKeys[i] != 0) {
+				int j = indexOf(oldKeys[i]);
+				keys[j] = oldKeys[i];
+				values[j] = oldValues[i];
+			}
+		}
+	}
+}
@@ -0,0 +1,353 @@
+package com.Quantitative.execution;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import com.Quantitative.core.events.BarEvent;
+import com.Quantitative.core.events.OrderEvent;
+
+/**
+ * 挂单簿 - 按股票保存未成交的限价单、止损单和止损限价单
+ *
+ * 每只股票有四个按价格-时间优先排序的队列：买入限价（价高优先）、卖出限价（价低优先）、
+ * 买入止损（价低优先）、卖出止损（价高优先）。每根K线只取出被最高价/最低价穿越的队首部分，
+ * 复杂度为 O(log n + k)，没有成交时不随挂单数量增加。
+ *
+ * 成交价：限价单为限价，开盘跳空越过限价时为开盘价；止损单为止损价，跳空时为开盘价。
+ * 止损限价单触发后，触发价不劣于限价时当根成交，否则转为限价单从下一根K线开始撮合。
+ *
+ * 有效期：GTC 直到撤销；DAY 在第一根参与撮合的K线所在交易日结束后失效；IOC/FOK 只参与一根K线（不支持部分成交，两者相同）。
+ * 订单只与时间晚于下单时间的K线撮合。非线程安全。
+ */
+public class RestingOrderBook {
+
+	private static final Comparator<RestingOrder> BY_KEY = Comparator.<RestingOrder>comparingDouble(o -> o.key)
+			.thenComparingLong(o -> o.sequence);
+
+	private final Map<String, SymbolOrders> books = new HashMap<>();
+	private final Map<String, RestingOrder> orders = new HashMap<>();
+	private long nextSequence = 1;
+
+	// ==================== 挂单管理 ====================
+
+	/**
+	 * 添加挂单
+	 *
+	 * @param orderId 订单编号，成交和撤销时使用
+	 * @param order   限价、止损或止损限价订单
+	 */
+	public RestingOrder add(String orderId, OrderEvent order) {
+		if (order.isMarketOrder()) {
+			throw new IllegalArgumentException("市价单不能挂单: " + orderId);
+		}
+		if (orders.containsKey(orderId)) {
+			throw new IllegalArgumentException("订单编号重复: " + orderId);
+		}
+		RestingOrder resting = new RestingOrder(orderId, order, nextSequence++);
+		SymbolOrders book = books.computeIfAbsent(order.getSymbol(), k -> new SymbolOrders());
+		book.all.add(resting);
+		book.incoming.add(resting);
+		orders.put(orderId, resting);
+		return resting;
+	}
+
+	public boolean cancel(String orderId) {
+		RestingOrder resting = orders.get(orderId);
+		if (resting == null) {
+			return false;
+		}
+		remove(resting);
+		return true;
+	}
+
+	/**
+	 * 撤销全部挂单
+	 *
+	 * @return 撤销的订单
+	 */
+	public List<RestingOrder> cancelAll() {
+		List<RestingOrder> cancelled = new ArrayList<>(orders.values());
+		for (RestingOrder resting : cancelled) {
+			resting.live = false;
+			resting.queue = null;
+		}
+		books.clear();
+		orders.clear();
+		return cancelled;
+	}
+
+	// ==================== 撮合 ====================
+
+	/**
+	 * 用K线的开盘价、最高价和最低价撮合该股票的挂单：先处理过期订单，再撮合止损单，最后撮合限价单
+	 *
+	 * @param listener 每笔成交或失效回调一次，同一队列内按价格-时间优先
+	 * @return 是否有订单成交
+	 */
+	public boolean match(BarEvent bar, MatchListener listener) {
+		SymbolOrders book = books.get(bar.getSymbol());
+		if (book == null) {
+			return false;
+		}
+		LocalDate date = bar.getTimestamp().toLocalDate();
+
+		// 1. 前一交易日的 DAY 订单失效
+		while (!book.dayOrders.isEmpty() && book.dayOrders.peekFirst().session.isBefore(date)) {
+			RestingOrder resting = book.dayOrders.pollFirst();
+			if (resting.live) {
+				remove(resting);
+				listener.onExpire(resting);
+			}
+		}
+
+		// 2. 下单时间早于本根K线的订单进入队列
+		List<RestingOrder> singleBar = book.activate(bar.getTimestamp(), date);
+
+		boolean filled = false;
+		double open = bar.getOpen();
+
+		// 3. 止损单：买入止损被最高价穿越，卖出止损被最低价穿越
+		List<RestingOrder> converted = null;
+		for (RestingOrder resting : book.triggered(book.buyStops, bar.getHigh())) {
+			double price = Math.max(open, resting.order.getStopPrice());
+			if (resting.order.isStopOrder() || price <= resting.order.getLimitPrice()) {
+				fill(resting, price, listener);
+				filled = true;
+			} else {
+				converted = book.deactivate(resting, converted);
+			}
+		}
+		for (RestingOrder resting : book.triggered(book.sellStops, -bar.getLow())) {
+			double price = Math.min(open, resting.order.getStopPrice());
+			if (resting.order.isStopOrder() || price >= resting.order.getLimitPrice()) {
+				fill(resting, price, listener);
+				filled = true;
+			} else {
+				converted = book.deactivate(resting, converted);
+			}
+		}
+
+		// 4. 限价单：买入限价不低于最低价，卖出限价不高于最高价
+		for (RestingOrder resting : book.triggered(book.buyLimits, -bar.getLow())) {
+			fill(resting, Math.min(open, resting.order.getLimitPrice()), listener);
+			filled = true;
+		}
+		for (RestingOrder resting : book.triggered(book.sellLimits, bar.getHigh())) {
+			fill(resting, Math.max(open, resting.order.getLimitPrice()), listener);
+			filled = true;
+		}
+
+		// 5. 未成交的止损限价单转为限价单，从下一根K线开始撮合
+		if (converted != null) {
+			for (RestingOrder resting : converted) {
+				resting.stopTriggered = true;
+				book.enqueue(resting);
+			}
+		}
+
+		// 6. IOC/FOK 订单只参与一根K线
+		if (singleBar != null) {
+			for (RestingOrder resting : singleBar) {
+				if (resting.live) {
+					remove(resting);
+					listener.onExpire(resting);
+				}
+			}
+		}
+		return filled;
+	}
+
+	private void fill(RestingOrder resting, double price, MatchListener listener) {
+		remove(resting);
+		listener.onFill(resting, price);
+	}
+
+	private void remove(RestingOrder resting) {
+		resting.live = false;
+		orders.remove(resting.orderId);
+		SymbolOrders book = books.get(resting.order.getSymbol());
+		if (resting.queue != null) {
+			resting.queue.remove(resting);
+			resting.queue = null;
+		} else {
+			book.incoming.remove(resting);
+		}
+		book.all.remove(resting);
+		if (book.all.isEmpty()) {
+			books.remove(resting.order.getSymbol());
+		}
+	}
+
+	// ==================== 查询 ====================
+
+	public RestingOrder getOrder(String orderId) {
+		return orders.get(orderId);
+	}
+
+	public boolean contains(String orderId) {
+		return orders.containsKey(orderId);
+	}
+
+	/**
+	 * 股票的全部挂单，按下单顺序
+	 */
+	public List<RestingOrder> getOrders(String symbol) {
+		SymbolOrders book = books.get(symbol);
+		return book != null ? new ArrayList<>(book.all) : new ArrayList<>();
+	}
+
+	public int size() {
+		return orders.size();
+	}
+
+	/**
+	 * 成交和失效回调
+	 */
+	public interface MatchListener {
+		/**
+		 * @param price 成交价（未含滑点）
+		 */
+		void onFill(RestingOrder order, double price);
+
+		void onExpire(RestingOrder order);
+	}
+
+	/**
+	 * 单只股票的挂单队列，排序键为价格（价高优先的队列取负值），被穿越的订单总在队首。
+	 * all 和 incoming 按下单顺序保存，RestingOrder 按引用比较，撤销和成交时 O(1) 删除。
+	 */
+	private static final class SymbolOrders {
+		final TreeSet<RestingOrder> buyLimits = new TreeSet<>(BY_KEY);
+		final TreeSet<RestingOrder> sellLimits = new TreeSet<>(BY_KEY);
+		final TreeSet<RestingOrder> buyStops = new TreeSet<>(BY_KEY);
+		final TreeSet<RestingOrder> sellStops = new TreeSet<>(BY_KEY);
+		final LinkedHashSet<RestingOrder> all = new LinkedHashSet<>();
+		final LinkedHashSet<RestingOrder> incoming = new LinkedHashSet<>();
+		final ArrayDeque<RestingOrder> dayOrders = new ArrayDeque<>();
+		final RestingOrder probe = new RestingOrder(null, null, Long.MAX_VALUE);
+
+		/**
+		 * 把下单时间早于K线时间的订单放入队列，返回其中只参与一根K线的订单
+		 */
+		List<RestingOrder> activate(LocalDateTime barTime, LocalDate date) {
+			if (incoming.isEmpty()) {
+				return null;
+			}
+			List<RestingOrder> singleBar = null;
+			for (Iterator<RestingOrder> it = incoming.iterator(); it.hasNext();) {
+				RestingOrder resting = it.next();
+				LocalDateTime submitTime = resting.order.getTimestamp();
+				if (submitTime != null && !barTime.isAfter(submitTime)) {
+					continue;
+				}
+				it.remove();
+				resting.session = date;
+				enqueue(resting);
+				String timeInForce = resting.order.getTimeInForce();
+				if (OrderEvent.DAY.equals(timeInForce)) {
+					dayOrders.addLast(resting);
+				} else if (!OrderEvent.GTC.equals(timeInForce)) {
+					if (singleBar == null) {
+						singleBar = new ArrayList<>();
+					}
+					singleBar.add(resting);
+				}
+			}
+			return singleBar;
+		}
+
+		void enqueue(RestingOrder resting) {
+			OrderEvent order = resting.order;
+			boolean buy = order.isBuyOrder();
+			if (order.isLimitOrder() || resting.stopTriggered) {
+				resting.key = buy ? -order.getLimitPrice() : order.getLimitPrice();
+				resting.queue = buy ? buyLimits : sellLimits;
+			} else {
+				resting.key = buy ? order.getStopPrice() : -order.getStopPrice();
+				resting.queue = buy ? buyStops : sellStops;
+			}
+			resting.queue.add(resting);
+		}
+
+		/**
+		 * 触发的止损限价单暂时移出队列，本根K线撮合结束后转为限价单
+		 */
+		List<RestingOrder> deactivate(RestingOrder resting, List<RestingOrder> converted) {
+			resting.queue.remove(resting);
+			resting.queue = null;
+			if (converted == null) {
+				converted = new ArrayList<>();
+			}
+			converted.add(resting);
+			return converted;
+		}
+
+		/**
+		 * 队首排序键不大于 threshold 的订单（复制一份，撮合时会修改队列）
+		 */
+		List<RestingOrder> triggered(TreeSet<RestingOrder> queue, double threshold) {
+			if (queue.isEmpty() || queue.first().key > threshold) {
+				return Collections.emptyList();
+			}
+			probe.key = threshold;
+			return new ArrayList<>(queue.headSet(probe, true));
+		}
+	}
+
+	/**
+	 * 挂单
+	 */
+	public static final class RestingOrder {
+		private final String orderId;
+		private final OrderEvent order;
+		private final long sequence;
+		private double key;
+		private TreeSet<RestingOrder> queue;
+		private LocalDate session;
+		private boolean stopTriggered;
+		private boolean live = true;
+
+		RestingOrder(String orderId, OrderEvent order, long sequence) {
+			this.orderId = orderId;
+			this.order = order;
+			this.sequence = sequence;
+		}
+
+		public String getOrderId() {
+			return orderId;
+		}
+
+		public OrderEvent getOrder() {
+			return order;
+		}
+
+		/**
+		 * 止损限价单是否已触发（已转为限价单）
+		 */
+		public boolean isStopTriggered() {
+			return stopTriggered;
+		}
+
+		/**
+		 * 是否已进入价格队列（下单后的第一根K线起）
+		 */
+		public boolean isActive() {
+			return queue != null;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("RestingOrder{%s %s}", orderId, order.getOrderDescription());
+		}
+	}
+}
@@ -0,0 +1,174 @@
+package com.Quantitative.execution;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.Quantitative.BaseTest;
+import com.Quantitative.core.events.BarEvent;
+import com.Quantitative.core.events.OrderEvent;
+import com.Quantitative.execution.RestingOrderBook.RestingOrder;
+
+/**
+ * 挂单簿测试 - 跳空成交、止损限价转限价、DAY 过期、IOC 撤销、撤单
+ */
+public class RestingOrderBookTest extends BaseTest {
+
+	private static final String SYMBOL = "600519";
+	private static final LocalDateTime DAY1 = LocalDateTime.of(2024, 1, 2, 9, 30);
+
+	@Test
+	public void testGapThroughFillsAtOpen() {
+		RestingOrderBook book = new RestingOrderBook();
+		book.add("buyLimit", order(OrderEvent.BUY, OrderEvent.LIMIT_ORDER, null, 10.0, OrderEvent.GTC));
+		book.add("sellStop", order(OrderEvent.SELL, OrderEvent.STOP_ORDER, 9.0, null, OrderEvent.GTC));
+		book.add("sellLimit", order(OrderEvent.SELL, OrderEvent.LIMIT_ORDER, null, 12.0, OrderEvent.GTC));
+		Recorder recorder = new Recorder();
+
+		// 开盘跳空到买入限价和卖出止损下方，都按开盘价成交；卖出限价未触及
+		assertTrue(book.match(bar(DAY1.plusMinutes(1), 8.5, 8.8, 8.2, 8.6), recorder));
+		assertEquals("[fill sellStop 8.5, fill buyLimit 8.5]", recorder.events.toString());
+		assertEquals(1, book.size());
+
+		// 跳空高开越过卖出限价，按开盘价成交
+		recorder.events.clear();
+		assertTrue(book.match(bar(DAY1.plusMinutes(2), 12.5, 12.8, 12.3, 12.6), recorder));
+		assertEquals("[fill sellLimit 12.5]", recorder.events.toString());
+		assertEquals(0, book.size());
+	}
+
+	@Test
+	public void testOrdersOnlyMatchLaterBars() {
+		RestingOrderBook book = new RestingOrderBook();
+		book.add("buyLimit", order(OrderEvent.BUY, OrderEvent.LIMIT_ORDER, null, 10.0, OrderEvent.GTC));
+		Recorder recorder = new Recorder();
+
+		// 与下单时间相同的K线不撮合
+		assertFalse(book.match(bar(DAY1, 9.5, 9.8, 9.2, 9.6), recorder));
+		assertFalse(book.getOrder("buyLimit").isActive());
+		assertTrue(book.match(bar(DAY1.plusMinutes(1), 9.5, 9.8, 9.2, 9.6), recorder));
+		assertEquals("[fill buyLimit 9.5]", recorder.events.toString());
+	}
+
+	@Test
+	public void testStopLimitConvertsToRestingLimit() {
+		RestingOrderBook book = new RestingOrderBook();
+		book.add("stopLimit", order(OrderEvent.BUY, OrderEvent.STOP_LIMIT_ORDER, 10.0, 10.2, OrderEvent.GTC));
+		Recorder recorder = new Recorder();
+
+		// 跳空高开到限价上方：触发但触发价劣于限价，转为限价单，本根K线即使回落到限价也不成交
+		assertFalse(book.match(bar(DAY1.plusMinutes(1), 10.5, 10.6, 10.1, 10.3), recorder));
+		assertTrue(recorder.events.isEmpty());
+		RestingOrder resting = book.getOrder("stopLimit");
+		assertTrue(resting.isStopTriggered());
+		assertTrue(resting.isActive());
+
+		// 下一根K线按限价单撮合，最高价再次越过止损价也不会重复触发
+		assertTrue(book.match(bar(DAY1.plusMinutes(2), 10.4, 10.6, 10.0, 10.1), recorder));
+		assertEquals("[fill stopLimit 10.2]", recorder.events.toString());
+		assertFalse(book.contains("stopLimit"));
+	}
+
+	@Test
+	public void testStopLimitFillsOnTriggerBarWithinLimit() {
+		RestingOrderBook book = new RestingOrderBook();
+		book.add("stopLimit", order(OrderEvent.SELL, OrderEvent.STOP_LIMIT_ORDER, 10.0, 9.8, OrderEvent.GTC));
+		Recorder recorder = new Recorder();
+
+		assertTrue(book.match(bar(DAY1.plusMinutes(1), 10.3, 10.4, 9.7, 9.9), recorder));
+		assertEquals("[fill stopLimit 10.0]", recorder.events.toString());
+	}
+
+	@Test
+	public void testDayOrderExpiresAtSessionBoundary() {
+		RestingOrderBook book = new RestingOrderBook();
+		book.add("day", order(OrderEvent.BUY, OrderEvent.LIMIT_ORDER, null, 9.0, OrderEvent.DAY));
+		Recorder recorder = new Recorder();
+
+		// 当日的后续K线仍有效
+		book.match(bar(DAY1.plusMinutes(1), 10.0, 10.2, 9.8, 10.1), recorder);
+		book.match(bar(DAY1.withHour(14).withMinute(59), 10.0, 10.2, 9.5, 10.1), recorder);
+		assertTrue(book.contains("day"));
+		assertTrue(recorder.events.isEmpty());
+
+		// 次日第一根K线先处理过期，即使价格已触及限价也不成交
+		assertFalse(book.match(bar(DAY1.plusDays(1), 8.5, 9.0, 8.0, 8.8), recorder));
+		assertEquals("[expire day]", recorder.events.toString());
+		assertEquals(0, book.size());
+	}
+
+	@Test
+	public void testIocCancelsAfterOneBar() {
+		RestingOrderBook book = new RestingOrderBook();
+		book.add("missed", order(OrderEvent.BUY, OrderEvent.LIMIT_ORDER, null, 9.0, OrderEvent.IOC));
+		book.add("hit", order(OrderEvent.BUY, OrderEvent.LIMIT_ORDER, null, 9.9, OrderEvent.IOC));
+		book.add("gtc", order(OrderEvent.BUY, OrderEvent.LIMIT_ORDER, null, 9.0, OrderEvent.GTC));
+		Recorder recorder = new Recorder();
+
+		assertTrue(book.match(bar(DAY1.plusMinutes(1), 10.0, 10.2, 9.8, 10.1), recorder));
+		assertEquals("[fill hit 9.9, expire missed]", recorder.events.toString());
+		assertEquals(1, book.size());
+		assertTrue(book.contains("gtc"));
+	}
+
+	@Test
+	public void testCancelRemovesFromQueuesAndListing() {
+		RestingOrderBook book = new RestingOrderBook();
+		for (int i = 0; i < 5; i++) {
+			book.add("o" + i, order(OrderEvent.BUY, OrderEvent.LIMIT_ORDER, null, 9.0 + i * 0.1, OrderEvent.GTC));
+		}
+		book.add("other", new OrderEvent(DAY1, "000001", OrderEvent.BUY, 100, 5.0, OrderEvent.LIMIT_ORDER, null,
+				null, 5.0, OrderEvent.GTC));
+
+		// 未激活和已进入队列的订单都能撤销
+		assertTrue(book.cancel("o1"));
+		Recorder recorder = new Recorder();
+		book.match(bar(DAY1.plusMinutes(1), 10.0, 10.2, 9.8, 10.1), recorder);
+		assertTrue(book.cancel("o3"));
+		assertFalse(book.cancel("o3"));
+		assertEquals("[o0, o2, o4]", ids(book.getOrders(SYMBOL)));
+		assertEquals("[other]", ids(book.getOrders("000001")));
+
+		book.match(bar(DAY1.plusMinutes(2), 9.0, 9.5, 8.5, 9.0), recorder);
+		assertEquals("[fill o4 9.0, fill o2 9.0, fill o0 9.0]", recorder.events.toString());
+		assertTrue(book.getOrders(SYMBOL).isEmpty());
+		assertEquals(1, book.size());
+	}
+
+	private static OrderEvent order(String direction, String type, Double stop, Double limit, String timeInForce) {
+		double price = limit != null ? limit : stop;
+		return new OrderEvent(DAY1, SYMBOL, direction, 100, price, type, null, stop, limit, timeInForce);
+	}
+
+	private static BarEvent bar(LocalDateTime time, double open, double high, double low, double close) {
+		return new BarEvent(time, SYMBOL, open, high, low, close, 100000);
+	}
+
+	private static String ids(List<RestingOrder> orders) {
+		List<String> ids = new ArrayList<>();
+		for (RestingOrder resting : orders) {
+			ids.add(resting.getOrderId());
+		}
+		return ids.toString();
+	}
+
+	private static final class Recorder implements RestingOrderBook.MatchListener {
+		final List<String> events = new ArrayList<>();
+
+		@Override
+		public void onFill(RestingOrder order, double price) {
+			events.add("fill " + order.getOrderId() + " " + price);
+		}
+
+		@Override
+		public void onExpire(RestingOrder order) {
+			events.add("expire " + order.getOrderId());
+		}
+	}
+}
@@ -1,25 +1,49 @@
 package com.Quantitative.execution;
 
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
 import com.Quantitative.common.utils.PerformanceMonitor;
+import com.Quantitative.core.events.BarEvent;
 import com.Quantitative.core.events.FillEvent;
 import com.Quantitative.core.events.OrderEvent;
 
 /**
  * 模拟执行引擎 - 用于回测的订单执行模拟
+ *
+ * 执行延迟在模拟时钟上计算：{@link #submitOrder} 把订单按到达时间（下单时间 + latencyMs）放入该股票的待成交队列，
+ * {@link #onBar} 推进模拟时间，到达时间不晚于K线时间的订单以该K线开盘价成交。回测线程不再等待真实时间。
+ *
+ * 限价、止损和止损限价单到达后进入挂单簿 {@link RestingOrderBook}，每根K线按最高价/最低价撮合，直到成交、撤销或过期。
+ *
+ * 订单状态保存在 {@link OrderStore} 中：只有未结束的订单保留订单对象，已结束的订单每个只占一个状态字节，
+ * 超过 orderHistorySize 的部分写入状态文件（orderStatusFile，未配置时使用临时文件），长时间回测内存不再增长。
  */
 public class SimulatedExecution implements ExecutionEngine {
-	private Map<String, OrderEvent> activeOrders;
-	private Map<String, FillEvent> executedOrders;
+	private static final Comparator<PendingOrder> BY_ARRIVAL = Comparator
+			.<PendingOrder, LocalDateTime>comparing(p -> p.arrivalTime).thenComparingLong(p -> p.sequence);
+
+	private OrderStore orderStore;
 	private Map<String, Object> executionParameters;
 	private String status = "CREATED";
 
+	// 模拟时钟和待成交队列（按股票，队列内按到达时间排序）
+	private final Map<String, PriorityQueue<PendingOrder>> pendingOrders = new HashMap<>();
+	private final Map<String, PendingOrder> pendingById = new HashMap<>();
+	private final RestingOrderBook orderBook = new RestingOrderBook();
+	private LocalDateTime simulatedTime;
+	private long pendingSequence;
+
 	// 执行统计
 	private AtomicLong totalOrdersExecuted = new AtomicLong(0);
 	private AtomicLong totalOrdersRejected = new AtomicLong(0);
@@ -29,12 +53,11 @@ public class SimulatedExecution implements ExecutionEngine {
 	private PerformanceMonitor performanceMonitor;
 
 	public SimulatedExecution() {
-		this.activeOrders = new ConcurrentHashMap<>();
-		this.executedOrders = new ConcurrentHashMap<>();
 		this.executionParameters = new HashMap<>();
 		this.performanceMonitor = PerformanceMonitor.getInstance();
 
 		initializeDefaultParameters();
+		this.orderStore = new OrderStore();
 	}
 
 	private void initializeDefaultParameters() {
@@ -42,6 +65,7 @@ public class SimulatedExecution implements ExecutionEngine {
 		executionParameters.put("fillRate", 1.0); // 成交率 100%
 		executionParameters.put("latencyMs", 10); // 延迟 10ms
 		executionParameters.put("commissionRate", 0.0003); // 手续费率
+		executionParameters.put("orderHistorySize", OrderStore.DEFAULT_HORIZON); // 内存中保留状态的订单数
 	}
 
 	@Override
@@ -55,6 +79,9 @@ public class SimulatedExecution implements ExecutionEngine {
 	public void configure(Map<String, Object> config) {
 		if (config != null) {
 			executionParameters.putAll(config);
+			if (config.containsKey("orderHistorySize") || config.containsKey("orderStatusFile")) {
+				rebuildOrderStore();
+			}
 		}
 	}
 
@@ -70,11 +97,16 @@ public class SimulatedExecution implements ExecutionEngine {
 
 	@Override
 	public void reset() {
-		this.activeOrders.clear();
-		this.executedOrders.clear();
 		this.totalOrdersExecuted.set(0);
 		this.totalOrdersRejected.set(0);
 		this.totalOrdersCancelled.set(0);
+		synchronized (pendingOrders) {
+			this.pendingOrders.clear();
+			this.pendingById.clear();
+			this.orderBook.cancelAll();
+			this.orderStore.clear();
+			this.simulatedTime = null;
+		}
 		this.status = "RESET";
 		System.out.println("✓ 模拟执行引擎已重置");
 	}
@@ -83,6 +115,13 @@ public class SimulatedExecution implements ExecutionEngine {
 	public void shutdown() {
 		System.out.println("关闭模拟执行引擎...");
 		printExecutionStatistics();
+		synchronized (pendingOrders) {
+			try {
+				orderStore.close();
+			} catch (IOException e) {
+				System.err.println("关闭订单状态文件失败: " + e.getMessage());
+			}
+		}
 		this.status = "SHUTDOWN";
 	}
 
@@ -91,9 +130,6 @@ public class SimulatedExecution implements ExecutionEngine {
 		performanceMonitor.startOperation("ExecutionEngine.executeOrder");
 
 		try {
-			// 模拟执行延迟
-			simulateExecutionLatency();
-
 			// 检查订单有效性
 			if (!validateOrder(order)) {
 				totalOrdersRejected.incrementAndGet();
@@ -107,14 +143,18 @@ public class SimulatedExecution implements ExecutionEngine {
 			// 计算手续费
 			double commission = calculateCommission(order, executionPrice);
 
-			// 生成成交事件
-			String orderId = generateOrderId();
-			FillEvent fill = new FillEvent(LocalDateTime.now(), order.getSymbol(), order.getDirection(),
-					order.getQuantity(), executionPrice, commission, orderId);
+			// 生成成交事件（立即成交，时间取下单时间）
+			String orderId;
+			synchronized (pendingOrders) {
+				long id = orderStore.nextId();
+				orderStore.archive(id, OrderStore.FILLED);
+				orderId = OrderStore.format(id);
+			}
+			LocalDateTime fillTime = order.getTimestamp() != null ? order.getTimestamp() : LocalDateTime.now();
+			FillEvent fill = new FillEvent(fillTime, order.getSymbol(), order.getDirection(), order.getQuantity(),
+					executionPrice, commission, orderId);
 
 			// 记录成交
-			activeOrders.put(orderId, order);
-			executedOrders.put(orderId, fill);
 			totalOrdersExecuted.incrementAndGet();
 
 			System.out.printf("[执行引擎] 订单成交: %s @%.2f, 手续费: %.2f%n", order.getSymbol(), executionPrice, commission);
@@ -126,31 +166,204 @@ public class SimulatedExecution implements ExecutionEngine {
 		}
 	}
 
+	// ==================== 模拟时钟 ====================
+
+	/**
+	 * 是否按模拟时钟计算延迟（latencyMs 大于0）
+	 */
+	public boolean isLatencySimulated() {
+		return getLatencyMs() > 0;
+	}
+
+	/**
+	 * 订单是否应通过 {@link #submitOrder} 延后成交（模拟延迟或非市价单）
+	 */
+	public boolean defersExecution(OrderEvent order) {
+		return isLatencySimulated() || !order.isMarketOrder();
+	}
+
+	/**
+	 * 提交订单：按到达时间进入待成交队列（无延迟的非市价单直接进入挂单簿），由后续 {@link #onBar} 撮合
+	 *
+	 * @return 订单编号，订单被拒绝时为 null
+	 */
+	public String submitOrder(OrderEvent order) {
+		if (!validateOrder(order)) {
+			totalOrdersRejected.incrementAndGet();
+			System.out.printf("[执行引擎] 订单被拒绝: %s%n", order);
+			return null;
+		}
+
+		synchronized (pendingOrders) {
+			LocalDateTime submitTime = order.getTimestamp() != null ? order.getTimestamp() : simulatedTime;
+			if (submitTime == null) {
+				submitTime = LocalDateTime.now();
+			}
+			long id = orderStore.nextId();
+			orderStore.open(id, order);
+			String orderId = OrderStore.format(id);
+			if (!isLatencySimulated() && !order.isMarketOrder()) {
+				orderBook.add(orderId, order);
+				return orderId;
+			}
+			PendingOrder pending = new PendingOrder(orderId, order,
+					submitTime.plusNanos(TimeUnit.MILLISECONDS.toNanos(getLatencyMs())), pendingSequence++);
+			pendingOrders.computeIfAbsent(order.getSymbol(), k -> new PriorityQueue<>(BY_ARRIVAL)).add(pending);
+			pendingById.put(orderId, pending);
+			return orderId;
+		}
+	}
+
+	/**
+	 * 推进模拟时间到K线时间：已到达的市价单以开盘价加滑点成交，已到达的其他订单进入挂单簿，再用本根K线撮合挂单簿
+	 *
+	 * @return 本根K线产生的成交，市价单在前（按到达时间），挂单在后（按价格-时间优先）
+	 */
+	public List<FillEvent> onBar(BarEvent bar) {
+		synchronized (pendingOrders) {
+			advanceTime(bar.getTimestamp());
+
+			List<FillEvent> fills = null;
+			PriorityQueue<PendingOrder> queue = pendingOrders.get(bar.getSymbol());
+			while (queue != null && !queue.isEmpty() && !queue.peek().arrivalTime.isAfter(bar.getTimestamp())) {
+				PendingOrder pending = queue.poll();
+				pendingById.remove(pending.orderId);
+				OrderEvent order = pending.order;
+				if (!order.isMarketOrder()) {
+					orderBook.add(pending.orderId, order);
+					continue;
+				}
+
+				double executionPrice = applySlippage(bar.getOpen(), order.getDirection());
+				if (fills == null) {
+					fills = new ArrayList<>();
+				}
+				fills.add(recordFill(pending.orderId, order, bar.getTimestamp(), executionPrice));
+
+				System.out.printf("[执行引擎] 延迟订单成交: %s @%.2f (到达 %s)%n", order.getSymbol(), executionPrice,
+						pending.arrivalTime);
+			}
+
+			BookFills bookFills = new BookFills(bar, fills);
+			orderBook.match(bar, bookFills);
+			return bookFills.fills != null ? bookFills.fills : Collections.<FillEvent>emptyList();
+		}
+	}
+
+	private FillEvent recordFill(String orderId, OrderEvent order, LocalDateTime timestamp, double executionPrice) {
+		double commission = calculateCommission(order, executionPrice);
+		FillEvent fill = new FillEvent(timestamp, order.getSymbol(), order.getDirection(), order.getQuantity(),
+				executionPrice, commission, orderId);
+		orderStore.close(OrderStore.parse(orderId), OrderStore.FILLED);
+		totalOrdersExecuted.incrementAndGet();
+		return fill;
+	}
+
+	/**
+	 * 推进模拟时间（不会倒退）
+	 */
+	public void advanceTime(LocalDateTime time) {
+		synchronized (pendingOrders) {
+			if (time != null && (simulatedTime == null || time.isAfter(simulatedTime))) {
+				simulatedTime = time;
+			}
+		}
+	}
+
+	public LocalDateTime getSimulatedTime() {
+		synchronized (pendingOrders) {
+			return simulatedTime;
+		}
+	}
+
+	public int getPendingOrderCount() {
+		synchronized (pendingOrders) {
+			return pendingById.size();
+		}
+	}
+
+	public int getRestingOrderCount() {
+		synchronized (pendingOrders) {
+			return orderBook.size();
+		}
+	}
+
+	/**
+	 * 股票的挂单（限价、止损、止损限价），按下单顺序
+	 */
+	public List<OrderEvent> getRestingOrders(String symbol) {
+		synchronized (pendingOrders) {
+			List<OrderEvent> result = new ArrayList<>();
+			for (RestingOrderBook.RestingOrder resting : orderBook.getOrders(symbol)) {
+				result.add(resting.getOrder());
+			}
+			return result;
+		}
+	}
+
+	/**
+	 * 撤销全部待成交订单和挂单（如回测结束时）
+	 *
+	 * @return 撤销的订单数
+	 */
+	public int cancelPendingOrders() {
+		synchronized (pendingOrders) {
+			int count = pendingById.size();
+			for (String orderId : pendingById.keySet()) {
+				orderStore.close(OrderStore.parse(orderId), OrderStore.CANCELLED);
+			}
+			pendingOrders.clear();
+			pendingById.clear();
+			for (RestingOrderBook.RestingOrder resting : orderBook.cancelAll()) {
+				orderStore.close(OrderStore.parse(resting.getOrderId()), OrderStore.CANCELLED);
+				count++;
+			}
+			totalOrdersCancelled.addAndGet(count);
+			return count;
+		}
+	}
+
 	@Override
 	public boolean cancelOrder(String orderId) {
-		if (activeOrders.containsKey(orderId)) {
-			activeOrders.remove(orderId);
-			totalOrdersCancelled.incrementAndGet();
-			System.out.printf("[执行引擎] 订单已取消: %s%n", orderId);
-			return true;
+		long id = OrderStore.parse(orderId);
+		synchronized (pendingOrders) {
+			if (!orderStore.close(id, OrderStore.CANCELLED)) {
+				return false;
+			}
+			PendingOrder pending = pendingById.remove(orderId);
+			if (pending != null) {
+				pendingOrders.get(pending.order.getSymbol()).remove(pending);
+			} else {
+				orderBook.cancel(orderId);
+			}
 		}
-		return false;
+		totalOrdersCancelled.incrementAndGet();
+		System.out.printf("[执行引擎] 订单已取消: %s%n", orderId);
+		return true;
 	}
 
 	@Override
 	public String getOrderStatus(String orderId) {
-		if (executedOrders.containsKey(orderId)) {
-			return "FILLED";
-		} else if (activeOrders.containsKey(orderId)) {
+		long id = OrderStore.parse(orderId);
+		synchronized (pendingOrders) {
+			byte status = orderStore.getStatus(id);
+			if (status != OrderStore.OPEN) {
+				return OrderStore.statusName(status);
+			} else if (pendingById.containsKey(orderId)) {
+				return "PENDING";
+			} else if (orderBook.contains(orderId)) {
+				return "RESTING";
+			}
 			return "ACTIVE";
-		} else {
-			return "UNKNOWN";
 		}
 	}
 
 	@Override
 	public void setExecutionParameter(String key, Object value) {
 		executionParameters.put(key, value);
+		if ("orderHistorySize".equals(key) || "orderStatusFile".equals(key)) {
+			rebuildOrderStore();
+		}
 	}
 
 	@Override
@@ -159,8 +372,14 @@ public class SimulatedExecution implements ExecutionEngine {
 		stats.put("totalOrdersExecuted", totalOrdersExecuted.get());
 		stats.put("totalOrdersRejected", totalOrdersRejected.get());
 		stats.put("totalOrdersCancelled", totalOrdersCancelled.get());
-		stats.put("activeOrders", activeOrders.size());
-		stats.put("executedOrders", executedOrders.size());
+		synchronized (pendingOrders) {
+			stats.put("activeOrders", orderStore.getOpenCount());
+			stats.put("archivedOrders", orderStore.getSpilledCount());
+		}
+		stats.put("executedOrders", totalOrdersExecuted.get());
+		stats.put("pendingOrders", getPendingOrderCount());
+		stats.put("restingOrders", getRestingOrderCount());
+		stats.put("simulatedTime", getSimulatedTime());
 		stats.put("parameters", new HashMap<>(executionParameters));
 		return stats;
 	}
@@ -220,24 +439,32 @@ public class SimulatedExecution implements ExecutionEngine {
 	}
 
 	/**
-	 * 模拟执行延迟
+	 * 执行延迟（模拟时间，毫秒）
 	 */
-	private void simulateExecutionLatency() {
-		int latencyMs = (Integer) executionParameters.get("latencyMs");
-		if (latencyMs > 0) {
-			try {
-				Thread.sleep(latencyMs);
-			} catch (InterruptedException e) {
-				Thread.currentThread().interrupt();
-			}
-		}
+	private int getLatencyMs() {
+		Object latencyMs = executionParameters.get("latencyMs");
+		return latencyMs instanceof Number ? ((Number) latencyMs).intValue() : 0;
 	}
 
 	/**
-	 * 生成订单ID
+	 * 按 orderHistorySize / orderStatusFile 重建订单状态存储，只能在没有未结束订单时进行
 	 */
-	private String generateOrderId() {
-		return "ORDER_" + System.currentTimeMillis() + "_" + UUID.randomUUID().toString().substring(0, 8);
+	private void rebuildOrderStore() {
+		Object historySize = executionParameters.get("orderHistorySize");
+		Object statusFile = executionParameters.get("orderStatusFile");
+		synchronized (pendingOrders) {
+			if (orderStore.getOpenCount() > 0) {
+				throw new IllegalStateException("存在未结束订单时不能修改订单状态存储");
+			}
+			try {
+				orderStore.close();
+			} catch (IOException e) {
+				System.err.println("关闭订单状态文件失败: " + e.getMessage());
+			}
+			orderStore = new OrderStore(
+					historySize instanceof Number ? ((Number) historySize).intValue() : OrderStore.DEFAULT_HORIZON,
+					statusFile != null ? Paths.get(statusFile.toString()) : null, orderStore.getNextId());
+		}
 	}
 
 	/**
@@ -251,6 +478,8 @@ public class SimulatedExecution implements ExecutionEngine {
 		System.out.printf("总取消订单: %d%n", stats.get("totalOrdersCancelled"));
 		System.out.printf("活跃订单: %d%n", stats.get("activeOrders"));
 		System.out.printf("已成交订单: %d%n", stats.get("executedOrders"));
+		System.out.printf("待成交订单: %d%n", stats.get("pendingOrders"));
+		System.out.printf("挂单: %d%n", stats.get("restingOrders"));
 
 		@SuppressWarnings("unchecked")
 		Map<String, Object> params = (Map<String, Object>) stats.get("parameters");
@@ -259,4 +488,54 @@ public class SimulatedExecution implements ExecutionEngine {
 			System.out.printf("  %s: %s%n", entry.getKey(), entry.getValue());
 		}
 	}
+
+	/**
+	 * 挂单簿撮合回调：记录成交（止损单按市价成交，加滑点），过期订单计入撤单
+	 */
+	private final class BookFills implements RestingOrderBook.MatchListener {
+		private final BarEvent bar;
+		private List<FillEvent> fills;
+
+		BookFills(BarEvent bar, List<FillEvent> fills) {
+			this.bar = bar;
+			this.fills = fills;
+		}
+
+		@Override
+		public void onFill(RestingOrderBook.RestingOrder resting, double price) {
+			OrderEvent order = resting.getOrder();
+			double executionPrice = order.isStopOrder() ? applySlippage(price, order.getDirection()) : price;
+			if (fills == null) {
+				fills = new ArrayList<>();
+			}
+			fills.add(recordFill(resting.getOrderId(), order, bar.getTimestamp(), executionPrice));
+
+			System.out.printf("[执行引擎] 挂单成交: %s @%.2f%n", order.getOrderDescription(), executionPrice);
+		}
+
+		@Override
+		public void onExpire(RestingOrderBook.RestingOrder resting) {
+			orderStore.close(OrderStore.parse(resting.getOrderId()), OrderStore.EXPIRED);
+			totalOrdersCancelled.incrementAndGet();
+
+			System.out.printf("[执行引擎] 挂单过期: %s%n", resting.getOrder().getOrderDescription());
+		}
+	}
+
+	/**
+	 * 待成交订单
+	 */
+	private static final class PendingOrder {
+		final String orderId;
+		final OrderEvent order;
+		final LocalDateTime arrivalTime;
+		final long sequence;
+
+		PendingOrder(String orderId, OrderEvent order, LocalDateTime arrivalTime, long sequence) {
+			this.orderId = orderId;
+			this.order = order;
+			this.arrivalTime = arrivalTime;
+			this.sequence = sequence;
+		}
+	}
 }
\ No newline at end of file
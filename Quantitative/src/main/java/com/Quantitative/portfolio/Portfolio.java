@@ -1,9 +1,16 @@
 package com.Quantitative.portfolio;
 
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import com.Quantitative.common.utils.PerformanceMonitor;
+import com.Quantitative.common.utils.TradingLogger;
 import com.Quantitative.core.events.FillEvent;
 import com.Quantitative.core.events.OrderEvent;
 import com.Quantitative.core.events.SignalEvent;
@@ -16,15 +23,29 @@ public class Portfolio implements TradingComponent {
 	private double initialCash;
 	private double cash;
 	private double totalValue;
+	private double stockValue; // 持仓市值合计，按增量维护
 	private Map<String, Position> positions;
 	private Map<String, Double> currentPrices;
+	private TradeJournal tradeJournal;
+	private boolean ownsTradeJournal;
+	private final List<PortfolioListener> listeners = new CopyOnWriteArrayList<>();
 	private String status = "CREATED";
 
+	// 已提交未成交的买单（按执行引擎的订单编号），新的买入信号只能使用扣除预留后的现金
+	private final Map<String, OrderEvent> pendingBuys = new HashMap<>();
+	private double reservedCash;
+
 	// 交易参数
 	private double commissionRate = 0.0003; // 万三手续费
 	private int minTradeQuantity = 100; // 最小交易单位（A股整手）
 	private double maxPositionRatio = 0.1; // 单品种最大仓位比例
 
+	// 市值增量核算：每 reconcileInterval 次更新全量重算一次，校验累计误差
+	private static final double DRIFT_TOLERANCE = 1e-6;
+	private int reconcileInterval = 1000;
+	private long valueUpdates;
+	private double maxDrift;
+
 	// 性能监控
 	private PerformanceMonitor performanceMonitor;
 
@@ -34,6 +55,7 @@ public class Portfolio implements TradingComponent {
 		this.totalValue = initialCash;
 		this.positions = new HashMap<>();
 		this.currentPrices = new HashMap<>();
+		this.tradeJournal = new TradeJournal();
 		this.performanceMonitor = PerformanceMonitor.getInstance();
 	}
 
@@ -55,6 +77,18 @@ public class Portfolio implements TradingComponent {
 			if (config.containsKey("maxPositionRatio")) {
 				this.maxPositionRatio = (Double) config.get("maxPositionRatio");
 			}
+			if (config.containsKey("reconcileInterval")) {
+				this.reconcileInterval = Math.max(1, (Integer) config.get("reconcileInterval"));
+			}
+			if (config.containsKey("tradeJournalFile")) {
+				String file = (String) config.get("tradeJournalFile");
+				try {
+					setTradeJournal(TradeJournal.mapped(Paths.get(file)));
+					this.ownsTradeJournal = true;
+				} catch (IOException e) {
+					TradingLogger.logSystemError("Portfolio", "openTradeJournal", e);
+				}
+			}
 		}
 	}
 
@@ -72,8 +106,14 @@ public class Portfolio implements TradingComponent {
 	public void reset() {
 		this.cash = initialCash;
 		this.totalValue = initialCash;
+		this.stockValue = 0.0;
+		this.valueUpdates = 0;
+		this.maxDrift = 0.0;
 		this.positions.clear();
 		this.currentPrices.clear();
+		releaseAllReservations();
+		this.tradeJournal.clear();
+		this.tradeJournal.force();
 		this.status = "RESET";
 		System.out.println("✓ 投资组合已重置");
 	}
@@ -82,6 +122,7 @@ public class Portfolio implements TradingComponent {
 	public void shutdown() {
 		System.out.println("关闭投资组合...");
 		printStatus();
+		releaseTradeJournal();
 		this.status = "SHUTDOWN";
 	}
 
@@ -138,11 +179,15 @@ public class Portfolio implements TradingComponent {
 				System.out.printf("[信号验证] %s 已有持仓，跳过买入信号%n", symbol);
 				return false;
 			}
+			if (hasPendingBuy(symbol)) {
+				System.out.printf("[信号验证] %s 已有未成交买单，跳过买入信号%n", symbol);
+				return false;
+			}
 
-			// 检查资金是否足够
+			// 检查资金是否足够（扣除未成交买单预留的资金）
 			double requiredCash = calculateRequiredCash(signal, this.currentPrices.get(symbol));
-			if (requiredCash > this.cash) {
-				System.out.printf("[信号验证] 资金不足，需要 %.2f，当前现金 %.2f%n", requiredCash, this.cash);
+			if (requiredCash > getAvailableCash()) {
+				System.out.printf("[信号验证] 资金不足，需要 %.2f，可用现金 %.2f%n", requiredCash, getAvailableCash());
 				return false;
 			}
 		}
@@ -181,7 +226,7 @@ public class Portfolio implements TradingComponent {
 			// 使用信号强度调整仓位
 			double strength = signal.getStrength();
 			double positionRatio = this.maxPositionRatio * strength;
-			double availableAmount = this.cash * positionRatio;
+			double availableAmount = getAvailableCash() * positionRatio;
 
 			if (availableAmount <= 0) {
 				System.out.println("? 现金不足，无法买入");
@@ -226,6 +271,7 @@ public class Portfolio implements TradingComponent {
 		performanceMonitor.startOperation("Portfolio.processFill");
 
 		try {
+			releaseReservation(fill.getOrderId());
 			String symbol = fill.getSymbol();
 			String direction = fill.getDirection();
 			int quantity = fill.getQuantity();
@@ -233,31 +279,31 @@ public class Portfolio implements TradingComponent {
 			double commission = fill.getCommission();
 
 			// 更新现金
-			if ("BUY".equals(direction)) {
-				updateCash(-(price * quantity + commission));
-			} else {
-				updateCash(price * quantity - commission);
-			}
+			double cashChange = "BUY".equals(direction) ? -(price * quantity + commission)
+					: price * quantity - commission;
+			updateCash(cashChange);
 
 			// 更新持仓
 			Position position = this.positions.get(symbol);
 			if (position == null) {
-				position = new Position(symbol);
+				position = new Position(symbol, tradeJournal);
 				this.positions.put(symbol, position);
 			}
+			double valueBefore = position.getMarketValue();
 
 			if ("BUY".equals(direction)) {
-				position.addBuy(quantity, price);
+				position.addBuy(quantity, price, commission, fill.getTimestamp());
 			} else {
-				position.addSell(quantity, price);
+				position.addSell(quantity, price, commission, fill.getTimestamp());
 				// 如果持仓为0，移除该持仓记录
 				if (position.getQuantity() == 0) {
 					this.positions.remove(symbol);
 				}
 			}
 
-			// 更新市值
-			updateTotalValue();
+			// 更新市值（只计入该持仓的变化）
+			applyStockValueChange(position.getMarketValue() - valueBefore);
+			notifyListeners(symbol, valueBefore, position.getMarketValue(), cashChange, fill.getTimestamp());
 
 			System.out.printf("[投资组合] 成交处理: %s, 现金: %.2f%n", fill, this.cash);
 
@@ -266,17 +312,106 @@ public class Portfolio implements TradingComponent {
 		}
 	}
 
+	// ==================== 未成交买单的资金预留 ====================
+
+	/**
+	 * 为已提交、尚未成交的买单预留资金（订单价格 × 数量 + 手续费），卖单忽略。
+	 * 成交时由 {@link #processFill} 按订单编号释放，撤销或过期的订单由调用方释放
+	 */
+	public void reserveCash(String orderId, OrderEvent order) {
+		if (orderId == null || !order.isBuyOrder() || pendingBuys.containsKey(orderId)) {
+			return;
+		}
+		pendingBuys.put(orderId, order);
+		reservedCash += reservedAmount(order);
+	}
+
+	public boolean releaseReservation(String orderId) {
+		OrderEvent order = orderId != null ? pendingBuys.remove(orderId) : null;
+		if (order == null) {
+			return false;
+		}
+		reservedCash = pendingBuys.isEmpty() ? 0.0 : reservedCash - reservedAmount(order);
+		return true;
+	}
+
+	public void releaseAllReservations() {
+		pendingBuys.clear();
+		reservedCash = 0.0;
+	}
+
+	/**
+	 * 预留了资金的未成交买单编号
+	 */
+	public List<String> getReservedOrderIds() {
+		return new ArrayList<>(pendingBuys.keySet());
+	}
+
+	public double getReservedCash() {
+		return reservedCash;
+	}
+
+	/**
+	 * 可用于新买单的现金：现金减去未成交买单的预留
+	 */
+	public double getAvailableCash() {
+		return cash - reservedCash;
+	}
+
+	private boolean hasPendingBuy(String symbol) {
+		for (OrderEvent order : pendingBuys.values()) {
+			if (order.getSymbol().equals(symbol)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private double reservedAmount(OrderEvent order) {
+		double amount = order.getPrice() * order.getQuantity();
+		return amount + calculateCommission(amount);
+	}
+
 	/**
 	 * 更新市场价格
 	 */
 	public void updateMarketPrice(String symbol, double price) {
+		updateMarketPrice(symbol, price, null);
+	}
+
+	/**
+	 * 更新市场价格，timestamp 为行情时间（用于按交易日统计盈亏）
+	 */
+	public void updateMarketPrice(String symbol, double price, LocalDateTime timestamp) {
 		this.currentPrices.put(symbol, price);
+		for (PortfolioListener listener : listeners) {
+			listener.onPriceUpdate(symbol, price, timestamp);
+		}
 
 		// 更新对应持仓的市值
 		Position position = this.positions.get(symbol);
 		if (position != null) {
+			double valueBefore = position.getMarketValue();
 			position.updateMarketValue(price);
-			updateTotalValue();
+			applyStockValueChange(position.getMarketValue() - valueBefore);
+			notifyListeners(symbol, valueBefore, position.getMarketValue(), 0.0, timestamp);
+		}
+	}
+
+	public void addListener(PortfolioListener listener) {
+		if (listener != null && !listeners.contains(listener)) {
+			listeners.add(listener);
+		}
+	}
+
+	public void removeListener(PortfolioListener listener) {
+		listeners.remove(listener);
+	}
+
+	private void notifyListeners(String symbol, double valueBefore, double valueAfter, double cashChange,
+			LocalDateTime timestamp) {
+		for (PortfolioListener listener : listeners) {
+			listener.onPositionChange(symbol, valueBefore, valueAfter, cashChange, timestamp);
 		}
 	}
 
@@ -285,18 +420,38 @@ public class Portfolio implements TradingComponent {
 	 */
 	private void updateCash(double amount) {
 		this.cash += amount;
-		updateTotalValue();
+		this.totalValue = this.cash + this.stockValue;
 	}
 
 	/**
-	 * 更新总资产
+	 * 按市值变化量更新总资产，O(1)；定期全量核对
 	 */
-	private void updateTotalValue() {
-		double stockValue = 0.0;
+	private void applyStockValueChange(double delta) {
+		this.stockValue += delta;
+		this.totalValue = this.cash + this.stockValue;
+		if (++valueUpdates % reconcileInterval == 0) {
+			reconcile();
+		}
+	}
+
+	/**
+	 * 全量重算持仓市值并校正增量合计
+	 *
+	 * @return 增量合计与全量结果的偏差
+	 */
+	public double reconcile() {
+		double fullStockValue = 0.0;
 		for (Position position : this.positions.values()) {
-			stockValue += position.getMarketValue();
+			fullStockValue += position.getMarketValue();
 		}
-		this.totalValue = this.cash + stockValue;
+		double drift = fullStockValue - this.stockValue;
+		if (Math.abs(drift) > DRIFT_TOLERANCE * Math.max(1.0, Math.abs(fullStockValue))) {
+			TradingLogger.logRisk("WARN", "Portfolio", "持仓市值增量核算偏差: %.6f (全量=%.2f)", drift, fullStockValue);
+		}
+		this.maxDrift = Math.max(this.maxDrift, Math.abs(drift));
+		this.stockValue = fullStockValue;
+		this.totalValue = this.cash + fullStockValue;
+		return drift;
 	}
 
 	/**
@@ -378,6 +533,13 @@ public class Portfolio implements TradingComponent {
 		return this.totalValue;
 	}
 
+	/**
+	 * 持仓市值合计
+	 */
+	public double getStockValue() {
+		return this.stockValue;
+	}
+
 	public double getTotalReturn() {
 		return ((this.totalValue - this.initialCash) / this.initialCash) * 100;
 	}
@@ -396,6 +558,46 @@ public class Portfolio implements TradingComponent {
 		return new HashMap<>(this.positions);
 	}
 
+	/**
+	 * 全部成交的流水，持仓和回测结果共享同一份
+	 */
+	public TradeJournal getTradeJournal() {
+		return this.tradeJournal;
+	}
+
+	/**
+	 * 替换成交流水（如改用内存映射文件），只能在没有持仓时调用。
+	 * 原流水若由配置 tradeJournalFile 打开则在此关闭，否则只刷盘，由调用方关闭；新流水由调用方关闭
+	 */
+	public void setTradeJournal(TradeJournal tradeJournal) {
+		if (tradeJournal == null) {
+			throw new IllegalArgumentException("成交流水不能为空");
+		}
+		if (!this.positions.isEmpty()) {
+			throw new IllegalStateException("已有持仓，不能替换成交流水");
+		}
+		if (tradeJournal != this.tradeJournal) {
+			releaseTradeJournal();
+			this.tradeJournal = tradeJournal;
+			this.ownsTradeJournal = false;
+		}
+	}
+
+	/**
+	 * 刷盘当前成交流水，自己打开的映射文件同时关闭
+	 */
+	private void releaseTradeJournal() {
+		if (!ownsTradeJournal) {
+			tradeJournal.force();
+			return;
+		}
+		try {
+			tradeJournal.close();
+		} catch (IOException e) {
+			TradingLogger.logSystemError("Portfolio", "closeTradeJournal", e);
+		}
+	}
+
 	// ==================== 报告方法 ====================
 
 	/**
@@ -456,7 +658,10 @@ public class Portfolio implements TradingComponent {
 		stats.put("currentCash", cash);
 		stats.put("totalValue", totalValue);
 		stats.put("totalReturn", getTotalReturn());
+		stats.put("stockValue", stockValue);
+		stats.put("maxValueDrift", maxDrift);
 		stats.put("positionCount", positions.size());
+		stats.put("tradeCount", tradeJournal.size());
 		stats.put("commissionRate", commissionRate);
 		stats.put("minTradeQuantity", minTradeQuantity);
 		stats.put("maxPositionRatio", maxPositionRatio);
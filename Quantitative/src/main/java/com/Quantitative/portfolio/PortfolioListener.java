@@ -0,0 +1,33 @@
+package com.Quantitative.portfolio;
+
+import java.time.LocalDateTime;
+
+/**
+ * 投资组合变化监听器 - 成交或价格更新导致持仓市值、现金变化时回调
+ *
+ * 回调在处理成交、更新价格的线程中同步执行，实现应尽量轻量。
+ */
+public interface PortfolioListener {
+
+	/**
+	 * 持仓变化
+	 *
+	 * @param symbol            股票代码
+	 * @param marketValueBefore 变化前的持仓市值
+	 * @param marketValueAfter  变化后的持仓市值
+	 * @param cashChange        现金变化（成交时为成交金额和手续费，价格更新时为0）
+	 * @param timestamp         成交或行情时间，未知时为 null
+	 */
+	void onPositionChange(String symbol, double marketValueBefore, double marketValueAfter, double cashChange,
+			LocalDateTime timestamp);
+
+	/**
+	 * 行情更新，每次 {@link Portfolio#updateMarketPrice} 都回调（无持仓的股票也回调），在持仓变化回调之前
+	 *
+	 * @param symbol    股票代码
+	 * @param price     最新价格
+	 * @param timestamp 行情时间，未知时为 null
+	 */
+	default void onPriceUpdate(String symbol, double price, LocalDateTime timestamp) {
+	}
+}
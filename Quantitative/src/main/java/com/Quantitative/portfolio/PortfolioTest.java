@@ -0,0 +1,128 @@
+package com.Quantitative.portfolio;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.Quantitative.BaseTest;
+import com.Quantitative.core.events.FillEvent;
+import com.Quantitative.core.events.OrderEvent;
+import com.Quantitative.core.events.SignalEvent;
+
+/**
+ * 投资组合测试 - 未成交买单的资金预留，市值增量核算与全量重算一致
+ */
+public class PortfolioTest extends BaseTest {
+
+	private static final LocalDateTime START = LocalDateTime.of(2024, 1, 2, 15, 0);
+
+	@Test
+	public void testPendingBuyReservesCash() {
+		Portfolio portfolio = new Portfolio(100_000.0);
+		portfolio.updateMarketPrice("600519", 10.0);
+		portfolio.updateMarketPrice("000001", 10.0);
+
+		// 排队中的买单占用 95000 + 手续费 28.5，剩余可用现金不够再开一笔 10% 的仓位
+		OrderEvent queued = new OrderEvent(START, "600519", "BUY", 9500, 10.0, "MARKET");
+		portfolio.reserveCash("1", queued);
+		assertEquals(95_028.5, portfolio.getReservedCash(), 1e-9);
+		assertEquals(100_000.0 - 95_028.5, portfolio.getAvailableCash(), 1e-9);
+		assertEquals(100_000.0, portfolio.getCash(), 0.0);
+		assertNull(portfolio.processSignal(buy("000001")));
+
+		// 同一股票已有未成交买单，不再重复下单
+		assertNull(portfolio.processSignal(buy("600519")));
+
+		// 卖单不预留
+		portfolio.reserveCash("2", new OrderEvent(START, "000001", "SELL", 100, 10.0, "MARKET"));
+		assertEquals(1, portfolio.getReservedOrderIds().size());
+
+		// 按订单编号成交后释放预留，现金按实际成交价扣减
+		portfolio.processFill(new FillEvent(START.plusDays(1), "600519", "BUY", 9500, 10.1, 28.785, "1"));
+		assertEquals(0.0, portfolio.getReservedCash(), 0.0);
+		assertEquals(portfolio.getCash(), portfolio.getAvailableCash(), 0.0);
+		assertTrue(portfolio.getReservedOrderIds().isEmpty());
+	}
+
+	@Test
+	public void testReleasedReservationFreesCash() {
+		Portfolio portfolio = new Portfolio(100_000.0);
+		portfolio.updateMarketPrice("000001", 10.0);
+
+		portfolio.reserveCash("1", new OrderEvent(START, "600519", "BUY", 9500, 10.0, "MARKET"));
+		assertNull(portfolio.processSignal(buy("000001")));
+
+		// 撤销或过期的买单由调用方释放，重复释放无效
+		assertTrue(portfolio.releaseReservation("1"));
+		assertEquals(0.0, portfolio.getReservedCash(), 0.0);
+		assertFalse(portfolio.releaseReservation("1"));
+		OrderEvent order = portfolio.processSignal(buy("000001"));
+		assertNotNull(order);
+		assertEquals(500, order.getQuantity());
+
+		portfolio.reserveCash("2", order);
+		portfolio.reset();
+		assertEquals(0.0, portfolio.getReservedCash(), 0.0);
+	}
+
+	@Test
+	public void testIncrementalValueMatchesFullRecomputation() {
+		Portfolio portfolio = new Portfolio(10_000_000.0);
+		// 关闭定期核对，只在最后全量重算一次
+		portfolio.configure(Collections.<String, Object>singletonMap("reconcileInterval", Integer.MAX_VALUE));
+
+		String[] symbols = { "600519", "000001", "000002", "600036", "300750" };
+		double[] prices = { 1700.0, 12.0, 9.5, 35.0, 180.0 };
+		Random random = new Random(11L);
+		LocalDateTime time = START;
+		int fills = 0;
+		for (int step = 0; step < 20_000; step++) {
+			int i = random.nextInt(symbols.length);
+			time = time.plusMinutes(1);
+			if (random.nextInt(5) > 0) {
+				prices[i] = Math.max(0.01, prices[i] * (1 + random.nextGaussian() * 0.01));
+				portfolio.updateMarketPrice(symbols[i], prices[i], time);
+				continue;
+			}
+
+			// 成交价在市价附近，部分或全部卖出，也会把持仓卖到0后重新买入
+			Position position = portfolio.getPositions().get(symbols[i]);
+			int held = position != null ? position.getQuantity() : 0;
+			double price = prices[i] * (1 + (random.nextDouble() - 0.5) * 0.002);
+			if (held > 0 && random.nextBoolean()) {
+				int quantity = 100 * (1 + random.nextInt(held / 100));
+				portfolio.processFill(new FillEvent(time, symbols[i], "SELL", quantity, price, price * quantity * 0.0003,
+						"F" + fills++));
+			} else {
+				int quantity = 100 * (1 + random.nextInt(20));
+				portfolio.processFill(new FillEvent(time, symbols[i], "BUY", quantity, price, price * quantity * 0.0003,
+						"F" + fills++));
+			}
+		}
+		assertTrue(fills > 3000);
+
+		double fullStockValue = 0.0;
+		for (Position position : portfolio.getPositions().values()) {
+			fullStockValue += position.getMarketValue();
+		}
+		double incrementalTotal = portfolio.getTotalValue();
+		double drift = portfolio.reconcile();
+		// 增量累计只允许浮点舍入级别的误差
+		assertEquals(0.0, drift, 1e-9 * Math.max(1.0, fullStockValue));
+		assertEquals(portfolio.getCash() + fullStockValue, incrementalTotal, 1e-9 * Math.max(1.0, fullStockValue));
+		assertEquals(portfolio.getCash() + fullStockValue, portfolio.getTotalValue(), 1e-6);
+		assertEquals(0.0, portfolio.reconcile(), 0.0);
+	}
+
+	private static SignalEvent buy(String symbol) {
+		return new SignalEvent(START, symbol, "BUY", 1.0, "PortfolioTest");
+	}
+}
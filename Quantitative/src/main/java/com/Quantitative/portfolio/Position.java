@@ -4,6 +4,8 @@ import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
+import com.Quantitative.common.utils.SymbolDictionary;
+
 /**
  * 持仓信息类 - 管理单个品种的持仓状态
  */
@@ -15,8 +17,10 @@ public class Position {
 	private double unrealizedPnl;
 	private double unrealizedPnlPercent;
 
-	// 交易记录
-	private List<TradeRecord> tradeHistory;
+	// 交易记录：保存在成交流水中，只记录本持仓的起始行号
+	private final TradeJournal journal;
+	private final int symbolId;
+	private final int firstRow;
 
 	// 持仓统计
 	private LocalDateTime firstBuyTime;
@@ -32,6 +36,13 @@ public class Position {
 	private Double trailingStopPrice;
 
 	public Position(String symbol) {
+		this(symbol, new TradeJournal());
+	}
+
+	/**
+	 * 使用共享成交流水，之前流水中同一股票的成交不计入本持仓
+	 */
+	public Position(String symbol, TradeJournal journal) {
 		this.symbol = symbol;
 		this.quantity = 0;
 		this.avgCost = 0.0;
@@ -39,7 +50,9 @@ public class Position {
 		this.unrealizedPnl = 0.0;
 		this.unrealizedPnlPercent = 0.0;
 
-		this.tradeHistory = new ArrayList<>();
+		this.journal = journal;
+		this.symbolId = SymbolDictionary.getInstance().idOf(symbol);
+		this.firstRow = journal.size();
 		this.totalBuyAmount = 0.0;
 		this.totalSellAmount = 0.0;
 		this.realizedPnl = 0.0;
@@ -75,7 +88,7 @@ public class Position {
 		this.totalCommission += commission;
 
 		// 记录交易
-		tradeHistory.add(new TradeRecord(timestamp, "BUY", addQuantity, price, commission));
+		journal.record(timestamp, symbolId, TradeJournal.BUY, addQuantity, price, commission);
 
 		// 更新时间戳
 		updateTimestamps(timestamp);
@@ -110,7 +123,7 @@ public class Position {
 		this.totalCommission += commission;
 
 		// 记录交易
-		tradeHistory.add(new TradeRecord(timestamp, "SELL", reduceQuantity, price, commission));
+		journal.record(timestamp, symbolId, TradeJournal.SELL, reduceQuantity, price, commission);
 
 		// 更新时间戳
 		updateTimestamps(timestamp);
@@ -244,31 +257,44 @@ public class Position {
 	 * 获取总交易数量（买入 + 卖出）
 	 */
 	public int getTotalTradedQuantity() {
-		return tradeHistory.stream().mapToInt(TradeRecord::getQuantity).sum();
+		int total = 0;
+		for (int row = lastRow(); row >= firstRow; row = journal.previousRowOf(row)) {
+			total += journal.getQuantity(row);
+		}
+		return total;
 	}
 
 	/**
 	 * 获取买入次数
 	 */
 	public long getBuyCount() {
-		return tradeHistory.stream().filter(trade -> "BUY".equals(trade.getDirection())).count();
+		return countTrades(TradeJournal.BUY);
 	}
 
 	/**
 	 * 获取卖出次数
 	 */
 	public long getSellCount() {
-		return tradeHistory.stream().filter(trade -> "SELL".equals(trade.getDirection())).count();
+		return countTrades(TradeJournal.SELL);
+	}
+
+	/**
+	 * 获取交易次数
+	 */
+	public int getTradeCount() {
+		int count = 0;
+		for (int row = lastRow(); row >= firstRow; row = journal.previousRowOf(row)) {
+			count++;
+		}
+		return count;
 	}
 
 	/**
 	 * 获取最近交易价格
 	 */
 	public double getLastTradePrice() {
-		if (tradeHistory.isEmpty()) {
-			return 0.0;
-		}
-		return tradeHistory.get(tradeHistory.size() - 1).getPrice();
+		int row = lastRow();
+		return row >= firstRow ? journal.getPrice(row) : 0.0;
 	}
 
 	/**
@@ -307,7 +333,16 @@ public class Position {
 	 * 获取交易历史
 	 */
 	public List<TradeRecord> getTradeHistory() {
-		return new ArrayList<>(tradeHistory);
+		int[] rows = journal.rowsOf(symbolId, firstRow);
+		List<TradeRecord> trades = new ArrayList<>(rows.length);
+		for (int row : rows) {
+			trades.add(journal.toTradeRecord(row));
+		}
+		return trades;
+	}
+
+	public TradeJournal getTradeJournal() {
+		return journal;
 	}
 
 	/**
@@ -323,7 +358,7 @@ public class Position {
 		System.out.printf("总盈亏: %.2f (%.2f%%)%n", getTotalPnl(), getTotalPnlPercent());
 		System.out.printf("持仓天数: %d%n", getHoldingDays());
 		System.out.printf("总手续费: %.2f%n", totalCommission);
-		System.out.printf("交易次数: %d (买入: %d, 卖出: %d)%n", tradeHistory.size(), getBuyCount(), getSellCount());
+		System.out.printf("交易次数: %d (买入: %d, 卖出: %d)%n", getTradeCount(), getBuyCount(), getSellCount());
 
 		if (stopLossPrice != null) {
 			System.out.printf("止损价格: %.4f%n", stopLossPrice);
@@ -345,6 +380,23 @@ public class Position {
 		lastTradeTime = timestamp;
 	}
 
+	/**
+	 * 本持仓最近一笔成交的行号，没有成交时小于 firstRow
+	 */
+	private int lastRow() {
+		return journal.lastRowOf(symbolId);
+	}
+
+	private long countTrades(byte direction) {
+		long count = 0;
+		for (int row = lastRow(); row >= firstRow; row = journal.previousRowOf(row)) {
+			if (journal.getDirectionCode(row) == direction) {
+				count++;
+			}
+		}
+		return count;
+	}
+
 	// ==================== Getter方法 ====================
 
 	public String getSymbol() {
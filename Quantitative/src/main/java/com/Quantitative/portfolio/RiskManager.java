@@ -1,18 +1,25 @@
 package com.Quantitative.portfolio;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
-import com.Quantitative.common.utils.PerformanceMonitor;
 import com.Quantitative.core.events.OrderEvent;
 import com.Quantitative.core.events.SignalEvent;
 import com.Quantitative.core.interfaces.TradingComponent;
 
 /**
  * 统一风险管理器
+ *
+ * 风险汇总（总/净敞口、权益峰值、当日盈亏）通过 {@link PortfolioListener} 在成交和行情更新时增量维护，
+ * 每次更新后发布一个不可变的 {@link RiskAggregates}；信号校验只读取该快照和逐股票市值，不再查询投资组合。
+ * 更新在投资组合所在线程执行，校验和报告可在任意线程调用。
  */
 public class RiskManager implements TradingComponent {
 	private final String name = "RiskManager";
@@ -27,16 +34,29 @@ public class RiskManager implements TradingComponent {
 
 	// 状态跟踪
 	private Map<String, Integer> consecutiveLosses = new ConcurrentHashMap<>();
-	private Map<String, Double> dailyPnL = new ConcurrentHashMap<>();
 	private double initialCapital;
-	private double peakCapital;
 	private String status = "CREATED";
 
-	// 性能监控
-	private PerformanceMonitor performanceMonitor;
+	// 增量风险汇总：写入方为投资组合回调（串行），读取方通过 volatile 快照
+	private static final int RESUM_INTERVAL = 1000;
+	private final Map<String, SymbolExposure> exposures = new ConcurrentHashMap<>();
+	private final PortfolioListener portfolioListener = this::onPositionChange;
+	private volatile RiskAggregates aggregates = RiskAggregates.EMPTY;
+	private double grossExposure;
+	private double netExposure;
+	private double peakEquity;
+	private double dailyPnl;
+	private LocalDate tradingDay;
+	private long aggregateUpdates;
+
+	// 校验耗时
+	private long validationBudgetNanos = 50_000; // 默认 50 微秒
+	private final LongAdder validationCount = new LongAdder();
+	private final LongAdder validationNanos = new LongAdder();
+	private final LongAdder budgetExceeded = new LongAdder();
+	private final AtomicLong maxValidationNanos = new AtomicLong();
 
 	public RiskManager() {
-		this.performanceMonitor = PerformanceMonitor.getInstance();
 	}
 
 	public RiskManager(double maxPositionRatio, double maxDrawdownLimit, double dailyLossLimit) {
@@ -49,10 +69,7 @@ public class RiskManager implements TradingComponent {
 	@Override
 	public void initialize() {
 		System.out.println("初始化风险管理器");
-		if (portfolio != null) {
-			this.initialCapital = portfolio.getInitialCash();
-			this.peakCapital = initialCapital;
-		}
+		rebuildAggregates();
 		this.status = "INITIALIZED";
 	}
 
@@ -71,6 +88,12 @@ public class RiskManager implements TradingComponent {
 			if (config.containsKey("maxConsecutiveLosses")) {
 				this.maxConsecutiveLosses = (Integer) config.get("maxConsecutiveLosses");
 			}
+			if (config.containsKey("maxTotalRisk")) {
+				this.maxTotalRisk = (Double) config.get("maxTotalRisk");
+			}
+			if (config.containsKey("validationBudgetMicros")) {
+				setValidationBudgetMicros(((Number) config.get("validationBudgetMicros")).longValue());
+			}
 		}
 	}
 
@@ -88,11 +111,8 @@ public class RiskManager implements TradingComponent {
 	public void reset() {
 		System.out.println("重置风险管理器");
 		consecutiveLosses.clear();
-		dailyPnL.clear();
-		if (portfolio != null) {
-			this.initialCapital = portfolio.getInitialCash();
-			this.peakCapital = initialCapital;
-		}
+		rebuildAggregates();
+		resetValidationStats();
 		this.status = "RESET";
 	}
 
@@ -107,7 +127,7 @@ public class RiskManager implements TradingComponent {
 	 * 验证信号风险
 	 */
 	public RiskValidationResult validateSignal(SignalEvent signal) {
-		performanceMonitor.startOperation("RiskManager.validateSignal");
+		long start = System.nanoTime();
 
 		try {
 			if (portfolio == null) {
@@ -115,43 +135,52 @@ public class RiskManager implements TradingComponent {
 			}
 
 			String symbol = signal.getSymbol();
-			List<String> violations = new ArrayList<>();
+			RiskAggregates current = this.aggregates;
+			List<String> violations = null;
 
 			// 1. 检查单品种仓位限制
-			if (!checkPositionLimit(symbol)) {
-				violations.add(String.format("单品种仓位超过限制 %.1f%%", maxPositionRatio * 100));
+			if (!checkPositionLimit(symbol, current)) {
+				violations = addViolation(violations, String.format("单品种仓位超过限制 %.1f%%", maxPositionRatio * 100));
 			}
 
 			// 2. 检查总风险暴露
-			if (!checkTotalRiskExposure()) {
-				violations.add(String.format("总风险暴露超过限制 %.1f%%", maxTotalRisk * 100));
+			if (!checkTotalRiskExposure(current)) {
+				violations = addViolation(violations, String.format("总风险暴露超过限制 %.1f%%", maxTotalRisk * 100));
 			}
 
 			// 3. 检查最大回撤
-			if (!checkMaxDrawdown()) {
-				violations.add(String.format("最大回撤超过限制 %.1f%%", maxDrawdownLimit * 100));
+			if (!checkMaxDrawdown(current)) {
+				violations = addViolation(violations, String.format("最大回撤超过限制 %.1f%%", maxDrawdownLimit * 100));
 			}
 
 			// 4. 检查连续亏损
 			if (!checkConsecutiveLosses(symbol)) {
-				violations.add(String.format("连续亏损次数超过限制 %d次", maxConsecutiveLosses));
+				violations = addViolation(violations, String.format("连续亏损次数超过限制 %d次", maxConsecutiveLosses));
 			}
 
 			// 5. 检查单日亏损
-			if (!checkDailyLossLimit(symbol)) {
-				violations.add(String.format("单日亏损超过限制 %.1f%%", dailyLossLimit * 100));
+			if (!checkDailyLossLimit(current)) {
+				violations = addViolation(violations, String.format("单日亏损超过限制 %.1f%%", dailyLossLimit * 100));
 			}
 
-			boolean isValid = violations.isEmpty();
+			boolean isValid = violations == null;
 			String message = isValid ? "风险检查通过" : String.join("; ", violations);
 
 			return new RiskValidationResult(isValid, message);
 
 		} finally {
-			performanceMonitor.endOperation("RiskManager.validateSignal");
+			recordValidationTime(System.nanoTime() - start);
 		}
 	}
 
+	private static List<String> addViolation(List<String> violations, String violation) {
+		if (violations == null) {
+			violations = new ArrayList<>(2);
+		}
+		violations.add(violation);
+		return violations;
+	}
+
 	/**
 	 * 验证订单风险
 	 */
@@ -201,69 +230,171 @@ public class RiskManager implements TradingComponent {
 			consecutiveLosses.put(symbol, 0); // 重置连续亏损计数
 		}
 
-		// 更新每日盈亏
-		String today = java.time.LocalDate.now().toString();
-		double dailyPnl = dailyPnL.getOrDefault(today, 0.0);
-		dailyPnL.put(today, dailyPnl + pnl);
-
-		// 更新峰值资本
-		if (portfolio != null) {
-			double currentCapital = portfolio.getTotalValue();
-			if (currentCapital > peakCapital) {
-				peakCapital = currentCapital;
-			}
-		}
+		// 当日盈亏和峰值权益由成交、行情回调按市值增量维护
 	}
 
 	// ==================== 风险检查方法 ====================
 
-	private boolean checkPositionLimit(String symbol) {
-		if (portfolio == null)
+	private boolean checkPositionLimit(String symbol, RiskAggregates current) {
+		SymbolExposure exposure = exposures.get(symbol);
+		if (exposure == null || exposure.marketValue <= 0) {
 			return true;
+		}
+		double positionRatio = (exposure.marketValue / current.getEquity()) * 100;
+		return positionRatio <= maxPositionRatio * 100; // 转换为百分比
+	}
+
+	private boolean checkTotalRiskExposure(RiskAggregates current) {
+		return current.getGrossExposure() / current.getEquity() <= maxTotalRisk;
+	}
+
+	private boolean checkMaxDrawdown(RiskAggregates current) {
+		return current.getDrawdown() <= maxDrawdownLimit;
+	}
 
-		Map<String, Object> positionInfo = portfolio.getPositionInfo(symbol);
-		if (positionInfo != null) {
-			double positionRatio = (Double) positionInfo.getOrDefault("positionRatio", 0.0);
-			return positionRatio <= maxPositionRatio * 100; // 转换为百分比
+	private boolean checkConsecutiveLosses(String symbol) {
+		int losses = consecutiveLosses.getOrDefault(symbol, 0);
+		return losses <= maxConsecutiveLosses;
+	}
+
+	private boolean checkDailyLossLimit(RiskAggregates current) {
+		double dailyLoss = current.getDailyPnl();
+		if (dailyLoss < 0) {
+			double lossRatio = Math.abs(dailyLoss) / initialCapital;
+			return lossRatio <= dailyLossLimit;
 		}
 		return true;
 	}
 
-	private boolean checkTotalRiskExposure() {
-		if (portfolio == null)
-			return true;
+	// ==================== 增量风险汇总 ====================
+
+	/**
+	 * 投资组合回调：按持仓市值变化更新敞口，按市值变化加现金变化累计当日盈亏
+	 */
+	private synchronized void onPositionChange(String symbol, double marketValueBefore, double marketValueAfter,
+			double cashChange, LocalDateTime timestamp) {
+		if (timestamp != null) {
+			LocalDate day = timestamp.toLocalDate();
+			if (!day.equals(tradingDay)) {
+				tradingDay = day;
+				dailyPnl = 0.0;
+			}
+		}
+
+		SymbolExposure exposure = exposures.computeIfAbsent(symbol, SymbolExposure::new);
+		double previous = exposure.marketValue;
+		grossExposure += Math.abs(marketValueAfter) - Math.abs(previous);
+		netExposure += marketValueAfter - previous;
+		exposure.marketValue = marketValueAfter;
 
-		double totalValue = portfolio.getTotalValue();
-		double stockValue = totalValue - portfolio.getCash();
-		double riskExposure = stockValue / totalValue;
+		double pnl = marketValueAfter - marketValueBefore + cashChange;
+		exposure.addDailyPnl(tradingDay, pnl);
+		dailyPnl += pnl;
 
-		return riskExposure <= maxTotalRisk;
+		if (++aggregateUpdates % RESUM_INTERVAL == 0) {
+			resumExposure();
+		}
+		publish();
 	}
 
-	private boolean checkMaxDrawdown() {
-		if (portfolio == null)
-			return true;
+	/**
+	 * 按投资组合当前持仓重建汇总（设置投资组合、初始化、重置时调用）
+	 */
+	private synchronized void rebuildAggregates() {
+		exposures.clear();
+		dailyPnl = 0.0;
+		tradingDay = null;
+		aggregateUpdates = 0;
+		if (portfolio == null) {
+			grossExposure = 0.0;
+			netExposure = 0.0;
+			aggregates = RiskAggregates.EMPTY;
+			return;
+		}
+		this.initialCapital = portfolio.getInitialCash();
+		for (Position position : portfolio.getPositions().values()) {
+			exposures.computeIfAbsent(position.getSymbol(), SymbolExposure::new).marketValue = position
+					.getMarketValue();
+		}
+		resumExposure();
+		peakEquity = Math.max(initialCapital, portfolio.getTotalValue());
+		publish();
+	}
 
-		double currentCapital = portfolio.getTotalValue();
-		double drawdown = (peakCapital - currentCapital) / peakCapital;
+	private void resumExposure() {
+		double gross = 0.0;
+		double net = 0.0;
+		for (SymbolExposure exposure : exposures.values()) {
+			gross += Math.abs(exposure.marketValue);
+			net += exposure.marketValue;
+		}
+		grossExposure = gross;
+		netExposure = net;
+	}
 
-		return drawdown <= maxDrawdownLimit;
+	private void publish() {
+		double equity = portfolio.getTotalValue();
+		if (equity > peakEquity) {
+			peakEquity = equity;
+		}
+		aggregates = new RiskAggregates(equity, grossExposure, netExposure, peakEquity, dailyPnl, tradingDay);
 	}
 
-	private boolean checkConsecutiveLosses(String symbol) {
-		int losses = consecutiveLosses.getOrDefault(symbol, 0);
-		return losses <= maxConsecutiveLosses;
+	/**
+	 * 当前风险汇总快照
+	 */
+	public RiskAggregates getAggregates() {
+		return aggregates;
+	}
+
+	/**
+	 * 股票当前交易日的盈亏
+	 */
+	public double getSymbolDailyPnl(String symbol) {
+		SymbolExposure exposure = exposures.get(symbol);
+		return exposure != null ? exposure.getDailyPnl(aggregates.getTradingDay()) : 0.0;
 	}
 
-	private boolean checkDailyLossLimit(String symbol) {
-		String today = java.time.LocalDate.now().toString();
-		double dailyLoss = dailyPnL.getOrDefault(today, 0.0);
+	// ==================== 校验耗时 ====================
 
-		if (portfolio != null && dailyLoss < 0) {
-			double lossRatio = Math.abs(dailyLoss) / portfolio.getInitialCash();
-			return lossRatio <= dailyLossLimit;
+	private void recordValidationTime(long nanos) {
+		validationCount.increment();
+		validationNanos.add(nanos);
+		if (nanos > validationBudgetNanos) {
+			budgetExceeded.increment();
+		}
+		long max = maxValidationNanos.get();
+		while (nanos > max && !maxValidationNanos.compareAndSet(max, nanos)) {
+			max = maxValidationNanos.get();
 		}
-		return true;
+	}
+
+	/**
+	 * 单次信号校验的耗时预算，超出的次数计入 budgetExceeded
+	 */
+	public void setValidationBudgetMicros(long micros) {
+		if (micros <= 0) {
+			throw new IllegalArgumentException("校验耗时预算必须大于0: " + micros);
+		}
+		this.validationBudgetNanos = micros * 1000;
+	}
+
+	public Map<String, Object> getValidationStats() {
+		Map<String, Object> stats = new HashMap<>();
+		long count = validationCount.sum();
+		stats.put("validations", count);
+		stats.put("avgMicros", count > 0 ? validationNanos.sum() / 1000.0 / count : 0.0);
+		stats.put("maxMicros", maxValidationNanos.get() / 1000.0);
+		stats.put("budgetMicros", validationBudgetNanos / 1000.0);
+		stats.put("budgetExceeded", budgetExceeded.sum());
+		return stats;
+	}
+
+	public void resetValidationStats() {
+		validationCount.reset();
+		validationNanos.reset();
+		budgetExceeded.reset();
+		maxValidationNanos.set(0);
 	}
 
 	// ==================== 风险报告方法 ====================
@@ -275,18 +406,30 @@ public class RiskManager implements TradingComponent {
 		Map<String, Object> report = new HashMap<>();
 
 		if (portfolio != null) {
-			double currentCapital = portfolio.getTotalValue();
-			double drawdown = (peakCapital - currentCapital) / peakCapital * 100;
+			RiskAggregates current = this.aggregates;
+			double drawdown = current.getDrawdown() * 100;
 
-			report.put("currentCapital", currentCapital);
-			report.put("peakCapital", peakCapital);
+			report.put("currentCapital", current.getEquity());
+			report.put("peakCapital", current.getPeakEquity());
 			report.put("drawdown", String.format("%.2f%%", drawdown));
 			report.put("drawdownStatus", drawdown <= maxDrawdownLimit * 100 ? "正常" : "超限");
+			report.put("grossExposure", current.getGrossExposure());
+			report.put("netExposure", current.getNetExposure());
+			report.put("dailyPnl", current.getDailyPnl());
+
+			Map<String, Double> symbolPnl = new HashMap<>();
+			for (SymbolExposure exposure : exposures.values()) {
+				double pnl = exposure.getDailyPnl(current.getTradingDay());
+				if (pnl != 0.0) {
+					symbolPnl.put(exposure.symbol, pnl);
+				}
+			}
+			report.put("symbolDailyPnL", symbolPnl);
 		}
 
 		report.put("consecutiveLosses", new HashMap<>(consecutiveLosses));
-		report.put("dailyPnL", new HashMap<>(dailyPnL));
 		report.put("riskLimits", getRiskLimits());
+		report.put("validation", getValidationStats());
 
 		return report;
 	}
@@ -327,11 +470,14 @@ public class RiskManager implements TradingComponent {
 	// ==================== Getter和Setter方法 ====================
 
 	public void setPortfolio(Portfolio portfolio) {
+		if (this.portfolio != null) {
+			this.portfolio.removeListener(portfolioListener);
+		}
 		this.portfolio = portfolio;
 		if (portfolio != null) {
-			this.initialCapital = portfolio.getInitialCash();
-			this.peakCapital = initialCapital;
+			portfolio.addListener(portfolioListener);
 		}
+		rebuildAggregates();
 	}
 
 	public double getMaxPositionRatio() {
@@ -350,6 +496,98 @@ public class RiskManager implements TradingComponent {
 		this.maxDrawdownLimit = maxDrawdownLimit;
 	}
 
+	/**
+	 * 单只股票的市值和当日盈亏，只由回调线程写入
+	 */
+	private static final class SymbolExposure {
+		final String symbol;
+		volatile double marketValue;
+		private volatile LocalDate day;
+		private volatile double dailyPnl;
+
+		SymbolExposure(String symbol) {
+			this.symbol = symbol;
+		}
+
+		void addDailyPnl(LocalDate tradingDay, double pnl) {
+			if (day == null ? tradingDay != null : !day.equals(tradingDay)) {
+				day = tradingDay;
+				dailyPnl = 0.0;
+			}
+			dailyPnl += pnl;
+		}
+
+		double getDailyPnl(LocalDate tradingDay) {
+			LocalDate current = day;
+			return current == null ? (tradingDay == null ? dailyPnl : 0.0)
+					: current.equals(tradingDay) ? dailyPnl : 0.0;
+		}
+	}
+
+	/**
+	 * 风险汇总快照（不可变）
+	 */
+	public static final class RiskAggregates {
+		static final RiskAggregates EMPTY = new RiskAggregates(0.0, 0.0, 0.0, 0.0, 0.0, null);
+
+		private final double equity;
+		private final double grossExposure;
+		private final double netExposure;
+		private final double peakEquity;
+		private final double dailyPnl;
+		private final LocalDate tradingDay;
+
+		RiskAggregates(double equity, double grossExposure, double netExposure, double peakEquity, double dailyPnl,
+				LocalDate tradingDay) {
+			this.equity = equity;
+			this.grossExposure = grossExposure;
+			this.netExposure = netExposure;
+			this.peakEquity = peakEquity;
+			this.dailyPnl = dailyPnl;
+			this.tradingDay = tradingDay;
+		}
+
+		public double getEquity() {
+			return equity;
+		}
+
+		public double getGrossExposure() {
+			return grossExposure;
+		}
+
+		public double getNetExposure() {
+			return netExposure;
+		}
+
+		public double getPeakEquity() {
+			return peakEquity;
+		}
+
+		/**
+		 * 相对权益峰值的回撤比例
+		 */
+		public double getDrawdown() {
+			return peakEquity > 0 ? (peakEquity - equity) / peakEquity : 0.0;
+		}
+
+		public double getDailyPnl() {
+			return dailyPnl;
+		}
+
+		/**
+		 * 当前交易日（最近一次成交或行情的日期），未知时为 null
+		 */
+		public LocalDate getTradingDay() {
+			return tradingDay;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("RiskAggregates{equity=%.2f gross=%.2f net=%.2f peak=%.2f dailyPnl=%.2f day=%s}", equity,
+					grossExposure, netExposure, peakEquity, dailyPnl, tradingDay);
+		}
+	}
+
 	/**
 	 * 风险验证结果类
 	 */
@@ -1,33 +1,112 @@
-
 package com.Quantitative.portfolio;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
+import com.Quantitative.common.utils.SymbolDictionary;
 import com.Quantitative.core.interfaces.TradingComponent;
 
 /**
  * 风险监控器 - 实时监控风险指标
+ *
+ * 作为 {@link PortfolioListener} 挂在投资组合上，每次价格更新或成交时 O(1) 更新流式指标，不分配对象：
+ * 逐股票的 EWMA 波动率和持仓暴露、组合总暴露、日内回撤和最大回撤，以及基于固定长度收益窗口的历史 VaR。
+ * 组合收益按行情时间采样：时间前进时记录上一时刻到当前的权益收益率。
+ * 指标更新后立即检查限额，超限时记录警报（每次超限只记一次，恢复后可再次触发）。
+ *
+ * 更新与查询都在本对象上同步，可在行情线程更新、在其他线程查询。
  */
 public class RiskMonitor implements TradingComponent {
 	private final String name = "RiskMonitor";
 	private String status = "CREATED";
 
-	// 监控指标
+	// 限额编号（按位组合）
+	public static final int LIMIT_DRAWDOWN = 1;
+	public static final int LIMIT_INTRADAY_DRAWDOWN = 1 << 1;
+	public static final int LIMIT_EXPOSURE = 1 << 2;
+	public static final int LIMIT_VAR = 1 << 3;
+	public static final int LIMIT_VOLATILITY = 1 << 4;
+
+	// 参数
+	private double ewmaLambda = 0.94; // RiskMetrics 日频衰减因子
+	private int varWindow = 250;
+	private double varConfidence = 0.95;
+
+	// 限额（小于等于0表示不检查）
+	private double maxDrawdown = 0.15;
+	private double maxIntradayDrawdown = 0.05;
+	private double maxExposure = 0.8;
+	private double maxVar = 0.05;
+	private double maxVolatility = 0.0;
+
+	// 其他来源写入的指标
 	private Map<String, Double> riskMetrics = new HashMap<>();
 	private List<String> riskAlerts = new ArrayList<>();
 
+	private Portfolio portfolio;
+	private final PortfolioListener portfolioListener = new PortfolioListener() {
+		@Override
+		public void onPriceUpdate(String symbol, double price, LocalDateTime timestamp) {
+			RiskMonitor.this.onPriceUpdate(symbol, price, timestamp);
+		}
+
+		@Override
+		public void onPositionChange(String symbol, double marketValueBefore, double marketValueAfter,
+				double cashChange, LocalDateTime timestamp) {
+			RiskMonitor.this.onPositionChange(symbol, marketValueBefore, marketValueAfter, cashChange, timestamp);
+		}
+	};
+
+	// 逐股票状态，按股票编号索引
+	private double[] lastPrices = new double[64];
+	private double[] ewmaVariances = new double[64];
+	private int[] returnCounts = new int[64];
+	private double[] exposures = new double[64];
+	private boolean[] volatilityBreached = new boolean[64];
+	private int volatilityBreaches;
+
+	// 组合状态
+	private double equity;
+	private double grossExposure;
+	private double peakEquity;
+	private double dayPeakEquity;
+	private LocalDate tradingDay;
+	private double currentDrawdown;
+	private double intradayDrawdown;
+	private double maxDrawdownSeen;
+
+	// 组合收益窗口：ring 按时间顺序，sorted 为同一批收益的升序副本
+	private double[] returns;
+	private double[] sorted;
+	private int returnCount;
+	private int returnHead;
+	private LocalDateTime sampleTime;
+	private double sampleEquity;
+	private double var;
+
+	private int breaches;
+
 	public RiskMonitor() {
 		initializeRiskMetrics();
+		allocateReturnWindow();
 	}
 
 	private void initializeRiskMetrics() {
-		riskMetrics.put("maxDrawdown", 0.0);
-		riskMetrics.put("volatility", 0.0);
-		riskMetrics.put("var95", 0.0);
-		riskMetrics.put("currentExposure", 0.0);
+		riskMetrics.clear();
+	}
+
+	private void allocateReturnWindow() {
+		returns = new double[varWindow];
+		sorted = new double[varWindow];
+		returnCount = 0;
+		returnHead = 0;
+		var = 0.0;
 	}
 
 	@Override
@@ -37,8 +116,50 @@ public class RiskMonitor implements TradingComponent {
 	}
 
 	@Override
-	public void configure(Map<String, Object> config) {
-		// 配置监控参数
+	public synchronized void configure(Map<String, Object> config) {
+		if (config == null) {
+			return;
+		}
+		if (config.containsKey("ewmaLambda")) {
+			double lambda = ((Number) config.get("ewmaLambda")).doubleValue();
+			if (lambda <= 0 || lambda >= 1) {
+				throw new IllegalArgumentException("EWMA 衰减因子必须在 (0, 1) 之间: " + lambda);
+			}
+			this.ewmaLambda = lambda;
+		}
+		if (config.containsKey("varConfidence")) {
+			double confidence = ((Number) config.get("varConfidence")).doubleValue();
+			if (confidence <= 0 || confidence >= 1) {
+				throw new IllegalArgumentException("VaR 置信度必须在 (0, 1) 之间: " + confidence);
+			}
+			this.varConfidence = confidence;
+			recalculateVar();
+		}
+		if (config.containsKey("varWindow")) {
+			int window = ((Number) config.get("varWindow")).intValue();
+			if (window <= 0) {
+				throw new IllegalArgumentException("VaR 收益窗口必须大于0: " + window);
+			}
+			if (window != varWindow) {
+				this.varWindow = window;
+				allocateReturnWindow();
+			}
+		}
+		if (config.containsKey("maxDrawdown")) {
+			this.maxDrawdown = ((Number) config.get("maxDrawdown")).doubleValue();
+		}
+		if (config.containsKey("maxIntradayDrawdown")) {
+			this.maxIntradayDrawdown = ((Number) config.get("maxIntradayDrawdown")).doubleValue();
+		}
+		if (config.containsKey("maxExposure")) {
+			this.maxExposure = ((Number) config.get("maxExposure")).doubleValue();
+		}
+		if (config.containsKey("maxVar")) {
+			this.maxVar = ((Number) config.get("maxVar")).doubleValue();
+		}
+		if (config.containsKey("maxVolatility")) {
+			this.maxVolatility = ((Number) config.get("maxVolatility")).doubleValue();
+		}
 	}
 
 	@Override
@@ -52,21 +173,295 @@ public class RiskMonitor implements TradingComponent {
 	}
 
 	@Override
-	public void reset() {
+	public synchronized void reset() {
 		riskAlerts.clear();
 		initializeRiskMetrics();
+		Arrays.fill(lastPrices, 0.0);
+		Arrays.fill(ewmaVariances, 0.0);
+		Arrays.fill(returnCounts, 0);
+		Arrays.fill(exposures, 0.0);
+		Arrays.fill(volatilityBreached, false);
+		volatilityBreaches = 0;
+		allocateReturnWindow();
+		sampleTime = null;
+		tradingDay = null;
+		maxDrawdownSeen = 0.0;
+		breaches = 0;
+		rebuildFromPortfolio();
 	}
 
 	@Override
 	public void shutdown() {
+		setPortfolio(null);
 		System.out.println("关闭风险监控器");
 		this.status = "SHUTDOWN";
 	}
 
+	/**
+	 * 挂到投资组合上，从当前持仓重建暴露和权益
+	 */
+	public synchronized void setPortfolio(Portfolio portfolio) {
+		if (this.portfolio != null) {
+			this.portfolio.removeListener(portfolioListener);
+		}
+		this.portfolio = portfolio;
+		if (portfolio != null) {
+			portfolio.addListener(portfolioListener);
+		}
+		rebuildFromPortfolio();
+	}
+
+	private void rebuildFromPortfolio() {
+		Arrays.fill(exposures, 0.0);
+		grossExposure = 0.0;
+		if (portfolio == null) {
+			equity = 0.0;
+		} else {
+			for (Position position : portfolio.getPositions().values()) {
+				double value = position.getMarketValue();
+				exposures[slot(position.getSymbol())] += value;
+				grossExposure += Math.abs(value);
+			}
+			equity = portfolio.getTotalValue();
+		}
+		peakEquity = equity;
+		dayPeakEquity = equity;
+		updateDrawdown();
+	}
+
+	// ==================== 流式更新 ====================
+
+	private synchronized void onPriceUpdate(String symbol, double price, LocalDateTime timestamp) {
+		if (price <= 0) {
+			return;
+		}
+		sample(timestamp);
+
+		int id = slot(symbol);
+		double last = lastPrices[id];
+		lastPrices[id] = price;
+		if (last > 0) {
+			double r = Math.log(price / last);
+			double variance = returnCounts[id]++ == 0 ? r * r
+					: ewmaLambda * ewmaVariances[id] + (1 - ewmaLambda) * r * r;
+			ewmaVariances[id] = variance;
+			checkVolatility(id, symbol, Math.sqrt(variance));
+		}
+	}
+
+	private synchronized void onPositionChange(String symbol, double marketValueBefore, double marketValueAfter,
+			double cashChange, LocalDateTime timestamp) {
+		sample(timestamp);
+
+		int id = slot(symbol);
+		exposures[id] += marketValueAfter - marketValueBefore;
+		grossExposure += Math.abs(marketValueAfter) - Math.abs(marketValueBefore);
+		equity += marketValueAfter - marketValueBefore + cashChange;
+		updateDrawdown();
+
+		checkLimit(LIMIT_DRAWDOWN, maxDrawdown, currentDrawdown);
+		checkLimit(LIMIT_INTRADAY_DRAWDOWN, maxIntradayDrawdown, intradayDrawdown);
+		checkLimit(LIMIT_EXPOSURE, maxExposure, getExposureRatio());
+	}
+
+	/**
+	 * 行情时间前进时记录上一时刻的组合收益；交易日变化时重置日内峰值和日内回撤超限状态，
+	 * 不必等到下一次持仓变化才恢复
+	 */
+	private void sample(LocalDateTime timestamp) {
+		if (timestamp == null) {
+			return;
+		}
+		if (sampleTime == null) {
+			sampleTime = timestamp;
+			sampleEquity = equity;
+		} else if (!timestamp.equals(sampleTime)) {
+			if (sampleEquity > 0) {
+				addReturn(equity / sampleEquity - 1);
+			}
+			sampleTime = timestamp;
+			sampleEquity = equity;
+		}
+
+		LocalDate day = timestamp.toLocalDate();
+		if (!day.equals(tradingDay)) {
+			tradingDay = day;
+			dayPeakEquity = equity;
+			intradayDrawdown = 0.0;
+			breaches &= ~LIMIT_INTRADAY_DRAWDOWN;
+		}
+	}
+
+	private void updateDrawdown() {
+		if (equity > peakEquity) {
+			peakEquity = equity;
+		}
+		if (equity > dayPeakEquity) {
+			dayPeakEquity = equity;
+		}
+		currentDrawdown = peakEquity > 0 ? Math.max(0.0, (peakEquity - equity) / peakEquity) : 0.0;
+		intradayDrawdown = dayPeakEquity > 0 ? Math.max(0.0, (dayPeakEquity - equity) / dayPeakEquity) : 0.0;
+		if (currentDrawdown > maxDrawdownSeen) {
+			maxDrawdownSeen = currentDrawdown;
+		}
+	}
+
+	/**
+	 * 收益入窗：环形数组覆盖最旧收益，有序副本中二分查找删除旧值、插入新值（数组内移动，不分配）
+	 */
+	private void addReturn(double r) {
+		if (returnCount == varWindow) {
+			double oldest = returns[returnHead];
+			int index = Arrays.binarySearch(sorted, 0, returnCount, oldest);
+			System.arraycopy(sorted, index + 1, sorted, index, returnCount - index - 1);
+			returnCount--;
+		}
+		returns[returnHead] = r;
+		returnHead = returnHead + 1 == varWindow ? 0 : returnHead + 1;
+
+		int index = Arrays.binarySearch(sorted, 0, returnCount, r);
+		if (index < 0) {
+			index = -index - 1;
+		}
+		System.arraycopy(sorted, index, sorted, index + 1, returnCount - index);
+		sorted[index] = r;
+		returnCount++;
+
+		recalculateVar();
+		checkLimit(LIMIT_VAR, maxVar, var);
+	}
+
+	/**
+	 * 历史 VaR：窗口内第 ceil(n × (1 - 置信度)) 小的收益取负，样本不足 1 / (1 - 置信度) 个时为0
+	 */
+	private void recalculateVar() {
+		int rank = (int) Math.ceil(returnCount * (1 - varConfidence) - 1e-9);
+		var = rank >= 1 ? Math.max(0.0, -sorted[rank - 1]) : 0.0;
+	}
+
+	private void checkLimit(int limit, double threshold, double value) {
+		if (threshold > 0 && value > threshold) {
+			if ((breaches & limit) == 0) {
+				breaches |= limit;
+				addAlert(String.format("%s超过%.2f%%: %.2f%%", limitName(limit), threshold * 100, value * 100));
+			}
+		} else {
+			breaches &= ~limit;
+		}
+	}
+
+	/**
+	 * 逐股票记录是否超限，任一股票超限即为波动率超限
+	 */
+	private void checkVolatility(int id, String symbol, double volatility) {
+		boolean breached = maxVolatility > 0 && volatility > maxVolatility;
+		if (breached == volatilityBreached[id]) {
+			return;
+		}
+		volatilityBreached[id] = breached;
+		if (breached) {
+			volatilityBreaches++;
+			breaches |= LIMIT_VOLATILITY;
+			addAlert(String.format("%s 波动率超过%.2f%%: %.2f%%", symbol, maxVolatility * 100, volatility * 100));
+		} else if (--volatilityBreaches == 0) {
+			breaches &= ~LIMIT_VOLATILITY;
+		}
+	}
+
+	public static String limitName(int limit) {
+		switch (limit) {
+		case LIMIT_DRAWDOWN:
+			return "回撤";
+		case LIMIT_INTRADAY_DRAWDOWN:
+			return "日内回撤";
+		case LIMIT_EXPOSURE:
+			return "风险暴露";
+		case LIMIT_VAR:
+			return "VaR";
+		case LIMIT_VOLATILITY:
+			return "波动率";
+		default:
+			return "未知限额";
+		}
+	}
+
+	private int slot(String symbol) {
+		int id = SymbolDictionary.getInstance().idOf(symbol);
+		if (id >= lastPrices.length) {
+			int capacity = Math.max(id + 1, lastPrices.length * 2);
+			lastPrices = Arrays.copyOf(lastPrices, capacity);
+			ewmaVariances = Arrays.copyOf(ewmaVariances, capacity);
+			returnCounts = Arrays.copyOf(returnCounts, capacity);
+			exposures = Arrays.copyOf(exposures, capacity);
+			volatilityBreached = Arrays.copyOf(volatilityBreached, capacity);
+		}
+		return id;
+	}
+
+	// ==================== 查询 ====================
+
+	/**
+	 * 当前超限的限额（LIMIT_* 按位组合），0 表示全部正常
+	 */
+	public synchronized int getBreachedLimits() {
+		return breaches;
+	}
+
+	public synchronized boolean isLimitBreached() {
+		return breaches != 0;
+	}
+
+	/**
+	 * 股票的 EWMA 波动率（单期对数收益标准差），没有数据时为0
+	 */
+	public synchronized double getVolatility(String symbol) {
+		int id = SymbolDictionary.getInstance().find(symbol);
+		return id >= 0 && id < ewmaVariances.length ? Math.sqrt(ewmaVariances[id]) : 0.0;
+	}
+
+	public synchronized double getExposure(String symbol) {
+		int id = SymbolDictionary.getInstance().find(symbol);
+		return id >= 0 && id < exposures.length ? exposures[id] : 0.0;
+	}
+
+	/**
+	 * 总暴露（持仓市值绝对值之和）占权益的比例
+	 */
+	public synchronized double getExposureRatio() {
+		return equity > 0 ? grossExposure / equity : 0.0;
+	}
+
+	public synchronized double getEquity() {
+		return equity;
+	}
+
+	public synchronized double getCurrentDrawdown() {
+		return currentDrawdown;
+	}
+
+	public synchronized double getIntradayDrawdown() {
+		return intradayDrawdown;
+	}
+
+	public synchronized double getMaxDrawdown() {
+		return maxDrawdownSeen;
+	}
+
+	/**
+	 * 历史 VaR（占权益比例）
+	 */
+	public synchronized double getVar() {
+		return var;
+	}
+
+	public synchronized int getReturnCount() {
+		return returnCount;
+	}
+
 	/**
 	 * 更新风险指标
 	 */
-	public void updateRiskMetrics(String metric, double value) {
+	public synchronized void updateRiskMetrics(String metric, double value) {
 		riskMetrics.put(metric, value);
 
 		// 检查风险警报
@@ -77,20 +472,19 @@ public class RiskMonitor implements TradingComponent {
 	 * 检查风险警报
 	 */
 	private void checkRiskAlerts(String metric, double value) {
-		// 示例警报逻辑
-		if ("maxDrawdown".equals(metric) && value > 0.15) {
-			addAlert("最大回撤超过15%: " + (value * 100) + "%");
+		if ("maxDrawdown".equals(metric) && maxDrawdown > 0 && value > maxDrawdown) {
+			addAlert("最大回撤超过" + (maxDrawdown * 100) + "%: " + (value * 100) + "%");
 		}
 
-		if ("currentExposure".equals(metric) && value > 0.8) {
-			addAlert("风险暴露超过80%: " + (value * 100) + "%");
+		if ("currentExposure".equals(metric) && maxExposure > 0 && value > maxExposure) {
+			addAlert("风险暴露超过" + (maxExposure * 100) + "%: " + (value * 100) + "%");
 		}
 	}
 
 	/**
 	 * 添加风险警报
 	 */
-	public void addAlert(String alert) {
+	public synchronized void addAlert(String alert) {
 		riskAlerts.add(alert);
 		System.out.println("[风险警报] " + alert);
 	}
@@ -98,11 +492,39 @@ public class RiskMonitor implements TradingComponent {
 	/**
 	 * 获取风险报告
 	 */
-	public Map<String, Object> getRiskReport() {
+	public synchronized Map<String, Object> getRiskReport() {
+		Map<String, Double> metrics = new HashMap<>(riskMetrics);
+		metrics.put("maxDrawdown", maxDrawdownSeen);
+		metrics.put("currentDrawdown", currentDrawdown);
+		metrics.put("intradayDrawdown", intradayDrawdown);
+		metrics.put("var95", var);
+		metrics.put("currentExposure", getExposureRatio());
+		metrics.put("equity", equity);
+
+		// 组合波动率取各股票当前 EWMA 波动率的最大值
+		double maxSymbolVolatility = 0.0;
+		Map<String, Double> symbolExposures = new LinkedHashMap<>();
+		Map<String, Double> symbolVolatilities = new LinkedHashMap<>();
+		SymbolDictionary symbols = SymbolDictionary.getInstance();
+		for (int id = 0; id < exposures.length; id++) {
+			if (exposures[id] != 0.0) {
+				symbolExposures.put(symbols.symbolOf(id), exposures[id]);
+			}
+			if (returnCounts[id] > 0) {
+				double volatility = Math.sqrt(ewmaVariances[id]);
+				symbolVolatilities.put(symbols.symbolOf(id), volatility);
+				maxSymbolVolatility = Math.max(maxSymbolVolatility, volatility);
+			}
+		}
+		metrics.put("volatility", maxSymbolVolatility);
+
 		Map<String, Object> report = new HashMap<>();
-		report.put("metrics", new HashMap<>(riskMetrics));
+		report.put("metrics", metrics);
+		report.put("exposures", symbolExposures);
+		report.put("volatilities", symbolVolatilities);
+		report.put("breachedLimits", breaches);
 		report.put("alerts", new ArrayList<>(riskAlerts));
 		report.put("alertCount", riskAlerts.size());
 		return report;
 	}
-}
\ No newline at end of file
+}
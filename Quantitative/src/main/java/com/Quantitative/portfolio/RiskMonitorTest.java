@@ -0,0 +1,50 @@
+package com.Quantitative.portfolio;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.Quantitative.BaseTest;
+import com.Quantitative.core.events.FillEvent;
+
+/**
+ * 风险监控测试 - 日内回撤超限在交易日切换时恢复
+ */
+public class RiskMonitorTest extends BaseTest {
+
+	private static final LocalDateTime DAY1 = LocalDateTime.of(2024, 1, 2, 10, 0);
+
+	@Test
+	public void testIntradayBreachClearsAtDayBoundary() {
+		Portfolio portfolio = new Portfolio(100_000.0);
+		RiskMonitor monitor = new RiskMonitor();
+		Map<String, Object> limits = new HashMap<>();
+		limits.put("maxDrawdown", 0.0);
+		limits.put("maxExposure", 0.0);
+		limits.put("maxVar", 0.0);
+		limits.put("maxIntradayDrawdown", 0.01);
+		monitor.configure(limits);
+		monitor.setPortfolio(portfolio);
+
+		portfolio.updateMarketPrice("600519", 50.0, DAY1);
+		portfolio.processFill(new FillEvent(DAY1, "600519", "BUY", 1000, 50.0, 0.0, "T0"));
+		portfolio.updateMarketPrice("600519", 45.0, DAY1.plusHours(1));
+		assertEquals(RiskMonitor.LIMIT_INTRADAY_DRAWDOWN, monitor.getBreachedLimits());
+
+		// 次日只有无持仓股票的行情，持仓没有变化，日内回撤超限也随交易日切换恢复
+		portfolio.updateMarketPrice("000001", 10.0, DAY1.plusDays(1));
+		assertFalse(monitor.isLimitBreached());
+		assertEquals(0.0, monitor.getIntradayDrawdown(), 0.0);
+
+		// 新交易日内再次下跌重新触发
+		portfolio.updateMarketPrice("600519", 40.0, DAY1.plusDays(1).plusHours(1));
+		assertTrue(monitor.isLimitBreached());
+		assertEquals(2, monitor.getRiskReport().get("alertCount"));
+	}
+}
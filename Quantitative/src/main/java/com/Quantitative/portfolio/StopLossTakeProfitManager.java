@@ -1,96 +1,98 @@
 package com.Quantitative.portfolio;
 
-import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
+import com.Quantitative.core.events.BarEvent;
 import com.Quantitative.core.events.EnhancedSignalEvent;
 
 /**
  * 止损止盈管理器 - 统一管理所有持仓的风险控制
+ *
+ * 价位保存在 {@link TriggerBook} 中，每根K线只查找被穿越的价位，没有触发时的开销与设置的价位数量无关。
  */
 public class StopLossTakeProfitManager {
 	private final Portfolio portfolio;
-	private final Map<String, PositionRisk> positionRisks;
+	private final TriggerBook triggerBook;
+	private final Crossing crossing = new Crossing();
 	private boolean enabled = true;
+	private boolean intrabar = false; // 按K线最高/最低价检查穿越
 
 	public StopLossTakeProfitManager(Portfolio portfolio) {
 		this.portfolio = portfolio;
-		this.positionRisks = new ConcurrentHashMap<>();
+		this.triggerBook = new TriggerBook();
 	}
 
 	/**
 	 * 检查并执行止损止盈
 	 */
 	public List<ExitSignal> checkRiskControls(String symbol, double currentPrice) {
-		List<ExitSignal> exitSignals = new ArrayList<>();
+		return check(symbol, currentPrice, currentPrice, currentPrice, currentPrice);
+	}
 
-		if (!enabled || portfolio == null) {
-			return exitSignals;
+	/**
+	 * 按K线检查止损止盈；启用盘中检查时用最低价判断止损、最高价判断止盈，退出价为触发价（跳空时为开盘价）
+	 *
+	 * @return 每只股票最多一个退出信号，列表不可修改
+	 */
+	public List<ExitSignal> checkRiskControls(BarEvent bar) {
+		if (!intrabar) {
+			return checkRiskControls(bar.getSymbol(), bar.getClose());
 		}
+		return check(bar.getSymbol(), bar.getOpen(), bar.getLow(), bar.getHigh(), Double.NaN);
+	}
 
-		Position position = portfolio.getPositions().get(symbol);
-		if (position == null || position.getQuantity() == 0) {
-			return exitSignals;
+	/**
+	 * 每次检查最多返回一个退出信号：同一根K线既穿越止损又穿越止盈时无法判断先后，保守地按止损退出
+	 */
+	private synchronized List<ExitSignal> check(String symbol, double open, double low, double high,
+			double exitPrice) {
+		if (!enabled || portfolio == null || !triggerBook.contains(symbol)) {
+			return Collections.emptyList();
 		}
 
-		PositionRisk risk = positionRisks.get(symbol);
-		if (risk == null) {
-			return exitSignals;
+		if (portfolio.getPositionQuantity(symbol) == 0) {
+			return Collections.emptyList();
 		}
 
-		// 检查止损
-		if (risk.getStopLossPrice() != null && currentPrice <= risk.getStopLossPrice()) {
-			exitSignals.add(new ExitSignal(symbol, "STOP_LOSS", currentPrice,
-					"止损触发: " + currentPrice + " <= " + risk.getStopLossPrice()));
+		crossing.reset();
+		if (!triggerBook.onPrice(symbol, low, high, crossing)) {
+			return Collections.emptyList();
 		}
 
-		// 检查止盈
-		if (risk.getTakeProfitPrice() != null && currentPrice >= risk.getTakeProfitPrice()) {
-			exitSignals.add(new ExitSignal(symbol, "TAKE_PROFIT", currentPrice,
-					"止盈触发: " + currentPrice + " >= " + risk.getTakeProfitPrice()));
+		ExitSignal signal;
+		if (!Double.isNaN(crossing.stop)) {
+			double price = !Double.isNaN(exitPrice) ? exitPrice : Math.min(open, crossing.stop);
+			signal = new ExitSignal(symbol, "STOP_LOSS", price, "止损触发: " + low + " <= " + crossing.stop);
+		} else {
+			double price = !Double.isNaN(exitPrice) ? exitPrice : Math.max(open, crossing.target);
+			signal = new ExitSignal(symbol, "TAKE_PROFIT", price, "止盈触发: " + high + " >= " + crossing.target);
 		}
-
-		// 更新移动止损
-		updateTrailingStop(symbol, currentPrice, risk);
-
-		return exitSignals;
+		return Collections.singletonList(signal);
 	}
 
 	/**
-	 * 更新移动止损
+	 * 设置持仓风险管理（替换该股票已有的价位）
 	 */
-	private void updateTrailingStop(String symbol, double currentPrice, PositionRisk risk) {
-		if (risk.getTrailingStop() == null || risk.getTrailingStop() <= 0) {
-			return;
-		}
+	public synchronized void setPositionRisk(String symbol, Double stopLoss, Double takeProfit, Double trailingStop) {
+		triggerBook.cancelAll(symbol);
+		triggerBook.add(symbol, stopLoss, takeProfit, trailingStop);
 
-		// 更新最高价
-		if (risk.getHighestPrice() == null || currentPrice > risk.getHighestPrice()) {
-			risk.setHighestPrice(currentPrice);
-
-			// 计算新的止损价
-			double newStopLoss = currentPrice * (1 - risk.getTrailingStop());
-			if (newStopLoss > risk.getStopLossPrice()) {
-				risk.setStopLossPrice(newStopLoss);
-				System.out.printf("[移动止损] %s 更新止损价: %.2f -> %.2f%n", symbol, risk.getStopLossPrice(), newStopLoss);
-			}
-		}
+		System.out.printf("[风险管理] %s 止损=%.2f 止盈=%.2f 移动止损=%.1f%%%n", symbol, stopLoss, takeProfit,
+				trailingStop != null ? trailingStop * 100 : 0);
 	}
 
 	/**
-	 * 设置持仓风险管理
+	 * 追加一组止损止盈价位（同一股票可有多组）
+	 *
+	 * @return 价位组编号，用于 {@link #cancelBracket}
 	 */
-	public void setPositionRisk(String symbol, Double stopLoss, Double takeProfit, Double trailingStop) {
-		PositionRisk risk = positionRisks.computeIfAbsent(symbol, k -> new PositionRisk());
-		risk.setStopLossPrice(stopLoss);
-		risk.setTakeProfitPrice(takeProfit);
-		risk.setTrailingStop(trailingStop);
-		risk.setHighestPrice(null); // 重置最高价
+	public synchronized long addBracket(String symbol, Double stopLoss, Double takeProfit, Double trailingStop) {
+		return triggerBook.add(symbol, stopLoss, takeProfit, trailingStop);
+	}
 
-		System.out.printf("[风险管理] %s 止损=%.2f 止盈=%.2f 移动止损=%.1f%%%n", symbol, stopLoss, takeProfit,
-				trailingStop != null ? trailingStop * 100 : 0);
+	public synchronized boolean cancelBracket(long bracketId) {
+		return triggerBook.cancel(bracketId);
 	}
 
 	/**
@@ -106,8 +108,12 @@ public class StopLossTakeProfitManager {
 	/**
 	 * 清除持仓风险设置
 	 */
-	public void clearPositionRisk(String symbol) {
-		positionRisks.remove(symbol);
+	public synchronized void clearPositionRisk(String symbol) {
+		triggerBook.cancelAll(symbol);
+	}
+
+	public synchronized List<TriggerBook.Bracket> getBrackets(String symbol) {
+		return triggerBook.getBrackets(symbol);
 	}
 
 	// Getter/Setter
@@ -120,45 +126,40 @@ public class StopLossTakeProfitManager {
 	}
 
 	/**
-	 * 持仓风险信息
+	 * 是否按K线最高/最低价检查盘中穿越（默认按收盘价）
 	 */
-	public static class PositionRisk {
-		private Double stopLossPrice;
-		private Double takeProfitPrice;
-		private Double trailingStop; // 移动止损比例
-		private Double highestPrice; // 用于移动止损的最高价
-
-		// Getter和Setter方法
-		public Double getStopLossPrice() {
-			return stopLossPrice;
-		}
-
-		public void setStopLossPrice(Double stopLossPrice) {
-			this.stopLossPrice = stopLossPrice;
-		}
-
-		public Double getTakeProfitPrice() {
-			return takeProfitPrice;
-		}
+	public void setIntrabar(boolean intrabar) {
+		this.intrabar = intrabar;
+	}
 
-		public void setTakeProfitPrice(Double takeProfitPrice) {
-			this.takeProfitPrice = takeProfitPrice;
-		}
+	public boolean isIntrabar() {
+		return intrabar;
+	}
 
-		public Double getTrailingStop() {
-			return trailingStop;
-		}
+	/**
+	 * 一次检查中被穿越的价位：价格下跌时先碰到最高的止损价，上涨时先碰到最低的止盈价
+	 */
+	private static final class Crossing implements TriggerBook.TriggerListener {
+		double stop;
+		double target;
 
-		public void setTrailingStop(Double trailingStop) {
-			this.trailingStop = trailingStop;
+		void reset() {
+			stop = Double.NaN;
+			target = Double.NaN;
 		}
 
-		public Double getHighestPrice() {
-			return highestPrice;
+		@Override
+		public void onStopLoss(TriggerBook.Bracket bracket) {
+			if (Double.isNaN(stop) || bracket.getStopLossPrice() > stop) {
+				stop = bracket.getStopLossPrice();
+			}
 		}
 
-		public void setHighestPrice(Double highestPrice) {
-			this.highestPrice = highestPrice;
+		@Override
+		public void onTakeProfit(TriggerBook.Bracket bracket) {
+			if (Double.isNaN(target) || bracket.getTakeProfitPrice() < target) {
+				target = bracket.getTakeProfitPrice();
+			}
 		}
 	}
 
@@ -0,0 +1,590 @@
+package com.Quantitative.portfolio;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.Quantitative.common.utils.SymbolDictionary;
+import com.Quantitative.core.events.FillEvent;
+import com.Quantitative.core.events.OrderEvent;
+
+/**
+ * 成交流水 - 只追加的列式成交记录，由投资组合、持仓和回测结果共享
+ *
+ * 每笔成交按列保存为原始类型：时间（UTC 纪元纳秒）、股票编号、方向（字节）、数量、价格、手续费，
+ * 另有一列指向同一股票的上一笔成交，按股票遍历时只访问该股票自己的记录。
+ * 每笔成交约 37 字节，不再为每笔成交创建对象；需要时再按行号还原为 {@link FillEvent} 或 {@link Position.TradeRecord}。
+ *
+ * 默认保存在堆内数组中；通过 {@link #mapped(Path)} 创建时按段写入内存映射文件，成交记录不占用堆内存，
+ * 文件头记录成交笔数，可用 {@link #openMapped(Path)} 重新打开。股票编号取自进程内的 {@link SymbolDictionary}，
+ * 重新打开时需按相同顺序登记股票（同一进程内总是满足）。
+ * 非线程安全。
+ */
+public class TradeJournal implements Closeable {
+
+	public static final byte BUY = 0;
+	public static final byte SELL = 1;
+
+	/** 没有上一笔成交 */
+	public static final int NO_ROW = -1;
+
+	private static final long NANOS_PER_SECOND = 1_000_000_000L;
+	private static final int INITIAL_CAPACITY = 16;
+
+	private final Storage storage;
+	private final SymbolDictionary dictionary = SymbolDictionary.getInstance();
+	private int[] lastRows = new int[0];
+	private int size;
+
+	/**
+	 * 堆内成交流水
+	 */
+	public TradeJournal() {
+		this.storage = new HeapStorage();
+	}
+
+	private TradeJournal(Storage storage) {
+		this.storage = storage;
+		restore(storage.storedSize());
+	}
+
+	/**
+	 * 写入内存映射文件的成交流水，文件已存在时覆盖
+	 */
+	public static TradeJournal mapped(Path file) throws IOException {
+		return new TradeJournal(new MappedStorage(file, false));
+	}
+
+	/**
+	 * 打开已有的成交流水映射文件，读出已记录的成交，新成交追加在后面
+	 */
+	public static TradeJournal openMapped(Path file) throws IOException {
+		return new TradeJournal(new MappedStorage(file, true));
+	}
+
+	// ==================== 写入 ====================
+
+	public int record(FillEvent fill) {
+		return record(fill.getTimestamp(), fill.getSymbol(), directionOf(fill.getDirection()), fill.getQuantity(),
+				fill.getFillPrice(), fill.getCommission());
+	}
+
+	public int record(LocalDateTime timestamp, String symbol, byte direction, int quantity, double price,
+			double commission) {
+		return record(timestamp, dictionary.idOf(symbol), direction, quantity, price, commission);
+	}
+
+	/**
+	 * 追加一笔成交
+	 *
+	 * @return 行号
+	 */
+	public int record(LocalDateTime timestamp, int symbolId, byte direction, int quantity, double price,
+			double commission) {
+		if (symbolId < 0) {
+			throw new IllegalArgumentException("无效的股票编号: " + symbolId);
+		}
+		if (direction != BUY && direction != SELL) {
+			throw new IllegalArgumentException("无效的成交方向: " + direction);
+		}
+		if (size == Integer.MAX_VALUE) {
+			throw new IllegalStateException("成交流水已满");
+		}
+		if (symbolId >= lastRows.length) {
+			int oldLength = lastRows.length;
+			lastRows = Arrays.copyOf(lastRows, Math.max(symbolId + 1, oldLength * 2));
+			Arrays.fill(lastRows, oldLength, lastRows.length, NO_ROW);
+		}
+
+		int row = size;
+		storage.write(row, toEpochNanos(timestamp), symbolId, lastRows[symbolId], direction, quantity, price,
+				commission);
+		lastRows[symbolId] = row;
+		size++;
+		storage.storeSize(size);
+		return row;
+	}
+
+	// ==================== 按行读取 ====================
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public LocalDateTime getTimestamp(int row) {
+		long nanos = storage.timestamp(check(row));
+		return LocalDateTime.ofEpochSecond(Math.floorDiv(nanos, NANOS_PER_SECOND),
+				(int) Math.floorMod(nanos, NANOS_PER_SECOND), ZoneOffset.UTC);
+	}
+
+	public int getSymbolId(int row) {
+		return storage.symbol(check(row));
+	}
+
+	public String getSymbol(int row) {
+		return dictionary.symbolOf(getSymbolId(row));
+	}
+
+	public byte getDirectionCode(int row) {
+		return storage.direction(check(row));
+	}
+
+	public String getDirection(int row) {
+		return getDirectionCode(row) == BUY ? OrderEvent.BUY : OrderEvent.SELL;
+	}
+
+	public boolean isBuy(int row) {
+		return getDirectionCode(row) == BUY;
+	}
+
+	public int getQuantity(int row) {
+		return storage.quantity(check(row));
+	}
+
+	public double getPrice(int row) {
+		return storage.price(check(row));
+	}
+
+	public double getCommission(int row) {
+		return storage.commission(check(row));
+	}
+
+	public double getAmount(int row) {
+		return getQuantity(row) * getPrice(row);
+	}
+
+	// ==================== 按股票遍历 ====================
+
+	/**
+	 * 股票最近一笔成交的行号，没有成交时为 {@link #NO_ROW}
+	 */
+	public int lastRowOf(int symbolId) {
+		return symbolId >= 0 && symbolId < lastRows.length ? lastRows[symbolId] : NO_ROW;
+	}
+
+	/**
+	 * 同一股票上一笔成交的行号，没有时为 {@link #NO_ROW}
+	 */
+	public int previousRowOf(int row) {
+		return storage.previous(check(row));
+	}
+
+	/**
+	 * 股票在 fromRow（含）之后的全部成交行号，按时间顺序
+	 */
+	public int[] rowsOf(int symbolId, int fromRow) {
+		int count = 0;
+		for (int row = lastRowOf(symbolId); row >= fromRow && row != NO_ROW; row = storage.previous(row)) {
+			count++;
+		}
+		int[] rows = new int[count];
+		for (int row = lastRowOf(symbolId); count > 0; row = storage.previous(row)) {
+			rows[--count] = row;
+		}
+		return rows;
+	}
+
+	public int[] rowsOf(String symbol) {
+		return rowsOf(dictionary.find(symbol), 0);
+	}
+
+	// ==================== 还原为对象 ====================
+
+	/**
+	 * 还原为成交事件，订单号和执行号由行号生成
+	 */
+	public FillEvent toFillEvent(int row) {
+		return new FillEvent(getTimestamp(row), getSymbol(row), getDirection(row), getQuantity(row), getPrice(row),
+				getCommission(row), "J" + row, "EXEC_J" + row, FillEvent.FULL_FILL, 0.0);
+	}
+
+	public Position.TradeRecord toTradeRecord(int row) {
+		return new Position.TradeRecord(getTimestamp(row), getDirection(row), getQuantity(row), getPrice(row),
+				getCommission(row));
+	}
+
+	public List<FillEvent> toFillEvents() {
+		List<FillEvent> fills = new ArrayList<>(size);
+		for (int row = 0; row < size; row++) {
+			fills.add(toFillEvent(row));
+		}
+		return fills;
+	}
+
+	// ==================== 管理 ====================
+
+	public boolean isMapped() {
+		return storage instanceof MappedStorage;
+	}
+
+	/**
+	 * 成交记录占用的字节数（映射文件模式下为文件中已分配的大小）
+	 */
+	public long getStorageBytes() {
+		return storage.bytes();
+	}
+
+	/**
+	 * 清空全部成交，保留已分配的存储
+	 */
+	public void clear() {
+		Arrays.fill(lastRows, NO_ROW);
+		size = 0;
+		storage.storeSize(0);
+	}
+
+	/**
+	 * 把映射文件中已写入的成交刷到磁盘，堆内流水无操作
+	 */
+	public void force() {
+		storage.force();
+	}
+
+	@Override
+	public void close() throws IOException {
+		storage.close();
+	}
+
+	@Override
+	public String toString() {
+		return String.format("TradeJournal[%d trades, %s, %,d bytes]", size, isMapped() ? "mapped" : "heap",
+				getStorageBytes());
+	}
+
+	public static byte directionOf(String direction) {
+		if (OrderEvent.BUY.equals(direction)) {
+			return BUY;
+		}
+		if (OrderEvent.SELL.equals(direction)) {
+			return SELL;
+		}
+		throw new IllegalArgumentException("无效的成交方向: " + direction);
+	}
+
+	/**
+	 * 按已存储的成交重建每只股票的最近行号
+	 */
+	private void restore(int storedSize) {
+		for (int row = 0; row < storedSize; row++) {
+			int symbolId = storage.symbol(row);
+			if (symbolId >= lastRows.length) {
+				int oldLength = lastRows.length;
+				lastRows = Arrays.copyOf(lastRows, Math.max(symbolId + 1, oldLength * 2));
+				Arrays.fill(lastRows, oldLength, lastRows.length, NO_ROW);
+			}
+			lastRows[symbolId] = row;
+		}
+		size = storedSize;
+	}
+
+	private int check(int row) {
+		if (row < 0 || row >= size) {
+			throw new IndexOutOfBoundsException("成交行号越界: " + row + ", size=" + size);
+		}
+		return row;
+	}
+
+	private static long toEpochNanos(LocalDateTime timestamp) {
+		try {
+			return Math.addExact(Math.multiplyExact(timestamp.toEpochSecond(ZoneOffset.UTC), NANOS_PER_SECOND),
+					timestamp.getNano());
+		} catch (ArithmeticException e) {
+			throw new IllegalArgumentException("成交时间超出范围: " + timestamp, e);
+		}
+	}
+
+	// ==================== 存储 ====================
+
+	private abstract static class Storage {
+		abstract void write(int row, long timestamp, int symbol, int previous, byte direction, int quantity,
+				double price, double commission);
+
+		abstract long timestamp(int row);
+
+		abstract int symbol(int row);
+
+		abstract int previous(int row);
+
+		abstract byte direction(int row);
+
+		abstract int quantity(int row);
+
+		abstract double price(int row);
+
+		abstract double commission(int row);
+
+		abstract long bytes();
+
+		int storedSize() {
+			return 0;
+		}
+
+		void storeSize(int size) {
+		}
+
+		void force() {
+		}
+
+		void close() throws IOException {
+		}
+	}
+
+	/**
+	 * 堆内列存储，容量按倍数扩展
+	 */
+	private static final class HeapStorage extends Storage {
+		private long[] timestamps = new long[INITIAL_CAPACITY];
+		private int[] symbols = new int[INITIAL_CAPACITY];
+		private int[] previous = new int[INITIAL_CAPACITY];
+		private byte[] directions = new byte[INITIAL_CAPACITY];
+		private int[] quantities = new int[INITIAL_CAPACITY];
+		private double[] prices = new double[INITIAL_CAPACITY];
+		private double[] commissions = new double[INITIAL_CAPACITY];
+
+		@Override
+		void write(int row, long timestamp, int symbol, int previousRow, byte direction, int quantity, double price,
+				double commission) {
+			if (row == timestamps.length) {
+				int capacity = (int) Math.min(Integer.MAX_VALUE - 8L, row * 2L);
+				timestamps = Arrays.copyOf(timestamps, capacity);
+				symbols = Arrays.copyOf(symbols, capacity);
+				previous = Arrays.copyOf(previous, capacity);
+				directions = Arrays.copyOf(directions, capacity);
+				quantities = Arrays.copyOf(quantities, capacity);
+				prices = Arrays.copyOf(prices, capacity);
+				commissions = Arrays.copyOf(commissions, capacity);
+			}
+			timestamps[row] = timestamp;
+			symbols[row] = symbol;
+			previous[row] = previousRow;
+			directions[row] = direction;
+			quantities[row] = quantity;
+			prices[row] = price;
+			commissions[row] = commission;
+		}
+
+		@Override
+		long timestamp(int row) {
+			return timestamps[row];
+		}
+
+		@Override
+		int symbol(int row) {
+			return symbols[row];
+		}
+
+		@Override
+		int previous(int row) {
+			return previous[row];
+		}
+
+		@Override
+		byte direction(int row) {
+			return directions[row];
+		}
+
+		@Override
+		int quantity(int row) {
+			return quantities[row];
+		}
+
+		@Override
+		double price(int row) {
+			return prices[row];
+		}
+
+		@Override
+		double commission(int row) {
+			return commissions[row];
+		}
+
+		@Override
+		long bytes() {
+			return timestamps.length * 37L;
+		}
+	}
+
+	/**
+	 * 内存映射文件存储：文件头之后按固定行数分段映射，段内按列排列
+	 */
+	private static final class MappedStorage extends Storage {
+		private static final int SEGMENT_SHIFT = 16;
+		private static final int SEGMENT_ROWS = 1 << SEGMENT_SHIFT;
+		private static final int ROW_MASK = SEGMENT_ROWS - 1;
+
+		// 段内各列的起始偏移
+		private static final int TIMESTAMPS = 0;
+		private static final int PRICES = TIMESTAMPS + SEGMENT_ROWS * 8;
+		private static final int COMMISSIONS = PRICES + SEGMENT_ROWS * 8;
+		private static final int SYMBOLS = COMMISSIONS + SEGMENT_ROWS * 8;
+		private static final int PREVIOUS = SYMBOLS + SEGMENT_ROWS * 4;
+		private static final int QUANTITIES = PREVIOUS + SEGMENT_ROWS * 4;
+		private static final int DIRECTIONS = QUANTITIES + SEGMENT_ROWS * 4;
+		private static final int SEGMENT_BYTES = DIRECTIONS + SEGMENT_ROWS;
+
+		// 文件头：标识、成交笔数
+		private static final long MAGIC = 0x544A524E4C303031L;
+		private static final int HEADER_MAGIC = 0;
+		private static final int HEADER_SIZE = 8;
+		private static final int HEADER_BYTES = 4096;
+
+		private final FileChannel channel;
+		private final MappedByteBuffer header;
+		private final List<MappedByteBuffer> segments = new ArrayList<>();
+
+		MappedStorage(Path file, boolean open) throws IOException {
+			if (open) {
+				this.channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+			} else {
+				Path parent = file.toAbsolutePath().getParent();
+				if (parent != null) {
+					Files.createDirectories(parent);
+				}
+				this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+						StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+			}
+			try {
+				if (open && channel.size() < HEADER_BYTES) {
+					throw new IOException("不是成交流水文件: " + file);
+				}
+				this.header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+				header.order(ByteOrder.nativeOrder());
+				if (!open) {
+					header.putLong(HEADER_MAGIC, MAGIC);
+					header.putInt(HEADER_SIZE, 0);
+				} else if (header.getLong(HEADER_MAGIC) != MAGIC) {
+					throw new IOException("不是成交流水文件（或字节序不同）: " + file);
+				}
+				int stored = storedSize();
+				if (stored < 0 || HEADER_BYTES + segmentCount(stored) * (long) SEGMENT_BYTES > channel.size()) {
+					throw new IOException("成交流水文件已损坏: " + file + ", size=" + stored);
+				}
+				for (int index = 0; index < segmentCount(stored); index++) {
+					segments.add(map(index));
+				}
+			} catch (IOException e) {
+				channel.close();
+				throw e;
+			}
+		}
+
+		private static int segmentCount(int rows) {
+			return (rows + SEGMENT_ROWS - 1) >>> SEGMENT_SHIFT;
+		}
+
+		@Override
+		int storedSize() {
+			return header.getInt(HEADER_SIZE);
+		}
+
+		@Override
+		void storeSize(int size) {
+			header.putInt(HEADER_SIZE, size);
+		}
+
+		@Override
+		void write(int row, long timestamp, int symbol, int previousRow, byte direction, int quantity, double price,
+				double commission) {
+			int index = row >>> SEGMENT_SHIFT;
+			if (index == segments.size()) {
+				segments.add(map(index));
+			}
+			MappedByteBuffer segment = segments.get(index);
+			int offset = row & ROW_MASK;
+			segment.putLong(TIMESTAMPS + offset * 8, timestamp);
+			segment.putDouble(PRICES + offset * 8, price);
+			segment.putDouble(COMMISSIONS + offset * 8, commission);
+			segment.putInt(SYMBOLS + offset * 4, symbol);
+			segment.putInt(PREVIOUS + offset * 4, previousRow);
+			segment.putInt(QUANTITIES + offset * 4, quantity);
+			segment.put(DIRECTIONS + offset, direction);
+		}
+
+		private MappedByteBuffer map(int index) {
+			try {
+				MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_WRITE,
+						HEADER_BYTES + (long) index * SEGMENT_BYTES, SEGMENT_BYTES);
+				segment.order(ByteOrder.nativeOrder());
+				return segment;
+			} catch (IOException e) {
+				throw new IllegalStateException("成交流水映射文件扩展失败", e);
+			}
+		}
+
+		private MappedByteBuffer segment(int row) {
+			return segments.get(row >>> SEGMENT_SHIFT);
+		}
+
+		@Override
+		long timestamp(int row) {
+			return segment(row).getLong(TIMESTAMPS + (row & ROW_MASK) * 8);
+		}
+
+		@Override
+		int symbol(int row) {
+			return segment(row).getInt(SYMBOLS + (row & ROW_MASK) * 4);
+		}
+
+		@Override
+		int previous(int row) {
+			return segment(row).getInt(PREVIOUS + (row & ROW_MASK) * 4);
+		}
+
+		@Override
+		byte direction(int row) {
+			return segment(row).get(DIRECTIONS + (row & ROW_MASK));
+		}
+
+		@Override
+		int quantity(int row) {
+			return segment(row).getInt(QUANTITIES + (row & ROW_MASK) * 4);
+		}
+
+		@Override
+		double price(int row) {
+			return segment(row).getDouble(PRICES + (row & ROW_MASK) * 8);
+		}
+
+		@Override
+		double commission(int row) {
+			return segment(row).getDouble(COMMISSIONS + (row & ROW_MASK) * 8);
+		}
+
+		@Override
+		long bytes() {
+			return HEADER_BYTES + (long) segments.size() * SEGMENT_BYTES;
+		}
+
+		@Override
+		void force() {
+			for (MappedByteBuffer segment : segments) {
+				segment.force();
+			}
+			header.force();
+		}
+
+		@Override
+		void close() throws IOException {
+			if (!channel.isOpen()) {
+				return;
+			}
+			force();
+			segments.clear();
+			channel.close();
+		}
+	}
+}
@@ -0,0 +1,85 @@
+package com.Quantitative.portfolio;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Collections;
+
+import org.junit.Test;
+
+import com.Quantitative.BaseTest;
+import com.Quantitative.backtest.BacktestResult;
+import com.Quantitative.core.events.FillEvent;
+
+/**
+ * 成交流水测试 - 映射文件写入后重新打开
+ */
+public class TradeJournalTest extends BaseTest {
+
+	private static final LocalDateTime START = LocalDateTime.of(2024, 1, 2, 15, 0);
+
+	@Test
+	public void testMappedJournalRoundTrip() throws Exception {
+		Path file = Files.createTempFile("journal", ".bin");
+		try {
+			Portfolio portfolio = new Portfolio(1_000_000.0);
+			portfolio.configure(Collections.singletonMap("tradeJournalFile", file.toString()));
+			assertTrue(portfolio.getTradeJournal().isMapped());
+
+			// 两个回合：盈利 (12*1000-6) - (10*1000+5) = 1989，亏损 (9*500-3) - (11*500+4) = -1007
+			portfolio.processFill(fill(0, "BUY", 1000, 10.0, 5.0));
+			portfolio.processFill(fill(1, "SELL", 1000, 12.0, 6.0));
+			portfolio.processFill(fill(2, "BUY", 500, 11.0, 4.0));
+			portfolio.processFill(fill(3, "SELL", 500, 9.0, 3.0));
+			double cashPnl = portfolio.getCash() - 1_000_000.0;
+			portfolio.shutdown();
+
+			try (TradeJournal journal = TradeJournal.openMapped(file)) {
+				assertEquals(4, journal.size());
+				assertEquals("600519", journal.getSymbol(3));
+				assertEquals(START.plusDays(3), journal.getTimestamp(3));
+				assertEquals(4, journal.rowsOf("600519").length);
+
+				BacktestResult result = new BacktestResult(journal);
+				result.setInitialCapital(1_000_000.0);
+				result.calculateAdvancedMetrics();
+				assertEquals(2, result.getTotalTrades());
+				assertEquals(1989.0, result.getLargestWin(), 1e-9);
+				assertEquals(-1007.0, result.getLargestLoss(), 1e-9);
+				assertEquals(982.0, result.getAvgTradeReturn() * result.getTotalTrades(), 1e-9);
+				assertEquals(cashPnl, result.getAvgTradeReturn() * result.getTotalTrades(), 1e-9);
+
+				// 重新打开后继续追加
+				journal.record(fill(4, "BUY", 100, 10.0, 1.0));
+				assertEquals(3, journal.previousRowOf(4));
+			}
+			try (TradeJournal journal = TradeJournal.openMapped(file)) {
+				assertEquals(5, journal.size());
+				assertEquals(4, journal.lastRowOf(journal.getSymbolId(0)));
+			}
+		} finally {
+			Files.deleteIfExists(file);
+		}
+	}
+
+	@Test
+	public void testBacktestResultFollowsReplacedJournal() throws Exception {
+		Portfolio portfolio = new Portfolio(1_000_000.0);
+		BacktestResult result = new BacktestResult(portfolio);
+
+		TradeJournal replacement = new TradeJournal();
+		portfolio.setTradeJournal(replacement);
+		portfolio.processFill(fill(0, "BUY", 100, 10.0, 1.0));
+
+		assertSame(replacement, result.getTradeJournal());
+		assertEquals(1, result.getTradeHistory().size());
+	}
+
+	private static FillEvent fill(int day, String direction, int quantity, double price, double commission) {
+		return new FillEvent(START.plusDays(day), "600519", direction, quantity, price, commission, "T" + day);
+	}
+}
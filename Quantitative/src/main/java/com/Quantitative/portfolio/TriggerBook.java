@@ -0,0 +1,275 @@
+package com.Quantitative.portfolio;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * 触发价簿 - 按股票保存止损、止盈和移动止损价位
+ *
+ * 每只股票的止损价、止盈价和移动止损的最高价各保存在一个有序集合中。价格更新时只定位被穿越的价位：
+ * 止损取价位不低于最低价的部分，止盈取价位不高于最高价的部分，移动止损只调整最高价被突破的部分，
+ * 复杂度为 O(log n + k)，没有触发时不随挂单数量增加。
+ *
+ * 触发后价位仍保留在簿中，直到调用方撤销（例如平仓成功后），与原先逐根K线检查的语义一致。
+ * 非线程安全。
+ */
+public class TriggerBook {
+
+	private static final Comparator<Bracket> BY_STOP = Comparator.<Bracket>comparingDouble(b -> b.stopLevel)
+			.thenComparingLong(b -> b.id);
+	private static final Comparator<Bracket> BY_TARGET = Comparator.<Bracket>comparingDouble(b -> b.targetLevel)
+			.thenComparingLong(b -> b.id);
+	private static final Comparator<Bracket> BY_HIGHEST = Comparator.<Bracket>comparingDouble(b -> b.highest)
+			.thenComparingLong(b -> b.id);
+
+	private final Map<String, SymbolTriggers> books = new HashMap<>();
+	private final Map<Long, Bracket> brackets = new HashMap<>();
+	private long nextId = 1;
+
+	// ==================== 挂单管理 ====================
+
+	/**
+	 * 添加一组止损止盈价位
+	 *
+	 * @param stopLoss     止损价，为 null 时不设止损
+	 * @param takeProfit   止盈价，为 null 时不设止盈
+	 * @param trailingStop 移动止损比例（如 0.05），为 null 或不大于0时不启用
+	 * @return 价位组编号
+	 */
+	public long add(String symbol, Double stopLoss, Double takeProfit, Double trailingStop) {
+		if (symbol == null) {
+			throw new IllegalArgumentException("股票代码不能为空");
+		}
+		if (trailingStop != null && trailingStop >= 1) {
+			throw new IllegalArgumentException("移动止损比例必须小于1: " + trailingStop);
+		}
+		Bracket bracket = new Bracket(nextId++, symbol, toLevel(stopLoss), toLevel(takeProfit),
+				trailingStop != null && trailingStop > 0 ? trailingStop : 0.0);
+		books.computeIfAbsent(symbol, k -> new SymbolTriggers()).add(bracket);
+		brackets.put(bracket.id, bracket);
+		return bracket.id;
+	}
+
+	public boolean cancel(long id) {
+		Bracket bracket = brackets.remove(id);
+		if (bracket == null) {
+			return false;
+		}
+		SymbolTriggers book = books.get(bracket.symbol);
+		book.remove(bracket);
+		if (book.isEmpty()) {
+			books.remove(bracket.symbol);
+		}
+		return true;
+	}
+
+	/**
+	 * 撤销股票的全部价位
+	 */
+	public int cancelAll(String symbol) {
+		SymbolTriggers book = books.remove(symbol);
+		if (book == null) {
+			return 0;
+		}
+		for (Bracket bracket : book.all) {
+			brackets.remove(bracket.id);
+		}
+		return book.all.size();
+	}
+
+	public void clear() {
+		books.clear();
+		brackets.clear();
+	}
+
+	// ==================== 价格更新 ====================
+
+	/**
+	 * 用K线的最高价和最低价检查穿越：先按更新前的价位检查止损（最低价）和止盈（最高价），再用最高价上移移动止损
+	 *
+	 * @param listener 每个被穿越的价位回调一次，止损先于止盈
+	 * @return 是否有价位被穿越
+	 */
+	public boolean onPrice(String symbol, double low, double high, TriggerListener listener) {
+		SymbolTriggers book = books.get(symbol);
+		if (book == null) {
+			return false;
+		}
+		boolean triggered = false;
+
+		book.probe.stopLevel = low;
+		book.probe.id = Long.MIN_VALUE;
+		for (Bracket bracket : book.stops.tailSet(book.probe, true)) {
+			listener.onStopLoss(bracket);
+			triggered = true;
+		}
+
+		book.probe.targetLevel = high;
+		book.probe.id = Long.MAX_VALUE;
+		for (Bracket bracket : book.targets.headSet(book.probe, true)) {
+			listener.onTakeProfit(bracket);
+			triggered = true;
+		}
+
+		book.probe.highest = high;
+		book.probe.id = Long.MIN_VALUE;
+		if (!book.trailing.isEmpty() && book.trailing.first().highest < high) {
+			book.raiseTrailingStops(high);
+		}
+		return triggered;
+	}
+
+	// ==================== 查询 ====================
+
+	public List<Bracket> getBrackets(String symbol) {
+		SymbolTriggers book = books.get(symbol);
+		return book != null ? new ArrayList<>(book.all) : new ArrayList<>();
+	}
+
+	public Bracket getBracket(long id) {
+		return brackets.get(id);
+	}
+
+	public boolean contains(String symbol) {
+		return books.containsKey(symbol);
+	}
+
+	public int size() {
+		return brackets.size();
+	}
+
+	private static double toLevel(Double price) {
+		return price != null ? price : Double.NaN;
+	}
+
+	/**
+	 * 价位穿越回调
+	 */
+	public interface TriggerListener {
+		void onStopLoss(Bracket bracket);
+
+		void onTakeProfit(Bracket bracket);
+	}
+
+	/**
+	 * 单只股票的价位集合
+	 */
+	private static final class SymbolTriggers {
+		final List<Bracket> all = new ArrayList<>(1);
+		final TreeSet<Bracket> stops = new TreeSet<>(BY_STOP);
+		final TreeSet<Bracket> targets = new TreeSet<>(BY_TARGET);
+		final TreeSet<Bracket> trailing = new TreeSet<>(BY_HIGHEST);
+		final Bracket probe = new Bracket(0, null, Double.NaN, Double.NaN, 0.0);
+
+		void add(Bracket bracket) {
+			all.add(bracket);
+			if (bracket.hasStopLoss()) {
+				stops.add(bracket);
+			}
+			if (bracket.hasTakeProfit()) {
+				targets.add(bracket);
+			}
+			if (bracket.hasTrailingStop()) {
+				trailing.add(bracket);
+			}
+		}
+
+		void remove(Bracket bracket) {
+			all.remove(bracket);
+			stops.remove(bracket);
+			targets.remove(bracket);
+			trailing.remove(bracket);
+		}
+
+		boolean isEmpty() {
+			return all.isEmpty();
+		}
+
+		/**
+		 * 最高价低于 high 的移动止损更新最高价，并在新止损价更高时上移止损
+		 */
+		void raiseTrailingStops(double high) {
+			List<Bracket> raised = new ArrayList<>(trailing.headSet(probe, false));
+			for (Bracket bracket : raised) {
+				trailing.remove(bracket);
+				bracket.highest = high;
+				double newStop = high * (1 - bracket.trailingStop);
+				if (!bracket.hasStopLoss() || newStop > bracket.stopLevel) {
+					stops.remove(bracket);
+					bracket.stopLevel = newStop;
+					stops.add(bracket);
+				}
+				trailing.add(bracket);
+			}
+		}
+	}
+
+	/**
+	 * 一组止损止盈价位，价位以 NaN 表示未设置
+	 */
+	public static final class Bracket {
+		private long id;
+		private final String symbol;
+		private double stopLevel;
+		private double targetLevel;
+		private final double trailingStop;
+		private double highest = Double.NEGATIVE_INFINITY;
+
+		Bracket(long id, String symbol, double stopLevel, double targetLevel, double trailingStop) {
+			this.id = id;
+			this.symbol = symbol;
+			this.stopLevel = stopLevel;
+			this.targetLevel = targetLevel;
+			this.trailingStop = trailingStop;
+		}
+
+		public long getId() {
+			return id;
+		}
+
+		public String getSymbol() {
+			return symbol;
+		}
+
+		public boolean hasStopLoss() {
+			return !Double.isNaN(stopLevel);
+		}
+
+		public boolean hasTakeProfit() {
+			return !Double.isNaN(targetLevel);
+		}
+
+		public boolean hasTrailingStop() {
+			return trailingStop > 0;
+		}
+
+		public double getStopLossPrice() {
+			return stopLevel;
+		}
+
+		public double getTakeProfitPrice() {
+			return targetLevel;
+		}
+
+		public double getTrailingStop() {
+			return trailingStop;
+		}
+
+		/**
+		 * 移动止损记录的最高价，尚未更新时为负无穷
+		 */
+		public double getHighestPrice() {
+			return highest;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("Bracket{#%d %s stop=%.4f target=%.4f trailing=%.4f}", id, symbol, stopLevel,
+					targetLevel, trailingStop);
+		}
+	}
+}
@@ -0,0 +1,154 @@
+package com.Quantitative.portfolio;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.Quantitative.BaseTest;
+import com.Quantitative.core.events.BarEvent;
+import com.Quantitative.core.events.FillEvent;
+import com.Quantitative.portfolio.StopLossTakeProfitManager.ExitSignal;
+
+/**
+ * 触发价簿测试 - 跳空成交、同一根K线两侧穿越、撤销
+ */
+public class TriggerBookTest extends BaseTest {
+
+	private static final String SYMBOL = "600519";
+	private static final LocalDateTime START = LocalDateTime.of(2024, 1, 2, 15, 0);
+
+	@Test
+	public void testGapBelowStopFillsAtOpen() {
+		StopLossTakeProfitManager manager = manager();
+		manager.setPositionRisk(SYMBOL, 95.0, 110.0, null);
+
+		// 开盘直接跳空到止损价下方，按开盘价退出
+		List<ExitSignal> exits = manager.checkRiskControls(bar(0, 90.0, 92.0, 88.0, 91.0));
+		assertEquals(1, exits.size());
+		assertEquals("STOP_LOSS", exits.get(0).getReason());
+		assertEquals(90.0, exits.get(0).getExitPrice(), 1e-9);
+
+		// 开盘在止损价上方、盘中跌破，按止损价退出
+		exits = manager.checkRiskControls(bar(1, 97.0, 98.0, 94.0, 96.0));
+		assertEquals(95.0, exits.get(0).getExitPrice(), 1e-9);
+	}
+
+	@Test
+	public void testGapAboveTargetFillsAtOpen() {
+		StopLossTakeProfitManager manager = manager();
+		manager.setPositionRisk(SYMBOL, 95.0, 110.0, null);
+
+		List<ExitSignal> exits = manager.checkRiskControls(bar(0, 115.0, 118.0, 112.0, 116.0));
+		assertEquals(1, exits.size());
+		assertEquals("TAKE_PROFIT", exits.get(0).getReason());
+		assertEquals(115.0, exits.get(0).getExitPrice(), 1e-9);
+	}
+
+	@Test
+	public void testBothSidesCrossedEmitsOneStop() {
+		StopLossTakeProfitManager manager = manager();
+		manager.setPositionRisk(SYMBOL, 95.0, 110.0, null);
+		manager.addBracket(SYMBOL, 97.0, 108.0, null);
+
+		// 两组价位的止损和止盈都被穿越，只按最先碰到的止损（97）退出一次
+		List<ExitSignal> exits = manager.checkRiskControls(bar(0, 100.0, 112.0, 90.0, 100.0));
+		assertEquals(1, exits.size());
+		assertEquals("STOP_LOSS", exits.get(0).getReason());
+		assertEquals(97.0, exits.get(0).getExitPrice(), 1e-9);
+
+		// 簿本身仍逐个回调被穿越的价位，止损先于止盈
+		TriggerBook book = new TriggerBook();
+		book.add(SYMBOL, 95.0, 110.0, null);
+		book.add(SYMBOL, 97.0, 108.0, null);
+		List<String> calls = new ArrayList<>();
+		assertTrue(book.onPrice(SYMBOL, 90.0, 112.0, new Recorder(calls)));
+		assertEquals("[stop 95.0, stop 97.0, target 108.0, target 110.0]", calls.toString());
+	}
+
+	@Test
+	public void testNoCrossingReturnsEmpty() {
+		StopLossTakeProfitManager manager = manager();
+		manager.setPositionRisk(SYMBOL, 95.0, 110.0, null);
+		assertTrue(manager.checkRiskControls(bar(0, 100.0, 105.0, 96.0, 101.0)).isEmpty());
+		assertTrue(manager.checkRiskControls("000001", 50.0).isEmpty());
+	}
+
+	@Test
+	public void testRemovedBracketsNoLongerTrigger() {
+		TriggerBook book = new TriggerBook();
+		long first = book.add(SYMBOL, 95.0, 110.0, null);
+		long second = book.add(SYMBOL, 97.0, null, 0.05);
+		book.add("000001", 10.0, 12.0, null);
+		assertEquals(3, book.size());
+
+		assertTrue(book.cancel(first));
+		assertFalse(book.cancel(first));
+		List<String> calls = new ArrayList<>();
+		book.onPrice(SYMBOL, 90.0, 112.0, new Recorder(calls));
+		assertEquals("[stop 97.0]", calls.toString());
+
+		// 撤销最后一组后该股票从簿中移除，其他股票不受影响
+		assertTrue(book.cancel(second));
+		assertFalse(book.contains(SYMBOL));
+		calls.clear();
+		assertFalse(book.onPrice(SYMBOL, 1.0, 1000.0, new Recorder(calls)));
+		assertTrue(calls.isEmpty());
+		assertEquals(1, book.size());
+
+		assertEquals(1, book.cancelAll("000001"));
+		assertEquals(0, book.size());
+	}
+
+	@Test
+	public void testTrailingStopRisesWithHighs() {
+		TriggerBook book = new TriggerBook();
+		long id = book.add(SYMBOL, null, null, 0.1);
+		List<String> calls = new ArrayList<>();
+
+		assertFalse(book.onPrice(SYMBOL, 95.0, 100.0, new Recorder(calls)));
+		assertEquals(90.0, book.getBracket(id).getStopLossPrice(), 1e-9);
+		assertFalse(book.onPrice(SYMBOL, 105.0, 120.0, new Recorder(calls)));
+		assertEquals(108.0, book.getBracket(id).getStopLossPrice(), 1e-9);
+
+		// 回落不下调止损
+		assertTrue(book.onPrice(SYMBOL, 100.0, 110.0, new Recorder(calls)));
+		assertEquals("[stop 108.0]", calls.toString());
+		assertEquals(108.0, book.getBracket(id).getStopLossPrice(), 1e-9);
+	}
+
+	private static StopLossTakeProfitManager manager() {
+		Portfolio portfolio = new Portfolio(1_000_000.0);
+		portfolio.processFill(new FillEvent(START.minusDays(1), SYMBOL, "BUY", 1000, 100.0, 0.0, "T0"));
+		StopLossTakeProfitManager manager = new StopLossTakeProfitManager(portfolio);
+		manager.setIntrabar(true);
+		return manager;
+	}
+
+	private static BarEvent bar(int day, double open, double high, double low, double close) {
+		return new BarEvent(START.plusDays(day), SYMBOL, open, high, low, close, 100000);
+	}
+
+	private static final class Recorder implements TriggerBook.TriggerListener {
+		private final List<String> calls;
+
+		Recorder(List<String> calls) {
+			this.calls = calls;
+		}
+
+		@Override
+		public void onStopLoss(TriggerBook.Bracket bracket) {
+			calls.add("stop " + bracket.getStopLossPrice());
+		}
+
+		@Override
+		public void onTakeProfit(TriggerBook.Bracket bracket) {
+			calls.add("target " + bracket.getTakeProfitPrice());
+		}
+	}
+}
@@ -0,0 +1,374 @@
+package com.Quantitative.portfolio.composite;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.Quantitative.backtest.BacktestResult;
+import com.Quantitative.config.BacktestConfig;
+import com.Quantitative.core.events.BarEvent;
+import com.Quantitative.core.events.EnhancedSignalEvent;
+import com.Quantitative.core.events.FillEvent;
+import com.Quantitative.core.events.OrderEvent;
+import com.Quantitative.core.events.SignalEvent;
+import com.Quantitative.data.DataFeed;
+import com.Quantitative.execution.SimulatedExecution;
+import com.Quantitative.portfolio.Portfolio;
+import com.Quantitative.portfolio.Position;
+import com.Quantitative.portfolio.RiskManager;
+import com.Quantitative.portfolio.StopLossTakeProfitManager;
+import com.Quantitative.strategy.base.BaseStrategy;
+import com.Quantitative.strategy.graph.IndicatorGraph;
+
+/**
+ * 多策略单遍回测 - 一次遍历数据同时驱动所有策略
+ *
+ * 每个策略有自己的子账户（按权重分配初始资金），带独立的风险管理、止损止盈和模拟执行，
+ * 处理流程与 {@link com.Quantitative.backtest.EventDrivenBacktestEngine} 相同。
+ * 主账户与子账户同步维护：每根K线结束时把各子账户在同一股票上的成交轧差，只把净买卖记入主账户，
+ * 内部对冲的部分不产生主账户成交和手续费。
+ *
+ * 数据只加载一次，所有策略共享一个指标计算图，开销随 K线数 × 策略数 增长。
+ *
+ * 子账户资金按权重分配，整手取整和单只股票仓位上限使各子账户结果与策略按全部资金单独回测的结果不同；
+ * 需要可比的单独表现（如优化权重）时用 {@link #setIndividualOnly(boolean)} 让每个子账户都使用全部资金。
+ */
+public class MultiStrategyBacktest {
+
+	private final DataFeed dataFeed;
+	private final BacktestConfig config;
+	private final Map<String, SubPortfolio> subPortfolios = new LinkedHashMap<>();
+	private final Map<String, NetTrade> netTrades = new LinkedHashMap<>();
+
+	private Portfolio master;
+	private BacktestResult compositeResult;
+	private long netTradeCount;
+	private boolean individualOnly;
+
+	public MultiStrategyBacktest(DataFeed dataFeed, BacktestConfig config) {
+		this.dataFeed = dataFeed;
+		this.config = config;
+	}
+
+	/**
+	 * 添加策略，子账户初始资金 = 总资金 × 权重 / 权重之和
+	 */
+	public void addStrategy(String name, BaseStrategy strategy, double weight) {
+		if (weight <= 0) {
+			throw new IllegalArgumentException("策略权重必须大于0: " + weight);
+		}
+		if (subPortfolios.containsKey(name)) {
+			throw new IllegalArgumentException("策略名称重复: " + name);
+		}
+		subPortfolios.put(name, new SubPortfolio(name, strategy, weight));
+	}
+
+	/**
+	 * 只计算各策略的单独表现：每个子账户都使用全部初始资金，不维护主账户，结果与逐个策略单独回测相同
+	 */
+	public void setIndividualOnly(boolean individualOnly) {
+		this.individualOnly = individualOnly;
+	}
+
+	public boolean isIndividualOnly() {
+		return individualOnly;
+	}
+
+	// ==================== 回测 ====================
+
+	public void run() {
+		if (subPortfolios.isEmpty()) {
+			throw new IllegalStateException("没有添加任何策略");
+		}
+
+		dataFeed.loadHistoricalData(config.getSymbol(), config.getStartDate(), config.getEndDate());
+		List<BarEvent> bars = dataFeed.getAllBars();
+		if (bars.isEmpty()) {
+			throw new IllegalStateException("没有加载到任何数据！");
+		}
+
+		initialize();
+
+		int limit = config.getMaxBars() > 0 ? Math.min(config.getMaxBars(), bars.size()) : bars.size();
+		BarEvent lastBar = null;
+		for (int i = 0; i < limit; i++) {
+			BarEvent bar = bars.get(i);
+			for (SubPortfolio sub : subPortfolios.values()) {
+				sub.onBar(bar);
+			}
+			if (!individualOnly) {
+				master.updateMarketPrice(bar.getSymbol(), bar.getClose(), bar.getTimestamp());
+				settleNetTrades(bar.getTimestamp());
+			}
+			lastBar = bar;
+		}
+
+		finish(lastBar);
+	}
+
+	private void initialize() {
+		double totalWeight = 0.0;
+		for (SubPortfolio sub : subPortfolios.values()) {
+			totalWeight += sub.weight;
+		}
+
+		IndicatorGraph indicatorGraph = new IndicatorGraph();
+		for (SubPortfolio sub : subPortfolios.values()) {
+			double capital = individualOnly ? config.getInitialCapital()
+					: config.getInitialCapital() * sub.weight / totalWeight;
+			sub.initialize(capital, indicatorGraph);
+		}
+
+		master = new Portfolio(config.getInitialCapital());
+		compositeResult = new BacktestResult(master);
+		compositeResult.setInitialCapital(config.getInitialCapital());
+		compositeResult.addEquityPoint(config.getInitialCapital());
+		netTrades.clear();
+		netTradeCount = 0;
+	}
+
+	/**
+	 * 结束：撤销未成交订单，按最后价格强制平仓，计算各账户结果
+	 */
+	private void finish(BarEvent lastBar) {
+		LocalDateTime timestamp = lastBar.getTimestamp();
+		for (SubPortfolio sub : subPortfolios.values()) {
+			sub.closeAll(lastBar);
+		}
+		for (SubPortfolio sub : subPortfolios.values()) {
+			finishResult(sub.result, sub.portfolio);
+		}
+		if (individualOnly) {
+			System.out.printf("✅ 单遍回测完成: %d 个策略（各自使用全部资金）%n", subPortfolios.size());
+			return;
+		}
+		settleNetTrades(timestamp);
+		finishResult(compositeResult, master);
+
+		System.out.printf("✅ 单遍组合回测完成: %d 个策略, 主账户净成交 %d 笔, 总收益率 %.2f%%%n", subPortfolios.size(),
+				netTradeCount, compositeResult.getTotalReturn());
+	}
+
+	private static void finishResult(BacktestResult result, Portfolio portfolio) {
+		result.setFinalCapital(portfolio.getTotalValue());
+		result.setTotalReturn(portfolio.getTotalReturn());
+		result.calculateAdvancedMetrics();
+	}
+
+	/**
+	 * 把本根K线各子账户的成交按股票轧差，净买卖按该方向的成交均价记入主账户
+	 */
+	private void settleNetTrades(LocalDateTime timestamp) {
+		if (netTrades.isEmpty()) {
+			return;
+		}
+		for (Map.Entry<String, NetTrade> entry : netTrades.entrySet()) {
+			NetTrade trade = entry.getValue();
+			int net = trade.buyQuantity - trade.sellQuantity;
+			if (net == 0) {
+				continue;
+			}
+			int quantity = Math.abs(net);
+			double price = net > 0 ? trade.buyAmount / trade.buyQuantity : trade.sellAmount / trade.sellQuantity;
+			FillEvent fill = new FillEvent(timestamp, entry.getKey(), net > 0 ? "BUY" : "SELL", quantity, price,
+					master.calculateCommission(price * quantity), "NET_" + (++netTradeCount));
+			master.processFill(fill);
+			compositeResult.addEquityPoint(master.getTotalValue());
+		}
+		netTrades.clear();
+	}
+
+	private void recordForNetting(FillEvent fill) {
+		NetTrade trade = netTrades.computeIfAbsent(fill.getSymbol(), k -> new NetTrade());
+		double amount = fill.getFillPrice() * fill.getQuantity();
+		if ("BUY".equals(fill.getDirection())) {
+			trade.buyQuantity += fill.getQuantity();
+			trade.buyAmount += amount;
+		} else {
+			trade.sellQuantity += fill.getQuantity();
+			trade.sellAmount += amount;
+		}
+	}
+
+	// ==================== 结果 ====================
+
+	/**
+	 * 主账户（轧差后）的回测结果，{@link #setIndividualOnly(boolean)} 模式下不更新
+	 */
+	public BacktestResult getCompositeResult() {
+		return compositeResult;
+	}
+
+	/**
+	 * 各子账户的回测结果，按添加顺序
+	 */
+	public Map<String, BacktestResult> getIndividualResults() {
+		Map<String, BacktestResult> results = new LinkedHashMap<>();
+		for (SubPortfolio sub : subPortfolios.values()) {
+			results.put(sub.name, sub.result);
+		}
+		return results;
+	}
+
+	public Portfolio getMasterPortfolio() {
+		return master;
+	}
+
+	public Portfolio getSubPortfolio(String name) {
+		SubPortfolio sub = subPortfolios.get(name);
+		return sub != null ? sub.portfolio : null;
+	}
+
+	/**
+	 * 主账户净成交笔数
+	 */
+	public long getNetTradeCount() {
+		return netTradeCount;
+	}
+
+	// ==================== 内部类 ====================
+
+	/**
+	 * 单根K线内某只股票的子账户成交合计
+	 */
+	private static final class NetTrade {
+		int buyQuantity;
+		int sellQuantity;
+		double buyAmount;
+		double sellAmount;
+	}
+
+	/**
+	 * 策略子账户
+	 */
+	private final class SubPortfolio {
+		final String name;
+		final BaseStrategy strategy;
+		final double weight;
+
+		Portfolio portfolio;
+		RiskManager riskManager;
+		StopLossTakeProfitManager riskControlManager;
+		SimulatedExecution execution;
+		BacktestResult result;
+
+		SubPortfolio(String name, BaseStrategy strategy, double weight) {
+			this.name = name;
+			this.strategy = strategy;
+			this.weight = weight;
+		}
+
+		void initialize(double capital, IndicatorGraph indicatorGraph) {
+			portfolio = new Portfolio(capital);
+			riskControlManager = new StopLossTakeProfitManager(portfolio);
+			riskManager = new RiskManager();
+			riskManager.setPortfolio(portfolio);
+			riskManager.configure(config.getRiskParams());
+			riskManager.initialize();
+			execution = new SimulatedExecution();
+
+			result = new BacktestResult(portfolio);
+			result.setInitialCapital(capital);
+			result.addEquityPoint(capital);
+
+			if (strategy.isInitialized()) {
+				strategy.reset();
+			}
+			strategy.setDataFeed(dataFeed);
+			strategy.setPortfolio(portfolio);
+			// 所有策略共享指标计算图，相同指标每根K线只计算一次
+			strategy.setIndicatorGraph(indicatorGraph);
+			strategy.initialize();
+		}
+
+		/**
+		 * 与回测引擎相同的顺序：延迟成交、止损止盈、更新价格、策略信号
+		 */
+		void onBar(BarEvent bar) {
+			for (FillEvent fill : execution.onBar(bar)) {
+				onFill(fill);
+			}
+
+			if (riskControlManager.isEnabled()) {
+				for (StopLossTakeProfitManager.ExitSignal exitSignal : riskControlManager.checkRiskControls(bar)) {
+					exit(exitSignal, bar.getTimestamp());
+				}
+			}
+
+			portfolio.updateMarketPrice(bar.getSymbol(), bar.getClose(), bar.getTimestamp());
+
+			try {
+				for (SignalEvent signal : strategy.onBar(bar)) {
+					onSignal(signal);
+				}
+			} catch (Exception e) {
+				System.err.printf("  ❌ %s 处理Bar失败: %s%n", name, e.getMessage());
+			}
+		}
+
+		void onSignal(SignalEvent signal) {
+			if (!riskManager.validateSignal(signal).isValid()) {
+				return;
+			}
+			if (signal instanceof EnhancedSignalEvent) {
+				riskControlManager.applyRiskFromSignal((EnhancedSignalEvent) signal);
+			}
+
+			OrderEvent order = portfolio.processSignal(signal);
+			if (order == null) {
+				return;
+			}
+			if (execution.defersExecution(order)) {
+				execution.submitOrder(order);
+			} else {
+				FillEvent fill = execution.executeOrder(order);
+				if (fill != null) {
+					onFill(fill);
+				}
+			}
+		}
+
+		void onFill(FillEvent fill) {
+			portfolio.processFill(fill);
+			result.addEquityPoint(portfolio.getTotalValue());
+			if (!individualOnly) {
+				recordForNetting(fill);
+			}
+		}
+
+		void exit(StopLossTakeProfitManager.ExitSignal exitSignal, LocalDateTime timestamp) {
+			Position position = portfolio.getPositions().get(exitSignal.getSymbol());
+			if (position == null || position.getQuantity() <= 0) {
+				return;
+			}
+			OrderEvent exitOrder = new OrderEvent(timestamp, exitSignal.getSymbol(), "SELL", position.getQuantity(),
+					exitSignal.getExitPrice(), "MARKET");
+			FillEvent fill = execution.executeOrder(exitOrder);
+			if (fill != null) {
+				onFill(fill);
+				riskControlManager.clearPositionRisk(exitSignal.getSymbol());
+			}
+		}
+
+		void closeAll(BarEvent lastBar) {
+			execution.cancelPendingOrders();
+			for (Position position : new ArrayList<>(portfolio.getPositions().values())) {
+				if (position.getQuantity() <= 0) {
+					continue;
+				}
+				Double price = portfolio.getCurrentPrice(position.getSymbol());
+				if (price == null || price <= 0) {
+					price = lastBar.getClose();
+				}
+				OrderEvent closeOrder = new OrderEvent(lastBar.getTimestamp(), position.getSymbol(), "SELL",
+						position.getQuantity(), price, "MARKET");
+				FillEvent fill = execution.executeOrder(closeOrder);
+				if (fill != null) {
+					onFill(fill);
+				}
+			}
+		}
+	}
+}
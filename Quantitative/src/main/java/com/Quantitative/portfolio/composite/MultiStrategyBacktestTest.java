@@ -0,0 +1,89 @@
+package com.Quantitative.portfolio.composite;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.Quantitative.BaseTest;
+import com.Quantitative.all.Test.CrossStrategy;
+import com.Quantitative.all.Test.MockDataFeed;
+import com.Quantitative.all.Test.TestDataGenerator;
+import com.Quantitative.backtest.BacktestResult;
+import com.Quantitative.config.BacktestConfig;
+
+/**
+ * 多策略单遍回测测试 - 与逐个策略单独回测（singlePass=false）对比
+ */
+public class MultiStrategyBacktestTest extends BaseTest {
+
+	private static final String SYMBOL = "600519";
+	private static final double CAPITAL = 1_000_000.0;
+
+	@Test
+	public void testIndividualResultsMatchSeparateRuns() {
+		StrategyCompositeManager manager = new StrategyCompositeManager(feed(), config());
+		manager.addStrategy("fast", new CrossStrategy(5, 20), 0.7);
+		manager.addStrategy("slow", new CrossStrategy(10, 40), 0.3);
+		StrategyCompositeManager.CompositeConfig compositeConfig = new StrategyCompositeManager.CompositeConfig();
+		compositeConfig.setSinglePass(false);
+		manager.setCompositeConfig(compositeConfig);
+		Map<String, BacktestResult> separate = manager.runCompositeBacktest().getIndividualResults();
+
+		MultiStrategyBacktest singlePass = new MultiStrategyBacktest(feed(), config());
+		singlePass.setIndividualOnly(true);
+		singlePass.addStrategy("fast", new CrossStrategy(5, 20), 0.7);
+		singlePass.addStrategy("slow", new CrossStrategy(10, 40), 0.3);
+		singlePass.run();
+
+		for (Map.Entry<String, BacktestResult> entry : singlePass.getIndividualResults().entrySet()) {
+			BacktestResult expected = separate.get(entry.getKey());
+			BacktestResult actual = entry.getValue();
+			assertTrue(entry.getKey() + " 应有成交", actual.getTradeJournal().size() > 0);
+			assertEquals(entry.getKey(), expected.getTradeJournal().size(), actual.getTradeJournal().size());
+			assertEquals(entry.getKey(), expected.getTotalTrades(), actual.getTotalTrades());
+			assertEquals(entry.getKey(), expected.getFinalCapital(), actual.getFinalCapital(), 1e-6);
+		}
+	}
+
+	@Test
+	public void testCompositeEquityWithoutNetting() {
+		// 只有一个策略时没有可轧差的成交，主账户与该策略按全部资金单独回测的结果相同
+		StrategyCompositeManager manager = new StrategyCompositeManager(feed(), config());
+		manager.addStrategy("fast", new CrossStrategy(5, 20), 1.0);
+		StrategyCompositeManager.CompositeConfig compositeConfig = new StrategyCompositeManager.CompositeConfig();
+		compositeConfig.setSinglePass(false);
+		manager.setCompositeConfig(compositeConfig);
+		BacktestResult separate = manager.runCompositeBacktest().getIndividualResults().get("fast");
+
+		MultiStrategyBacktest singlePass = new MultiStrategyBacktest(feed(), config());
+		singlePass.addStrategy("fast", new CrossStrategy(5, 20), 1.0);
+		singlePass.run();
+
+		assertTrue("应有成交", singlePass.getNetTradeCount() > 0);
+		assertEquals(singlePass.getIndividualResults().get("fast").getTradeJournal().size(),
+				singlePass.getNetTradeCount());
+		assertEquals(separate.getFinalCapital(), singlePass.getCompositeResult().getFinalCapital(), 1e-6);
+		assertEquals(separate.getTotalTrades(), singlePass.getCompositeResult().getTotalTrades());
+		assertEquals(singlePass.getMasterPortfolio().getTotalValue(),
+				singlePass.getSubPortfolio("fast").getTotalValue(), 1e-6);
+	}
+
+	private static BacktestConfig config() {
+		BacktestConfig config = new BacktestConfig();
+		config.setSymbol(SYMBOL);
+		config.setInitialCapital(CAPITAL);
+		return config;
+	}
+
+	/**
+	 * 300 根带趋势的合成K线
+	 */
+	private static MockDataFeed feed() {
+		return new MockDataFeed(TestDataGenerator.cyclicalWalk(SYMBOL, LocalDateTime.of(2022, 1, 3, 15, 0), 300, 50.0,
+				0.005, 25.0, 0.01, 0.004, 200000, 3L));
+	}
+}
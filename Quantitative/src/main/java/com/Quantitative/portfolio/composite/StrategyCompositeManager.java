@@ -57,6 +57,10 @@ public class StrategyCompositeManager {
 		System.out.println("🎯 开始策略组合回测...");
 		System.out.printf("组合包含 %d 个策略%n", strategies.size());
 
+		if (compositeConfig.isSinglePass()) {
+			return runSinglePassBacktest();
+		}
+
 		CompositeBacktestResult result = new CompositeBacktestResult();
 		Map<String, BacktestResult> individualResults = new HashMap<>();
 
@@ -88,6 +92,36 @@ public class StrategyCompositeManager {
 		return result;
 	}
 
+	/**
+	 * 单遍组合回测：各策略在子账户中同时运行，主账户为子账户成交轧差后的结果
+	 */
+	private CompositeBacktestResult runSinglePassBacktest() {
+		MultiStrategyBacktest backtest = runMultiStrategyBacktest(false);
+
+		CompositeBacktestResult result = new CompositeBacktestResult();
+		result.setCompositeResult(backtest.getCompositeResult());
+		result.setIndividualResults(backtest.getIndividualResults());
+		for (Map.Entry<String, BacktestResult> entry : backtest.getIndividualResults().entrySet()) {
+			System.out.printf("  ✅ %s: 收益率=%.2f%%, 夏普=%.2f%n", entry.getKey(), entry.getValue().getTotalReturn(),
+					entry.getValue().getSharpeRatio());
+		}
+
+		result.calculateCompositeMetrics(strategies);
+
+		System.out.println("✅ 策略组合回测完成!");
+		return result;
+	}
+
+	private MultiStrategyBacktest runMultiStrategyBacktest(boolean individualOnly) {
+		MultiStrategyBacktest backtest = new MultiStrategyBacktest(dataFeed, createBacktestConfig());
+		backtest.setIndividualOnly(individualOnly);
+		for (StrategyAllocation allocation : strategies.values()) {
+			backtest.addStrategy(allocation.getName(), allocation.getStrategy(), allocation.getWeight());
+		}
+		backtest.run();
+		return backtest;
+	}
+
 	/**
 	 * 执行单个策略回测
 	 */
@@ -121,10 +155,14 @@ public class StrategyCompositeManager {
 		WeightOptimizationResult result = new WeightOptimizationResult();
 		Map<String, BacktestResult> individualResults = new HashMap<>();
 
-		// 先获取各策略单独表现
-		for (StrategyAllocation allocation : strategies.values()) {
-			BacktestResult strategyResult = runIndividualStrategy(allocation.getStrategy());
-			individualResults.put(allocation.getName(), strategyResult);
+		// 先获取各策略单独表现（单遍模式下各子账户也使用全部资金，不受当前权重影响）
+		if (compositeConfig.isSinglePass()) {
+			individualResults.putAll(runMultiStrategyBacktest(true).getIndividualResults());
+		} else {
+			for (StrategyAllocation allocation : strategies.values()) {
+				BacktestResult strategyResult = runIndividualStrategy(allocation.getStrategy());
+				individualResults.put(allocation.getName(), strategyResult);
+			}
 		}
 
 		// 使用不同的权重优化方法
@@ -293,6 +331,7 @@ public class StrategyCompositeManager {
 		private double maxSingleStrategyWeight = 0.5; // 单策略最大权重50%
 		private boolean enableDynamicRebalancing = true;
 		private int rebalancingFrequency = 30; // 30天再平衡
+		private boolean singlePass = true; // 单遍回测（子账户 + 轧差主账户），false 时逐个策略回测并按信号合并器回测组合
 
 		public enum WeightOptimizationMethod {
 			EQUAL_WEIGHT, RISK_PARITY, MARKOWITZ, CUSTOM
@@ -330,6 +369,14 @@ public class StrategyCompositeManager {
 		public void setRebalancingFrequency(int rebalancingFrequency) {
 			this.rebalancingFrequency = rebalancingFrequency;
 		}
+
+		public boolean isSinglePass() {
+			return singlePass;
+		}
+
+		public void setSinglePass(boolean singlePass) {
+			this.singlePass = singlePass;
+		}
 	}
 
 	/**
@@ -361,6 +408,8 @@ public class StrategyCompositeManager {
 					if (this.portfolio != null) {
 						allocation.getStrategy().setPortfolio(this.portfolio);
 					}
+					// 子策略共享组合的指标计算图，相同指标每根K线只计算一次
+					allocation.getStrategy().setIndicatorGraph(getIndicatorGraph());
 
 					allocation.getStrategy().initialize();
 					strategySignals.put(allocation.getName(), new ArrayList<>());
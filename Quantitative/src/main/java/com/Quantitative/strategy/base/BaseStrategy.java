@@ -1,21 +1,39 @@
 package com.Quantitative.strategy.base;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.slf4j.Logger;
+
 import com.Quantitative.common.cache.UnifiedCacheManager;
+import com.Quantitative.common.utils.LogUtils;
 import com.Quantitative.core.events.BarEvent;
 import com.Quantitative.core.events.SignalEvent;
 import com.Quantitative.core.interfaces.TradingComponent;
 import com.Quantitative.data.DataFeed;
 import com.Quantitative.portfolio.Portfolio;
+import com.Quantitative.strategy.graph.IndicatorColumns;
+import com.Quantitative.strategy.graph.IndicatorGraph;
+import com.Quantitative.strategy.graph.IndicatorRef;
+import com.Quantitative.strategy.graph.IndicatorSpec;
 
 /**
  * 优化后的策略基类 - 使用统一缓存
  */
 public abstract class BaseStrategy implements TradingComponent {
+	private static final Logger logger = LogUtils.getLogger(BaseStrategy.class);
+
 	protected String name;
 	protected DataFeed dataFeed;
 	protected Portfolio portfolio;
@@ -30,6 +48,20 @@ public abstract class BaseStrategy implements TradingComponent {
 	protected boolean debugMode = false;
 	protected String status = "CREATED";
 
+	// 指标计算图，组合策略与子策略、同一引擎内的策略共享；只有自己创建的计算图才由 reset() 清除
+	private IndicatorGraph indicatorGraph;
+	private boolean ownsIndicatorGraph;
+
+	// 混合模式：initialize() 时对已加载数据预计算声明过的指标，逐根K线按序号读取
+	private boolean precomputeIndicators = false;
+	private final Map<String, IndicatorSpec> declaredIndicators = new LinkedHashMap<>();
+	private IndicatorColumns indicatorColumns;
+	private int barIndex = -1;
+
+	// 从快照恢复：不晚于快照时间的K线忽略，initialize() 后重新应用快照
+	private StrategySnapshot restoredSnapshot;
+	private LocalDateTime restoredUntil;
+
 	public BaseStrategy(String name) {
 		this.name = name;
 		this.parameters = new HashMap<>();
@@ -46,6 +78,12 @@ public abstract class BaseStrategy implements TradingComponent {
 			System.out.println("初始化策略: " + name);
 			preloadData();
 			init();
+			if (restoredSnapshot != null) {
+				applySnapshot(restoredSnapshot);
+			}
+			if (precomputeIndicators) {
+				precomputeIndicatorColumns();
+			}
 			initialized = true;
 			status = "INITIALIZED";
 
@@ -70,6 +108,9 @@ public abstract class BaseStrategy implements TradingComponent {
 			if (config.containsKey("cacheEnabled")) {
 				this.cacheEnabled = (Boolean) config.get("cacheEnabled");
 			}
+			if (config.containsKey("precomputeIndicators")) {
+				this.precomputeIndicators = (Boolean) config.get("precomputeIndicators");
+			}
 		}
 	}
 
@@ -89,6 +130,13 @@ public abstract class BaseStrategy implements TradingComponent {
 		this.historicalData.clear();
 		this.currentBar = null;
 		this.initialized = false;
+		this.indicatorColumns = null;
+		this.barIndex = -1;
+		this.restoredSnapshot = null;
+		this.restoredUntil = null;
+		if (indicatorGraph != null && ownsIndicatorGraph) {
+			indicatorGraph.reset();
+		}
 		this.status = "RESET";
 
 		// 清理策略相关缓存
@@ -107,7 +155,29 @@ public abstract class BaseStrategy implements TradingComponent {
 	 * 处理K线数据的主方法
 	 */
 	public List<SignalEvent> onBar(BarEvent bar) {
+		if (restoredUntil != null) {
+			if (!bar.getTimestamp().isAfter(restoredUntil)) {
+				// 快照已包含该K线
+				return new ArrayList<>();
+			}
+			restoredUntil = null;
+		}
 		this.currentBar = bar;
+		if (indicatorColumns != null) {
+			int index = indicatorColumns.indexOf(bar, barIndex + 1);
+			if (index < 0) {
+				logger.warn("[指标预计算] {} {} 不在预加载数据范围内，回放此前的K线后改为逐根计算", bar.getSymbol(),
+						bar.getTimestamp());
+				replayIntoGraph(bar.getTimestamp());
+				indicatorColumns = null;
+				barIndex = -1;
+			} else {
+				barIndex = index;
+			}
+		}
+		if (indicatorColumns == null && indicatorGraph != null) {
+			indicatorGraph.onBar(bar);
+		}
 		List<SignalEvent> signals = new ArrayList<>();
 		calculateSignals(bar, signals);
 		return signals;
@@ -146,6 +216,18 @@ public abstract class BaseStrategy implements TradingComponent {
 		setParameter("cacheEnabled", cacheEnabled);
 	}
 
+	/**
+	 * 启用混合模式：initialize() 时预计算已声明指标的整列，需在 initialize() 之前设置
+	 */
+	public void setPrecomputeIndicators(boolean precomputeIndicators) {
+		this.precomputeIndicators = precomputeIndicators;
+		setParameter("precomputeIndicators", precomputeIndicators);
+	}
+
+	public boolean isPrecomputeIndicators() {
+		return precomputeIndicators;
+	}
+
 	public DataFeed getDataFeed() {
 		return this.dataFeed;
 	}
@@ -162,6 +244,209 @@ public abstract class BaseStrategy implements TradingComponent {
 		this.portfolio = portfolio;
 	}
 
+	/**
+	 * 设置共享的指标计算图，需在策略声明指标之前设置；共享的计算图由设置方（引擎、组合策略）负责重置
+	 */
+	public void setIndicatorGraph(IndicatorGraph indicatorGraph) {
+		this.indicatorGraph = indicatorGraph;
+		this.ownsIndicatorGraph = false;
+		if (restoredSnapshot != null && indicatorGraph != null) {
+			readGraphState(restoredSnapshot);
+		}
+	}
+
+	/**
+	 * 指标计算图，未设置时创建策略自己的计算图
+	 */
+	public IndicatorGraph getIndicatorGraph() {
+		if (indicatorGraph == null) {
+			indicatorGraph = new IndicatorGraph();
+			ownsIndicatorGraph = true;
+		}
+		return indicatorGraph;
+	}
+
+	// ==================== 指标计算图 ====================
+
+	/**
+	 * 声明需要的指标，相同指标在计算图中只计算一次
+	 */
+	protected IndicatorRef indicator(IndicatorSpec spec) {
+		declaredIndicators.put(spec.getKey(), spec);
+		return getIndicatorGraph().register(spec);
+	}
+
+	/**
+	 * 已声明的指标在当前计算图中是否仍有效（计算图被替换后需重新声明）
+	 */
+	protected boolean isIndicatorValid(IndicatorRef ref) {
+		return ref != null && ref.belongsTo(indicatorGraph);
+	}
+
+	/**
+	 * 读取指标在该股票最新K线上的值，数据不足时为 NaN
+	 */
+	protected double indicatorValue(IndicatorRef ref, String symbol) {
+		if (indicatorColumns != null && barIndex >= 0) {
+			if (currentBar.getSymbol().equals(symbol)) {
+				return indicatorAt(ref, barIndex);
+			}
+			// 其他股票取不晚于当前K线的最近一根
+			int index = indicatorColumns.lastIndexOf(symbol, barIndex);
+			return index >= 0 ? indicatorAt(ref, index) : Double.NaN;
+		}
+		IndicatorGraph graph = getIndicatorGraph();
+		if (currentBar != null) {
+			// 计算图在本根K线之后才创建时补上本根K线，已处理过则直接返回
+			graph.onBar(currentBar);
+		}
+		return graph.value(ref, symbol);
+	}
+
+	/**
+	 * 按K线序号读取预计算的指标值（混合模式），只能读取当前及之前的K线
+	 *
+	 * @throws IllegalStateException 未启用预计算，或读取当前K线之后的序号（前视偏差）
+	 */
+	protected double indicatorAt(IndicatorRef ref, int index) {
+		if (indicatorColumns == null) {
+			throw new IllegalStateException("未启用指标预计算: " + name);
+		}
+		if (index > barIndex) {
+			throw new IllegalStateException(String.format("前视偏差: 处理第 %d 根K线时读取第 %d 根K线的指标 %s", barIndex, index,
+					ref.getKey()));
+		}
+		IndicatorSpec spec = declaredIndicators.get(ref.getKey());
+		if (spec == null) {
+			throw new IllegalArgumentException("指标未声明: " + ref.getKey());
+		}
+		return indicatorColumns.column(spec)[index];
+	}
+
+	/**
+	 * 当前K线在预加载数据中的序号，未启用预计算或不在范围内时为 -1
+	 */
+	protected int currentBarIndex() {
+		return indicatorColumns != null ? barIndex : -1;
+	}
+
+	/**
+	 * 把预加载数据中早于 until 的K线按序补入计算图，计算图已处理过的K线跳过，使切换后的指标不必重新预热
+	 */
+	private void replayIntoGraph(LocalDateTime until) {
+		IndicatorGraph graph = getIndicatorGraph();
+		for (int i = 0; i < indicatorColumns.size(); i++) {
+			BarEvent bar = indicatorColumns.getBar(i);
+			if (!bar.getTimestamp().isBefore(until)) {
+				break;
+			}
+			LocalDateTime lastTime = graph.getLastBarTime(bar.getSymbol());
+			if (lastTime == null || bar.getTimestamp().isAfter(lastTime)) {
+				graph.onBar(bar);
+			}
+		}
+	}
+
+	/**
+	 * 并行预计算已声明指标在全部已加载数据上的值
+	 */
+	private void precomputeIndicatorColumns() {
+		if (historicalData == null || historicalData.isEmpty()) {
+			System.out.println("[指标预计算] 无预加载数据，改为逐根计算");
+			return;
+		}
+		long startTime = System.nanoTime();
+		indicatorColumns = new IndicatorColumns(historicalData);
+		indicatorColumns.computeAll(declaredIndicators.values());
+		barIndex = -1;
+		System.out.printf("[指标预计算] %d 个指标 x %d 条数据，耗时: %.3fms%n", indicatorColumns.getColumnCount(),
+				indicatorColumns.size(), (System.nanoTime() - startTime) / 1_000_000.0);
+	}
+
+	// ==================== 状态快照 ====================
+
+	/**
+	 * 是否支持状态快照，子类实现 {@link #writeState} / {@link #readState} 后返回 true
+	 */
+	public boolean supportsSnapshot() {
+		return false;
+	}
+
+	/**
+	 * 导出当前滚动状态（策略状态 + 指标计算图状态），以最后处理的K线时间标记
+	 */
+	public StrategySnapshot snapshot() {
+		if (!supportsSnapshot()) {
+			throw new UnsupportedOperationException("策略不支持状态快照: " + name);
+		}
+		try {
+			ByteArrayOutputStream state = new ByteArrayOutputStream();
+			DataOutputStream stateOut = new DataOutputStream(state);
+			writeState(stateOut);
+			stateOut.flush();
+
+			ByteArrayOutputStream graphState = new ByteArrayOutputStream();
+			DataOutputStream graphOut = new DataOutputStream(graphState);
+			getIndicatorGraph().writeState(graphOut);
+			graphOut.flush();
+
+			LocalDateTime lastBarTime = currentBar != null ? currentBar.getTimestamp() : restoredUntil;
+			return new StrategySnapshot(getClass().getName(), name, lastBarTime, state.toByteArray(),
+					graphState.toByteArray());
+		} catch (IOException e) {
+			throw new IllegalStateException("导出策略状态失败: " + name, e);
+		}
+	}
+
+	/**
+	 * 从快照恢复滚动状态，之后不晚于快照时间的K线会被忽略
+	 *
+	 * 可在 initialize() 之前或之后调用；之后再调用 initialize() 时会在 init() 之后重新应用快照。
+	 */
+	public void restore(StrategySnapshot snapshot) {
+		if (!supportsSnapshot()) {
+			throw new UnsupportedOperationException("策略不支持状态快照: " + name);
+		}
+		if (!getClass().getName().equals(snapshot.getStrategyClass())) {
+			throw new IllegalArgumentException(
+					String.format("快照策略类型不匹配: %s != %s", snapshot.getStrategyClass(), getClass().getName()));
+		}
+		applySnapshot(snapshot);
+		readGraphState(snapshot);
+		this.restoredSnapshot = snapshot;
+		this.restoredUntil = snapshot.getLastBarTime();
+		this.currentBar = null;
+		System.out.printf("[状态快照] %s 已恢复至 %s (%d 字节)%n", name, snapshot.getLastBarTime(), snapshot.getSize());
+	}
+
+	/**
+	 * 写出策略自身的滚动状态，支持快照的子类覆盖
+	 */
+	protected void writeState(DataOutput out) throws IOException {
+	}
+
+	/**
+	 * 读取由 {@link #writeState} 写出的状态
+	 */
+	protected void readState(DataInput in) throws IOException {
+	}
+
+	private void applySnapshot(StrategySnapshot snapshot) {
+		try {
+			readState(new DataInputStream(new ByteArrayInputStream(snapshot.getState())));
+		} catch (IOException e) {
+			throw new IllegalStateException("恢复策略状态失败: " + name, e);
+		}
+	}
+
+	private void readGraphState(StrategySnapshot snapshot) {
+		try {
+			getIndicatorGraph().readState(new DataInputStream(new ByteArrayInputStream(snapshot.getGraphState())));
+		} catch (IOException e) {
+			throw new IllegalStateException("恢复指标状态失败: " + name, e);
+		}
+	}
+
 	// ==================== 工具方法 ====================
 
 	/**
@@ -0,0 +1,113 @@
+package com.Quantitative.strategy.base;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.Quantitative.BaseTest;
+import com.Quantitative.all.Test.TestDataGenerator;
+import com.Quantitative.core.events.BarEvent;
+import com.Quantitative.core.events.SignalEvent;
+import com.Quantitative.strategy.graph.IndicatorRef;
+import com.Quantitative.strategy.graph.Indicators;
+
+/**
+ * 策略基类测试 - 指标预计算（混合模式）
+ */
+public class BaseStrategyTest extends BaseTest {
+
+	private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 15, 0);
+
+	@Test
+	public void testIndicatorAtRejectsLookAhead() {
+		List<BarEvent> bars = TestDataGenerator.randomWalk("600519", START, 30, 100.0, 0.01, 1L);
+		SmaStrategy strategy = new SmaStrategy(bars, true);
+		strategy.initialize();
+
+		for (int i = 0; i < 10; i++) {
+			strategy.onBar(bars.get(i));
+		}
+		assertEquals(9, strategy.currentBarIndex());
+		assertEquals(strategy.indicatorValue(strategy.sma, "600519"), strategy.indicatorAt(strategy.sma, 9), 0.0);
+		try {
+			strategy.indicatorAt(strategy.sma, 10);
+			fail("读取下一根K线的指标应抛出异常");
+		} catch (IllegalStateException e) {
+			assertTrue(e.getMessage().contains("前视偏差"));
+		}
+	}
+
+	@Test
+	public void testFallbackAfterPreloadedRangeKeepsIndicatorsWarm() {
+		List<BarEvent> preloaded = TestDataGenerator.randomWalk("600519", START, 40, 100.0, 0.01, 2L);
+		List<BarEvent> all = new ArrayList<>(preloaded);
+		all.addAll(TestDataGenerator.randomWalk("600519", START.plusDays(40), 20, 100.0, 0.01, 3L));
+
+		SmaStrategy hybrid = new SmaStrategy(preloaded, true);
+		hybrid.initialize();
+		SmaStrategy incremental = new SmaStrategy(preloaded, false);
+		incremental.initialize();
+
+		for (BarEvent bar : all) {
+			hybrid.onBar(bar);
+			incremental.onBar(bar);
+			double expected = incremental.indicatorValue(incremental.sma, "600519");
+			assertEquals(bar.getTimestamp().toString(), expected, hybrid.indicatorValue(hybrid.sma, "600519"), 1e-9);
+		}
+		assertEquals(-1, hybrid.currentBarIndex());
+		assertFalse(Double.isNaN(hybrid.indicatorValue(hybrid.sma, "600519")));
+	}
+
+	@Test
+	public void testOtherSymbolReadsPrecomputedColumn() {
+		List<BarEvent> bars = new ArrayList<>();
+		List<BarEvent> first = TestDataGenerator.randomWalk("600519", START, 30, 100.0, 0.01, 4L);
+		List<BarEvent> second = TestDataGenerator.randomWalk("000001", START, 30, 100.0, 0.01, 5L);
+		for (int i = 0; i < 30; i++) {
+			bars.add(first.get(i));
+			bars.add(second.get(i));
+		}
+
+		SmaStrategy hybrid = new SmaStrategy(bars, true);
+		hybrid.initialize();
+		SmaStrategy incremental = new SmaStrategy(bars, false);
+		incremental.initialize();
+
+		for (BarEvent bar : bars) {
+			hybrid.onBar(bar);
+			incremental.onBar(bar);
+			assertEquals(incremental.indicatorValue(incremental.sma, "000001"),
+					hybrid.indicatorValue(hybrid.sma, "000001"), 1e-9);
+		}
+		assertTrue(hybrid.currentBarIndex() >= 0);
+	}
+
+	/**
+	 * 只声明一个10日均线的测试策略
+	 */
+	private static final class SmaStrategy extends BaseStrategy {
+		IndicatorRef sma;
+
+		SmaStrategy(List<BarEvent> preloaded, boolean precompute) {
+			super("SmaStrategy");
+			this.historicalData = new ArrayList<>(preloaded);
+			setPrecomputeIndicators(precompute);
+		}
+
+		@Override
+		protected void init() {
+			sma = indicator(Indicators.sma(Indicators.close(), 10));
+		}
+
+		@Override
+		protected void calculateSignals(BarEvent bar, List<SignalEvent> signals) {
+		}
+	}
+}
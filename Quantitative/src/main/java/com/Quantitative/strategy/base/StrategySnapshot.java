@@ -0,0 +1,143 @@
+package com.Quantitative.strategy.base;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * 策略状态快照 - 策略滚动状态的紧凑二进制形式
+ *
+ * 记录策略类名、最后处理的K线时间、策略自身状态和指标计算图状态。
+ * 恢复后策略从快照继续，不需要重放预热期的历史数据。
+ */
+public final class StrategySnapshot {
+
+	private static final int MAGIC = 0x51534E50; // "QSNP"
+	private static final short VERSION = 1;
+
+	private final String strategyClass;
+	private final String strategyName;
+	private final LocalDateTime lastBarTime;
+	private final byte[] state;
+	private final byte[] graphState;
+
+	StrategySnapshot(String strategyClass, String strategyName, LocalDateTime lastBarTime, byte[] state,
+			byte[] graphState) {
+		this.strategyClass = strategyClass;
+		this.strategyName = strategyName;
+		this.lastBarTime = lastBarTime;
+		this.state = state;
+		this.graphState = graphState;
+	}
+
+	// ==================== 序列化 ====================
+
+	public byte[] toBytes() {
+		try {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + state.length + graphState.length);
+			DataOutputStream out = new DataOutputStream(bytes);
+			out.writeInt(MAGIC);
+			out.writeShort(VERSION);
+			out.writeUTF(strategyClass);
+			out.writeUTF(strategyName);
+			out.writeBoolean(lastBarTime != null);
+			if (lastBarTime != null) {
+				out.writeLong(lastBarTime.toEpochSecond(ZoneOffset.UTC));
+				out.writeInt(lastBarTime.getNano());
+			}
+			out.writeInt(state.length);
+			out.write(state);
+			out.writeInt(graphState.length);
+			out.write(graphState);
+			out.flush();
+			return bytes.toByteArray();
+		} catch (IOException e) {
+			throw new IllegalStateException("策略快照序列化失败: " + strategyName, e);
+		}
+	}
+
+	public static StrategySnapshot fromBytes(byte[] data) {
+		try {
+			DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+			if (in.readInt() != MAGIC) {
+				throw new IllegalArgumentException("不是策略快照数据");
+			}
+			short version = in.readShort();
+			if (version != VERSION) {
+				throw new IllegalArgumentException("不支持的策略快照版本: " + version);
+			}
+			String strategyClass = in.readUTF();
+			String strategyName = in.readUTF();
+			LocalDateTime lastBarTime = null;
+			if (in.readBoolean()) {
+				long epochSecond = in.readLong();
+				lastBarTime = LocalDateTime.ofEpochSecond(epochSecond, in.readInt(), ZoneOffset.UTC);
+			}
+			byte[] state = new byte[in.readInt()];
+			in.readFully(state);
+			byte[] graphState = new byte[in.readInt()];
+			in.readFully(graphState);
+			return new StrategySnapshot(strategyClass, strategyName, lastBarTime, state, graphState);
+		} catch (IOException e) {
+			throw new IllegalArgumentException("策略快照数据不完整", e);
+		}
+	}
+
+	/**
+	 * 写入文件（先写临时文件再替换，避免中断时留下不完整的快照）
+	 */
+	public void writeTo(Path path) throws IOException {
+		Path parent = path.toAbsolutePath().getParent();
+		if (parent != null) {
+			Files.createDirectories(parent);
+		}
+		Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+		Files.write(temp, toBytes());
+		Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	public static StrategySnapshot readFrom(Path path) throws IOException {
+		return fromBytes(Files.readAllBytes(path));
+	}
+
+	// ==================== 访问 ====================
+
+	public String getStrategyClass() {
+		return strategyClass;
+	}
+
+	public String getStrategyName() {
+		return strategyName;
+	}
+
+	/**
+	 * 快照时最后处理的K线时间，恢复后不晚于该时间的K线会被忽略
+	 */
+	public LocalDateTime getLastBarTime() {
+		return lastBarTime;
+	}
+
+	byte[] getState() {
+		return state;
+	}
+
+	byte[] getGraphState() {
+		return graphState;
+	}
+
+	public int getSize() {
+		return state.length + graphState.length;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("StrategySnapshot[%s, lastBar=%s, %d bytes]", strategyName, lastBarTime, getSize());
+	}
+}
@@ -0,0 +1,142 @@
+package com.Quantitative.strategy.base;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+import com.Quantitative.common.utils.SymbolDictionary;
+
+/**
+ * 按股票编号索引的定长环形缓冲区
+ *
+ * 所有股票的窗口数据存放在同一个 double[] 中（每个股票占 capacity 个连续位置），
+ * 头指针和计数存放在 int[] 中，用于替代 Map&lt;String, List&lt;Double&gt;&gt; 形式的价格历史。
+ * 股票编号来自 {@link com.Quantitative.common.utils.SymbolDictionary}。非线程安全。
+ */
+public class SymbolRingBuffer {
+
+	private final int capacity;
+	private double[] data = new double[0];
+	private int[] head = new int[0];
+	private int[] count = new int[0];
+
+	public SymbolRingBuffer(int capacity) {
+		if (capacity <= 0) {
+			throw new IllegalArgumentException("窗口长度必须大于0: " + capacity);
+		}
+		this.capacity = capacity;
+	}
+
+	/**
+	 * 追加一个值，窗口已满时覆盖最旧的值
+	 */
+	public void add(int id, double value) {
+		ensureCapacity(id);
+		int base = id * capacity;
+		int n = count[id];
+		if (n < capacity) {
+			data[base + (head[id] + n) % capacity] = value;
+			count[id] = n + 1;
+		} else {
+			data[base + head[id]] = value;
+			head[id] = (head[id] + 1) % capacity;
+		}
+	}
+
+	/**
+	 * 第 i 个值，0 为窗口内最旧的值
+	 */
+	public double get(int id, int i) {
+		return data[id * capacity + (head[id] + i) % capacity];
+	}
+
+	/**
+	 * 最新的值
+	 */
+	public double last(int id) {
+		return get(id, count[id] - 1);
+	}
+
+	public int size(int id) {
+		return id >= 0 && id < count.length ? count[id] : 0;
+	}
+
+	public boolean isFull(int id) {
+		return size(id) == capacity;
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * 有数据的股票数量
+	 */
+	public int getSymbolCount() {
+		int symbols = 0;
+		for (int n : count) {
+			if (n > 0) {
+				symbols++;
+			}
+		}
+		return symbols;
+	}
+
+	public void clear(int id) {
+		if (id >= 0 && id < count.length) {
+			count[id] = 0;
+			head[id] = 0;
+		}
+	}
+
+	public void clear() {
+		Arrays.fill(count, 0);
+		Arrays.fill(head, 0);
+	}
+
+	/**
+	 * 按股票代码写出各窗口内容（编号只在进程内有效）
+	 */
+	public void writeTo(DataOutput out) throws IOException {
+		SymbolDictionary dictionary = SymbolDictionary.getInstance();
+		out.writeInt(capacity);
+		out.writeInt(getSymbolCount());
+		for (int id = 0; id < count.length; id++) {
+			if (count[id] > 0) {
+				out.writeUTF(dictionary.symbolOf(id));
+				out.writeInt(count[id]);
+				for (int i = 0; i < count[id]; i++) {
+					out.writeDouble(get(id, i));
+				}
+			}
+		}
+	}
+
+	/**
+	 * 读取由 {@link #writeTo} 写出的内容，替换现有数据；窗口长度变小时只保留最新的值
+	 */
+	public void readFrom(DataInput in) throws IOException {
+		SymbolDictionary dictionary = SymbolDictionary.getInstance();
+		in.readInt();
+		clear();
+		int symbols = in.readInt();
+		for (int s = 0; s < symbols; s++) {
+			int id = dictionary.idOf(in.readUTF());
+			int n = in.readInt();
+			for (int i = 0; i < n; i++) {
+				add(id, in.readDouble());
+			}
+		}
+	}
+
+	private void ensureCapacity(int id) {
+		if (id < count.length) {
+			return;
+		}
+		int symbols = Math.max(id + 1, Math.max(16, count.length * 2));
+		data = Arrays.copyOf(data, symbols * capacity);
+		head = Arrays.copyOf(head, symbols);
+		count = Arrays.copyOf(count, symbols);
+	}
+}
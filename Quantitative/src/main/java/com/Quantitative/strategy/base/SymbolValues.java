@@ -0,0 +1,77 @@
+package com.Quantitative.strategy.base;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+import com.Quantitative.common.utils.SymbolDictionary;
+
+/**
+ * 按股票编号索引的 double 值，未设置时为 NaN。非线程安全。
+ */
+public class SymbolValues {
+
+	private double[] values = new double[0];
+
+	public void set(int id, double value) {
+		if (id >= values.length) {
+			int oldLength = values.length;
+			values = Arrays.copyOf(values, Math.max(id + 1, Math.max(16, oldLength * 2)));
+			Arrays.fill(values, oldLength, values.length, Double.NaN);
+		}
+		values[id] = value;
+	}
+
+	public double get(int id) {
+		return id >= 0 && id < values.length ? values[id] : Double.NaN;
+	}
+
+	public boolean has(int id) {
+		return !Double.isNaN(get(id));
+	}
+
+	/**
+	 * 可索引的编号上界，编号范围为 [0, length)
+	 */
+	public int length() {
+		return values.length;
+	}
+
+	public void clear() {
+		Arrays.fill(values, Double.NaN);
+	}
+
+	/**
+	 * 按股票代码写出已设置的值（编号只在进程内有效）
+	 */
+	public void writeTo(DataOutput out) throws IOException {
+		SymbolDictionary dictionary = SymbolDictionary.getInstance();
+		int n = 0;
+		for (int id = 0; id < values.length; id++) {
+			if (has(id)) {
+				n++;
+			}
+		}
+		out.writeInt(n);
+		for (int id = 0; id < values.length; id++) {
+			if (has(id)) {
+				out.writeUTF(dictionary.symbolOf(id));
+				out.writeDouble(values[id]);
+			}
+		}
+	}
+
+	/**
+	 * 读取由 {@link #writeTo} 写出的值，替换现有数据
+	 */
+	public void readFrom(DataInput in) throws IOException {
+		SymbolDictionary dictionary = SymbolDictionary.getInstance();
+		clear();
+		int n = in.readInt();
+		for (int i = 0; i < n; i++) {
+			int id = dictionary.idOf(in.readUTF());
+			set(id, in.readDouble());
+		}
+	}
+}
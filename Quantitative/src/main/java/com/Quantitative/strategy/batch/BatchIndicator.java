@@ -0,0 +1,68 @@
+package com.Quantitative.strategy.batch;
+
+import java.util.Arrays;
+
+/**
+ * 截面批量指标 - 每个时间点一次性更新全部股票
+ *
+ * 状态按槽位存放在原始类型数组中（结构数组），{@link #update} 只处理 [from, to) 区间内的槽位，
+ * 不同区间互不相交，可由多个线程同时计算；所有区间完成后由引擎调用一次 {@link #advance}。
+ */
+public abstract class BatchIndicator {
+
+	private final String name;
+	protected final int size;
+	protected final double[] values;
+
+	protected BatchIndicator(String name, int size) {
+		this.name = name;
+		this.size = size;
+		this.values = new double[size];
+		Arrays.fill(values, Double.NaN);
+	}
+
+	/**
+	 * 用截面数据更新 [from, to) 区间内的槽位
+	 */
+	protected abstract void update(CrossSection section, int from, int to);
+
+	/**
+	 * 全部槽位更新完成后调用，推进共享的窗口位置
+	 */
+	protected void advance() {
+	}
+
+	/**
+	 * 清除计算状态
+	 */
+	protected void reset() {
+		Arrays.fill(values, Double.NaN);
+	}
+
+	/**
+	 * 槽位上的最新指标值，数据不足时为 NaN
+	 */
+	public double get(int slot) {
+		return values[slot];
+	}
+
+	/**
+	 * 最新指标值的副本，下标为槽位
+	 */
+	public double[] toArray() {
+		return values.clone();
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public String toString() {
+		return name;
+	}
+}
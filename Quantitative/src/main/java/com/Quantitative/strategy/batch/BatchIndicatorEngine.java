@@ -0,0 +1,269 @@
+package com.Quantitative.strategy.batch;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import com.Quantitative.core.events.BarEvent;
+
+/**
+ * 截面批量指标引擎 - 用于全市场选股
+ *
+ * 股票池中的每只股票占一个固定槽位，每个时间点传入一个截面，所有已注册指标一次性更新全部股票，
+ * 替代为每只股票各建一个策略实例逐根K线计算。股票池较大时按槽位分块，通过 fork/join 在多个核心上并行计算，
+ * 每个分块依次计算全部指标，数据在缓存中连续。
+ *
+ * 非线程安全：同一时间只能有一个线程调用 {@link #onCrossSection}。
+ */
+public class BatchIndicatorEngine {
+
+	private static final int DEFAULT_BLOCK_SIZE = 1024;
+
+	private final List<String> symbols;
+	private final Map<String, Integer> slots;
+	private final List<BatchIndicator> indicators = new ArrayList<>();
+	private final CrossSection section;
+
+	private ForkJoinPool pool = ForkJoinPool.commonPool();
+	private int blockSize = DEFAULT_BLOCK_SIZE;
+	private LocalDateTime lastTimestamp;
+	private long steps;
+
+	public BatchIndicatorEngine(Collection<String> universe) {
+		this.symbols = Collections.unmodifiableList(new ArrayList<>(universe));
+		this.slots = new HashMap<>(symbols.size() * 2);
+		for (int i = 0; i < symbols.size(); i++) {
+			if (slots.put(symbols.get(i), i) != null) {
+				throw new IllegalArgumentException("股票池中存在重复代码: " + symbols.get(i));
+			}
+		}
+		this.section = new CrossSection(symbols.size());
+	}
+
+	// ==================== 指标注册 ====================
+
+	public BatchIndicator sma(int period) {
+		return register(BatchIndicators.sma(period, size()));
+	}
+
+	public BatchIndicator ema(int period) {
+		return register(BatchIndicators.ema(period, size()));
+	}
+
+	public BatchIndicator rsi(int period) {
+		return register(BatchIndicators.rsi(period, size()));
+	}
+
+	public BatchIndicator atr(int period) {
+		return register(BatchIndicators.atr(period, size()));
+	}
+
+	/**
+	 * 注册自定义指标，必须在第一个截面之前注册
+	 */
+	public BatchIndicator register(BatchIndicator indicator) {
+		if (indicator.size() != size()) {
+			throw new IllegalArgumentException("指标槽位数与股票池不一致: " + indicator.size() + " != " + size());
+		}
+		if (steps > 0) {
+			throw new IllegalStateException("已开始计算，不能再注册指标: " + indicator.getName());
+		}
+		indicators.add(indicator);
+		return indicator;
+	}
+
+	// ==================== 计算 ====================
+
+	/**
+	 * 输入同一时间点的K线（可只包含部分股票），股票池外的代码忽略
+	 */
+	public void onBars(LocalDateTime timestamp, Collection<BarEvent> bars) {
+		section.clear();
+		for (BarEvent bar : bars) {
+			Integer slot = slots.get(bar.getSymbol());
+			if (slot != null) {
+				section.set(slot, bar);
+			}
+		}
+		section.setTimestamp(timestamp);
+		onCrossSection(section);
+	}
+
+	/**
+	 * 输入一个截面，更新全部指标
+	 */
+	public void onCrossSection(CrossSection crossSection) {
+		if (crossSection.size() != size()) {
+			throw new IllegalArgumentException("截面槽位数与股票池不一致: " + crossSection.size() + " != " + size());
+		}
+		int n = size();
+		if (n <= blockSize || pool.getParallelism() <= 1) {
+			compute(crossSection, 0, n);
+		} else {
+			pool.invoke(new BlockTask(crossSection, 0, n));
+		}
+		for (BatchIndicator indicator : indicators) {
+			indicator.advance();
+		}
+		lastTimestamp = crossSection.getTimestamp();
+		steps++;
+	}
+
+	/**
+	 * 按时间顺序回放各股票的历史K线，直到 until（含，为 null 时回放全部）
+	 *
+	 * @param histories 各股票按时间升序排列的K线
+	 * @return 回放的时间点数量
+	 */
+	public int replay(Map<String, List<BarEvent>> histories, LocalDateTime until) {
+		TreeSet<LocalDateTime> timeline = new TreeSet<>();
+		List<List<BarEvent>> series = new ArrayList<>();
+		for (Map.Entry<String, List<BarEvent>> entry : histories.entrySet()) {
+			if (slots.containsKey(entry.getKey()) && entry.getValue() != null) {
+				series.add(entry.getValue());
+				for (BarEvent bar : entry.getValue()) {
+					timeline.add(bar.getTimestamp());
+				}
+			}
+		}
+
+		int[] cursors = new int[series.size()];
+		List<BarEvent> current = new ArrayList<>(series.size());
+		int count = 0;
+		for (LocalDateTime timestamp : timeline) {
+			if (until != null && timestamp.isAfter(until)) {
+				break;
+			}
+			current.clear();
+			for (int s = 0; s < series.size(); s++) {
+				List<BarEvent> bars = series.get(s);
+				while (cursors[s] < bars.size() && bars.get(cursors[s]).getTimestamp().isBefore(timestamp)) {
+					cursors[s]++;
+				}
+				if (cursors[s] < bars.size() && bars.get(cursors[s]).getTimestamp().equals(timestamp)) {
+					current.add(bars.get(cursors[s]++));
+				}
+			}
+			onBars(timestamp, current);
+			count++;
+		}
+		return count;
+	}
+
+	private void compute(CrossSection crossSection, int from, int to) {
+		for (BatchIndicator indicator : indicators) {
+			indicator.update(crossSection, from, to);
+		}
+	}
+
+	/**
+	 * 按槽位区间二分，区间不超过 blockSize 时直接计算
+	 */
+	private final class BlockTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final CrossSection crossSection;
+		private final int from;
+		private final int to;
+
+		BlockTask(CrossSection crossSection, int from, int to) {
+			this.crossSection = crossSection;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= blockSize) {
+				BatchIndicatorEngine.this.compute(crossSection, from, to);
+				return;
+			}
+			int mid = (from + to) >>> 1;
+			invokeAll(new BlockTask(crossSection, from, mid), new BlockTask(crossSection, mid, to));
+		}
+	}
+
+	// ==================== 查询 ====================
+
+	/**
+	 * 股票的最新指标值，不在股票池或数据不足时为 NaN
+	 */
+	public double value(BatchIndicator indicator, String symbol) {
+		Integer slot = slots.get(symbol);
+		return slot != null ? indicator.get(slot) : Double.NaN;
+	}
+
+	/**
+	 * 全部有效指标值，按股票池顺序
+	 */
+	public Map<String, Double> snapshot(BatchIndicator indicator) {
+		Map<String, Double> result = new LinkedHashMap<>();
+		for (int i = 0; i < symbols.size(); i++) {
+			double value = indicator.get(i);
+			if (!Double.isNaN(value)) {
+				result.put(symbols.get(i), value);
+			}
+		}
+		return result;
+	}
+
+	public int slotOf(String symbol) {
+		Integer slot = slots.get(symbol);
+		return slot != null ? slot : -1;
+	}
+
+	public List<String> getSymbols() {
+		return symbols;
+	}
+
+	public List<BatchIndicator> getIndicators() {
+		return Collections.unmodifiableList(indicators);
+	}
+
+	public int size() {
+		return symbols.size();
+	}
+
+	public LocalDateTime getLastTimestamp() {
+		return lastTimestamp;
+	}
+
+	public long getStepCount() {
+		return steps;
+	}
+
+	// ==================== 配置 ====================
+
+	public void setForkJoinPool(ForkJoinPool pool) {
+		this.pool = pool;
+	}
+
+	/**
+	 * 每个并行分块的槽位数，股票数不超过该值时在调用线程内计算
+	 */
+	public void setBlockSize(int blockSize) {
+		if (blockSize <= 0) {
+			throw new IllegalArgumentException("分块大小必须大于0: " + blockSize);
+		}
+		this.blockSize = blockSize;
+	}
+
+	/**
+	 * 清除全部指标状态，保留已注册的指标
+	 */
+	public void reset() {
+		for (BatchIndicator indicator : indicators) {
+			indicator.reset();
+		}
+		lastTimestamp = null;
+		steps = 0;
+	}
+}
@@ -0,0 +1,219 @@
+package com.Quantitative.strategy.batch;
+
+import java.util.Arrays;
+
+/**
+ * 常用截面批量指标
+ *
+ * 窗口类指标按交易日对齐：某只股票在窗口内任一天缺少数据时，该股票的指标为 NaN，直到缺失日移出窗口。
+ * RSI、ATR 的口径与 BaseStrategy.calculateRSI、ATRStrategy 一致（窗口内简单平均）。
+ */
+public final class BatchIndicators {
+
+	private BatchIndicators() {
+	}
+
+	/**
+	 * 收盘价简单移动平均
+	 */
+	public static BatchIndicator sma(int period, int size) {
+		return new Sma(period, size);
+	}
+
+	/**
+	 * 收盘价指数移动平均，以前 period 个有效值的简单平均作为初值；缺失日保持上一个值
+	 */
+	public static BatchIndicator ema(int period, int size) {
+		return new Ema(period, size);
+	}
+
+	/**
+	 * RSI - 最近 period 个涨跌幅的简单平均
+	 */
+	public static BatchIndicator rsi(int period, int size) {
+		return new Rsi(period, size);
+	}
+
+	/**
+	 * 平均真实波幅
+	 */
+	public static BatchIndicator atr(int period, int size) {
+		return new Atr(period, size);
+	}
+
+	// ==================== 内部实现 ====================
+
+	private static final class Sma extends BatchIndicator {
+		private final RollingWindow window;
+
+		Sma(int period, int size) {
+			super("SMA(" + period + ")", size);
+			this.window = new RollingWindow(period, size);
+		}
+
+		@Override
+		protected void update(CrossSection section, int from, int to) {
+			window.push(section.close, from, to);
+			for (int i = from; i < to; i++) {
+				values[i] = window.mean(i);
+			}
+		}
+
+		@Override
+		protected void advance() {
+			window.advance();
+		}
+
+		@Override
+		protected void reset() {
+			super.reset();
+			window.reset();
+		}
+	}
+
+	private static final class Ema extends BatchIndicator {
+		private final int period;
+		private final double alpha;
+		private final int[] count;
+		private final double[] seed;
+
+		Ema(int period, int size) {
+			super("EMA(" + period + ")", size);
+			if (period <= 0) {
+				throw new IllegalArgumentException("指标周期必须大于0: " + period);
+			}
+			this.period = period;
+			this.alpha = 2.0 / (period + 1);
+			this.count = new int[size];
+			this.seed = new double[size];
+		}
+
+		@Override
+		protected void update(CrossSection section, int from, int to) {
+			double[] close = section.close;
+			for (int i = from; i < to; i++) {
+				double x = close[i];
+				if (x != x) {
+					continue;
+				}
+				int n = ++count[i];
+				if (n < period) {
+					seed[i] += x;
+				} else if (n == period) {
+					values[i] = (seed[i] + x) / period;
+				} else {
+					values[i] += alpha * (x - values[i]);
+				}
+			}
+		}
+
+		@Override
+		protected void reset() {
+			super.reset();
+			Arrays.fill(count, 0);
+			Arrays.fill(seed, 0.0);
+		}
+	}
+
+	private static final class Rsi extends BatchIndicator {
+		private final int period;
+		private final RollingWindow gains;
+		private final RollingWindow losses;
+		private final double[] previous;
+		private final double[] gain;
+		private final double[] loss;
+
+		Rsi(int period, int size) {
+			super("RSI(" + period + ")", size);
+			this.period = period;
+			this.gains = new RollingWindow(period, size);
+			this.losses = new RollingWindow(period, size);
+			this.previous = new double[size];
+			this.gain = new double[size];
+			this.loss = new double[size];
+			Arrays.fill(previous, Double.NaN);
+		}
+
+		@Override
+		protected void update(CrossSection section, int from, int to) {
+			double[] close = section.close;
+			for (int i = from; i < to; i++) {
+				// 任一端缺失时涨跌幅为 NaN
+				double change = close[i] - previous[i];
+				gain[i] = change > 0 ? change : (change == change ? 0.0 : Double.NaN);
+				loss[i] = change < 0 ? -change : (change == change ? 0.0 : Double.NaN);
+				previous[i] = close[i];
+			}
+			gains.push(gain, from, to);
+			losses.push(loss, from, to);
+			for (int i = from; i < to; i++) {
+				if (!gains.isReady(i)) {
+					values[i] = Double.NaN;
+					continue;
+				}
+				double avgGain = gains.sum(i) / period;
+				double avgLoss = losses.sum(i) / period;
+				values[i] = avgLoss == 0 ? 100.0 : 100 - (100 / (1 + avgGain / avgLoss));
+			}
+		}
+
+		@Override
+		protected void advance() {
+			gains.advance();
+			losses.advance();
+		}
+
+		@Override
+		protected void reset() {
+			super.reset();
+			gains.reset();
+			losses.reset();
+			Arrays.fill(previous, Double.NaN);
+		}
+	}
+
+	private static final class Atr extends BatchIndicator {
+		private final RollingWindow window;
+		private final double[] previousClose;
+		private final double[] trueRange;
+
+		Atr(int period, int size) {
+			super("ATR(" + period + ")", size);
+			this.window = new RollingWindow(period, size);
+			this.previousClose = new double[size];
+			this.trueRange = new double[size];
+			Arrays.fill(previousClose, Double.NaN);
+		}
+
+		@Override
+		protected void update(CrossSection section, int from, int to) {
+			double[] high = section.high;
+			double[] low = section.low;
+			double[] close = section.close;
+			for (int i = from; i < to; i++) {
+				double range = high[i] - low[i];
+				double prev = previousClose[i];
+				// 没有前收盘价时真实波幅取当日振幅
+				trueRange[i] = prev != prev ? range
+						: Math.max(range, Math.max(Math.abs(high[i] - prev), Math.abs(low[i] - prev)));
+				previousClose[i] = close[i];
+			}
+			window.push(trueRange, from, to);
+			for (int i = from; i < to; i++) {
+				values[i] = window.mean(i);
+			}
+		}
+
+		@Override
+		protected void advance() {
+			window.advance();
+		}
+
+		@Override
+		protected void reset() {
+			super.reset();
+			window.reset();
+			Arrays.fill(previousClose, Double.NaN);
+		}
+	}
+}
@@ -0,0 +1,80 @@
+package com.Quantitative.strategy.batch;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+import com.Quantitative.core.events.BarEvent;
+
+/**
+ * 截面行情 - 同一时间点全部股票的K线，按槽位存放在连续数组中
+ *
+ * 槽位由 {@link BatchIndicatorEngine} 分配；当天没有K线（停牌、未上市）的槽位为 NaN。
+ */
+public class CrossSection {
+
+	private final int size;
+	private LocalDateTime timestamp;
+
+	final double[] open;
+	final double[] high;
+	final double[] low;
+	final double[] close;
+	final double[] volume;
+
+	public CrossSection(int size) {
+		this.size = size;
+		this.open = new double[size];
+		this.high = new double[size];
+		this.low = new double[size];
+		this.close = new double[size];
+		this.volume = new double[size];
+		clear();
+	}
+
+	/**
+	 * 清空全部槽位（置为 NaN）
+	 */
+	public void clear() {
+		Arrays.fill(open, Double.NaN);
+		Arrays.fill(high, Double.NaN);
+		Arrays.fill(low, Double.NaN);
+		Arrays.fill(close, Double.NaN);
+		Arrays.fill(volume, Double.NaN);
+		timestamp = null;
+	}
+
+	public void set(int slot, BarEvent bar) {
+		set(slot, bar.getOpen(), bar.getHigh(), bar.getLow(), bar.getClose(), bar.getVolume());
+		if (timestamp == null) {
+			timestamp = bar.getTimestamp();
+		}
+	}
+
+	public void set(int slot, double open, double high, double low, double close, double volume) {
+		this.open[slot] = open;
+		this.high[slot] = high;
+		this.low[slot] = low;
+		this.close[slot] = close;
+		this.volume[slot] = volume;
+	}
+
+	public boolean has(int slot) {
+		return !Double.isNaN(close[slot]);
+	}
+
+	public double getClose(int slot) {
+		return close[slot];
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public LocalDateTime getTimestamp() {
+		return timestamp;
+	}
+
+	public void setTimestamp(LocalDateTime timestamp) {
+		this.timestamp = timestamp;
+	}
+}
@@ -0,0 +1,87 @@
+package com.Quantitative.strategy.batch;
+
+import java.util.Arrays;
+
+/**
+ * 按时间对齐的截面滚动窗口
+ *
+ * 窗口按时间优先排列：第 k 行是全部槽位在同一时间点的值（ring[k * size + slot]），
+ * 因此每个时间点的写入和求和更新都是对连续内存的顺序访问，没有分支依赖，便于 JIT 自动向量化。
+ * 缺失值（NaN）不计入和，只有窗口内全部为有效值时才视为就绪。
+ * 滚动和在窗口每绕一圈时按槽位重新求和一次，避免浮点误差累积。
+ */
+final class RollingWindow {
+
+	private final int period;
+	private final int size;
+	private final double[] ring;
+	private final double[] sum;
+	private final int[] valid;
+	private int position;
+
+	RollingWindow(int period, int size) {
+		if (period <= 0) {
+			throw new IllegalArgumentException("指标周期必须大于0: " + period);
+		}
+		this.period = period;
+		this.size = size;
+		this.ring = new double[period * size];
+		this.sum = new double[size];
+		this.valid = new int[size];
+		reset();
+	}
+
+	/**
+	 * 写入当前时间点 [from, to) 区间的值
+	 */
+	void push(double[] input, int from, int to) {
+		int base = position * size;
+		for (int i = from; i < to; i++) {
+			double in = input[i];
+			double out = ring[base + i];
+			ring[base + i] = in;
+			sum[i] += (in == in ? in : 0.0) - (out == out ? out : 0.0);
+			valid[i] += (in == in ? 1 : 0) - (out == out ? 1 : 0);
+		}
+		if (position == period - 1) {
+			resum(from, to);
+		}
+	}
+
+	/**
+	 * 窗口就绪时的平均值，否则为 NaN
+	 */
+	double mean(int slot) {
+		return valid[slot] == period ? sum[slot] / period : Double.NaN;
+	}
+
+	boolean isReady(int slot) {
+		return valid[slot] == period;
+	}
+
+	double sum(int slot) {
+		return sum[slot];
+	}
+
+	void advance() {
+		position = position + 1 == period ? 0 : position + 1;
+	}
+
+	void reset() {
+		Arrays.fill(ring, Double.NaN);
+		Arrays.fill(sum, 0.0);
+		Arrays.fill(valid, 0);
+		position = 0;
+	}
+
+	private void resum(int from, int to) {
+		Arrays.fill(sum, from, to, 0.0);
+		for (int k = 0; k < period; k++) {
+			int base = k * size;
+			for (int i = from; i < to; i++) {
+				double v = ring[base + i];
+				sum[i] += v == v ? v : 0.0;
+			}
+		}
+	}
+}
@@ -41,6 +41,9 @@ public class MeanReversionComposite extends BaseStrategy {
 			rsiStrategy.setPortfolio(portfolio);
 			bbStrategy.setPortfolio(portfolio);
 		}
+		// 子策略共享同一指标计算图，相同指标只计算一次
+		rsiStrategy.setIndicatorGraph(getIndicatorGraph());
+		bbStrategy.setIndicatorGraph(getIndicatorGraph());
 		rsiStrategy.initialize();
 		bbStrategy.initialize();
 	}
@@ -74,6 +74,11 @@ public class MeanReversionComposite1 extends BaseStrategy {
 			cciStrategy.setPortfolio(portfolio);
 		}
 
+		// 子策略共享同一指标计算图，相同指标只计算一次
+		rsiStrategy.setIndicatorGraph(getIndicatorGraph());
+		bbStrategy.setIndicatorGraph(getIndicatorGraph());
+		cciStrategy.setIndicatorGraph(getIndicatorGraph());
+
 		rsiStrategy.initialize();
 		bbStrategy.initialize();
 		cciStrategy.initialize();
@@ -69,6 +69,11 @@ public class MomentumBreakoutComposite extends BaseStrategy {
 			obvStrategy.setPortfolio(portfolio);
 		}
 
+		// 子策略共享同一指标计算图，相同指标只计算一次
+		adxStrategy.setIndicatorGraph(getIndicatorGraph());
+		atrStrategy.setIndicatorGraph(getIndicatorGraph());
+		obvStrategy.setIndicatorGraph(getIndicatorGraph());
+
 		adxStrategy.initialize();
 		atrStrategy.initialize();
 		obvStrategy.initialize();
@@ -7,12 +7,18 @@ import java.util.Map;
 import com.Quantitative.common.utils.TradingLogger;
 import com.Quantitative.core.events.BarEvent;
 import com.Quantitative.core.events.SignalEvent;
+import com.Quantitative.data.resample.BarResamplingEngine;
+import com.Quantitative.data.resample.Timeframe;
 import com.Quantitative.strategy.base.BaseStrategy;
+import com.Quantitative.strategy.graph.IndicatorGraph;
 import com.Quantitative.strategy.indicators.EnhancedRSIStrategy;
 import com.Quantitative.strategy.indicators.MovingAverageStrategy;
 
 /**
  * 多时间框架组合策略 - 日线+小时线双确认 原理：大周期定方向，小周期找入场点，提高胜率
+ *
+ * 大周期K线由 {@link BarResamplingEngine} 从输入的基础K线流实时重采样得到，只在大周期K线完成后才更新趋势，
+ * 不会用到尚未完成的大周期数据。
  */
 public class MultiTimeframeComposite extends BaseStrategy {
 	private EnhancedRSIStrategy dailyRsi;
@@ -23,8 +29,22 @@ public class MultiTimeframeComposite extends BaseStrategy {
 	// 时间框架状态
 	private Map<String, String> trendDirection; // 日线趋势方向
 
+	// 大周期重采样
+	private final Timeframe higherTimeframe;
+	private BarResamplingEngine resamplingEngine;
+	// 外部注入的共享引擎由其所有者清理，重置时只清理自己创建的引擎
+	private boolean ownsResamplingEngine = true;
+	// 大周期K线是另一条序列，大周期子策略共用单独的指标计算图
+	private final IndicatorGraph higherTimeframeGraph = new IndicatorGraph();
+
 	public MultiTimeframeComposite() {
+		this(Timeframe.DAILY);
+	}
+
+	public MultiTimeframeComposite(Timeframe higherTimeframe) {
 		super("多时间框架组合策略");
+		this.higherTimeframe = higherTimeframe;
+		this.resamplingEngine = new BarResamplingEngine();
 		initializeStrategies();
 		setDefaultParameters();
 	}
@@ -32,11 +52,11 @@ public class MultiTimeframeComposite extends BaseStrategy {
 	private void initializeStrategies() {
 		// 日线策略 (大周期)
 		this.dailyRsi = new EnhancedRSIStrategy(14, 70.0, 30.0, 0.02);
-		this.dailyMA = new MovingAverageStrategy(20, 50, 0, 0);
+		this.dailyMA = new MovingAverageStrategy(20, 50);
 
 		// 小时线策略 (小周期)
 		this.hourlyRsi = new EnhancedRSIStrategy(14, 70.0, 30.0, 0.02);
-		this.hourlyMA = new MovingAverageStrategy(10, 20, 0, 0);
+		this.hourlyMA = new MovingAverageStrategy(10, 20);
 
 		this.trendDirection = new HashMap<>();
 	}
@@ -46,6 +66,19 @@ public class MultiTimeframeComposite extends BaseStrategy {
 		setParameter("hourlyWeight", 0.4);
 		setParameter("minTrendConfidence", 0.7);
 		setParameter("useTrendFilter", true);
+		setParameter("higherTimeframe", higherTimeframe.toString());
+	}
+
+	/**
+	 * 共享重采样引擎，多个策略可复用同一份高周期K线缓存
+	 */
+	public void setResamplingEngine(BarResamplingEngine resamplingEngine) {
+		this.resamplingEngine = resamplingEngine;
+		this.ownsResamplingEngine = false;
+	}
+
+	public Timeframe getHigherTimeframe() {
+		return higherTimeframe;
 	}
 
 	@Override
@@ -60,6 +93,12 @@ public class MultiTimeframeComposite extends BaseStrategy {
 			hourlyMA.setDataFeed(dataFeed);
 		}
 
+		// 小周期子策略与本策略共享计算图，大周期子策略共享大周期计算图
+		dailyRsi.setIndicatorGraph(higherTimeframeGraph);
+		dailyMA.setIndicatorGraph(higherTimeframeGraph);
+		hourlyRsi.setIndicatorGraph(getIndicatorGraph());
+		hourlyMA.setIndicatorGraph(getIndicatorGraph());
+
 		dailyRsi.initialize();
 		dailyMA.initialize();
 		hourlyRsi.initialize();
@@ -71,7 +110,7 @@ public class MultiTimeframeComposite extends BaseStrategy {
 		try {
 			String symbol = bar.getSymbol();
 
-			// 更新趋势方向 (模拟多时间框架数据)
+			// 更新趋势方向 (基于重采样得到的大周期K线)
 			updateTrendDirection(symbol, bar);
 
 			// 获取当前趋势
@@ -105,23 +144,26 @@ public class MultiTimeframeComposite extends BaseStrategy {
 	}
 
 	/**
-	 * 更新趋势方向 (模拟多时间框架分析)
+	 * 更新趋势方向 - 只在大周期K线完成时更新
 	 */
 	private void updateTrendDirection(String symbol, BarEvent bar) {
-		// 模拟日线趋势判断
-		List<SignalEvent> dailySignals = dailyMA.onBar(bar);
-		if (!dailySignals.isEmpty()) {
-			SignalEvent dailySignal = dailySignals.get(0);
-			if ("BUY".equals(dailySignal.getSignalType())) {
-				trendDirection.put(symbol, "UPTREND");
-			} else if ("SELL".equals(dailySignal.getSignalType())) {
-				trendDirection.put(symbol, "DOWNTREND");
+		for (BarEvent higherBar : resamplingEngine.onBar(bar, higherTimeframe)) {
+			dailyRsi.onBar(higherBar);
+
+			List<SignalEvent> dailySignals = dailyMA.onBar(higherBar);
+			if (!dailySignals.isEmpty()) {
+				SignalEvent dailySignal = dailySignals.get(0);
+				if ("BUY".equals(dailySignal.getSignalType())) {
+					trendDirection.put(symbol, "UPTREND");
+				} else if ("SELL".equals(dailySignal.getSignalType())) {
+					trendDirection.put(symbol, "DOWNTREND");
+				}
 			}
 		}
 
 		// 如果没有MA信号，使用RSI判断
 		if (!trendDirection.containsKey(symbol)) {
-			Double dailyRsiValue = dailyRsi.getLastRSI();
+			Double dailyRsiValue = dailyRsi.getLastRSI(symbol);
 			if (dailyRsiValue != null) {
 				if (dailyRsiValue > 50) {
 					trendDirection.put(symbol, "UPTREND");
@@ -167,5 +209,8 @@ public class MultiTimeframeComposite extends BaseStrategy {
 		if (hourlyMA != null)
 			hourlyMA.reset();
 		trendDirection.clear();
+		higherTimeframeGraph.reset();
+		if (resamplingEngine != null && ownsResamplingEngine)
+			resamplingEngine.clear();
 	}
 }
\ No newline at end of file
@@ -0,0 +1,90 @@
+package com.Quantitative.strategy.composite;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.Quantitative.BaseTest;
+import com.Quantitative.core.events.BarEvent;
+import com.Quantitative.data.resample.BarResamplingEngine;
+import com.Quantitative.data.resample.Timeframe;
+
+/**
+ * 多时间框架组合策略测试 - 共享重采样引擎
+ */
+public class MultiTimeframeCompositeTest extends BaseTest {
+
+	@Test
+	public void testSharedEngineAggregatesEachBaseBarOnce() {
+		BarResamplingEngine shared = new BarResamplingEngine();
+		MultiTimeframeComposite first = new MultiTimeframeComposite(Timeframe.DAILY);
+		MultiTimeframeComposite second = new MultiTimeframeComposite(Timeframe.DAILY);
+		first.setResamplingEngine(shared);
+		second.setResamplingEngine(shared);
+		first.initialize();
+		second.initialize();
+
+		for (BarEvent bar : hourlyBars(3)) {
+			first.onBar(bar);
+			second.onBar(bar);
+		}
+		List<BarEvent> daily = shared.getCompletedBars("000001", Timeframe.DAILY);
+		assertEquals(2, daily.size());
+		for (BarEvent bar : daily) {
+			assertEquals(4000, bar.getVolume());
+			assertEquals(4000 * 10.0, bar.getTurnover(), 1e-9);
+		}
+	}
+
+	@Test
+	public void testRepeatedBaseBarReturnsSameCompletion() {
+		BarResamplingEngine engine = new BarResamplingEngine();
+		List<BarEvent> bars = hourlyBars(2);
+		for (BarEvent bar : bars.subList(0, 4)) {
+			engine.onBar(bar, Timeframe.DAILY);
+		}
+		// 第二天第一根K线使第一天完成，另一个调用方再次输入同一根K线时也应看到
+		List<BarEvent> completed = engine.onBar(bars.get(4), Timeframe.DAILY);
+		assertEquals(1, completed.size());
+		assertEquals(completed, engine.onBar(bars.get(4), Timeframe.DAILY));
+		engine.onBar(bars.get(5), Timeframe.DAILY);
+		assertTrue(engine.onBar(bars.get(4), Timeframe.DAILY).isEmpty());
+		assertEquals(2000, engine.getPartialBar("000001", Timeframe.DAILY).getVolume());
+	}
+
+	@Test
+	public void testResetKeepsSharedResamplingEngine() {
+		BarResamplingEngine shared = new BarResamplingEngine();
+		for (BarEvent bar : hourlyBars(3)) {
+			shared.onBar(bar, Timeframe.DAILY);
+		}
+		int completed = shared.getCompletedBars("000001", Timeframe.DAILY).size();
+		assertEquals(2, completed);
+
+		MultiTimeframeComposite composite = new MultiTimeframeComposite(Timeframe.DAILY);
+		composite.setResamplingEngine(shared);
+		composite.reset();
+		assertEquals(completed, shared.getCompletedBars("000001", Timeframe.DAILY).size());
+	}
+
+	/**
+	 * 每天 10:00-13:00 四根小时线，每根成交量 1000、成交额 10000
+	 */
+	private static List<BarEvent> hourlyBars(int days) {
+		LocalDateTime start = LocalDateTime.of(2024, 1, 2, 10, 0);
+		List<BarEvent> bars = new ArrayList<>();
+		for (int day = 0; day < days; day++) {
+			for (int hour = 0; hour < 4; hour++) {
+				double price = 10.0 + day + hour * 0.1;
+				bars.add(new BarEvent(start.plusDays(day).plusHours(hour), "000001", price, price, price, price, 1000,
+						10000.0));
+			}
+		}
+		return bars;
+	}
+}
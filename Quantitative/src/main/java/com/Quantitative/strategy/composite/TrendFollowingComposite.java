@@ -40,6 +40,8 @@ public class TrendFollowingComposite extends BaseStrategy {
         if (portfolio != null) {
             maStrategy.setPortfolio(portfolio);
         }
+        // 子策略共享同一指标计算图，相同指标只计算一次
+        maStrategy.setIndicatorGraph(getIndicatorGraph());
         maStrategy.initialize();
     }
 
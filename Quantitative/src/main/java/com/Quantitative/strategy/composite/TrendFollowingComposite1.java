@@ -70,6 +70,11 @@ public class TrendFollowingComposite1 extends BaseStrategy {
 			adxStrategy.setPortfolio(portfolio);
 		}
 
+		// 子策略共享同一指标计算图，相同指标只计算一次
+		macdStrategy.setIndicatorGraph(getIndicatorGraph());
+		maStrategy.setIndicatorGraph(getIndicatorGraph());
+		adxStrategy.setIndicatorGraph(getIndicatorGraph());
+
 		macdStrategy.initialize();
 		maStrategy.initialize();
 		adxStrategy.initialize();
@@ -0,0 +1,139 @@
+package com.Quantitative.strategy.graph;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.Quantitative.core.events.BarEvent;
+
+/**
+ * 预计算指标列 - 对整段已加载K线一次性算出指标，按K线序号读取
+ *
+ * 每个指标用独立的计算图顺序计算一遍，第 i 个值只依赖第 0..i 根K线，与逐根K线计算的结果相同。
+ * 多个指标之间并行计算。读取时的前视检查由调用方（BaseStrategy）负责。
+ */
+public final class IndicatorColumns {
+
+	private final List<BarEvent> bars;
+	private final Map<String, int[]> symbolRows = new HashMap<>(); // 每只股票的K线序号，升序
+	private final Map<String, double[]> columns = new ConcurrentHashMap<>();
+
+	public IndicatorColumns(List<BarEvent> bars) {
+		this.bars = Collections.unmodifiableList(new ArrayList<>(bars));
+		Map<String, List<Integer>> rows = new HashMap<>();
+		for (int i = 0; i < this.bars.size(); i++) {
+			rows.computeIfAbsent(this.bars.get(i).getSymbol(), symbol -> new ArrayList<>()).add(i);
+		}
+		for (Map.Entry<String, List<Integer>> entry : rows.entrySet()) {
+			List<Integer> list = entry.getValue();
+			int[] indexes = new int[list.size()];
+			for (int i = 0; i < indexes.length; i++) {
+				indexes[i] = list.get(i);
+			}
+			symbolRows.put(entry.getKey(), indexes);
+		}
+	}
+
+	/**
+	 * 并行计算一组指标列
+	 */
+	public void computeAll(Collection<IndicatorSpec> specs) {
+		new ArrayList<>(specs).parallelStream().forEach(this::column);
+	}
+
+	/**
+	 * 指标列，未计算时立即计算
+	 */
+	public double[] column(IndicatorSpec spec) {
+		double[] column = columns.get(spec.getKey());
+		if (column == null) {
+			column = compute(spec);
+			columns.putIfAbsent(spec.getKey(), column);
+		}
+		return column;
+	}
+
+	public boolean contains(String key) {
+		return columns.containsKey(key);
+	}
+
+	private double[] compute(IndicatorSpec spec) {
+		IndicatorGraph graph = new IndicatorGraph();
+		IndicatorRef ref = graph.register(spec);
+		double[] column = new double[bars.size()];
+		for (int i = 0; i < column.length; i++) {
+			BarEvent bar = bars.get(i);
+			graph.onBar(bar);
+			column[i] = graph.value(ref, bar.getSymbol());
+		}
+		return column;
+	}
+
+	// ==================== K线定位 ====================
+
+	/**
+	 * 查找K线的序号，先检查 hint 位置（顺序回放时命中），否则按时间二分查找；不在范围内时返回 -1
+	 */
+	public int indexOf(BarEvent bar, int hint) {
+		if (hint >= 0 && hint < bars.size() && matches(bars.get(hint), bar)) {
+			return hint;
+		}
+
+		LocalDateTime timestamp = bar.getTimestamp();
+		int low = 0;
+		int high = bars.size();
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (bars.get(mid).getTimestamp().isBefore(timestamp)) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		for (int i = low; i < bars.size() && bars.get(i).getTimestamp().equals(timestamp); i++) {
+			if (matches(bars.get(i), bar)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * 该股票在 toIndex（含）及之前最近一根K线的序号，没有时返回 -1；在该股票的序号表中二分查找
+	 */
+	public int lastIndexOf(String symbol, int toIndex) {
+		int[] rows = symbolRows.get(symbol);
+		if (rows == null) {
+			return -1;
+		}
+		int position = Arrays.binarySearch(rows, Math.min(toIndex, bars.size() - 1));
+		if (position >= 0) {
+			return rows[position];
+		}
+		position = -position - 2;
+		return position >= 0 ? rows[position] : -1;
+	}
+
+	private static boolean matches(BarEvent candidate, BarEvent bar) {
+		return candidate == bar || (candidate.getTimestamp().equals(bar.getTimestamp())
+				&& candidate.getSymbol().equals(bar.getSymbol()));
+	}
+
+	public BarEvent getBar(int index) {
+		return bars.get(index);
+	}
+
+	public int size() {
+		return bars.size();
+	}
+
+	public int getColumnCount() {
+		return columns.size();
+	}
+}
@@ -0,0 +1,265 @@
+package com.Quantitative.strategy.graph;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.Quantitative.core.events.BarEvent;
+
+/**
+ * 指标计算图 - 同一回测引擎内的策略共享
+ *
+ * 策略通过 {@link #register} 声明需要的指标，相同 key 的指标只注册一次；输入节点先于使用它的节点注册，
+ * 因此注册顺序即依赖顺序。每根K线调用 {@link #onBar}，所有节点按依赖顺序各计算一次，
+ * 同一根K线（同一股票、同一时间）被多个策略重复传入时不会重复计算，即使是不同的 BarEvent 对象。
+ * 策略只能通过 {@link #value} 读取指标值。
+ *
+ * 非线程安全，与回测引擎的事件循环在同一线程使用。
+ */
+public class IndicatorGraph {
+
+	private static final double[] NO_INPUTS = new double[0];
+
+	private final Map<String, IndicatorRef> refsByKey = new HashMap<>();
+	private final List<IndicatorSpec> specs = new ArrayList<>();
+	private final List<int[]> inputIds = new ArrayList<>();
+	private final Map<String, SymbolState> symbols = new HashMap<>();
+
+	private long evaluations;
+
+	// ==================== 注册 ====================
+
+	/**
+	 * 注册指标（连同其输入），已存在相同 key 的指标时直接返回已有句柄
+	 */
+	public IndicatorRef register(IndicatorSpec spec) {
+		IndicatorRef existing = refsByKey.get(spec.getKey());
+		if (existing != null) {
+			return existing;
+		}
+
+		List<IndicatorSpec> inputs = spec.getInputs();
+		int[] ids = new int[inputs.size()];
+		for (int i = 0; i < ids.length; i++) {
+			ids[i] = register(inputs.get(i)).id();
+		}
+
+		IndicatorRef ref = new IndicatorRef(this, specs.size(), spec.getKey());
+		specs.add(spec);
+		inputIds.add(ids);
+		refsByKey.put(spec.getKey(), ref);
+		return ref;
+	}
+
+	public boolean isRegistered(String key) {
+		return refsByKey.containsKey(key);
+	}
+
+	public int getNodeCount() {
+		return specs.size();
+	}
+
+	/**
+	 * 已注册指标的 key，按依赖顺序
+	 */
+	public List<String> getKeys() {
+		List<String> keys = new ArrayList<>(specs.size());
+		for (IndicatorSpec spec : specs) {
+			keys.add(spec.getKey());
+		}
+		return Collections.unmodifiableList(keys);
+	}
+
+	// ==================== 计算 ====================
+
+	/**
+	 * 输入一根K线，按依赖顺序计算该股票的全部指标；与上一根K线时间相同时视为同一根K线，忽略
+	 */
+	public void onBar(BarEvent bar) {
+		SymbolState state = symbolState(bar.getSymbol());
+		if (state.bar != null && state.bar.getTimestamp().equals(bar.getTimestamp())) {
+			return;
+		}
+		state.bar = bar;
+		state.sequence++;
+		for (int id = 0; id < specs.size(); id++) {
+			evaluate(state, id);
+		}
+	}
+
+	/**
+	 * 读取指标在该股票最新K线上的值，数据不足时为 NaN
+	 */
+	public double value(IndicatorRef ref, String symbol) {
+		if (!ref.belongsTo(this)) {
+			throw new IllegalArgumentException("指标不属于当前计算图: " + ref.getKey());
+		}
+		SymbolState state = symbols.get(symbol);
+		if (state == null || state.bar == null) {
+			return Double.NaN;
+		}
+		// 在本根K线计算之后才注册的指标，补算一次
+		return evaluate(state, ref.id());
+	}
+
+	public boolean isReady(IndicatorRef ref, String symbol) {
+		return !Double.isNaN(value(ref, symbol));
+	}
+
+	/**
+	 * 该股票最近一根已计算K线的时间，未计算过时为 null
+	 */
+	public LocalDateTime getLastBarTime(String symbol) {
+		SymbolState state = symbols.get(symbol);
+		return state != null && state.bar != null ? state.bar.getTimestamp() : null;
+	}
+
+	private double evaluate(SymbolState state, int id) {
+		state.ensureCapacity(specs.size());
+		if (state.evaluatedAt[id] == state.sequence) {
+			return state.values[id];
+		}
+
+		int[] ids = inputIds.get(id);
+		double[] inputs = ids.length == 0 ? NO_INPUTS : new double[ids.length];
+		for (int i = 0; i < ids.length; i++) {
+			inputs[i] = evaluate(state, ids[i]);
+		}
+
+		if (state.calculators[id] == null) {
+			state.calculators[id] = newCalculator(state, id);
+		}
+		double value = state.calculators[id].update(state.bar, inputs);
+		state.values[id] = value;
+		state.evaluatedAt[id] = state.sequence;
+		evaluations++;
+		return value;
+	}
+
+	/**
+	 * 创建计算器，有快照恢复的状态时先载入
+	 */
+	private IndicatorSpec.Calculator newCalculator(SymbolState state, int id) {
+		IndicatorSpec spec = specs.get(id);
+		IndicatorSpec.Calculator calculator = spec.newCalculator();
+		byte[] restored = state.restored != null ? state.restored.remove(spec.getKey()) : null;
+		if (restored != null) {
+			try {
+				calculator.readState(new DataInputStream(new ByteArrayInputStream(restored)));
+			} catch (IOException e) {
+				throw new IllegalStateException("恢复指标状态失败: " + spec.getKey(), e);
+			}
+		}
+		return calculator;
+	}
+
+	private SymbolState symbolState(String symbol) {
+		SymbolState state = symbols.get(symbol);
+		if (state == null) {
+			state = new SymbolState();
+			symbols.put(symbol, state);
+		}
+		return state;
+	}
+
+	// ==================== 状态 ====================
+
+	/**
+	 * 清除所有股票的计算状态，保留已注册的指标
+	 */
+	public void reset() {
+		symbols.clear();
+		evaluations = 0;
+	}
+
+	/**
+	 * 写出全部股票的计算状态（按指标 key 记录，恢复时与注册顺序无关）
+	 */
+	public void writeState(DataOutput out) throws IOException {
+		out.writeInt(symbols.size());
+		for (Map.Entry<String, SymbolState> entry : symbols.entrySet()) {
+			SymbolState state = entry.getValue();
+			Map<String, byte[]> calculatorStates = new HashMap<>();
+			if (state.restored != null) {
+				// 恢复后尚未用到的指标原样保留
+				calculatorStates.putAll(state.restored);
+			}
+			for (int id = 0; id < state.calculators.length && id < specs.size(); id++) {
+				if (state.calculators[id] != null) {
+					ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+					state.calculators[id].writeState(new DataOutputStream(bytes));
+					calculatorStates.put(specs.get(id).getKey(), bytes.toByteArray());
+				}
+			}
+
+			out.writeUTF(entry.getKey());
+			out.writeInt(calculatorStates.size());
+			for (Map.Entry<String, byte[]> calculatorState : calculatorStates.entrySet()) {
+				out.writeUTF(calculatorState.getKey());
+				out.writeInt(calculatorState.getValue().length);
+				out.write(calculatorState.getValue());
+			}
+		}
+	}
+
+	/**
+	 * 恢复由 {@link #writeState} 写出的计算状态，只替换快照中出现的股票，共享计算图中其他股票的状态不变
+	 *
+	 * 计算器在首次用到时才载入对应状态，因此恢复后才注册的指标同样有效。
+	 */
+	public void readState(DataInput in) throws IOException {
+		int symbolCount = in.readInt();
+		for (int i = 0; i < symbolCount; i++) {
+			String symbol = in.readUTF();
+			int calculatorCount = in.readInt();
+			SymbolState state = new SymbolState();
+			state.restored = new HashMap<>();
+			for (int j = 0; j < calculatorCount; j++) {
+				String key = in.readUTF();
+				byte[] bytes = new byte[in.readInt()];
+				in.readFully(bytes);
+				state.restored.put(key, bytes);
+			}
+			symbols.put(symbol, state);
+		}
+	}
+
+	/**
+	 * 累计节点计算次数（用于确认去重效果）
+	 */
+	public long getEvaluationCount() {
+		return evaluations;
+	}
+
+	/**
+	 * 单个股票的计算状态
+	 */
+	private static final class SymbolState {
+		BarEvent bar;
+		long sequence;
+		IndicatorSpec.Calculator[] calculators = new IndicatorSpec.Calculator[8];
+		double[] values = new double[8];
+		long[] evaluatedAt = new long[8];
+		Map<String, byte[]> restored;
+
+		void ensureCapacity(int size) {
+			if (size > calculators.length) {
+				int newSize = Math.max(size, calculators.length * 2);
+				calculators = Arrays.copyOf(calculators, newSize);
+				values = Arrays.copyOf(values, newSize);
+				evaluatedAt = Arrays.copyOf(evaluatedAt, newSize);
+			}
+		}
+	}
+}
@@ -0,0 +1,185 @@
+package com.Quantitative.strategy.graph;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.Quantitative.BaseTest;
+import com.Quantitative.all.Test.TestDataGenerator;
+import com.Quantitative.core.events.BarEvent;
+import com.Quantitative.core.events.SignalEvent;
+import com.Quantitative.strategy.base.BaseStrategy;
+import com.Quantitative.strategy.base.StrategySnapshot;
+import com.Quantitative.strategy.indicators.MovingAverageStrategy;
+
+/**
+ * 指标计算图测试 - 去重、共享计算图的重置与状态快照、预计算列的K线定位
+ */
+public class IndicatorGraphTest extends BaseTest {
+
+	private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 15, 0);
+
+	@Test
+	public void testSameTimestampIsEvaluatedOnce() {
+		IndicatorGraph graph = new IndicatorGraph();
+		IndicatorRef sma = graph.register(Indicators.sma(Indicators.close(), 3));
+
+		for (int i = 0; i < 5; i++) {
+			graph.onBar(bar("600519", i, 10.0 + i));
+			// 另一个策略传入的同一根K线（不同对象）
+			graph.onBar(bar("600519", i, 10.0 + i));
+		}
+		assertEquals(5 * graph.getNodeCount(), graph.getEvaluationCount());
+		assertEquals(13.0, graph.value(sma, "600519"), 1e-9);
+	}
+
+	@Test
+	public void testStrategyResetKeepsSharedGraphState() {
+		IndicatorGraph shared = new IndicatorGraph();
+		SmaStrategy first = new SmaStrategy();
+		SmaStrategy second = new SmaStrategy();
+		first.setIndicatorGraph(shared);
+		second.setIndicatorGraph(shared);
+		first.initialize();
+		second.initialize();
+
+		for (int i = 0; i < 5; i++) {
+			BarEvent bar = bar("600519", i, 10.0 + i);
+			first.onBar(bar);
+			second.onBar(bar);
+		}
+		first.reset();
+		assertEquals(13.0, second.sma(), 1e-9);
+
+		// 自己创建的计算图随策略重置
+		SmaStrategy standalone = new SmaStrategy();
+		standalone.initialize();
+		for (int i = 0; i < 5; i++) {
+			standalone.onBar(bar("600519", i, 10.0 + i));
+		}
+		assertTrue(standalone.getIndicatorGraph().isReady(standalone.ref, "600519"));
+		standalone.reset();
+		assertFalse(standalone.getIndicatorGraph().isReady(standalone.ref, "600519"));
+	}
+
+	@Test
+	public void testSnapshotRestoreContinuesLikeUninterruptedRun() {
+		List<BarEvent> bars = TestDataGenerator.randomWalk("600519", START, 200, 100.0, 0.02, 11L);
+
+		MovingAverageStrategy uninterrupted = new MovingAverageStrategy(5, 20);
+		uninterrupted.initialize();
+		List<String> expected = new ArrayList<>();
+		MovingAverageStrategy first = new MovingAverageStrategy(5, 20);
+		first.initialize();
+		for (int i = 0; i < 100; i++) {
+			signals(uninterrupted, bars.get(i));
+			first.onBar(bars.get(i));
+		}
+		StrategySnapshot snapshot = first.snapshot();
+		for (int i = 100; i < bars.size(); i++) {
+			expected.addAll(signals(uninterrupted, bars.get(i)));
+		}
+		assertFalse("测试序列应产生信号", expected.isEmpty());
+
+		// 新实例恢复快照，从重叠的K线开始回放
+		MovingAverageStrategy restored = new MovingAverageStrategy(5, 20);
+		restored.initialize();
+		restored.restore(snapshot);
+		List<String> actual = new ArrayList<>();
+		for (int i = 90; i < bars.size(); i++) {
+			actual.addAll(signals(restored, bars.get(i)));
+		}
+		assertEquals(expected, actual);
+	}
+
+	@Test
+	public void testRestoreKeepsOtherSymbolsInSharedGraph() {
+		IndicatorGraph shared = new IndicatorGraph();
+		IndicatorRef sma = shared.register(Indicators.sma(Indicators.close(), 3));
+		for (int i = 0; i < 5; i++) {
+			shared.onBar(bar("000001", i, 20.0 + i));
+		}
+
+		MovingAverageStrategy source = new MovingAverageStrategy(3, 5);
+		source.initialize();
+		for (BarEvent bar : TestDataGenerator.randomWalk("600519", START, 30, 100.0, 0.02, 12L)) {
+			source.onBar(bar);
+		}
+		MovingAverageStrategy restored = new MovingAverageStrategy(3, 5);
+		restored.setIndicatorGraph(shared);
+		restored.initialize();
+		restored.restore(source.snapshot());
+
+		assertEquals(23.0, shared.value(sma, "000001"), 1e-9);
+		shared.onBar(bar("000001", 5, 25.0));
+		assertEquals(24.0, shared.value(sma, "000001"), 1e-9);
+	}
+
+	@Test
+	public void testColumnsLastIndexOfMatchesScan() {
+		// 三只股票不规则交错，其中一只只在中段出现
+		List<BarEvent> bars = new ArrayList<>();
+		String[] pattern = { "600519", "000001", "600519", "600519", "300750", "000001", "600519", "300750",
+				"000001", "000001" };
+		for (int i = 0; i < 200; i++) {
+			String symbol = pattern[(i * 7 + i / 3) % pattern.length];
+			if (symbol.equals("300750") && (i < 50 || i > 120)) {
+				symbol = "600519";
+			}
+			bars.add(bar(symbol, i, 10.0 + i));
+		}
+		IndicatorColumns columns = new IndicatorColumns(bars);
+
+		for (String symbol : new String[] { "600519", "000001", "300750", "999999" }) {
+			for (int toIndex = -1; toIndex <= bars.size() + 1; toIndex++) {
+				int expected = -1;
+				for (int i = Math.min(toIndex, bars.size() - 1); i >= 0; i--) {
+					if (bars.get(i).getSymbol().equals(symbol)) {
+						expected = i;
+						break;
+					}
+				}
+				assertEquals(symbol + " @" + toIndex, expected, columns.lastIndexOf(symbol, toIndex));
+			}
+		}
+	}
+
+	private static List<String> signals(BaseStrategy strategy, BarEvent bar) {
+		List<String> result = new ArrayList<>();
+		for (SignalEvent signal : strategy.onBar(bar)) {
+			result.add(signal.getTimestamp() + " " + signal.getSignalType());
+		}
+		return result;
+	}
+
+	private static BarEvent bar(String symbol, int day, double close) {
+		return new BarEvent(START.plusDays(day), symbol, close, close, close, close, 1000);
+	}
+
+	private static final class SmaStrategy extends BaseStrategy {
+		IndicatorRef ref;
+
+		SmaStrategy() {
+			super("SmaStrategy");
+		}
+
+		@Override
+		protected void init() {
+			ref = indicator(Indicators.sma(Indicators.close(), 3));
+		}
+
+		double sma() {
+			return indicatorValue(ref, "600519");
+		}
+
+		@Override
+		protected void calculateSignals(BarEvent bar, List<SignalEvent> signals) {
+		}
+	}
+}
@@ -0,0 +1,34 @@
+package com.Quantitative.strategy.graph;
+
+/**
+ * 已注册指标的句柄 - 通过 {@link IndicatorGraph#value} 读取指标值
+ */
+public final class IndicatorRef {
+
+	private final IndicatorGraph graph;
+	private final int id;
+	private final String key;
+
+	IndicatorRef(IndicatorGraph graph, int id, String key) {
+		this.graph = graph;
+		this.id = id;
+		this.key = key;
+	}
+
+	int id() {
+		return id;
+	}
+
+	public String getKey() {
+		return key;
+	}
+
+	public boolean belongsTo(IndicatorGraph graph) {
+		return this.graph == graph;
+	}
+
+	@Override
+	public String toString() {
+		return key;
+	}
+}
@@ -0,0 +1,70 @@
+package com.Quantitative.strategy.graph;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import com.Quantitative.core.events.BarEvent;
+
+/**
+ * 指标节点定义 - 描述一个指标及其输入，不持有计算状态
+ *
+ * 同一 key 表示同一指标（如 "RSI(14,CLOSE)"），注册到 {@link IndicatorGraph} 时按 key 去重。
+ * 计算状态由 {@link #newCalculator()} 为每个股票单独创建。
+ */
+public abstract class IndicatorSpec {
+
+	private final String key;
+	private final List<IndicatorSpec> inputs;
+
+	protected IndicatorSpec(String key, IndicatorSpec... inputs) {
+		this.key = key;
+		this.inputs = inputs.length == 0 ? Collections.<IndicatorSpec>emptyList()
+				: Collections.unmodifiableList(Arrays.asList(inputs));
+	}
+
+	public String getKey() {
+		return key;
+	}
+
+	public List<IndicatorSpec> getInputs() {
+		return inputs;
+	}
+
+	/**
+	 * 为单个股票创建计算器
+	 */
+	protected abstract Calculator newCalculator();
+
+	@Override
+	public String toString() {
+		return key;
+	}
+
+	/**
+	 * 单个股票上的增量计算器
+	 */
+	public interface Calculator {
+		/**
+		 * 输入一根K线及各输入节点的当前值（顺序与 getInputs 一致）
+		 *
+		 * @return 当前指标值，数据不足时返回 NaN
+		 */
+		double update(BarEvent bar, double[] inputs);
+
+		/**
+		 * 写出计算状态（用于策略快照）。无状态的计算器不需要覆盖，有状态的计算器不覆盖时恢复后会重新预热
+		 */
+		default void writeState(DataOutput out) throws IOException {
+		}
+
+		/**
+		 * 恢复由 {@link #writeState} 写出的计算状态
+		 */
+		default void readState(DataInput in) throws IOException {
+		}
+	}
+}
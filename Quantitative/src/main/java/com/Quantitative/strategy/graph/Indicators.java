@@ -0,0 +1,330 @@
+package com.Quantitative.strategy.graph;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import com.Quantitative.core.events.BarEvent;
+
+/**
+ * 常用指标定义
+ *
+ * 窗口类指标每根K线按窗口从旧到新重新求和，计算顺序与策略原有的列表实现一致，结果逐位相同。
+ */
+public final class Indicators {
+
+	private Indicators() {
+	}
+
+	// ==================== 价格字段 ====================
+
+	public static IndicatorSpec open() {
+		return new Field("OPEN");
+	}
+
+	public static IndicatorSpec high() {
+		return new Field("HIGH");
+	}
+
+	public static IndicatorSpec low() {
+		return new Field("LOW");
+	}
+
+	public static IndicatorSpec close() {
+		return new Field("CLOSE");
+	}
+
+	public static IndicatorSpec volume() {
+		return new Field("VOLUME");
+	}
+
+	/**
+	 * 典型价格 (H+L+C)/3
+	 */
+	public static IndicatorSpec typicalPrice() {
+		return new Field("TYPICAL");
+	}
+
+	// ==================== 窗口指标 ====================
+
+	/**
+	 * 简单移动平均
+	 */
+	public static IndicatorSpec sma(IndicatorSpec input, final int period) {
+		checkPeriod(period);
+		return new IndicatorSpec("SMA(" + period + "," + input.getKey() + ")", input) {
+			@Override
+			protected Calculator newCalculator() {
+				return new WindowCalculator(period) {
+					@Override
+					protected double compute(Window window) {
+						double sum = 0;
+						for (int i = 0; i < period; i++) {
+							sum += window.get(i);
+						}
+						return sum / period;
+					}
+				};
+			}
+		};
+	}
+
+	/**
+	 * 指数移动平均，以前 period 个值的简单平均作为初值
+	 */
+	public static IndicatorSpec ema(IndicatorSpec input, final int period) {
+		checkPeriod(period);
+		return new IndicatorSpec("EMA(" + period + "," + input.getKey() + ")", input) {
+			@Override
+			protected Calculator newCalculator() {
+				final double alpha = 2.0 / (period + 1);
+				return new Calculator() {
+					private int count;
+					private double seed;
+					private double ema = Double.NaN;
+
+					@Override
+					public double update(BarEvent bar, double[] in) {
+						double x = in[0];
+						if (Double.isNaN(x)) {
+							return ema;
+						}
+						count++;
+						if (count < period) {
+							seed += x;
+							return Double.NaN;
+						}
+						ema = count == period ? (seed + x) / period : ema + alpha * (x - ema);
+						return ema;
+					}
+
+					@Override
+					public void writeState(DataOutput out) throws IOException {
+						out.writeInt(count);
+						out.writeDouble(seed);
+						out.writeDouble(ema);
+					}
+
+					@Override
+					public void readState(DataInput in) throws IOException {
+						count = in.readInt();
+						seed = in.readDouble();
+						ema = in.readDouble();
+					}
+				};
+			}
+		};
+	}
+
+	/**
+	 * RSI - 最近 period 个涨跌幅的简单平均（与 BaseStrategy.calculateRSI 一致）
+	 */
+	public static IndicatorSpec rsi(IndicatorSpec input, final int period) {
+		checkPeriod(period);
+		return new IndicatorSpec("RSI(" + period + "," + input.getKey() + ")", input) {
+			@Override
+			protected Calculator newCalculator() {
+				return new WindowCalculator(period + 1) {
+					@Override
+					protected double compute(Window window) {
+						double totalGain = 0.0;
+						double totalLoss = 0.0;
+						for (int i = 1; i <= period; i++) {
+							double change = window.get(i) - window.get(i - 1);
+							if (change > 0) {
+								totalGain += change;
+							} else {
+								totalLoss -= change;
+							}
+						}
+						double avgGain = totalGain / period;
+						double avgLoss = totalLoss / period;
+						if (avgLoss == 0) {
+							return 100.0;
+						}
+						double rs = avgGain / avgLoss;
+						return 100 - (100 / (1 + rs));
+					}
+				};
+			}
+		};
+	}
+
+	/**
+	 * 总体标准差
+	 */
+	public static IndicatorSpec stdDev(IndicatorSpec input, final int period) {
+		checkPeriod(period);
+		return new IndicatorSpec("STDDEV(" + period + "," + input.getKey() + ")", input) {
+			@Override
+			protected Calculator newCalculator() {
+				return new WindowCalculator(period) {
+					@Override
+					protected double compute(Window window) {
+						double sum = 0;
+						for (int i = 0; i < period; i++) {
+							sum += window.get(i);
+						}
+						double mean = sum / period;
+						double variance = 0;
+						for (int i = 0; i < period; i++) {
+							double d = window.get(i) - mean;
+							variance += d * d;
+						}
+						return Math.sqrt(variance / period);
+					}
+				};
+			}
+		};
+	}
+
+	/**
+	 * 窗口最高值
+	 */
+	public static IndicatorSpec highest(IndicatorSpec input, final int period) {
+		checkPeriod(period);
+		return new IndicatorSpec("MAX(" + period + "," + input.getKey() + ")", input) {
+			@Override
+			protected Calculator newCalculator() {
+				return new WindowCalculator(period) {
+					@Override
+					protected double compute(Window window) {
+						double max = Double.NEGATIVE_INFINITY;
+						for (int i = 0; i < period; i++) {
+							max = Math.max(max, window.get(i));
+						}
+						return max;
+					}
+				};
+			}
+		};
+	}
+
+	/**
+	 * 窗口最低值
+	 */
+	public static IndicatorSpec lowest(IndicatorSpec input, final int period) {
+		checkPeriod(period);
+		return new IndicatorSpec("MIN(" + period + "," + input.getKey() + ")", input) {
+			@Override
+			protected Calculator newCalculator() {
+				return new WindowCalculator(period) {
+					@Override
+					protected double compute(Window window) {
+						double min = Double.POSITIVE_INFINITY;
+						for (int i = 0; i < period; i++) {
+							min = Math.min(min, window.get(i));
+						}
+						return min;
+					}
+				};
+			}
+		};
+	}
+
+	private static void checkPeriod(int period) {
+		if (period <= 0) {
+			throw new IllegalArgumentException("指标周期必须大于0: " + period);
+		}
+	}
+
+	// ==================== 内部实现 ====================
+
+	/**
+	 * K线字段
+	 */
+	private static final class Field extends IndicatorSpec {
+		private final String field;
+
+		Field(String field) {
+			super(field);
+			this.field = field;
+		}
+
+		@Override
+		protected Calculator newCalculator() {
+			switch (field) {
+			case "OPEN":
+				return (bar, in) -> bar.getOpen();
+			case "HIGH":
+				return (bar, in) -> bar.getHigh();
+			case "LOW":
+				return (bar, in) -> bar.getLow();
+			case "VOLUME":
+				return (bar, in) -> bar.getVolume();
+			case "TYPICAL":
+				return (bar, in) -> (bar.getHigh() + bar.getLow() + bar.getClose()) / 3.0;
+			default:
+				return (bar, in) -> bar.getClose();
+			}
+		}
+	}
+
+	/**
+	 * 窗口类指标的计算器，窗口填满后才计算
+	 */
+	private abstract static class WindowCalculator implements IndicatorSpec.Calculator {
+		private final Window window;
+
+		WindowCalculator(int capacity) {
+			this.window = new Window(capacity);
+		}
+
+		@Override
+		public double update(BarEvent bar, double[] in) {
+			window.add(in[0]);
+			return window.isFull() ? compute(window) : Double.NaN;
+		}
+
+		protected abstract double compute(Window window);
+
+		@Override
+		public void writeState(DataOutput out) throws IOException {
+			out.writeInt(window.size);
+			for (int i = 0; i < window.size; i++) {
+				out.writeDouble(window.get(i));
+			}
+		}
+
+		@Override
+		public void readState(DataInput in) throws IOException {
+			int size = in.readInt();
+			window.start = 0;
+			window.size = 0;
+			for (int i = 0; i < size; i++) {
+				window.add(in.readDouble());
+			}
+		}
+	}
+
+	/**
+	 * 定长环形窗口，get(0) 为最旧的值
+	 */
+	private static final class Window {
+		private final double[] data;
+		private int start;
+		private int size;
+
+		Window(int capacity) {
+			this.data = new double[capacity];
+		}
+
+		void add(double value) {
+			if (size < data.length) {
+				data[(start + size) % data.length] = value;
+				size++;
+			} else {
+				data[start] = value;
+				start = (start + 1) % data.length;
+			}
+		}
+
+		boolean isFull() {
+			return size == data.length;
+		}
+
+		double get(int i) {
+			return data[(start + i) % data.length];
+		}
+	}
+}
@@ -1,6 +1,8 @@
 package com.Quantitative.strategy.indicators;
 
-import java.util.ArrayList;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.List;
 
 import com.Quantitative.common.utils.TradingLogger;
@@ -20,13 +22,18 @@ public class ADXStrategy extends BaseStrategy {
 	private double diPlusThreshold;
 	private double diMinusThreshold;
 
-	// 状态跟踪
-	private List<Double> highPrices = new ArrayList<>();
-	private List<Double> lowPrices = new ArrayList<>();
-	private List<Double> closePrices = new ArrayList<>();
-	private List<Double> adxValues = new ArrayList<>();
-	private List<Double> diPlusValues = new ArrayList<>();
-	private List<Double> diMinusValues = new ArrayList<>();
+	// 增量计算状态，每根K线 O(1)
+	private int barCount;
+	private double prevHigh;
+	private double prevLow;
+	private double prevClose;
+	private double prevPlusDM;
+	private double prevMinusDM;
+	private double prevTR;
+	private double smoothedPlusDM;
+	private double smoothedMinusDM;
+	private double smoothedTR;
+	private double adx = Double.NaN;
 
 	private Double lastADX;
 	private Double lastDIPlus;
@@ -79,52 +86,26 @@ public class ADXStrategy extends BaseStrategy {
 				String.format("ADX策略初始化: 周期=%d, ADX阈值=%.1f, +DI阈值=%.1f, -DI阈值=%.1f", adxPeriod, adxThreshold,
 						diPlusThreshold, diMinusThreshold));
 
-		highPrices.clear();
-		lowPrices.clear();
-		closePrices.clear();
-		adxValues.clear();
-		diPlusValues.clear();
-		diMinusValues.clear();
-		lastADX = null;
-		lastDIPlus = null;
-		lastDIMinus = null;
+		resetIndicatorState();
 	}
 
 	@Override
 	protected void calculateSignals(BarEvent bar, List<SignalEvent> signals) {
 		try {
-			// 更新价格数据
-			updatePriceData(bar.getHigh(), bar.getLow(), bar.getClose());
-
-			// 检查是否有足够数据
-			if (!hasEnoughData()) {
-				return;
-			}
-
-			// 计算ADX指标
-			ADXResult adxResult = calculateADX();
+			// 增量更新ADX指标，数据不足时返回null
+			ADXResult adxResult = updateADX(bar.getHigh(), bar.getLow(), bar.getClose());
 			if (adxResult == null) {
 				return;
 			}
 
-			// 更新历史值
-			adxValues.add(adxResult.adx);
-			diPlusValues.add(adxResult.diPlus);
-			diMinusValues.add(adxResult.diMinus);
-
+			Double previousDIPlus = lastDIPlus;
+			Double previousDIMinus = lastDIMinus;
 			lastADX = adxResult.adx;
 			lastDIPlus = adxResult.diPlus;
 			lastDIMinus = adxResult.diMinus;
 
-			// 限制数据大小
-			if (adxValues.size() > adxPeriod * 3) {
-				adxValues.remove(0);
-				diPlusValues.remove(0);
-				diMinusValues.remove(0);
-			}
-
 			// 生成交易信号
-			SignalEvent signal = generateADXSignal(bar, adxResult);
+			SignalEvent signal = generateADXSignal(bar, adxResult, previousDIPlus, previousDIMinus);
 			if (signal != null) {
 				signals.add(signal);
 				TradingLogger.logSignal(getName(), bar.getSymbol(), signal.getSignalType(), signal.getStrength(), String
@@ -169,134 +150,153 @@ public class ADXStrategy extends BaseStrategy {
 	}
 
 	/**
-	 * 计算ADX指标
+	 * 用一根K线增量更新ADX指标
+	 *
+	 * +DM、-DM、TR 在第 2*period 根K线时取最近 period 个值的简单平均，之后取上一根K线的原始值与当前值加权：
+	 * (上一原始值 * (period-1) + 当前值) / period，与原先按价格列表计算的结果一致；
+	 * ADX 以第一个 DX 为初值，按 Wilder 平滑递推。不保存价格历史，只保存上一根K线和平滑状态。
 	 */
-	private ADXResult calculateADX() {
-		int requiredBars = adxPeriod * 2; // ADX需要更多数据
-		if (highPrices.size() < requiredBars) {
+	private ADXResult updateADX(double high, double low, double close) {
+		int index = barCount++;
+		if (index == 0) {
+			prevHigh = high;
+			prevLow = low;
+			prevClose = close;
 			return null;
 		}
 
-		try {
-			// 1. 计算方向运动(Directional Movement)
-			List<Double> plusDM = new ArrayList<>();
-			List<Double> minusDM = new ArrayList<>();
-			List<Double> trueRanges = new ArrayList<>();
-
-			for (int i = 1; i < highPrices.size(); i++) {
-				double upMove = highPrices.get(i) - highPrices.get(i - 1);
-				double downMove = lowPrices.get(i - 1) - lowPrices.get(i);
-
-				// 计算+DM和-DM
-				if (upMove > downMove && upMove > 0) {
-					plusDM.add(upMove);
-					minusDM.add(0.0);
-				} else if (downMove > upMove && downMove > 0) {
-					plusDM.add(0.0);
-					minusDM.add(downMove);
-				} else {
-					plusDM.add(0.0);
-					minusDM.add(0.0);
-				}
-
-				// 计算真实波幅
-				double trueRange = calculateTrueRange(i);
-				trueRanges.add(trueRange);
-			}
-
-			// 2. 计算平滑值（使用Wilder平滑）
-			double smoothedPlusDM = calculateSmoothedValue(plusDM, adxPeriod, trueRanges.size() - adxPeriod);
-			double smoothedMinusDM = calculateSmoothedValue(minusDM, adxPeriod, trueRanges.size() - adxPeriod);
-			double smoothedTR = calculateSmoothedValue(trueRanges, adxPeriod, trueRanges.size() - adxPeriod);
-
-			// 3. 计算方向指标(DI)
-			double diPlus = (smoothedPlusDM / smoothedTR) * 100;
-			double diMinus = (smoothedMinusDM / smoothedTR) * 100;
-
-			// 4. 计算方向指数(DX)
-			double dx = 0.0;
-			if (diPlus + diMinus > 0) {
-				dx = (Math.abs(diPlus - diMinus) / (diPlus + diMinus)) * 100;
+		// 1. 计算方向运动(Directional Movement)和真实波幅
+		double upMove = high - prevHigh;
+		double downMove = prevLow - low;
+		double plusDM = 0.0;
+		double minusDM = 0.0;
+		if (upMove > downMove && upMove > 0) {
+			plusDM = upMove;
+		} else if (downMove > upMove && downMove > 0) {
+			minusDM = downMove;
+		}
+		double trueRange = Math.max(high - low, Math.max(Math.abs(high - prevClose), Math.abs(low - prevClose)));
+
+		prevHigh = high;
+		prevLow = low;
+		prevClose = close;
+
+		// 2. 平滑（预热期累加最近 period 个值作为初值）
+		int warmup = adxPeriod * 2 - 1;
+		if (index < warmup) {
+			if (index >= adxPeriod) {
+				smoothedPlusDM += plusDM;
+				smoothedMinusDM += minusDM;
+				smoothedTR += trueRange;
 			}
-
-			// 5. 计算ADX（DX的平滑值）
-			double adx = calculateSmoothedADX(dx);
-
-			return new ADXResult(adx, diPlus, diMinus);
-
-		} catch (Exception e) {
-			TradingLogger.logSystemError(getName(), "calculateADX", e);
+		} else if (index == warmup) {
+			smoothedPlusDM = (smoothedPlusDM + plusDM) / adxPeriod;
+			smoothedMinusDM = (smoothedMinusDM + minusDM) / adxPeriod;
+			smoothedTR = (smoothedTR + trueRange) / adxPeriod;
+		} else {
+			smoothedPlusDM = wilder(prevPlusDM, plusDM);
+			smoothedMinusDM = wilder(prevMinusDM, minusDM);
+			smoothedTR = wilder(prevTR, trueRange);
+		}
+		prevPlusDM = plusDM;
+		prevMinusDM = minusDM;
+		prevTR = trueRange;
+		if (index < warmup) {
 			return null;
 		}
-	}
 
-	/**
-	 * 计算真实波幅
-	 */
-	private double calculateTrueRange(int index) {
-		double high = highPrices.get(index);
-		double low = lowPrices.get(index);
-		double prevClose = closePrices.get(index - 1);
+		// 3. 计算方向指标(DI)，TR为0时为 NaN，DX 按0处理
+		double diPlus = (smoothedPlusDM / smoothedTR) * 100;
+		double diMinus = (smoothedMinusDM / smoothedTR) * 100;
 
-		double tr1 = high - low;
-		double tr2 = Math.abs(high - prevClose);
-		double tr3 = Math.abs(low - prevClose);
+		// 4. 计算方向指数(DX)
+		double dx = 0.0;
+		if (diPlus + diMinus > 0) {
+			dx = (Math.abs(diPlus - diMinus) / (diPlus + diMinus)) * 100;
+		}
 
-		return Math.max(tr1, Math.max(tr2, tr3));
+		// 5. 计算ADX（DX的平滑值）
+		adx = Double.isNaN(adx) ? dx : wilder(adx, dx);
+
+		return new ADXResult(adx, diPlus, diMinus);
 	}
 
 	/**
-	 * 计算平滑值（Wilder平滑方法）
+	 * 加权平滑：(前值 * (period-1) + 当前值) / period
 	 */
-	private double calculateSmoothedValue(List<Double> values, int period, int startIndex) {
-		if (values.size() < startIndex + period) {
-			return 0.0;
-		}
-
-		// 第一个值是前period个值的简单平均
-		if (adxValues.isEmpty()) {
-			double sum = 0.0;
-			for (int i = startIndex; i < startIndex + period; i++) {
-				sum += values.get(i);
-			}
-			return sum / period;
-		}
+	private double wilder(double previous, double current) {
+		return (previous * (adxPeriod - 1) + current) / adxPeriod;
+	}
 
-		// 后续值使用Wilder平滑：前值 * (period-1) + 当前值) / period
-		double previousValue = getPreviousSmoothedValue(values);
-		double currentValue = values.get(values.size() - 1);
+	// ==================== 状态快照 ====================
 
-		return (previousValue * (period - 1) + currentValue) / period;
+	@Override
+	public boolean supportsSnapshot() {
+		return true;
 	}
 
-	/**
-	 * 获取前一个平滑值
-	 */
-	private double getPreviousSmoothedValue(List<Double> values) {
-		// 简化实现，实际应该维护平滑值历史
-		if (values.size() < 2)
-			return values.get(0);
-		return values.get(values.size() - 2);
+	@Override
+	protected void writeState(DataOutput out) throws IOException {
+		out.writeInt(adxPeriod);
+		out.writeInt(barCount);
+		out.writeDouble(prevHigh);
+		out.writeDouble(prevLow);
+		out.writeDouble(prevClose);
+		out.writeDouble(prevPlusDM);
+		out.writeDouble(prevMinusDM);
+		out.writeDouble(prevTR);
+		out.writeDouble(smoothedPlusDM);
+		out.writeDouble(smoothedMinusDM);
+		out.writeDouble(smoothedTR);
+		out.writeDouble(adx);
+		out.writeDouble(lastDIPlus != null ? lastDIPlus : Double.NaN);
+		out.writeDouble(lastDIMinus != null ? lastDIMinus : Double.NaN);
 	}
 
-	/**
-	 * 计算ADX（DX的平滑值）
-	 */
-	private double calculateSmoothedADX(double currentDX) {
-		if (adxValues.isEmpty()) {
-			// 第一个ADX值是前period个DX值的平均
-			return currentDX; // 简化实现
+	@Override
+	protected void readState(DataInput in) throws IOException {
+		int period = in.readInt();
+		if (period != adxPeriod) {
+			throw new IllegalStateException(String.format("快照ADX周期不匹配: %d != %d", period, adxPeriod));
 		}
-
-		// Wilder平滑：ADX = (前ADX * (period-1) + 当前DX) / period
-		double previousADX = adxValues.get(adxValues.size() - 1);
-		return (previousADX * (adxPeriod - 1) + currentDX) / adxPeriod;
+		barCount = in.readInt();
+		prevHigh = in.readDouble();
+		prevLow = in.readDouble();
+		prevClose = in.readDouble();
+		prevPlusDM = in.readDouble();
+		prevMinusDM = in.readDouble();
+		prevTR = in.readDouble();
+		smoothedPlusDM = in.readDouble();
+		smoothedMinusDM = in.readDouble();
+		smoothedTR = in.readDouble();
+		adx = in.readDouble();
+		lastADX = Double.isNaN(adx) ? null : adx;
+		lastDIPlus = toNullable(in.readDouble());
+		lastDIMinus = toNullable(in.readDouble());
+	}
+
+	private static Double toNullable(double value) {
+		return Double.isNaN(value) ? null : value;
+	}
+
+	private void resetIndicatorState() {
+		barCount = 0;
+		prevPlusDM = 0.0;
+		prevMinusDM = 0.0;
+		prevTR = 0.0;
+		smoothedPlusDM = 0.0;
+		smoothedMinusDM = 0.0;
+		smoothedTR = 0.0;
+		adx = Double.NaN;
+		lastADX = null;
+		lastDIPlus = null;
+		lastDIMinus = null;
 	}
 
 	/**
 	 * 生成ADX交易信号
 	 */
-	private SignalEvent generateADXSignal(BarEvent bar, ADXResult adx) {
+	private SignalEvent generateADXSignal(BarEvent bar, ADXResult adx, Double previousDIPlus, Double previousDIMinus) {
 		boolean hasPosition = portfolio != null && portfolio.hasPosition(bar.getSymbol());
 
 		// 强趋势信号
@@ -319,7 +319,7 @@ public class ADXStrategy extends BaseStrategy {
 
 		// DI交叉信号
 		if (useDICross) {
-			SignalEvent crossSignal = generateDICrossSignal(bar, adx, hasPosition);
+			SignalEvent crossSignal = generateDICrossSignal(bar, adx, previousDIPlus, previousDIMinus, hasPosition);
 			if (crossSignal != null) {
 				return crossSignal;
 			}
@@ -336,14 +336,12 @@ public class ADXStrategy extends BaseStrategy {
 	/**
 	 * 生成DI交叉信号
 	 */
-	private SignalEvent generateDICrossSignal(BarEvent bar, ADXResult adx, boolean hasPosition) {
-		if (diPlusValues.size() < 2 || diMinusValues.size() < 2) {
+	private SignalEvent generateDICrossSignal(BarEvent bar, ADXResult adx, Double previousDIPlus,
+			Double previousDIMinus, boolean hasPosition) {
+		if (previousDIPlus == null || previousDIMinus == null) {
 			return null;
 		}
 
-		double previousDIPlus = diPlusValues.get(diPlusValues.size() - 2);
-		double previousDIMinus = diMinusValues.get(diMinusValues.size() - 2);
-
 		// +DI上穿-DI（金叉）
 		if (!hasPosition && previousDIPlus <= previousDIMinus && adx.diPlus > adx.diMinus) {
 			double strength = calculateCrossStrength(adx);
@@ -415,36 +413,10 @@ public class ADXStrategy extends BaseStrategy {
 		}
 	}
 
-	private void updatePriceData(double high, double low, double close) {
-		highPrices.add(high);
-		lowPrices.add(low);
-		closePrices.add(close);
-
-		// 限制数据大小
-		int maxSize = adxPeriod * 4;
-		if (highPrices.size() > maxSize) {
-			highPrices.remove(0);
-			lowPrices.remove(0);
-			closePrices.remove(0);
-		}
-	}
-
-	private boolean hasEnoughData() {
-		return highPrices.size() >= adxPeriod * 2;
-	}
-
 	@Override
 	public void reset() {
 		super.reset();
-		highPrices.clear();
-		lowPrices.clear();
-		closePrices.clear();
-		adxValues.clear();
-		diPlusValues.clear();
-		diMinusValues.clear();
-		lastADX = null;
-		lastDIPlus = null;
-		lastDIMinus = null;
+		resetIndicatorState();
 	}
 
 	// ==================== Getter和Setter方法 ====================
@@ -455,6 +427,7 @@ public class ADXStrategy extends BaseStrategy {
 
 	public void setAdxPeriod(int adxPeriod) {
 		this.adxPeriod = adxPeriod;
+		resetIndicatorState();
 		setParameter("adxPeriod", adxPeriod);
 	}
 
@@ -0,0 +1,140 @@
+package com.Quantitative.strategy.indicators;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.Quantitative.BaseTest;
+import com.Quantitative.all.Test.TestDataGenerator;
+import com.Quantitative.core.events.BarEvent;
+
+/**
+ * ADX策略测试 - 增量计算与原先按价格列表计算的结果一致
+ */
+public class ADXStrategyTest extends BaseTest {
+
+	@Test
+	public void testIncrementalMatchesListBasedCalculation() {
+		for (int period : new int[] { 5, 14 }) {
+			ADXStrategy strategy = new ADXStrategy();
+			strategy.setAdxPeriod(period);
+			strategy.initialize();
+			ListBasedADX reference = new ListBasedADX(period);
+
+			int outputs = 0;
+			for (BarEvent bar : bars(300, 7L)) {
+				strategy.onBar(bar);
+				double[] expected = reference.update(bar.getHigh(), bar.getLow(), bar.getClose());
+				if (expected == null) {
+					assertNull(strategy.getLastADX());
+					continue;
+				}
+				outputs++;
+				assertNotNull(strategy.getLastADX());
+				String at = period + " " + bar.getTimestamp();
+				assertEquals(at, expected[0], strategy.getLastADX(), 1e-9);
+				assertEquals(at, expected[1], strategy.getLastDIPlus(), 1e-9);
+				assertEquals(at, expected[2], strategy.getLastDIMinus(), 1e-9);
+			}
+			assertEquals(300 - 2 * period + 1, outputs);
+		}
+	}
+
+	/**
+	 * 固定序列：随机游走，中间有一段一字停牌（TR为0）
+	 */
+	private static List<BarEvent> bars(int count, long seed) {
+		List<BarEvent> bars = TestDataGenerator.randomWalk("600519", LocalDateTime.of(2024, 1, 1, 15, 0), count, 50.0,
+				0.02, seed);
+		double close = bars.get(119).getClose();
+		for (int i = 120; i < 126; i++) {
+			bars.set(i, new BarEvent(bars.get(i).getTimestamp(), "600519", close, close, close, close, 0));
+		}
+		return bars;
+	}
+
+	/**
+	 * 原先的实现：保存最近 4*period 根K线的价格，每根K线重新计算 +DM、-DM、TR 列表，
+	 * 首个值取最近 period 个值的平均，之后按上一原始值与当前值加权
+	 */
+	private static final class ListBasedADX {
+		private final int period;
+		private final List<Double> highs = new ArrayList<>();
+		private final List<Double> lows = new ArrayList<>();
+		private final List<Double> closes = new ArrayList<>();
+		private final List<Double> adxValues = new ArrayList<>();
+
+		ListBasedADX(int period) {
+			this.period = period;
+		}
+
+		double[] update(double high, double low, double close) {
+			highs.add(high);
+			lows.add(low);
+			closes.add(close);
+			if (highs.size() > period * 4) {
+				highs.remove(0);
+				lows.remove(0);
+				closes.remove(0);
+			}
+			if (highs.size() < period * 2) {
+				return null;
+			}
+
+			List<Double> plusDM = new ArrayList<>();
+			List<Double> minusDM = new ArrayList<>();
+			List<Double> trueRanges = new ArrayList<>();
+			for (int i = 1; i < highs.size(); i++) {
+				double upMove = highs.get(i) - highs.get(i - 1);
+				double downMove = lows.get(i - 1) - lows.get(i);
+				if (upMove > downMove && upMove > 0) {
+					plusDM.add(upMove);
+					minusDM.add(0.0);
+				} else if (downMove > upMove && downMove > 0) {
+					plusDM.add(0.0);
+					minusDM.add(downMove);
+				} else {
+					plusDM.add(0.0);
+					minusDM.add(0.0);
+				}
+				double prevClose = closes.get(i - 1);
+				trueRanges.add(Math.max(highs.get(i) - lows.get(i),
+						Math.max(Math.abs(highs.get(i) - prevClose), Math.abs(lows.get(i) - prevClose))));
+			}
+
+			int startIndex = trueRanges.size() - period;
+			double smoothedPlusDM = smooth(plusDM, startIndex);
+			double smoothedMinusDM = smooth(minusDM, startIndex);
+			double smoothedTR = smooth(trueRanges, startIndex);
+
+			double diPlus = (smoothedPlusDM / smoothedTR) * 100;
+			double diMinus = (smoothedMinusDM / smoothedTR) * 100;
+			double dx = 0.0;
+			if (diPlus + diMinus > 0) {
+				dx = (Math.abs(diPlus - diMinus) / (diPlus + diMinus)) * 100;
+			}
+			double adx = adxValues.isEmpty() ? dx
+					: (adxValues.get(adxValues.size() - 1) * (period - 1) + dx) / period;
+			adxValues.add(adx);
+			return new double[] { adx, diPlus, diMinus };
+		}
+
+		private double smooth(List<Double> values, int startIndex) {
+			if (adxValues.isEmpty()) {
+				double sum = 0.0;
+				for (int i = startIndex; i < startIndex + period; i++) {
+					sum += values.get(i);
+				}
+				return sum / period;
+			}
+			double previous = values.get(values.size() - 2);
+			return (previous * (period - 1) + values.get(values.size() - 1)) / period;
+		}
+	}
+}
@@ -1,14 +1,15 @@
 package com.Quantitative.strategy.indicators;
 
-import java.util.ArrayList;
-import java.util.HashMap;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.List;
-import java.util.Map;
 
 import com.Quantitative.common.utils.TradingLogger;
 import com.Quantitative.core.events.BarEvent;
 import com.Quantitative.core.events.SignalEvent;
 import com.Quantitative.strategy.base.BaseStrategy;
+import com.Quantitative.strategy.base.SymbolRingBuffer;
 
 /**
  * 布林带策略 - 均值回归 + 突破
@@ -19,8 +20,10 @@ public class BollingerBandsStrategy extends BaseStrategy {
 	private boolean useSqueeze;
 	private double squeezeThreshold;
 
-	private Map<String, List<Double>> priceHistoryMap;
-	private Map<String, List<Double>> bandwidthHistoryMap;
+	// 按股票编号索引的价格窗口和带宽窗口
+	private static final int SQUEEZE_LOOKBACK = 20;
+	private SymbolRingBuffer priceHistory;
+	private SymbolRingBuffer bandwidthHistory;
 
 	public BollingerBandsStrategy() {
 		super("布林带策略");
@@ -49,8 +52,8 @@ public class BollingerBandsStrategy extends BaseStrategy {
 
 	@Override
 	protected void init() {
-		priceHistoryMap = new HashMap<>();
-		bandwidthHistoryMap = new HashMap<>();
+		priceHistory = new SymbolRingBuffer(period);
+		bandwidthHistory = new SymbolRingBuffer(SQUEEZE_LOOKBACK);
 
 		TradingLogger.logSignal(getName(), "SYSTEM", "INIT", 1.0,
 				String.format("布林带策略初始化: 周期=%d, 标准差=%.1f, 收缩检测=%s", period, numStdDev, useSqueeze));
@@ -59,22 +62,20 @@ public class BollingerBandsStrategy extends BaseStrategy {
 	@Override
 	protected void calculateSignals(BarEvent bar, List<SignalEvent> signals) {
 		String symbol = bar.getSymbol();
+		int symbolId = bar.getSymbolId();
 		double currentPrice = bar.getClose();
 
-		updatePriceHistory(symbol, currentPrice);
+		priceHistory.add(symbolId, currentPrice);
 
-		if (!hasEnoughData(symbol)) {
+		if (!priceHistory.isFull(symbolId)) {
 			return;
 		}
 
 		// 计算布林带
-		BollingerBandsResult bbResult = calculateBollingerBands(symbol);
-		if (bbResult == null) {
-			return;
-		}
+		BollingerBandsResult bbResult = calculateBollingerBands(symbolId);
 
 		// 检测布林带收缩
-		boolean isSqueeze = useSqueeze ? detectSqueeze(symbol, bbResult.bandwidth) : false;
+		boolean isSqueeze = useSqueeze ? detectSqueeze(symbolId, bbResult.bandwidth) : false;
 
 		boolean hasPosition = portfolio != null && portfolio.hasPosition(symbol);
 		SignalEvent signal = generateSignal(bar, symbol, bbResult, isSqueeze, hasPosition);
@@ -128,17 +129,12 @@ public class BollingerBandsStrategy extends BaseStrategy {
 		return Math.min(distanceFromMiddle * 5, 1.0);
 	}
 
-	private BollingerBandsResult calculateBollingerBands(String symbol) {
-		List<Double> prices = getPriceHistory(symbol, period);
-		if (prices.size() < period) {
-			return null;
-		}
-
+	private BollingerBandsResult calculateBollingerBands(int symbolId) {
 		// 计算中轨（移动平均）
-		double middle = calculateSMA(prices);
+		double middle = calculateSMA(symbolId);
 
 		// 计算标准差
-		double stdDev = calculateStandardDeviation(prices, middle);
+		double stdDev = calculateStandardDeviation(symbolId, middle);
 
 		// 计算上下轨
 		double upper = middle + (stdDev * numStdDev);
@@ -150,46 +146,35 @@ public class BollingerBandsStrategy extends BaseStrategy {
 		return new BollingerBandsResult(upper, middle, lower, bandwidth);
 	}
 
-	private double calculateSMA(List<Double> prices) {
+	private double calculateSMA(int symbolId) {
 		double sum = 0.0;
-		for (double price : prices) {
-			sum += price;
+		for (int i = 0; i < period; i++) {
+			sum += priceHistory.get(symbolId, i);
 		}
-		return sum / prices.size();
+		return sum / period;
 	}
 
-	private double calculateStandardDeviation(List<Double> prices, double mean) {
+	private double calculateStandardDeviation(int symbolId, double mean) {
 		double sum = 0.0;
-		for (double price : prices) {
-			sum += Math.pow(price - mean, 2);
+		for (int i = 0; i < period; i++) {
+			sum += Math.pow(priceHistory.get(symbolId, i) - mean, 2);
 		}
-		return Math.sqrt(sum / prices.size());
+		return Math.sqrt(sum / period);
 	}
 
-	private boolean detectSqueeze(String symbol, double currentBandwidth) {
-		List<Double> bandwidthHistory = bandwidthHistoryMap.get(symbol);
-		if (bandwidthHistory == null) {
-			bandwidthHistory = new ArrayList<>();
-			bandwidthHistoryMap.put(symbol, bandwidthHistory);
-		}
-
-		bandwidthHistory.add(currentBandwidth);
-
-		// 保持历史数据大小
-		if (bandwidthHistory.size() > 100) {
-			bandwidthHistory = bandwidthHistory.subList(bandwidthHistory.size() - 100, bandwidthHistory.size());
-			bandwidthHistoryMap.put(symbol, bandwidthHistory);
-		}
+	private boolean detectSqueeze(int symbolId, double currentBandwidth) {
+		bandwidthHistory.add(symbolId, currentBandwidth);
 
-		if (bandwidthHistory.size() < 20) {
+		if (!bandwidthHistory.isFull(symbolId)) {
 			return false;
 		}
 
 		// 查找最近20个周期内的最小带宽
 		double minBandwidth = Double.MAX_VALUE;
-		for (int i = bandwidthHistory.size() - 20; i < bandwidthHistory.size(); i++) {
-			if (bandwidthHistory.get(i) < minBandwidth) {
-				minBandwidth = bandwidthHistory.get(i);
+		for (int i = 0; i < SQUEEZE_LOOKBACK; i++) {
+			double bandwidth = bandwidthHistory.get(symbolId, i);
+			if (bandwidth < minBandwidth) {
+				minBandwidth = bandwidth;
 			}
 		}
 
@@ -197,35 +182,6 @@ public class BollingerBandsStrategy extends BaseStrategy {
 		return currentBandwidth <= minBandwidth * (1 + squeezeThreshold);
 	}
 
-	// 工具方法
-	private void updatePriceHistory(String symbol, double price) {
-		List<Double> history = priceHistoryMap.get(symbol);
-		if (history == null) {
-			history = new ArrayList<>();
-			priceHistoryMap.put(symbol, history);
-		}
-		history.add(price);
-
-		int maxSize = period + 10;
-		if (history.size() > maxSize) {
-			history = history.subList(history.size() - maxSize, history.size());
-			priceHistoryMap.put(symbol, history);
-		}
-	}
-
-	private List<Double> getPriceHistory(String symbol, int count) {
-		List<Double> history = priceHistoryMap.get(symbol);
-		if (history == null || history.size() < count) {
-			return new ArrayList<>();
-		}
-		return new ArrayList<>(history.subList(history.size() - count, history.size()));
-	}
-
-	private boolean hasEnoughData(String symbol) {
-		List<Double> prices = priceHistoryMap.get(symbol);
-		return prices != null && prices.size() >= period;
-	}
-
 	// 布林带结果类
 	private static class BollingerBandsResult {
 		final double upper;
@@ -241,6 +197,31 @@ public class BollingerBandsStrategy extends BaseStrategy {
 		}
 	}
 
+	// 状态快照
+	@Override
+	public boolean supportsSnapshot() {
+		return true;
+	}
+
+	@Override
+	protected void writeState(DataOutput out) throws IOException {
+		out.writeInt(period);
+		(priceHistory != null ? priceHistory : new SymbolRingBuffer(period)).writeTo(out);
+		(bandwidthHistory != null ? bandwidthHistory : new SymbolRingBuffer(SQUEEZE_LOOKBACK)).writeTo(out);
+	}
+
+	@Override
+	protected void readState(DataInput in) throws IOException {
+		int snapshotPeriod = in.readInt();
+		if (snapshotPeriod != period) {
+			throw new IllegalStateException(String.format("快照布林带周期不匹配: %d != %d", snapshotPeriod, period));
+		}
+		priceHistory = new SymbolRingBuffer(period);
+		bandwidthHistory = new SymbolRingBuffer(SQUEEZE_LOOKBACK);
+		priceHistory.readFrom(in);
+		bandwidthHistory.readFrom(in);
+	}
+
 	// Getter和Setter
 	public int getPeriod() {
 		return period;
@@ -248,6 +229,7 @@ public class BollingerBandsStrategy extends BaseStrategy {
 
 	public void setPeriod(int period) {
 		this.period = period;
+		this.priceHistory = new SymbolRingBuffer(period);
 		setParameter("period", period);
 	}
 
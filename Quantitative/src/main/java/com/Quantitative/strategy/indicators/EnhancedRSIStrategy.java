@@ -1,15 +1,22 @@
 package com.Quantitative.strategy.indicators;
 
-import java.util.ArrayList;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import com.Quantitative.common.monitor.MonitorUtils;
+import com.Quantitative.common.utils.SymbolDictionary;
 import com.Quantitative.core.events.BarEvent;
 import com.Quantitative.core.events.EnhancedSignalEvent;
 import com.Quantitative.core.events.SignalEvent;
 import com.Quantitative.strategy.base.BaseStrategy;
+import com.Quantitative.strategy.base.SymbolRingBuffer;
+import com.Quantitative.strategy.base.SymbolValues;
+import com.Quantitative.strategy.graph.IndicatorRef;
+import com.Quantitative.strategy.graph.Indicators;
 
 /**
  * 修复后的增强版RSI策略 - 修复 getLastRSI() 方法
@@ -24,14 +31,17 @@ public class EnhancedRSIStrategy extends BaseStrategy {
 	private boolean useTrendFilter;
 	private double trendThreshold;
 
-	// 状态跟踪
-	private Map<String, List<Double>> priceHistoryMap = new HashMap<>();
-	private Map<String, Double> lastRSIMap = new HashMap<>();
-	private Map<String, Boolean> positionMap = new HashMap<>();
+	// 状态跟踪 - 按股票编号索引（见 SymbolDictionary）
+	private static final int TREND_LOOKBACK = 20;
+	private SymbolRingBuffer priceHistory;
+	private final SymbolValues lastRSI = new SymbolValues();
 
 	// 用于单symbol场景的最后一个RSI值
 	private Double lastSingleRSI = null;
 
+	// RSI由指标计算图计算，同周期RSI在组合策略间共享
+	private IndicatorRef rsiRef;
+
 	public EnhancedRSIStrategy() {
 		super("增强RSI策略");
 		loadConfigFromSystem();
@@ -75,10 +85,10 @@ public class EnhancedRSIStrategy extends BaseStrategy {
 	protected void init() {
 		System.out.printf("RSI策略初始化: 周期=%d, 超买=%.1f, 超卖=%.1f%n", rsiPeriod, overbought, oversold);
 
-		priceHistoryMap.clear();
-		lastRSIMap.clear();
-		positionMap.clear();
+		priceHistory = newPriceHistory();
+		lastRSI.clear();
 		lastSingleRSI = null;
+		rsiRef = indicator(Indicators.rsi(Indicators.close(), rsiPeriod));
 
 		if (debugMode) {
 			System.out.println("RSI策略初始化完成");
@@ -90,16 +100,17 @@ public class EnhancedRSIStrategy extends BaseStrategy {
 		// 使用监控工具监控策略计算
 		MonitorUtils.monitorVoid("RSIStrategy", "calculateSignals", () -> {
 			String symbol = bar.getSymbol();
+			int symbolId = bar.getSymbolId();
 			double currentPrice = bar.getClose();
 
 			// 更新价格历史
-			updatePriceHistory(symbol, currentPrice);
+			updatePriceHistory(symbolId, currentPrice);
 
-			if (!hasEnoughDataForRSI(symbol)) {
+			if (!hasEnoughDataForRSI(symbolId)) {
 				return;
 			}
 
-			// 计算RSI - 监控缓存操作
+			// 计算RSI
 			Double rsi = MonitorUtils.monitor("RSIStrategy", "calculateRSI", () -> {
 				return calculateCurrentRSI(symbol);
 			});
@@ -107,11 +118,11 @@ public class EnhancedRSIStrategy extends BaseStrategy {
 			if (rsi == null)
 				return;
 
-			lastRSIMap.put(symbol, rsi);
+			lastRSI.set(symbolId, rsi);
 			lastSingleRSI = rsi;
 
 			// 生成信号
-			SignalEvent signal = generateSignal(bar, symbol, rsi, currentPrice,
+			SignalEvent signal = generateSignal(bar, symbolId, rsi, currentPrice,
 					portfolio != null && portfolio.hasPosition(symbol));
 
 			if (signal != null) {
@@ -121,24 +132,14 @@ public class EnhancedRSIStrategy extends BaseStrategy {
 	}
 
 	/**
-	 * 带缓存监控的RSI计算
+	 * 从指标计算图读取RSI（每根K线只计算一次）
 	 */
 	private Double calculateCurrentRSI(String symbol) {
-		List<Double> prices = getPriceHistory(symbol, getRequiredBars());
-		if (prices.size() < getRequiredBars()) {
-			return null;
+		if (!isIndicatorValid(rsiRef)) {
+			rsiRef = indicator(Indicators.rsi(Indicators.close(), rsiPeriod));
 		}
-
-		// 使用缓存计算，并监控缓存性能
-		long startTime = System.nanoTime();
-		Double result = calculateWithCache("RSI", prices, rsiPeriod);
-		long duration = System.nanoTime() - startTime;
-
-		// 记录缓存操作（这里简化，实际应该在calculateWithCache内部记录）
-		boolean cacheHit = result != null; // 简化判断
-		MonitorUtils.recordCacheOperation("RSI_" + rsiPeriod, duration, cacheHit);
-
-		return result;
+		double rsi = indicatorValue(rsiRef, symbol);
+		return Double.isNaN(rsi) ? null : rsi;
 	}
 
 	// ==================== 价格历史管理方法 ====================
@@ -146,21 +147,18 @@ public class EnhancedRSIStrategy extends BaseStrategy {
 	/**
 	 * 更新价格历史
 	 */
-	private void updatePriceHistory(String symbol, double price) {
-		List<Double> priceHistory = priceHistoryMap.get(symbol);
+	private void updatePriceHistory(int symbolId, double price) {
 		if (priceHistory == null) {
-			priceHistory = new ArrayList<>();
-			priceHistoryMap.put(symbol, priceHistory);
+			priceHistory = newPriceHistory();
 		}
+		priceHistory.add(symbolId, price);
+	}
 
-		priceHistory.add(price);
-
-		// 限制历史数据大小，避免内存泄漏
-		int maxHistorySize = getRequiredBars() + 100;
-		if (priceHistory.size() > maxHistorySize) {
-			priceHistory = priceHistory.subList(priceHistory.size() - maxHistorySize, priceHistory.size());
-			priceHistoryMap.put(symbol, priceHistory);
-		}
+	/**
+	 * 价格窗口只需覆盖RSI周期和趋势过滤的回看长度
+	 */
+	private SymbolRingBuffer newPriceHistory() {
+		return new SymbolRingBuffer(Math.max(getRequiredBars(), TREND_LOOKBACK));
 	}
 
 	/**
@@ -173,29 +171,8 @@ public class EnhancedRSIStrategy extends BaseStrategy {
 	/**
 	 * 检查是否有足够数据计算RSI
 	 */
-	private boolean hasEnoughDataForRSI(String symbol) {
-		return getPriceHistorySize(symbol) >= getRequiredBars();
-	}
-
-	/**
-	 * 获取价格历史大小
-	 */
-	private int getPriceHistorySize(String symbol) {
-		List<Double> priceHistory = priceHistoryMap.get(symbol);
-		return priceHistory != null ? priceHistory.size() : 0;
-	}
-
-	/**
-	 * 获取价格历史
-	 */
-	private List<Double> getPriceHistory(String symbol, int count) {
-		List<Double> priceHistory = priceHistoryMap.get(symbol);
-		if (priceHistory == null || priceHistory.size() < count) {
-			return new ArrayList<>();
-		}
-
-		int startIndex = priceHistory.size() - count;
-		return new ArrayList<>(priceHistory.subList(startIndex, priceHistory.size()));
+	private boolean hasEnoughDataForRSI(int symbolId) {
+		return priceHistory.size(symbolId) >= getRequiredBars();
 	}
 
 	// ==================== 信号生成方法 ====================
@@ -203,13 +180,15 @@ public class EnhancedRSIStrategy extends BaseStrategy {
 	/**
 	 * 生成交易信号
 	 */
-	private SignalEvent generateSignal(BarEvent bar, String symbol, double rsi, double currentPrice,
+	private SignalEvent generateSignal(BarEvent bar, int symbolId, double rsi, double currentPrice,
 			boolean hasPosition) {
 		// 趋势过滤
-		if (useTrendFilter && !isUptrend(symbol)) {
+		if (useTrendFilter && !isUptrend(symbolId)) {
 			return null;
 		}
 
+		String symbol = bar.getSymbol();
+
 		if (!hasPosition) {
 			return generateBuySignal(bar, symbol, rsi, currentPrice);
 		} else {
@@ -220,13 +199,13 @@ public class EnhancedRSIStrategy extends BaseStrategy {
 	/**
 	 * 判断是否处于上升趋势
 	 */
-	private boolean isUptrend(String symbol) {
-		List<Double> prices = getPriceHistory(symbol, 20);
-		if (prices.size() < 20)
+	private boolean isUptrend(int symbolId) {
+		int size = priceHistory.size(symbolId);
+		if (size < TREND_LOOKBACK)
 			return true;
 
-		double currentPrice = prices.get(prices.size() - 1);
-		double pastPrice = prices.get(0);
+		double currentPrice = priceHistory.last(symbolId);
+		double pastPrice = priceHistory.get(symbolId, size - TREND_LOOKBACK);
 		double trend = (currentPrice - pastPrice) / pastPrice * 100;
 
 		return trend >= trendThreshold;
@@ -342,8 +321,10 @@ public class EnhancedRSIStrategy extends BaseStrategy {
 		}
 
 		// 2. 如果没有单symbol值，返回第一个symbol的RSI值
-		if (!lastRSIMap.isEmpty()) {
-			return lastRSIMap.values().iterator().next();
+		for (int id = 0; id < lastRSI.length(); id++) {
+			if (lastRSI.has(id)) {
+				return lastRSI.get(id);
+			}
 		}
 
 		return null;
@@ -353,14 +334,22 @@ public class EnhancedRSIStrategy extends BaseStrategy {
 	 * 获取指定symbol的最新RSI值
 	 */
 	public Double getLastRSI(String symbol) {
-		return lastRSIMap.get(symbol);
+		int symbolId = SymbolDictionary.getInstance().find(symbol);
+		return lastRSI.has(symbolId) ? lastRSI.get(symbolId) : null;
 	}
 
 	/**
 	 * 获取所有symbol的RSI值
 	 */
 	public Map<String, Double> getAllLastRSI() {
-		return new HashMap<>(lastRSIMap);
+		Map<String, Double> result = new HashMap<>();
+		SymbolDictionary dictionary = SymbolDictionary.getInstance();
+		for (int id = 0; id < lastRSI.length(); id++) {
+			if (lastRSI.has(id)) {
+				result.put(dictionary.symbolOf(id), lastRSI.get(id));
+			}
+		}
+		return result;
 	}
 
 	// ==================== 其他方法 ====================
@@ -368,13 +357,45 @@ public class EnhancedRSIStrategy extends BaseStrategy {
 	@Override
 	public void reset() {
 		super.reset();
-		priceHistoryMap.clear();
-		lastRSIMap.clear();
-		positionMap.clear();
+		if (priceHistory != null) {
+			priceHistory.clear();
+		}
+		lastRSI.clear();
 		lastSingleRSI = null;
 		System.out.println("RSI策略状态已重置");
 	}
 
+	// ==================== 状态快照 ====================
+
+	@Override
+	public boolean supportsSnapshot() {
+		return true;
+	}
+
+	@Override
+	protected void writeState(DataOutput out) throws IOException {
+		out.writeInt(rsiPeriod);
+		if (priceHistory == null) {
+			priceHistory = newPriceHistory();
+		}
+		priceHistory.writeTo(out);
+		lastRSI.writeTo(out);
+		out.writeDouble(lastSingleRSI != null ? lastSingleRSI : Double.NaN);
+	}
+
+	@Override
+	protected void readState(DataInput in) throws IOException {
+		int period = in.readInt();
+		if (period != rsiPeriod) {
+			throw new IllegalStateException(String.format("快照RSI周期不匹配: %d != %d", period, rsiPeriod));
+		}
+		priceHistory = newPriceHistory();
+		priceHistory.readFrom(in);
+		lastRSI.readFrom(in);
+		double single = in.readDouble();
+		lastSingleRSI = Double.isNaN(single) ? null : single;
+	}
+
 	// ==================== Getter和Setter方法 ====================
 
 	public int getRsiPeriod() {
@@ -383,6 +404,8 @@ public class EnhancedRSIStrategy extends BaseStrategy {
 
 	public void setRsiPeriod(int rsiPeriod) {
 		this.rsiPeriod = rsiPeriod;
+		this.rsiRef = null;
+		this.priceHistory = newPriceHistory();
 		setParameter("rsiPeriod", rsiPeriod);
 	}
 
@@ -425,13 +448,18 @@ public class EnhancedRSIStrategy extends BaseStrategy {
 		status.put("signalThreshold", signalThreshold);
 		status.put("useTrendFilter", useTrendFilter);
 		status.put("trendThreshold", trendThreshold);
-		status.put("symbolCount", priceHistoryMap.size());
+		status.put("symbolCount", priceHistory != null ? priceHistory.getSymbolCount() : 0);
 		status.put("lastSingleRSI", lastSingleRSI);
 
 		// 添加每个symbol的数据状态
 		Map<String, Integer> symbolDataStatus = new HashMap<>();
-		for (Map.Entry<String, List<Double>> entry : priceHistoryMap.entrySet()) {
-			symbolDataStatus.put(entry.getKey(), entry.getValue().size());
+		if (priceHistory != null) {
+			SymbolDictionary dictionary = SymbolDictionary.getInstance();
+			for (int id = 0; id < dictionary.size(); id++) {
+				if (priceHistory.size(id) > 0) {
+					symbolDataStatus.put(dictionary.symbolOf(id), priceHistory.size(id));
+				}
+			}
 		}
 		status.put("symbolDataStatus", symbolDataStatus);
 
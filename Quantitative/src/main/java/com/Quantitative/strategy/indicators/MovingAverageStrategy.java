@@ -1,12 +1,16 @@
 package com.Quantitative.strategy.indicators;
 
-import java.util.ArrayList;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.List;
 
 import com.Quantitative.common.utils.TradingLogger;
 import com.Quantitative.core.events.BarEvent;
 import com.Quantitative.core.events.SignalEvent;
 import com.Quantitative.strategy.base.BaseStrategy;
+import com.Quantitative.strategy.graph.IndicatorRef;
+import com.Quantitative.strategy.graph.Indicators;
 
 /**
  * 移动平均线策略
@@ -14,7 +18,10 @@ import com.Quantitative.strategy.base.BaseStrategy;
 public class MovingAverageStrategy extends BaseStrategy {
 	private int shortWindow;
 	private int longWindow;
-	private List<Double> priceHistory;
+
+	// 均线由指标计算图计算，同周期均线在组合策略间共享
+	private IndicatorRef shortMaRef;
+	private IndicatorRef longMaRef;
 
 	// 策略状态
 	private double shortMA;
@@ -25,7 +32,6 @@ public class MovingAverageStrategy extends BaseStrategy {
 		super("MovingAverage"); // 使用正确的构造函数
 		this.shortWindow = 5;
 		this.longWindow = 20;
-		this.priceHistory = new ArrayList<>();
 		this.position = 0;
 		setParameter("description", "双移动平均线交叉策略");
 	}
@@ -34,7 +40,6 @@ public class MovingAverageStrategy extends BaseStrategy {
 		super("MovingAverage");
 		this.shortWindow = shortWindow;
 		this.longWindow = longWindow;
-		this.priceHistory = new ArrayList<>();
 		this.position = 0;
 		setParameter("description", "双移动平均线交叉策略 - 短周期:" + shortWindow + ", 长周期:" + longWindow);
 	}
@@ -42,7 +47,7 @@ public class MovingAverageStrategy extends BaseStrategy {
 	@Override
 	protected void init() {
 		TradingLogger.debug("MovingAverageStrategy", "初始化策略: 短周期=%d, 长周期=%d", shortWindow, longWindow);
-		priceHistory.clear();
+		declareIndicators();
 		position = 0;
 		shortMA = 0;
 		longMA = 0;
@@ -54,21 +59,14 @@ public class MovingAverageStrategy extends BaseStrategy {
 	@Override
 	protected void calculateSignals(BarEvent bar, List<SignalEvent> signals) {
 		try {
-			// 添加价格到历史数据
-			priceHistory.add(bar.getClose());
-
-			// 确保有足够的数据计算移动平均线
-			if (priceHistory.size() < longWindow) {
+			// 计算移动平均线
+			if (!calculateMovingAverages(bar.getSymbol())) {
 				if (debugMode) {
-					TradingLogger.debug("MovingAverageStrategy", "数据不足，需要 %d 条，当前 %d 条", longWindow,
-							priceHistory.size());
+					TradingLogger.debug("MovingAverageStrategy", "数据不足，需要 %d 条", Math.max(shortWindow, longWindow));
 				}
 				return;
 			}
 
-			// 计算移动平均线
-			calculateMovingAverages();
-
 			// 生成交易信号
 			SignalEvent signal = generateSignal(bar);
 			if (signal != null) {
@@ -81,26 +79,34 @@ public class MovingAverageStrategy extends BaseStrategy {
 	}
 
 	/**
-	 * 计算移动平均线
+	 * 声明所需的均线指标
 	 */
-	private void calculateMovingAverages() {
-		// 计算短期移动平均线
-		double shortSum = 0;
-		for (int i = priceHistory.size() - shortWindow; i < priceHistory.size(); i++) {
-			shortSum += priceHistory.get(i);
-		}
-		shortMA = shortSum / shortWindow;
+	private void declareIndicators() {
+		shortMaRef = indicator(Indicators.sma(Indicators.close(), shortWindow));
+		longMaRef = indicator(Indicators.sma(Indicators.close(), longWindow));
+	}
 
-		// 计算长期移动平均线
-		double longSum = 0;
-		for (int i = priceHistory.size() - longWindow; i < priceHistory.size(); i++) {
-			longSum += priceHistory.get(i);
+	/**
+	 * 读取移动平均线
+	 *
+	 * @return 数据不足时返回false
+	 */
+	private boolean calculateMovingAverages(String symbol) {
+		if (!isIndicatorValid(shortMaRef) || !isIndicatorValid(longMaRef)) {
+			declareIndicators();
+		}
+		double shortValue = indicatorValue(shortMaRef, symbol);
+		double longValue = indicatorValue(longMaRef, symbol);
+		if (Double.isNaN(shortValue) || Double.isNaN(longValue)) {
+			return false;
 		}
-		longMA = longSum / longWindow;
+		shortMA = shortValue;
+		longMA = longValue;
 
 		if (debugMode) {
 			TradingLogger.debug("MovingAverageStrategy", "MA计算: 短MA=%.4f, 长MA=%.4f", shortMA, longMA);
 		}
+		return true;
 	}
 
 	/**
@@ -163,6 +169,34 @@ public class MovingAverageStrategy extends BaseStrategy {
 		}
 	}
 
+	// 状态快照：均线窗口由指标计算图保存，这里只保存交叉判断用的状态
+	@Override
+	public boolean supportsSnapshot() {
+		return true;
+	}
+
+	@Override
+	protected void writeState(DataOutput out) throws IOException {
+		out.writeInt(shortWindow);
+		out.writeInt(longWindow);
+		out.writeInt(position);
+		out.writeDouble(shortMA);
+		out.writeDouble(longMA);
+	}
+
+	@Override
+	protected void readState(DataInput in) throws IOException {
+		int shortPeriod = in.readInt();
+		int longPeriod = in.readInt();
+		if (shortPeriod != shortWindow || longPeriod != longWindow) {
+			throw new IllegalStateException(String.format("快照均线周期不匹配: %d/%d != %d/%d", shortPeriod, longPeriod,
+					shortWindow, longWindow));
+		}
+		position = in.readInt();
+		shortMA = in.readDouble();
+		longMA = in.readDouble();
+	}
+
 	// Getter 和 Setter 方法
 	public int getShortWindow() {
 		return shortWindow;
@@ -170,6 +204,7 @@ public class MovingAverageStrategy extends BaseStrategy {
 
 	public void setShortWindow(int shortWindow) {
 		this.shortWindow = shortWindow;
+		this.shortMaRef = null;
 		setParameter("shortWindow", shortWindow);
 	}
 
@@ -179,6 +214,7 @@ public class MovingAverageStrategy extends BaseStrategy {
 
 	public void setLongWindow(int longWindow) {
 		this.longWindow = longWindow;
+		this.longMaRef = null;
 		setParameter("longWindow", longWindow);
 	}
 
@@ -1,14 +1,21 @@
 // 文件: com/Quantitative/trading/LiveTradingEngine.java
 package com.Quantitative.trading;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 import com.Quantitative.common.utils.TradingLogger;
 import com.Quantitative.config.SystemConfig;
@@ -18,7 +25,9 @@ import com.Quantitative.data.DataFeed;
 import com.Quantitative.execution.ExecutionEngine;
 import com.Quantitative.portfolio.Portfolio;
 import com.Quantitative.portfolio.RiskManager;
+import com.Quantitative.portfolio.RiskMonitor;
 import com.Quantitative.strategy.base.BaseStrategy;
+import com.Quantitative.strategy.base.StrategySnapshot;
 
 /**
  * 实时交易引擎
@@ -28,12 +37,21 @@ public class LiveTradingEngine {
     private final ExecutionEngine executionEngine;
     private final Portfolio portfolio;
     private final RiskManager riskManager;
-    private BaseStrategy strategy;
+    private final RiskMonitor riskMonitor;
+    private int reportedBreaches;
+    private volatile BaseStrategy strategy;
+    
+    // 策略热切换：已处理K线的共享历史，新策略在后台用它预热
+    private static final int CATCH_UP_THRESHOLD = 2;
+    private final BarHistory barHistory;
+    private final AtomicReference<PendingSwap> pendingSwap = new AtomicReference<>();
+    private ExecutorService swapExecutor;
     
     private ScheduledExecutorService scheduler;
     private Map<String, Object> tradingStatus;
     private boolean isTrading = false;
-    private int checkInterval; // 检查间隔(秒)
+    private long checkIntervalMillis; // 检查间隔(毫秒)
+    private Path snapshotPath; // 策略状态快照文件，重启时从这里继续
     
     public LiveTradingEngine(DataFeed dataFeed, ExecutionEngine executionEngine, 
                            Portfolio portfolio, RiskManager riskManager) {
@@ -41,8 +59,11 @@ public class LiveTradingEngine {
         this.executionEngine = executionEngine;
         this.portfolio = portfolio;
         this.riskManager = riskManager;
+        this.riskMonitor = new RiskMonitor();
+        this.riskMonitor.setPortfolio(portfolio);
         this.tradingStatus = new ConcurrentHashMap<>();
-        this.checkInterval = SystemConfig.getInt("trading.check.interval", 5);
+        this.checkIntervalMillis = SystemConfig.getInt("trading.check.interval", 5) * 1000L;
+        this.barHistory = new BarHistory(SystemConfig.getInt("trading.history.limit", 5000));
         
         initializeTradingEngine();
     }
@@ -53,6 +74,7 @@ public class LiveTradingEngine {
         tradingStatus.put("totalSignals", 0);
         tradingStatus.put("executedOrders", 0);
         tradingStatus.put("rejectedOrders", 0);
+        tradingStatus.put("strategySwaps", 0);
         tradingStatus.put("lastCheck", LocalDateTime.now());
         
         TradingLogger.logSystemError("LiveTrading", "initialize", 
@@ -69,16 +91,19 @@ public class LiveTradingEngine {
         }
         
         this.strategy = tradingStrategy;
+        restoreStrategySnapshot();
         this.isTrading = true;
         
         // 初始化调度器
         scheduler = Executors.newScheduledThreadPool(2);
+        swapExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "strategy-swap");
+            thread.setDaemon(true);
+            return thread;
+        });
         
         // 启动市场数据监听
-        scheduler.scheduleAtFixedRate(this::checkMarketData, 0, checkInterval, TimeUnit.SECONDS);
-        
-        // 启动风险监控
-        scheduler.scheduleAtFixedRate(this::monitorRisk, 30, 30, TimeUnit.SECONDS);
+        scheduler.scheduleAtFixedRate(this::checkMarketData, 0, checkIntervalMillis, TimeUnit.MILLISECONDS);
         
         // 启动状态报告
         scheduler.scheduleAtFixedRate(this::reportStatus, 60, 60, TimeUnit.SECONDS);
@@ -109,10 +134,52 @@ public class LiveTradingEngine {
             }
         }
         
+        // 未完成的切换随交易停止取消
+        PendingSwap swap = pendingSwap.getAndSet(null);
+        if (swap != null) {
+            swap.future.completeExceptionally(new IllegalStateException("交易已停止，策略切换取消"));
+        }
+        if (swapExecutor != null) {
+            swapExecutor.shutdownNow();
+            swapExecutor = null;
+        }
+        
+        saveStrategySnapshot();
+        
         TradingLogger.logTrade("SYSTEM", "STOP", 0, 0, 0);
         System.out.println("?? 实时交易引擎已停止");
     }
     
+    /**
+     * 从快照文件恢复策略状态，跳过预热
+     */
+    private void restoreStrategySnapshot() {
+        if (snapshotPath == null || !strategy.supportsSnapshot() || !Files.exists(snapshotPath)) {
+            return;
+        }
+        try {
+            strategy.restore(StrategySnapshot.readFrom(snapshotPath));
+        } catch (IOException | RuntimeException e) {
+            TradingLogger.logRisk("WARN", "LiveTrading", "策略快照恢复失败，将从头预热: %s", e.getMessage());
+        }
+    }
+    
+    /**
+     * 保存策略状态快照（调度器停止后调用，避免与行情处理并发）
+     */
+    private void saveStrategySnapshot() {
+        if (snapshotPath == null || strategy == null || !strategy.supportsSnapshot()) {
+            return;
+        }
+        try {
+            StrategySnapshot snapshot = strategy.snapshot();
+            snapshot.writeTo(snapshotPath);
+            System.out.println("策略状态已保存: " + snapshot);
+        } catch (IOException | RuntimeException e) {
+            TradingLogger.logSystemError("LiveTrading", "saveStrategySnapshot", e);
+        }
+    }
+    
     /**
      * 检查市场数据并生成交易信号
      */
@@ -126,8 +193,15 @@ public class LiveTradingEngine {
             if (dataFeed.hasNextBar()) {
                 BarEvent latestBar = dataFeed.getNextBar();
                 
+                // K线边界：新策略已追上时在处理本根K线之前切换
+                completePendingSwap();
+                barHistory.append(latestBar);
+                
                 // 更新投资组合市场价格
-                portfolio.updateMarketPrice(latestBar.getSymbol(), latestBar.getClose());
+                portfolio.updateMarketPrice(latestBar.getSymbol(), latestBar.getClose(), latestBar.getTimestamp());
+                
+                // 风险指标随价格流式更新，每根K线检查限额
+                checkRiskLimits();
                 
                 // 生成交易信号
                 List<SignalEvent> signals = strategy.onBar(latestBar);
@@ -146,6 +220,161 @@ public class LiveTradingEngine {
         }
     }
     
+    // ==================== 策略热切换 ====================
+    
+    /**
+     * 热切换策略，不停止交易
+     * 
+     * 新策略在后台线程用共享K线历史预热（信号丢弃），追上实时行情后由行情线程在下一根K线之前切换：
+     * 先补上预热结束后到达的少量K线，再替换策略并关闭旧策略。每根K线对新策略只输入一次，行情线程不等待预热。
+     * Portfolio 不是线程安全的，预热期间新策略不挂投资组合（按空仓计算），切换时才在行情线程上挂接。
+     * 
+     * @return 切换完成时以旧策略完成的 Future
+     */
+    public synchronized CompletableFuture<BaseStrategy> swapStrategy(BaseStrategy newStrategy) {
+        if (!isTrading || swapExecutor == null) {
+            // 未在交易时直接替换，下次启动时生效
+            BaseStrategy old = strategy;
+            prepareStrategy(newStrategy);
+            this.strategy = newStrategy;
+            return CompletableFuture.completedFuture(old);
+        }
+        
+        PendingSwap swap = new PendingSwap(newStrategy);
+        if (!pendingSwap.compareAndSet(null, swap)) {
+            CompletableFuture<BaseStrategy> failed = new CompletableFuture<>();
+            failed.completeExceptionally(new IllegalStateException("已有策略切换正在进行"));
+            return failed;
+        }
+        
+        swapExecutor.execute(() -> {
+            try {
+                warmUp(swap);
+            } catch (Exception e) {
+                pendingSwap.compareAndSet(swap, null);
+                swap.future.completeExceptionally(e);
+                TradingLogger.logSystemError("LiveTrading", "swapStrategy", e);
+            }
+        });
+        return swap.future;
+    }
+    
+    private void prepareStrategy(BaseStrategy newStrategy) {
+        newStrategy.setPortfolio(portfolio);
+        if (!newStrategy.isInitialized()) {
+            newStrategy.initialize();
+        }
+    }
+    
+    /**
+     * 后台预热：重放共享历史，直到与实时行情只差少量K线
+     */
+    private void warmUp(PendingSwap swap) {
+        swap.strategy.setPortfolio(null);
+        if (!swap.strategy.isInitialized()) {
+            swap.strategy.initialize();
+        }
+        long from = barHistory.start();
+        long to;
+        do {
+            to = barHistory.end();
+            for (BarEvent bar : barHistory.copy(from, to)) {
+                swap.strategy.onBar(bar);
+            }
+            from = to;
+        } while (barHistory.end() - from > CATCH_UP_THRESHOLD && !Thread.currentThread().isInterrupted());
+        if (Thread.currentThread().isInterrupted()) {
+            // 交易已停止，stopTrading 已经取消了这次切换
+            return;
+        }
+        
+        swap.processed = from;
+        swap.ready = true;
+        System.out.printf("[策略切换] %s 预热完成: %d 根K线%n", swap.strategy.getName(), from);
+    }
+    
+    /**
+     * 在K线边界完成切换（行情线程调用）
+     */
+    private void completePendingSwap() {
+        PendingSwap swap = pendingSwap.get();
+        if (swap == null || !swap.ready) {
+            return;
+        }
+        
+        // 挂接实盘投资组合，补上预热结束后到达、旧策略已处理过的K线
+        swap.strategy.setPortfolio(portfolio);
+        for (BarEvent bar : barHistory.copy(swap.processed, barHistory.end())) {
+            swap.strategy.onBar(bar);
+        }
+        
+        BaseStrategy old = strategy;
+        strategy = swap.strategy;
+        pendingSwap.set(null);
+        if (old != null) {
+            old.shutdown();
+        }
+        
+        int swapCount = (Integer) tradingStatus.getOrDefault("strategySwaps", 0);
+        tradingStatus.put("strategySwaps", swapCount + 1);
+        tradingStatus.put("strategy", swap.strategy.getName());
+        System.out.printf("[策略切换] %s -> %s%n", old != null ? old.getName() : "无", swap.strategy.getName());
+        swap.future.complete(old);
+    }
+    
+    /**
+     * 进行中的策略切换
+     */
+    private static final class PendingSwap {
+        final BaseStrategy strategy;
+        final CompletableFuture<BaseStrategy> future = new CompletableFuture<>();
+        volatile long processed;
+        volatile boolean ready;
+        
+        PendingSwap(BaseStrategy strategy) {
+            this.strategy = strategy;
+        }
+    }
+    
+    /**
+     * 定长K线历史，按全局序号访问（序号 = 已追加的K线数）
+     */
+    private static final class BarHistory {
+        private final BarEvent[] ring;
+        private long end;
+        
+        BarHistory(int limit) {
+            this.ring = new BarEvent[Math.max(limit, 1)];
+        }
+        
+        synchronized void append(BarEvent bar) {
+            ring[(int) (end % ring.length)] = bar;
+            end++;
+        }
+        
+        /**
+         * 仍保留的最早序号
+         */
+        synchronized long start() {
+            return Math.max(0, end - ring.length);
+        }
+        
+        synchronized long end() {
+            return end;
+        }
+        
+        synchronized List<BarEvent> copy(long from, long to) {
+            if (from < Math.max(0, end - ring.length)) {
+                throw new IllegalStateException("K线历史已被覆盖，无法连续预热: 序号 " + from);
+            }
+            List<BarEvent> bars = new ArrayList<>((int) Math.max(0, to - from));
+            for (long seq = from; seq < to; seq++) {
+                bars.add(ring[(int) (seq % ring.length)]);
+            }
+            return bars;
+        }
+    }
+    
     /**
      * 处理交易信号
      */
@@ -159,6 +388,16 @@ public class LiveTradingEngine {
         
         for (SignalEvent signal : signals) {
             try {
+                // 风险监控器有限额超限时不再开新仓，卖出仍可执行以降低风险
+                if (signal.isBuySignal() && riskMonitor.isLimitBreached()) {
+                    TradingLogger.logRisk("WARN", "RiskMonitor", 
+                        "风险限额超限，拒绝买入信号: %s", signal.getSymbol());
+                    
+                    int rejectedCount = (Integer) tradingStatus.getOrDefault("rejectedOrders", 0);
+                    tradingStatus.put("rejectedOrders", rejectedCount + 1);
+                    continue;
+                }
+                
                 // 风险验证
                 RiskManager.RiskValidationResult riskResult = riskManager.validateSignal(signal);
                 if (!riskResult.isValid()) {
@@ -201,30 +440,30 @@ public class LiveTradingEngine {
     }
     
     /**
-     * 风险监控
+     * 风险限额检查：读取风险监控器的流式指标，限额状态变化时记录日志
      */
-    private void monitorRisk() {
-        if (!isTrading) return;
-        
-        try {
-            // 检查投资组合风险
-            double totalValue = portfolio.getTotalValue();
-            double drawdown = calculateCurrentDrawdown();
-            
-            // 风险警报
-            if (drawdown > 0.1) { // 10%回撤警报
-                TradingLogger.logRisk("WARN", "RiskMonitor", 
-                    "当前回撤超过10%: {:.2f}%", drawdown * 100);
+    private void checkRiskLimits() {
+        int breaches = riskMonitor.getBreachedLimits();
+        if (breaches != reportedBreaches) {
+            int newBreaches = breaches & ~reportedBreaches;
+            for (int limit = 1; limit <= newBreaches; limit <<= 1) {
+                if ((newBreaches & limit) != 0) {
+                    TradingLogger.logRisk("WARN", "RiskMonitor", "风险限额超限: %s", RiskMonitor.limitName(limit));
+                }
             }
-            
-            // 更新风险状态
-            tradingStatus.put("currentDrawdown", drawdown);
-            tradingStatus.put("portfolioValue", totalValue);
-            tradingStatus.put("cash", portfolio.getCash());
-            
-        } catch (Exception e) {
-            TradingLogger.logSystemError("LiveTrading", "monitorRisk", e);
+            if (breaches == 0) {
+                TradingLogger.logRisk("INFO", "RiskMonitor", "风险指标已恢复到限额以内");
+            }
+            reportedBreaches = breaches;
         }
+        
+        // 更新风险状态
+        tradingStatus.put("currentDrawdown", riskMonitor.getCurrentDrawdown());
+        tradingStatus.put("intradayDrawdown", riskMonitor.getIntradayDrawdown());
+        tradingStatus.put("var", riskMonitor.getVar());
+        tradingStatus.put("exposure", riskMonitor.getExposureRatio());
+        tradingStatus.put("portfolioValue", portfolio.getTotalValue());
+        tradingStatus.put("cash", portfolio.getCash());
     }
     
     /**
@@ -241,24 +480,13 @@ public class LiveTradingEngine {
         System.out.printf("投资组合价值: %.2f%n", tradingStatus.getOrDefault("portfolioValue", 0.0));
         System.out.printf("当前回撤: %.2f%%%n", 
             (Double) tradingStatus.getOrDefault("currentDrawdown", 0.0) * 100);
+        System.out.printf("日内回撤: %.2f%%%n", 
+            (Double) tradingStatus.getOrDefault("intradayDrawdown", 0.0) * 100);
+        System.out.printf("VaR: %.2f%%%n", (Double) tradingStatus.getOrDefault("var", 0.0) * 100);
         System.out.printf("最后检查: %s%n", tradingStatus.get("lastCheck"));
         System.out.println("=======================\n");
     }
     
-    /**
-     * 计算当前回撤
-     */
-    private double calculateCurrentDrawdown() {
-        // 简化实现，实际应该基于峰值计算
-        Double portfolioValue = (Double) tradingStatus.get("portfolioValue");
-        Double initialCash = portfolio.getInitialCash();
-        
-        if (portfolioValue != null && initialCash > 0) {
-            return Math.max(0, (initialCash - portfolioValue) / initialCash);
-        }
-        return 0.0;
-    }
-    
     // ==================== Getter方法 ====================
     
     public boolean isTrading() {
@@ -269,7 +497,25 @@ public class LiveTradingEngine {
         return new HashMap<>(tradingStatus);
     }
     
+    /**
+     * 风险监控器（可通过 configure 调整限额）
+     */
+    public RiskMonitor getRiskMonitor() {
+        return riskMonitor;
+    }
+    
+    /**
+     * 设置策略状态快照文件：启动时存在则恢复，停止时写入
+     */
+    public void setSnapshotPath(Path snapshotPath) {
+        this.snapshotPath = snapshotPath;
+    }
+    
     public void setCheckInterval(int intervalSeconds) {
-        this.checkInterval = intervalSeconds;
+        this.checkIntervalMillis = intervalSeconds * 1000L;
+    }
+    
+    public void setCheckIntervalMillis(long intervalMillis) {
+        this.checkIntervalMillis = intervalMillis;
     }
 }
\ No newline at end of file
@@ -0,0 +1,179 @@
+package com.Quantitative.trading;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.Quantitative.BaseTest;
+import com.Quantitative.all.Test.MockDataFeed;
+import com.Quantitative.all.Test.TestDataGenerator;
+import com.Quantitative.core.events.BarEvent;
+import com.Quantitative.core.events.SignalEvent;
+import com.Quantitative.execution.SimulatedExecution;
+import com.Quantitative.portfolio.Portfolio;
+import com.Quantitative.portfolio.RiskManager;
+import com.Quantitative.strategy.base.BaseStrategy;
+
+/**
+ * 实时交易引擎测试 - 行情持续到达时热切换策略，风险限额超限时拒绝买入
+ */
+public class LiveTradingEngineTest extends BaseTest {
+
+	private static final int BARS = 400;
+
+	@Test
+	public void testSwapWhileBarsArriveFeedsEachBarOnce() throws Exception {
+		List<BarEvent> bars = TestDataGenerator.randomWalk("600519", LocalDateTime.of(2024, 1, 2, 15, 0), BARS, 50.0,
+				0.01, 9L);
+		Portfolio portfolio = new Portfolio(1_000_000);
+		LiveTradingEngine engine = new LiveTradingEngine(new MockDataFeed(bars), new SimulatedExecution(), portfolio,
+				new RiskManager());
+		engine.setCheckIntervalMillis(2);
+
+		RecordingStrategy first = new RecordingStrategy(0);
+		RecordingStrategy second = new RecordingStrategy(1);
+		engine.startTrading(first);
+		try {
+			awaitBars(first, 100);
+			// 预热比行情慢一半，预热期间会有新K线到达，需要多轮追赶
+			assertSame(first, engine.swapStrategy(second).get(10, TimeUnit.SECONDS));
+			awaitBars(second, BARS);
+		} finally {
+			engine.stopTrading();
+		}
+
+		// 新策略从头到尾每根K线恰好一次、按时间顺序
+		assertEquals(bars, second.seen());
+		// 旧策略收到的是同一序列的前缀，切换后不再收到K线
+		List<BarEvent> old = first.seen();
+		assertEquals(bars.subList(0, old.size()), old);
+		assertEquals("SHUTDOWN", first.getStatus());
+
+		// 后台预热时不挂投资组合，行情线程上补K线和实盘处理时挂实盘组合
+		assertTrue(second.warmed > 0);
+		for (int i = 0; i < BARS; i++) {
+			if (second.threads.get(i).equals("strategy-swap")) {
+				assertNull(second.portfolios.get(i));
+			} else {
+				assertSame(portfolio, second.portfolios.get(i));
+			}
+		}
+		assertEquals(1, engine.getTradingStatus().get("strategySwaps"));
+	}
+
+	@Test
+	public void testBreachedLimitBlocksBuys() throws Exception {
+		assertEquals(0, buysFilled(1e-6));
+		// 不设波动率限额时同样的买入信号会成交
+		assertEquals(1, buysFilled(0.0));
+	}
+
+	/**
+	 * 每根K线都发出买入信号，返回实际成交的买单数；maxVolatility 很小时第二根K线起波动率超限
+	 */
+	private static int buysFilled(double maxVolatility) throws Exception {
+		List<BarEvent> bars = TestDataGenerator.randomWalk("600519", LocalDateTime.of(2024, 1, 2, 15, 0), 20, 50.0,
+				0.01, 3L);
+		LiveTradingEngine engine = new LiveTradingEngine(new MockDataFeed(bars), new SimulatedExecution(),
+				new Portfolio(1_000_000), new RiskManager());
+		engine.setCheckIntervalMillis(2);
+		engine.getRiskMonitor().configure(Collections.<String, Object>singletonMap("maxVolatility", maxVolatility));
+
+		BuyEveryBarStrategy strategy = new BuyEveryBarStrategy(2);
+		engine.startTrading(strategy);
+		try {
+			long deadline = System.currentTimeMillis() + 10_000;
+			while (strategy.bars < bars.size() && System.currentTimeMillis() < deadline) {
+				Thread.sleep(5);
+			}
+			assertEquals(bars.size(), strategy.bars);
+		} finally {
+			engine.stopTrading();
+		}
+		Object executed = engine.getTradingStatus().get("executedOrders");
+		return executed != null ? (Integer) executed : 0;
+	}
+
+	private static void awaitBars(RecordingStrategy strategy, int count) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 10_000;
+		while (strategy.seen().size() < count && System.currentTimeMillis() < deadline) {
+			Thread.sleep(5);
+		}
+		assertTrue("超时: " + strategy.seen().size() + "/" + count, strategy.seen().size() >= count);
+	}
+
+	/**
+	 * 从第 firstBuy 根K线起每根K线都发出买入信号
+	 */
+	private static final class BuyEveryBarStrategy extends BaseStrategy {
+		private final int firstBuy;
+		volatile int bars;
+
+		BuyEveryBarStrategy(int firstBuy) {
+			super("BuyEveryBar");
+			this.firstBuy = firstBuy;
+		}
+
+		@Override
+		protected void init() {
+		}
+
+		@Override
+		protected void calculateSignals(BarEvent bar, List<SignalEvent> signals) {
+			if (bars++ >= firstBuy) {
+				signals.add(new SignalEvent(bar.getTimestamp(), bar.getSymbol(), "BUY", 1.0, "BuyEveryBar"));
+			}
+		}
+	}
+
+	/**
+	 * 记录收到的每根K线、所在线程和当时挂接的投资组合；后台预热时每根K线额外耗时 warmUpMillis
+	 */
+	private static final class RecordingStrategy extends BaseStrategy {
+		private final List<BarEvent> bars = Collections.synchronizedList(new ArrayList<BarEvent>());
+		final List<String> threads = Collections.synchronizedList(new ArrayList<String>());
+		final List<Portfolio> portfolios = Collections.synchronizedList(new ArrayList<Portfolio>());
+		private final long warmUpMillis;
+		volatile int warmed;
+
+		RecordingStrategy(long warmUpMillis) {
+			super("Recording");
+			this.warmUpMillis = warmUpMillis;
+		}
+
+		List<BarEvent> seen() {
+			synchronized (bars) {
+				return new ArrayList<>(bars);
+			}
+		}
+
+		@Override
+		protected void init() {
+		}
+
+		@Override
+		protected void calculateSignals(BarEvent bar, List<SignalEvent> signals) {
+			String thread = Thread.currentThread().getName();
+			if (thread.equals("strategy-swap")) {
+				warmed++;
+				try {
+					Thread.sleep(warmUpMillis);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			threads.add(thread);
+			portfolios.add(getPortfolio());
+			bars.add(bar);
+		}
+	}
+}